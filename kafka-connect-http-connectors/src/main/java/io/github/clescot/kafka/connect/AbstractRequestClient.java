@@ -2,6 +2,7 @@ package io.github.clescot.kafka.connect;
 
 import dev.failsafe.RateLimiter;
 import io.github.clescot.kafka.connect.http.core.Request;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +16,7 @@ import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.*;
 public abstract class AbstractRequestClient<R extends Request,NR,E> implements RequestClient<R,NR,E>{
     public static final Logger LOGGER = LoggerFactory.getLogger(AbstractRequestClient.class);
     private Optional<RateLimiter<E>> rateLimiter = Optional.empty();
+    private Optional<Timer> permitWaitTimer = Optional.empty();
     protected Map<String, String> config;
     protected String configurationId;
 
@@ -33,6 +35,16 @@ public abstract class AbstractRequestClient<R extends Request,NR,E> implements R
         return this.rateLimiter;
     }
 
+    @Override
+    public void setPermitWaitTimer(Timer permitWaitTimer) {
+        this.permitWaitTimer = Optional.ofNullable(permitWaitTimer);
+    }
+
+    @Override
+    public Optional<Timer> getPermitWaitTimer() {
+        return this.permitWaitTimer;
+    }
+
     public Map<String, String> getConfig() {
         return config;
     }
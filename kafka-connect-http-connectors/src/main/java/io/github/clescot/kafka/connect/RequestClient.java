@@ -8,6 +8,7 @@ import dev.failsafe.RateLimiter;
 import dev.failsafe.RateLimiterConfig;
 import io.github.clescot.kafka.connect.http.client.RetryException;
 import io.github.clescot.kafka.connect.http.core.Request;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +17,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.*;
@@ -29,9 +31,12 @@ import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.RAT
 @SuppressWarnings("java:S119")
 public interface RequestClient<R extends Request,NR,E> extends Client<E>{
     String STATIC_SCOPE = "static";
+    //rate limit shared by all the tasks of the connector : each task receives its share, and owns an instance rate limiter
+    String CLUSTER_SCOPE = "cluster";
     Map<String, RateLimiter> SHARED_RATE_LIMITERS = Maps.newHashMap();
     Logger LOGGER = LoggerFactory.getLogger(RequestClient.class);
     int ONE_REQUEST = 1;
+    String RATE_LIMITER_PERMIT_WAIT_METER = "http.rate.limiter.permit.wait";
     /**
      * convert an Request into a native request.
      *
@@ -58,28 +63,37 @@ public interface RequestClient<R extends Request,NR,E> extends Client<E>{
 
     String getPermitsPerExecution();
 
+    void setPermitWaitTimer(Timer permitWaitTimer);
 
+    /**
+     * @return the timer recording the time waited for rate limiter permits, if metrics are bound.
+     */
+    Optional<Timer> getPermitWaitTimer();
 
-
-    default Stopwatch rateLimitCall(R request) throws InterruptedException {
+    /**
+     * acquire the rate limiter permits of the request, without blocking the calling thread.
+     * if the permits are not available, they are reserved, and the returned future completes when they are.
+     * @param request request to rate limit
+     * @return a future of the stopwatch started before the permits acquisition, or of null if no rate limiter is configured.
+     */
+    default CompletableFuture<Stopwatch> rateLimitCall(R request) {
         Optional<RateLimiter<E>> limiter = getRateLimiter();
-        Stopwatch rateLimitedStopWatch = null;
-        if (limiter.isPresent()) {
-            rateLimitedStopWatch = Stopwatch.createStarted();
-            RateLimiter<E> httpExchangeRateLimiter = limiter.get();
-            String permitsPerExecution = getPermitsPerExecution();
-            if (RATE_LIMITER_REQUEST_LENGTH_PER_CALL.equals(permitsPerExecution)) {
-                long length = request.getLength();
-                httpExchangeRateLimiter.acquirePermits(Math.toIntExact(length));
-                LOGGER.warn("{} permits acquired for request:'{}'", length, request);
-            } else {
-                httpExchangeRateLimiter.acquirePermits(ONE_REQUEST);
-                LOGGER.warn("1 permit acquired for request:'{}'", request);
-            }
-        } else {
+        if (limiter.isEmpty()) {
             LOGGER.trace("no rate limiter is configured");
+            return CompletableFuture.completedFuture(null);
+        }
+        Stopwatch rateLimitedStopWatch = Stopwatch.createStarted();
+        RateLimiter<E> httpExchangeRateLimiter = limiter.get();
+        int permits = RATE_LIMITER_REQUEST_LENGTH_PER_CALL.equals(getPermitsPerExecution()) ? Math.toIntExact(request.getLength()) : ONE_REQUEST;
+        Optional<Timer> permitWaitTimer = getPermitWaitTimer();
+        if (httpExchangeRateLimiter.tryAcquirePermits(permits)) {
+            permitWaitTimer.ifPresent(timer -> timer.record(Duration.ZERO));
+            return CompletableFuture.completedFuture(rateLimitedStopWatch);
         }
-        return rateLimitedStopWatch;
+        Duration waitTime = httpExchangeRateLimiter.reservePermits(permits);
+        permitWaitTimer.ifPresent(timer -> timer.record(waitTime));
+        LOGGER.trace("{} permits reserved for request:'{}', available in '{}' ms", permits, request, waitTime.toMillis());
+        return CompletableFuture.supplyAsync(() -> rateLimitedStopWatch, CompletableFuture.delayedExecutor(waitTime.toNanos(), TimeUnit.NANOSECONDS));
     }
 
     default RateLimiter<E> buildRateLimiter(Map<String, String> configMap, String configurationId) {
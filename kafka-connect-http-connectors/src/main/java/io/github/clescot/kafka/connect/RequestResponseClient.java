@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A client that can handle both request and response.
@@ -57,24 +58,29 @@ public interface RequestResponseClient<R extends Request, NR, S extends Response
         NR nativeRequest = buildNativeRequest(request);
         LOGGER.debug("native request: {}", nativeRequest);
         OffsetDateTime now = OffsetDateTime.now(ZoneId.of(UTC_ZONE_ID));
-        CompletableFuture<NS> nativeResponse;
-        try {
-
-            Stopwatch rateLimitedStopWatch = rateLimitCall(request);
+        //the call is scheduled when rate limiter permits are available, without blocking the calling thread
+        AtomicReference<CompletableFuture<NS>> nativeResponseReference = new AtomicReference<>();
+        CompletableFuture<E> exchange = rateLimitCall(request).thenCompose(rateLimitedStopWatch -> {
             Stopwatch directStopWatch = Stopwatch.createStarted();
 
             //real call is executed here
-            nativeResponse = nativeCall(nativeRequest);
+            CompletableFuture<NS> nativeResponse = nativeCall(nativeRequest);
 
             Preconditions.checkNotNull(nativeResponse, "response is null");
+            nativeResponseReference.set(nativeResponse);
 
             return nativeResponse.thenApply(this::buildResponse)
                     .thenApply(myResponse ->addTimings(request, attempts, myResponse, directStopWatch, rateLimitedStopWatch, nativeRequest, nativeResponse, now))
                     .exceptionally((throwable -> getErrorResponse(request, attempts, throwable, rateLimitedStopWatch, now)));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IllegalStateException(e);
-        }
+        });
+        //cancelling the exchange (i.e. when a hedged request loses) cancels the native call
+        exchange.whenComplete((result, throwable) -> {
+            CompletableFuture<NS> nativeResponse = nativeResponseReference.get();
+            if (exchange.isCancelled() && nativeResponse != null) {
+                nativeResponse.cancel(true);
+            }
+        });
+        return exchange;
     }
 
     private E addTimings(R request, AtomicInteger attempts, S myResponse, Stopwatch directStopWatch, Stopwatch rateLimitedStopWatch, NR nativeRequest, CompletableFuture<NS> nativeResponse, OffsetDateTime now) {
@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import dev.failsafe.RetryPolicy;
 import io.github.clescot.kafka.connect.http.client.RetryException;
 import io.github.clescot.kafka.connect.http.core.Request;
+import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.NotNull;
 
 import java.time.Duration;
@@ -36,10 +37,11 @@ public interface RequestTask<C extends Client<E>,F extends Configuration<C,R>,R
 
     /**
      * Returns a map of user-specific configurations.
-     * The key is a combination of user ID and configuration ID.
+     * The key is a pair of user ID and configuration ID.
+     * The map can be accessed concurrently.
      * @return a map of user-specific configurations
      */
-    Map<String,F> getUserConfigurations();
+    Map<Pair<String,String>,F> getUserConfigurations();
 
 
     /**
@@ -66,21 +68,24 @@ public interface RequestTask<C extends Client<E>,F extends Configuration<C,R>,R
         Preconditions.checkArgument(!configurations.isEmpty(), "Configurations list must not be null or empty.");
         String vuId = Optional.ofNullable(request.getAttributes().get(VU_ID).toString()).orElse(Request.DEFAULT_VU_ID);
         //is there a matching configuration against the request ?
+        F matchingConfiguration = findMatchingConfiguration(request);
+        return getUserConfigurations().computeIfAbsent(
+                Pair.of(vuId, matchingConfiguration.getId()),
+                key -> getConfigurationForUser(vuId, matchingConfiguration));
+    }
+
+    /**
+     * Finds the first configuration matching the request, or the default configuration.
+     * By default, each configuration predicate is evaluated in turn.
+     * @param request the request to match against configurations
+     * @return the matching configuration, not customized for the user
+     */
+    default F findMatchingConfiguration(R request) {
         F configuration = getDefaultConfiguration();
-        F matchingConfiguration = configurations
+        return getConfigurations()
                 .values().stream()
                 .filter(config -> config.matches(request))
                 .findFirst().orElse(configuration);//default configuration
-        String configurationId = matchingConfiguration.getId();
-        String configurationForUserId = vuId+"-"+configurationId;
-        F configurationForUser;
-        if(getUserConfigurations().containsKey(configurationForUserId)){
-            configurationForUser = getUserConfigurations().get(configurationForUserId);
-        }else{
-            configurationForUser = getConfigurationForUser(vuId, matchingConfiguration);
-            getUserConfigurations().put(configurationForUserId, configurationForUser);
-        }
-        return configurationForUser;
     }
 
     default RetryPolicy<E> buildRetryPolicy(Map<String,String> settings){
@@ -112,6 +117,9 @@ public interface RequestTask<C extends Client<E>,F extends Configuration<C,R>,R
                 //we retry only if the error comes from the WS server (server-side technical error)
                 .handle(RetryException.class)
                 .withBackoff(Duration.ofMillis(retryDelayInMs), Duration.ofMillis(retryMaxDelayInMs), retryDelayFactor)
+                //a Retry-After delay sent by the server replaces the backoff delay.
+                //the next attempt is scheduled : no thread is blocked while waiting
+                .withDelayFnOn(context -> ((RetryException) context.getLastException()).getRetryAfterDelay(), RetryException.class)
                 .withJitter(Duration.ofMillis(retryJitterInMs))
                 .withMaxRetries(retries)
                 .onAbort(listener -> LOGGER.warn("Retry  aborted after elapsed attempt time:'{}' attempts:'{}',result:'{}', failure:'{}'", listener.getElapsedAttemptTime(), listener.getAttemptCount(), listener.getResult(), listener.getException()))
@@ -1,23 +1,37 @@
 package io.github.clescot.kafka.connect.http;
 
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dev.failsafe.RetryPolicy;
 import io.github.clescot.kafka.connect.RequestTask;
+import io.github.clescot.kafka.connect.http.client.ExecutorMode;
 import io.github.clescot.kafka.connect.http.client.HttpClient;
 import io.github.clescot.kafka.connect.http.client.HttpClientFactory;
 import io.github.clescot.kafka.connect.http.client.HttpConfiguration;
+import io.github.clescot.kafka.connect.http.client.HttpConfigurationRouter;
 import io.github.clescot.kafka.connect.http.core.HttpExchange;
 import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import io.github.clescot.kafka.connect.http.core.HttpResponse;
 import io.github.clescot.kafka.connect.http.sink.HttpConnectorConfig;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.search.Search;
 import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
@@ -28,8 +42,11 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static io.github.clescot.kafka.connect.http.client.HttpClientFactory.buildConfigurations;
@@ -53,30 +70,53 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
 
 
     private final Map<String,HttpConfiguration<C, NR, NS>> configurations;
+    private final HttpConfigurationRouter<HttpConfiguration<C, NR, NS>> configurationRouter;
     private final RetryPolicy<HttpExchange> retryPolicy;
-    private final Map<String,HttpConfiguration<C, NR, NS>> userConfigurations = Maps.newHashMap();
+    private final Cache<Pair<String,String>,HttpConfiguration<C, NR, NS>> userConfigurations;
     private static CompositeMeterRegistry meterRegistry;
+    //number of tasks using the shared meter registry
+    private static int meterRegistryUsers;
+    private final CompositeMeterRegistry taskMeterRegistry;
 
 
 
     private ExecutorService executorService;
+    //timers of the task (hedging delays, deadlines), stopped with the task
+    private final ScheduledThreadPoolExecutor scheduledExecutorService;
 
     private final List<RequestGrouper<T>> requestGroupers;
     private final Map<String, String> settings;
+    private final long drainTimeoutInMs;
     public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    public static final String USER_CONFIGURATIONS_CACHE_NAME = "http.user.configurations";
+    public static final String TASK_ID_TAG = "task.id";
+    private static final AtomicInteger TASK_IDS = new AtomicInteger();
+    //distinguish the meters of the tasks sharing the meter registry
+    private final String taskId = String.valueOf(TASK_IDS.incrementAndGet());
 
     public HttpTask(HttpConnectorConfig httpConnectorConfig,
                     HttpClientFactory<C, NR, NS> httpClientFactory) {
 
         //build executorService
-        Optional<Integer> customFixedThreadPoolSize = Optional.ofNullable(httpConnectorConfig.getInt(HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE));
-        customFixedThreadPoolSize.ifPresent(integer -> this.executorService = buildExecutorService(integer));
+        this.executorService = buildExecutorService(httpConnectorConfig.getExecutorMode(), httpConnectorConfig.getCustomFixedThreadpoolSize());
+        this.scheduledExecutorService = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("http-task-" + taskId + "-scheduler").setDaemon(true).build());
+        //timers of the exchanges completed before their deadline are cancelled : they are not kept until their delay elapses
+        this.scheduledExecutorService.setRemoveOnCancelPolicy(true);
 
         //build meterRegistry
         settings = httpConnectorConfig.originalsStrings();
-        meterRegistry = buildMeterRegistry(settings);
+        this.drainTimeoutInMs = httpConnectorConfig.getDrainTimeoutInMs();
+        this.taskMeterRegistry = acquireMeterRegistry(() -> buildMeterRegistry(settings));
         bindMetrics(settings,meterRegistry, executorService);
 
+        //per virtual user configurations
+        this.userConfigurations = buildUserConfigurationsCache(
+                httpConnectorConfig.getLong(USER_CONFIGURATIONS_CACHE_MAX_SIZE),
+                httpConnectorConfig.getLong(USER_CONFIGURATIONS_CACHE_EXPIRE_AFTER_ACCESS_IN_MS)
+        );
+        GuavaCacheMetrics.monitor(meterRegistry, userConfigurations, USER_CONFIGURATIONS_CACHE_NAME, Tags.of(TASK_ID_TAG, taskId));
+
         //request groupers
         RequestGrouperFactory requestGrouperFactory = new RequestGrouperFactory();
         this.requestGroupers = requestGrouperFactory.buildRequestGroupers(httpConnectorConfig, httpConnectorConfig.getList(REQUEST_GROUPER_IDS));
@@ -98,7 +138,9 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
                                 entry.getValue(),
                                 executorService,
                                 retryPolicy,
-                                settings)
+                                settings,
+                                meterRegistry,
+                                scheduledExecutorService)
                         )
                 )
                 .collect(
@@ -106,7 +148,12 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
                                 Map.Entry::getKey,
                                 Map.Entry::getValue)
                 );
-
+        //route requests to configurations
+        this.configurationRouter = new HttpConfigurationRouter<>(
+                this.configurations.values(),
+                getDefaultConfiguration(),
+                httpConnectorConfig.getInt(CONFIGURATION_ROUTER_URL_CACHE_SIZE)
+        );
     }
 
     public HttpConfiguration<C, NR, NS> getConfiguration(@NotNull HttpRequest httpRequest){
@@ -115,12 +162,12 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
 
     public boolean isClosed(@NotNull HttpRequest httpRequest){
         HttpConfiguration<C, NR, NS> foundConfiguration = selectConfiguration(httpRequest);
-        return foundConfiguration.isClosed();
+        return foundConfiguration.isClosed(httpRequest);
     }
 
     public Instant getNextRetryInstant(@NotNull HttpRequest httpRequest){
         HttpConfiguration<C, NR, NS> foundConfiguration = selectConfiguration(httpRequest);
-        return foundConfiguration.getNextRetryInstant();
+        return foundConfiguration.getNextRetryInstant(httpRequest);
     }
 
     /**
@@ -134,7 +181,7 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("configuration found:{}", foundConfiguration.getId());
         }
-        if(foundConfiguration.isClosed()) {
+        if(foundConfiguration.isClosed(httpRequest)) {
             //handle Request and Response
             return foundConfiguration.call(httpRequest)
                     .thenApply(
@@ -145,10 +192,12 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
                     );
         }else {
             AtomicInteger attempts = new AtomicInteger();
-            LOGGER.warn("configuration is not enabled. will be closed (i.e available) at {}",DATE_TIME_FORMATTER.format(foundConfiguration.getNextRetryInstant()));
+            //the circuit breaker may have been half-opened in the meantime
+            String openedUntil = DATE_TIME_FORMATTER.format(MoreObjects.firstNonNull(foundConfiguration.getNextRetryInstant(httpRequest), Instant.now()));
+            LOGGER.warn("configuration is not enabled. will be closed (i.e available) at {}",openedUntil);
             HttpExchange httpExchange = foundConfiguration.getClient().buildExchange(
                     httpRequest,
-                    new HttpResponse(HttpClient.SERVER_ERROR_STATUS_CODE, "configuration is disabled until " + DATE_TIME_FORMATTER.format(foundConfiguration.getNextRetryInstant())),
+                    new HttpResponse(HttpClient.SERVER_ERROR_STATUS_CODE, "configuration is disabled until " + openedUntil),
                     Stopwatch.createUnstarted(),
                     OffsetDateTime.now(ZoneId.of(HttpClient.UTC_ZONE_ID)),
                     attempts,
@@ -159,8 +208,56 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
     }
 
     @Override
-    public Map<String, HttpConfiguration<C, NR, NS>> getUserConfigurations() {
-        return userConfigurations;
+    public HttpConfiguration<C, NR, NS> findMatchingConfiguration(HttpRequest httpRequest) {
+        return configurationRouter.route(httpRequest);
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    protected ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    protected ScheduledExecutorService getScheduledExecutorService() {
+        return scheduledExecutorService;
+    }
+
+    @Override
+    public Map<Pair<String,String>, HttpConfiguration<C, NR, NS>> getUserConfigurations() {
+        return userConfigurations.asMap();
+    }
+
+    /**
+     * @param maxSize              max number of configurations customized per user
+     * @param expireAfterAccessInMs duration after which an unused configuration is evicted. 0 disables the expiration.
+     * @return a concurrent and bounded cache, keyed by a pair of user ID and configuration ID
+     */
+    private Cache<Pair<String,String>,HttpConfiguration<C, NR, NS>> buildUserConfigurationsCache(long maxSize, long expireAfterAccessInMs) {
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats();
+        if (expireAfterAccessInMs > 0) {
+            cacheBuilder.expireAfterAccess(Duration.ofMillis(expireAfterAccessInMs));
+        }
+        return cacheBuilder.<Pair<String,String>,HttpConfiguration<C, NR, NS>>removalListener(this::onUserConfigurationRemoval).build();
+    }
+
+    /**
+     * release the client customized for the user (and its cookies), when its configuration is evicted.
+     * @param notification removal notification
+     */
+    private void onUserConfigurationRemoval(RemovalNotification<Pair<String,String>, HttpConfiguration<C, NR, NS>> notification) {
+        Pair<String, String> key = notification.getKey();
+        if (key == null || notification.getCause() == RemovalCause.REPLACED) {
+            return;
+        }
+        LOGGER.debug("configuration '{}' for user '{}' removed : {}", key.getRight(), key.getLeft(), notification.getCause());
+        HttpConfiguration<C, NR, NS> configuration = configurations.get(key.getRight());
+        if (configuration != null) {
+            configuration.getClient().removeUser(key.getLeft());
+        }
     }
 
     @Override
@@ -188,17 +285,72 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
         return HttpTask.meterRegistry;
     }
 
-    public static void removeCompositeMeterRegistry() {
+    public static synchronized void removeCompositeMeterRegistry() {
         HttpTask.meterRegistry = null;
+        HttpTask.meterRegistryUsers = 0;
     }
 
+    /**
+     * the meter registry is shared by the tasks of the worker : it is built by the first task, and closed by the last one.
+     * @param meterRegistrySupplier builds the registry, if no task uses it yet
+     * @return the shared registry
+     */
+    private static synchronized CompositeMeterRegistry acquireMeterRegistry(Supplier<CompositeMeterRegistry> meterRegistrySupplier) {
+        if (meterRegistry == null) {
+            meterRegistry = meterRegistrySupplier.get();
+            meterRegistryUsers = 0;
+        }
+        meterRegistryUsers++;
+        return meterRegistry;
+    }
 
     /**
-     * @param customFixedThreadPoolSize max thread pool size for the executorService.
-     * @return executorService
+     * close the shared meter registry (and stop its prometheus server) if the task is its last user.
+     * @param taskMeterRegistry registry acquired by the task
      */
-    private ExecutorService buildExecutorService(Integer customFixedThreadPoolSize) {
-        return Executors.newFixedThreadPool(customFixedThreadPoolSize);
+    private static synchronized void releaseMeterRegistry(CompositeMeterRegistry taskMeterRegistry) {
+        if (taskMeterRegistry == null || taskMeterRegistry != meterRegistry) {
+            //the registry has been cleared in the meantime
+            return;
+        }
+        meterRegistryUsers--;
+        if (meterRegistryUsers <= 0) {
+            MeterRegistryFactory.close(meterRegistry);
+            meterRegistry = null;
+            meterRegistryUsers = 0;
+        }
+    }
+
+
+    /**
+     * @param executorMode kind of executor
+     * @param customFixedThreadPoolSize max thread pool size for the executorService, in the FIXED mode.
+     * @return executorService, or null if the FIXED mode has no thread pool size.
+     */
+    static ExecutorService buildExecutorService(ExecutorMode executorMode, Integer customFixedThreadPoolSize) {
+        if (ExecutorMode.VIRTUAL.equals(executorMode)) {
+            Optional<ExecutorService> virtualThreadExecutorService = buildVirtualThreadExecutorService();
+            if (virtualThreadExecutorService.isPresent()) {
+                LOGGER.info("HTTP requests are executed with a virtual thread per task");
+                return virtualThreadExecutorService.get();
+            }
+            LOGGER.warn("virtual threads are not supported by the Java runtime '{}' : falling back to the '{}' executor mode", Runtime.version(), ExecutorMode.FIXED);
+        }
+        return customFixedThreadPoolSize != null ? Executors.newFixedThreadPool(customFixedThreadPoolSize) : null;
+    }
+
+    /**
+     * virtual threads are available since Java 21, whereas the connector is built for Java 17 : the factory method is resolved at runtime.
+     * @return an executor starting a new virtual thread for each task, or an empty Optional if the runtime does not support it.
+     */
+    private static Optional<ExecutorService> buildVirtualThreadExecutorService() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) method.invoke(null));
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            //method is missing, or virtual threads are a disabled preview feature
+            return Optional.empty();
+        }
     }
 
     /**
@@ -222,29 +374,54 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
 
     public static synchronized void clearMeterRegistry() {
         meterRegistry = null;
+        meterRegistryUsers = 0;
     }
 
 
+    /**
+     * stop the task, with the drain timeout as deadline.
+     * @see #stop(long)
+     */
     public void stop() {
+        stop(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutInMs));
+    }
+
+    /**
+     * stop the task : in flight HTTP exchanges are expected to be drained by the caller.
+     * the calls still in flight are cancelled, clients resources (connections, cache) are released,
+     * the executor is shutdown, and the shared meter registry is closed if no other task uses it.
+     * @param deadlineInNanos {@link System#nanoTime()} value after which the executor tasks are interrupted.
+     *                        the caller shares it with its own shutdown phases, so that the drain timeout is not spent several times.
+     */
+    public void stop(long deadlineInNanos) {
+        userConfigurations.invalidateAll();
+        //cache meters are named 'cache.*', and tagged with the cache name
+        Search.in(taskMeterRegistry).tags("cache", USER_CONFIGURATIONS_CACHE_NAME, TASK_ID_TAG, taskId).meters().forEach(taskMeterRegistry::remove);
+        for (HttpConfiguration<C, NR, NS> configuration : getConfigurations().values()) {
+            configuration.getClient().close();
+        }
+        //pending timers are useless once the calls are cancelled
+        scheduledExecutorService.shutdownNow();
         if (executorService != null) {
             if (!executorService.isShutdown()) {
                 executorService.shutdown();
             }
             try {
-                boolean awaitTermination = executorService.awaitTermination(30, TimeUnit.SECONDS);
+                long remainingInNanos = deadlineInNanos - System.nanoTime();
+                boolean awaitTermination = remainingInNanos > 0 && executorService.awaitTermination(remainingInNanos, TimeUnit.NANOSECONDS);
                 if (!awaitTermination) {
-                    LOGGER.warn("timeout elapsed before executor termination");
+                    LOGGER.warn("drain timeout of '{}' ms elapsed before executor termination. remaining tasks are interrupted", drainTimeoutInMs);
+                    executorService.shutdownNow();
                 }
             } catch (InterruptedException e) {
+                executorService.shutdownNow();
                 Thread.currentThread().interrupt();
                 throw new IllegalStateException(e);
             }
             LOGGER.info("executor is shutdown : '{}'", executorService.isShutdown());
             LOGGER.info("executor tasks are terminated : '{}'", executorService.isTerminated());
         }
-        if (meterRegistry != null) {
-            meterRegistry.close();
-        }
+        releaseMeterRegistry(taskMeterRegistry);
         LOGGER.info("HttpTask stopped");
     }
 
@@ -280,7 +457,7 @@ public class HttpTask<T,C extends HttpClient<NR, NS>, NR, NS> implements Request
         return "HttpTask{" +
                 "configurations=" + configurations +
                 ", retryPolicy=" + retryPolicyToString() +
-                ", userConfigurations=" + userConfigurations +
+                ", userConfigurations=" + userConfigurations.asMap() +
                 ", executorService=" + executorService +
                 ", requestGroupers=" + requestGroupers +
                 ", settings=" + settings +
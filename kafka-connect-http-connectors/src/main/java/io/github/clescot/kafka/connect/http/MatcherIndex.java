@@ -0,0 +1,243 @@
+package io.github.clescot.kafka.connect.http;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Schema;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * MatcherIndex finds the first element of an ordered list (HttpRequestMapper, MessageSplitter...) matching a record,
+ * without evaluating each JEXL matching expression in turn.
+ * Matching expressions are analysed once, when the index is built :
+ * <ul>
+ *     <li>'true' always matches,</li>
+ *     <li>equalities (optionally joined with '&amp;&amp;') on record invariants,
+ *     i.e. 'sinkRecord.topic()', 'sinkRecord.kafkaPartition()' and 'sinkRecord.valueSchema().name()',
+ *     are indexed by topic and checked without JEXL,</li>
+ *     <li>any other expression is evaluated with JEXL, as a fallback.</li>
+ * </ul>
+ * The first matching element in the list order is returned, as with a sequential evaluation.
+ * @param <M> type of the elements
+ * @param <R> type of the records
+ */
+public class MatcherIndex<M, R extends ConnectRecord<?>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MatcherIndex.class);
+    private static final String LITERAL = "(?:'([^'\\\\]*)'|\"([^\"\\\\]*)\")";
+    private static final String EQUALS = "\\s*(?:==|eq)\\s*";
+    private static final String TOPIC = "sinkRecord\\.topic\\(\\)";
+    private static final String PARTITION = "sinkRecord\\.kafkaPartition\\(\\)";
+    private static final String SCHEMA_NAME = "sinkRecord\\.valueSchema\\(\\)\\.name\\(\\)";
+    private static final Pattern TOPIC_PATTERN = Pattern.compile(TOPIC + EQUALS + LITERAL + "|" + LITERAL + EQUALS + TOPIC);
+    private static final Pattern PARTITION_PATTERN = Pattern.compile(PARTITION + EQUALS + "(\\d+)|(\\d+)" + EQUALS + PARTITION);
+    private static final Pattern SCHEMA_NAME_PATTERN = Pattern.compile(SCHEMA_NAME + EQUALS + LITERAL + "|" + LITERAL + EQUALS + SCHEMA_NAME);
+    private static final String ALWAYS_MATCHES = "true";
+
+    private final List<M> elements;
+    private final List<StaticPredicate> staticPredicates;
+    private final BiPredicate<M, R> fallback;
+    //indexes of elements which can match whatever the topic is
+    private final int[] topicIndependentCandidates;
+    //indexes of elements bound to a topic
+    private final Map<String, List<Integer>> candidatesByTopic = Maps.newHashMap();
+    //merged (ordered) candidates per topic
+    private final Map<String, int[]> candidatesCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param elements           ordered elements
+     * @param expressionFunction source of the JEXL matching expression of an element (can be null, to always use the fallback)
+     * @param fallback           JEXL evaluation of the matching expression
+     */
+    public MatcherIndex(List<M> elements, Function<M, String> expressionFunction, BiPredicate<M, R> fallback) {
+        Preconditions.checkNotNull(elements, "elements are required");
+        Preconditions.checkNotNull(fallback, "fallback is required");
+        this.elements = Lists.newArrayList(elements);
+        this.fallback = fallback;
+        this.staticPredicates = Lists.newArrayListWithCapacity(elements.size());
+        List<Integer> topicIndependent = Lists.newArrayList();
+        for (int i = 0; i < this.elements.size(); i++) {
+            StaticPredicate staticPredicate = analyse(expressionFunction.apply(this.elements.get(i)));
+            LOGGER.debug("matching expression of element '{}' analysed as '{}'", i, staticPredicate);
+            staticPredicates.add(staticPredicate);
+            if (staticPredicate != null && staticPredicate.topic != null) {
+                candidatesByTopic.computeIfAbsent(staticPredicate.topic, topic -> Lists.newArrayList()).add(i);
+            } else {
+                topicIndependent.add(i);
+            }
+        }
+        this.topicIndependentCandidates = topicIndependent.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param connectRecord record to match
+     * @return the first matching element, or null if none matches.
+     */
+    public @Nullable M findFirst(R connectRecord) {
+        if (elements.isEmpty()) {
+            return null;
+        }
+        int[] candidates = getCandidates(connectRecord.topic());
+        for (int index : candidates) {
+            M element = elements.get(index);
+            StaticPredicate staticPredicate = staticPredicates.get(index);
+            boolean matches = staticPredicate != null ? staticPredicate.test(connectRecord) : fallback.test(element, connectRecord);
+            if (matches) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private int[] getCandidates(String topic) {
+        if (candidatesByTopic.isEmpty() || topic == null) {
+            return topicIndependentCandidates;
+        }
+        return candidatesCache.computeIfAbsent(topic, myTopic -> {
+            List<Integer> topicCandidates = candidatesByTopic.get(myTopic);
+            if (topicCandidates == null) {
+                return topicIndependentCandidates;
+            }
+            return IntStream.concat(
+                            Arrays.stream(topicIndependentCandidates),
+                            topicCandidates.stream().mapToInt(Integer::intValue))
+                    .sorted()
+                    .toArray();
+        });
+    }
+
+    /**
+     * @param expression JEXL matching expression
+     * @return a predicate evaluable without JEXL, or null if the expression is not supported.
+     */
+    static @Nullable StaticPredicate analyse(@Nullable String expression) {
+        if (expression == null) {
+            return null;
+        }
+        String trimmed = stripParentheses(expression.trim());
+        if (ALWAYS_MATCHES.equals(trimmed)) {
+            return new StaticPredicate(null, null, null);
+        }
+        String topic = null;
+        Integer partition = null;
+        String schemaName = null;
+        for (String clause : trimmed.split("&&")) {
+            String myClause = stripParentheses(clause.trim());
+            Matcher topicMatcher = TOPIC_PATTERN.matcher(myClause);
+            Matcher partitionMatcher = PARTITION_PATTERN.matcher(myClause);
+            Matcher schemaNameMatcher = SCHEMA_NAME_PATTERN.matcher(myClause);
+            if (topic == null && topicMatcher.matches()) {
+                topic = firstNonNullGroup(topicMatcher);
+            } else if (partition == null && partitionMatcher.matches()) {
+                partition = Integer.parseInt(firstNonNullGroup(partitionMatcher));
+            } else if (schemaName == null && schemaNameMatcher.matches()) {
+                schemaName = firstNonNullGroup(schemaNameMatcher);
+            } else {
+                return null;
+            }
+        }
+        return new StaticPredicate(topic, partition, schemaName);
+    }
+
+    private static String stripParentheses(String expression) {
+        String result = expression;
+        while (result.startsWith("(") && result.endsWith(")") && closingParenthesisIndex(result) == result.length() - 1) {
+            result = result.substring(1, result.length() - 1).trim();
+        }
+        return result;
+    }
+
+    /**
+     * @param expression expression starting with an opening parenthesis
+     * @return index of the matching closing parenthesis, or -1.
+     */
+    private static int closingParenthesisIndex(String expression) {
+        int depth = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String firstNonNullGroup(Matcher matcher) {
+        for (int i = 1; i <= matcher.groupCount(); i++) {
+            if (matcher.group(i) != null) {
+                return matcher.group(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * conjunction of equalities on record invariants. a null field is not checked.
+     */
+    static final class StaticPredicate {
+        private final String topic;
+        private final Integer partition;
+        private final String schemaName;
+
+        StaticPredicate(String topic, Integer partition, String schemaName) {
+            this.topic = topic;
+            this.partition = partition;
+            this.schemaName = schemaName;
+        }
+
+        boolean test(ConnectRecord<?> connectRecord) {
+            if (topic != null && !topic.equals(connectRecord.topic())) {
+                return false;
+            }
+            if (partition != null && !partition.equals(connectRecord.kafkaPartition())) {
+                return false;
+            }
+            if (schemaName != null) {
+                Schema valueSchema = connectRecord.valueSchema();
+                return valueSchema != null && schemaName.equals(valueSchema.name());
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StaticPredicate)) return false;
+            StaticPredicate that = (StaticPredicate) o;
+            return Objects.equals(topic, that.topic) && Objects.equals(partition, that.partition) && Objects.equals(schemaName, that.schemaName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topic, partition, schemaName);
+        }
+
+        @Override
+        public String toString() {
+            return "StaticPredicate{" +
+                    "topic='" + topic + '\'' +
+                    ", partition=" + partition +
+                    ", schemaName='" + schemaName + '\'' +
+                    '}';
+        }
+    }
+}
@@ -55,6 +55,10 @@ public class MessageSplitter<T extends ConnectRecord<T>> {
         return splitPattern;
     }
 
+    public String getMatchingExpression() {
+        return jexlMatchingExpression.getSourceText();
+    }
+
     public boolean matches(T connectRecord) {
         // populate the context
         JexlContext context = new MapContext();
@@ -12,11 +12,14 @@ import io.prometheus.metrics.model.registry.PrometheusRegistry;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.*;
 
 public class MeterRegistryFactory {
 
+    //prometheus servers, to stop them when their registry is closed
+    private static final Map<CompositeMeterRegistry, HTTPServer> PROMETHEUS_SERVERS = new ConcurrentHashMap<>();
 
     public CompositeMeterRegistry buildMeterRegistry(Map<String, String> config) {
         CompositeMeterRegistry compositeMeterRegistry = new CompositeMeterRegistry();
@@ -35,10 +38,11 @@ public class MeterRegistryFactory {
             try {
                 int port = prometheusPort!=null?prometheusPort:9090;
                 PrometheusRegistry prometheusRegistry = prometheusMeterRegistry.getPrometheusRegistry();
-                HTTPServer.builder()
+                HTTPServer httpServer = HTTPServer.builder()
                         .port(port)
                         .registry(prometheusRegistry)
                         .buildAndStart();
+                PROMETHEUS_SERVERS.put(compositeMeterRegistry, httpServer);
             } catch (IOException e) {
                 throw new IllegalStateException(e);
             }
@@ -49,4 +53,16 @@ public class MeterRegistryFactory {
         }
         return compositeMeterRegistry;
     }
+
+    /**
+     * close the registry, and stop its prometheus server if any, to release the port.
+     * @param compositeMeterRegistry registry built by {@link #buildMeterRegistry(Map)}
+     */
+    public static void close(CompositeMeterRegistry compositeMeterRegistry) {
+        compositeMeterRegistry.close();
+        HTTPServer httpServer = PROMETHEUS_SERVERS.remove(compositeMeterRegistry);
+        if (httpServer != null) {
+            httpServer.stop();
+        }
+    }
 }
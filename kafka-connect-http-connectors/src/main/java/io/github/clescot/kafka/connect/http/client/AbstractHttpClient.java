@@ -37,9 +37,13 @@ public abstract class AbstractHttpClient<NR,NS> extends AbstractRequestClient<Ht
     private Integer statusMessageLimit;
     private Integer headersLimit;
     private Integer bodyLimit;
+    private final BodyTruncationPolicy bodyTruncationPolicy;
+    private final RequestBodyCompressor requestBodyCompressor;
+    private final FileReferenceGuard fileReferenceGuard;
     public static final String USER_AGENT_HTTP_CLIENT_DEFAULT_MODE = "http_client";
     public static final String USER_AGENT_PROJECT_MODE = "project";
     public static final String USER_AGENT_CUSTOM_MODE = "custom";
+    private final AddStaticHeadersToHttpRequestFunction addStaticHeadersFunction;
     private final Function<HttpRequest, HttpRequest> enrichRequestFunction;
     private final CookiePolicy cookiePolicy;
     //rate limiter
@@ -65,6 +69,10 @@ public abstract class AbstractHttpClient<NR,NS> extends AbstractRequestClient<Ht
         if(httpResponseBodyLimit>0) {
             setBodyLimit(httpResponseBodyLimit);
         }
+        this.bodyTruncationPolicy = BodyTruncationPolicy.valueOf(Optional.ofNullable(config.get(HTTP_RESPONSE_BODY_TRUNCATION_POLICY)).orElse(BodyTruncationPolicy.CLOSE.name()).toUpperCase());
+        this.requestBodyCompressor = RequestBodyCompressor.build(config).orElse(null);
+        this.fileReferenceGuard = FileReferenceGuard.build(config);
+        this.addStaticHeadersFunction = new AddStaticHeadersToHttpRequestFunction(buildStaticRequestHeaders(config));
         this.enrichRequestFunction = buildEnrichRequestFunction(config,random);
         this.random = random;
         String cookiePolicyAsString = Optional.ofNullable(config.get(HTTP_COOKIE_POLICY)).orElse(ACCEPT_ALL);
@@ -85,11 +93,14 @@ public abstract class AbstractHttpClient<NR,NS> extends AbstractRequestClient<Ht
         return enrichRequestFunction;
     }
 
-    private Function<HttpRequest,HttpRequest> buildEnrichRequestFunction(Map<String,String> settings, Random random) {
+    /**
+     * @return immutable static headers of the configuration, added to each request by the enrich request function.
+     */
+    public Map<String, List<String>> getStaticRequestHeaders() {
+        return addStaticHeadersFunction.getStaticHeaders();
+    }
 
-        //enrich request
-        List<Function<HttpRequest,HttpRequest>> enrichRequestFunctions = Lists.newArrayList();
-        //build addStaticHeadersFunction
+    private static Map<String, List<String>> buildStaticRequestHeaders(Map<String,String> settings) {
         Optional<String> staticHeaderParam = Optional.ofNullable(settings.get(STATIC_REQUEST_HEADER_NAMES));
         Map<String, List<String>> staticRequestHeaders = Maps.newHashMap();
         if (staticHeaderParam.isPresent()) {
@@ -102,15 +113,29 @@ public abstract class AbstractHttpClient<NR,NS> extends AbstractRequestClient<Ht
                 LOGGER.debug("static header {}:{}", headerName, values);
             }
         }
-        enrichRequestFunctions.add(new AddStaticHeadersToHttpRequestFunction(staticRequestHeaders));
+        return staticRequestHeaders;
+    }
+
+    private Function<HttpRequest,HttpRequest> buildEnrichRequestFunction(Map<String,String> settings, Random random) {
+
+        //enrich request : only the functions with something to do are chained
+        List<Function<HttpRequest,HttpRequest>> enrichRequestFunctions = Lists.newArrayList();
+        //addStaticHeadersFunction
+        if (!addStaticHeadersFunction.getStaticHeaders().isEmpty()) {
+            enrichRequestFunctions.add(addStaticHeadersFunction);
+        }
 
         //AddMissingRequestIdHeaderToHttpRequestFunction
         boolean generateMissingRequestId = Boolean.parseBoolean(settings.get(GENERATE_MISSING_REQUEST_ID));
-        enrichRequestFunctions.add( new AddMissingRequestIdHeaderToHttpRequestFunction(generateMissingRequestId));
+        if (generateMissingRequestId) {
+            enrichRequestFunctions.add(new AddMissingRequestIdHeaderToHttpRequestFunction(true));
+        }
 
         //AddMissingCorrelationIdHeaderToHttpRequestFunction
         boolean generateMissingCorrelationId = Boolean.parseBoolean(settings.get(GENERATE_MISSING_CORRELATION_ID));
-        enrichRequestFunctions.add(new AddMissingCorrelationIdHeaderToHttpRequestFunction(generateMissingCorrelationId));
+        if (generateMissingCorrelationId) {
+            enrichRequestFunctions.add(new AddMissingCorrelationIdHeaderToHttpRequestFunction(true));
+        }
 
         //activateUserAgentHeaderToHttpRequestFunction
         String activateUserAgentHeaderToHttpRequestFunction = settings.getOrDefault(USER_AGENT_OVERRIDE, USER_AGENT_HTTP_CLIENT_DEFAULT_MODE);
@@ -156,6 +181,22 @@ public abstract class AbstractHttpClient<NR,NS> extends AbstractRequestClient<Ht
         return bodyLimit;
     }
 
+    public BodyTruncationPolicy getBodyTruncationPolicy() {
+        return bodyTruncationPolicy;
+    }
+
+    @Override
+    public Optional<RequestBodyCompressor> getRequestBodyCompressor() {
+        return Optional.ofNullable(requestBodyCompressor);
+    }
+
+    /**
+     * @return the guard checking the files referenced as request bodies, when the native request is built.
+     */
+    public FileReferenceGuard getFileReferenceGuard() {
+        return fileReferenceGuard;
+    }
+
     @Override
     public void setBodyLimit(Integer bodyLimit) {
         this.bodyLimit = bodyLimit;
@@ -185,6 +226,16 @@ public abstract class AbstractHttpClient<NR,NS> extends AbstractRequestClient<Ht
         return this;
     }
 
+    @Override
+    public void removeUser(String vuId) {
+        //nothing is bound to the user
+    }
+
+    @Override
+    public void close() {
+        //nothing to release
+    }
+
     @Override
     public void setAddSuccessStatusToHttpExchangeFunction(Pattern pattern) {
         this.addSuccessStatusToHttpExchangeFunction = new AddSuccessStatusToHttpExchangeFunction(pattern);
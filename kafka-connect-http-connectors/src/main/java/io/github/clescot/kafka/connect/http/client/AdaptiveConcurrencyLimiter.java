@@ -0,0 +1,134 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AdaptiveConcurrencyLimiter limits the number of requests in flight of a configuration, with an AIMD algorithm :
+ * the limit is increased by one each time a limit worth of requests succeeds while the limit is used,
+ * and multiplied by a backoff ratio each time the server is overloaded (429 or 503 response, error, or latency above the threshold).
+ * Requests above the limit do not block the calling thread : they wait in a queue until a permit is released.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public static final String CONCURRENCY_LIMIT_METER = "http.concurrency.limit";
+    public static final String CONCURRENCY_IN_FLIGHT_METER = "http.concurrency.in.flight";
+    public static final String CONFIGURATION_ID_TAG = "configuration.id";
+    public static final int TOO_MANY_REQUESTS_STATUS_CODE = 429;
+    public static final int SERVICE_UNAVAILABLE_STATUS_CODE = 503;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdInMs;
+    private double limit;
+    private int inFlight;
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    /**
+     * @param initialLimit         initial number of requests in flight permitted
+     * @param minLimit             lowest limit
+     * @param maxLimit             highest limit
+     * @param backoffRatio         ratio applied to the limit when the server is overloaded
+     * @param latencyThresholdInMs latency above which the server is considered overloaded. 0 disables it.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdInMs) {
+        Preconditions.checkArgument(minLimit >= 1, "minLimit must be at least 1");
+        Preconditions.checkArgument(minLimit <= maxLimit, "minLimit must not be greater than maxLimit");
+        Preconditions.checkArgument(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1 (exclusive)");
+        Preconditions.checkArgument(latencyThresholdInMs >= 0, "latencyThresholdInMs must not be negative");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdInMs = latencyThresholdInMs;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+    }
+
+    /**
+     * @return a future completed when a permit is acquired. the permit must be released with {@link #release(boolean)}.
+     */
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * release a permit, and adjust the limit.
+     * @param statusCode   status code of the response
+     * @param latencyInMs  duration of the request
+     */
+    public void release(int statusCode, long latencyInMs) {
+        release(isOverloaded(statusCode, latencyInMs));
+    }
+
+    /**
+     * release a permit, and adjust the limit.
+     * @param overloaded true if the server is overloaded : the limit is decreased. otherwise, it is increased if it is used.
+     */
+    public void release(boolean overloaded) {
+        List<CompletableFuture<Void>> granted = Lists.newArrayList();
+        synchronized (this) {
+            if (overloaded) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlight * 2 >= limit) {
+                //the limit is only increased when it is used, so that it does not grow without load
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            inFlight--;
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                granted.add(waiters.poll());
+            }
+        }
+        //waiting requests are resumed outside the lock
+        granted.forEach(waiter -> waiter.complete(null));
+    }
+
+    boolean isOverloaded(int statusCode, long latencyInMs) {
+        return statusCode == TOO_MANY_REQUESTS_STATUS_CODE
+                || statusCode == SERVICE_UNAVAILABLE_STATUS_CODE
+                || (latencyThresholdInMs > 0 && latencyInMs > latencyThresholdInMs);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiters.size();
+    }
+
+    /**
+     * expose the current limit and the requests in flight as gauges.
+     * @param meterRegistry registry
+     * @param configurationId id of the configuration
+     */
+    public void bindTo(MeterRegistry meterRegistry, String configurationId) {
+        Gauge.builder(CONCURRENCY_LIMIT_METER, this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("current limit of requests in flight")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .register(meterRegistry);
+        Gauge.builder(CONCURRENCY_IN_FLIGHT_METER, this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("requests in flight")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .register(meterRegistry);
+    }
+}
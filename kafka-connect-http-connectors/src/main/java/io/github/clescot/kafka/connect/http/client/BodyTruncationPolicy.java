@@ -0,0 +1,16 @@
+package io.github.clescot.kafka.connect.http.client;
+
+/**
+ * what to do with the rest of a response body exceeding the body limit ('http.response.body.limit').
+ * in both cases, only the bytes up to the limit are kept in memory, and the response is flagged as truncated.
+ */
+public enum BodyTruncationPolicy {
+    /**
+     * stop reading the body, and close the connection : the rest of the body is not downloaded.
+     */
+    CLOSE,
+    /**
+     * read and discard the rest of the body, to reuse the connection.
+     */
+    DISCARD
+}
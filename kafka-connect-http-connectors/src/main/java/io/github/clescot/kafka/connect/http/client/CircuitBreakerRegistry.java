@@ -0,0 +1,236 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import dev.failsafe.CircuitBreaker;
+import dev.failsafe.FailsafeExecutor;
+import io.github.clescot.kafka.connect.http.core.HttpExchange;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.DEFAULT_CIRCUIT_BREAKER_MAX_ROUTES;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.DEFAULT_CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS;
+
+/**
+ * CircuitBreakerRegistry holds the circuit breakers of a configuration, keyed by route :
+ * the whole configuration, or the origin (scheme, host and port) of the request.
+ * Circuit breakers are created on the first call of their route, and their state is read without locking.
+ * Routes are bounded : the least recently used routes are evicted above the max routes, and idle routes expire,
+ * with their metrics. An evicted route starts again with a closed circuit breaker.
+ * The registry is shared by the configurations customized for each virtual user.
+ */
+public class CircuitBreakerRegistry {
+
+    public static final String CONFIGURATION_SCOPE = "configuration";
+    public static final String HOST_SCOPE = "host";
+    public static final String CIRCUIT_BREAKER_STATE_METER = "http.circuit.breaker.state";
+    public static final String CIRCUIT_BREAKER_FAILURE_RATE_METER = "http.circuit.breaker.failure.rate";
+    public static final String CONFIGURATION_ID_TAG = "configuration.id";
+    public static final String ROUTE_TAG = "route";
+
+    private final String configurationId;
+    private final boolean hostScope;
+    private final Supplier<CircuitBreaker<HttpExchange>> circuitBreakerFactory;
+    private final Function<CircuitBreaker<HttpExchange>, FailsafeExecutor<HttpExchange>> failsafeExecutorFactory;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Route> routes;
+
+    /**
+     * @param configurationId         id of the configuration
+     * @param scope                   'configuration' or 'host'
+     * @param circuitBreakerFactory   build a new circuit breaker
+     * @param failsafeExecutorFactory build the executor composing the retry policy and the circuit breaker
+     * @param meterRegistry           registry of the circuit breaker state metrics. can be null.
+     */
+    public CircuitBreakerRegistry(String configurationId,
+                                  String scope,
+                                  Supplier<CircuitBreaker<HttpExchange>> circuitBreakerFactory,
+                                  Function<CircuitBreaker<HttpExchange>, FailsafeExecutor<HttpExchange>> failsafeExecutorFactory,
+                                  @Nullable MeterRegistry meterRegistry) {
+        this(configurationId, scope, DEFAULT_CIRCUIT_BREAKER_MAX_ROUTES, DEFAULT_CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS, circuitBreakerFactory, failsafeExecutorFactory, meterRegistry);
+    }
+
+    /**
+     * @param configurationId            id of the configuration
+     * @param scope                      'configuration' or 'host'
+     * @param maxRoutes                  maximum number of routes : the least recently used routes are evicted above it.
+     * @param routeExpireAfterAccessInMs routes are evicted when they are not used during this delay.
+     * @param circuitBreakerFactory      build a new circuit breaker
+     * @param failsafeExecutorFactory    build the executor composing the retry policy and the circuit breaker
+     * @param meterRegistry              registry of the circuit breaker state metrics. can be null.
+     */
+    public CircuitBreakerRegistry(String configurationId,
+                                  String scope,
+                                  long maxRoutes,
+                                  long routeExpireAfterAccessInMs,
+                                  Supplier<CircuitBreaker<HttpExchange>> circuitBreakerFactory,
+                                  Function<CircuitBreaker<HttpExchange>, FailsafeExecutor<HttpExchange>> failsafeExecutorFactory,
+                                  @Nullable MeterRegistry meterRegistry) {
+        Preconditions.checkArgument(CONFIGURATION_SCOPE.equals(scope) || HOST_SCOPE.equals(scope), "circuit breaker scope must be '" + CONFIGURATION_SCOPE + "' or '" + HOST_SCOPE + "'");
+        Preconditions.checkArgument(maxRoutes >= 1, "maxRoutes must be at least 1");
+        Preconditions.checkArgument(routeExpireAfterAccessInMs > 0, "routeExpireAfterAccessInMs must be greater than 0");
+        this.configurationId = configurationId;
+        this.hostScope = HOST_SCOPE.equals(scope);
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.failsafeExecutorFactory = failsafeExecutorFactory;
+        this.meterRegistry = meterRegistry;
+        this.routes = CacheBuilder.newBuilder()
+                .maximumSize(maxRoutes)
+                .expireAfterAccess(routeExpireAfterAccessInMs, TimeUnit.MILLISECONDS)
+                .<String, Route>removalListener(this::onRouteRemoval)
+                .build();
+    }
+
+    /**
+     * @param httpRequest request to execute
+     * @return the executor protected by the circuit breaker of the request route, created if needed.
+     */
+    public FailsafeExecutor<HttpExchange> getFailsafeExecutor(@NotNull HttpRequest httpRequest) {
+        String routeKey = routeKey(httpRequest);
+        Route route = routes.getIfPresent(routeKey);
+        if (route == null) {
+            route = routes.asMap().computeIfAbsent(routeKey, this::buildRoute);
+        }
+        return route.failsafeExecutor();
+    }
+
+    /**
+     * @param httpRequest request to execute
+     * @return true if the circuit breaker of the request route is closed (i.e enabled), or can be half-opened.
+     */
+    public boolean isClosed(@NotNull HttpRequest httpRequest) {
+        Route route = routes.getIfPresent(routeKey(httpRequest));
+        return route == null || route.isClosed();
+    }
+
+    /**
+     * @return true if the circuit breakers of all the routes are closed, or can be half-opened.
+     */
+    public boolean isClosed() {
+        return routes.asMap().values().stream().allMatch(Route::isClosed);
+    }
+
+    /**
+     * @param httpRequest request to execute
+     * @return instant when the circuit breaker of the request route can be half-opened, or null if it is not open.
+     */
+    public Instant getNextRetryInstant(@NotNull HttpRequest httpRequest) {
+        Route route = routes.getIfPresent(routeKey(httpRequest));
+        return route != null ? route.getNextRetryInstant() : null;
+    }
+
+    /**
+     * @return the latest instant when an open circuit breaker can be half-opened, or null if none is open.
+     */
+    public Instant getNextRetryInstant() {
+        Instant nextRetryInstant = null;
+        for (Route route : routes.asMap().values()) {
+            Instant instant = route.getNextRetryInstant();
+            if (instant != null && (nextRetryInstant == null || instant.isAfter(nextRetryInstant))) {
+                nextRetryInstant = instant;
+            }
+        }
+        return nextRetryInstant;
+    }
+
+    String routeKey(HttpRequest httpRequest) {
+        if (!hostScope) {
+            return configurationId;
+        }
+        return origin(httpRequest.getUrl());
+    }
+
+    /**
+     * @param url url of the request
+     * @return the origin 'scheme://host:port' of the url, with the default port of the scheme if it is not set,
+     * or the url itself if it cannot be parsed.
+     */
+    static String origin(String url) {
+        try {
+            URI uri = URI.create(url);
+            String scheme = uri.getScheme();
+            String host = uri.getHost();
+            if (scheme == null || host == null) {
+                return url;
+            }
+            scheme = scheme.toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (port < 0) {
+                port = "https".equals(scheme) ? 443 : 80;
+            }
+            return scheme + "://" + host.toLowerCase(Locale.ROOT) + ":" + port;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * @return the number of routes with a circuit breaker.
+     */
+    public long getRoutesCount() {
+        //expired routes are evicted before counting
+        routes.cleanUp();
+        return routes.size();
+    }
+
+    private Route buildRoute(String routeKey) {
+        CircuitBreaker<HttpExchange> circuitBreaker = circuitBreakerFactory.get();
+        List<Meter> meters = List.of();
+        if (meterRegistry != null) {
+            meters = List.of(
+                    Gauge.builder(CIRCUIT_BREAKER_STATE_METER, circuitBreaker, cb -> cb.getState().ordinal())
+                            .description("circuit breaker state : 0 closed, 1 open, 2 half-open")
+                            .tag(CONFIGURATION_ID_TAG, configurationId)
+                            .tag(ROUTE_TAG, routeKey)
+                            .register(meterRegistry),
+                    Gauge.builder(CIRCUIT_BREAKER_FAILURE_RATE_METER, circuitBreaker, CircuitBreaker::getFailureRate)
+                            .description("percentage of failures in the sliding window of the circuit breaker")
+                            .tag(CONFIGURATION_ID_TAG, configurationId)
+                            .tag(ROUTE_TAG, routeKey)
+                            .register(meterRegistry)
+            );
+        }
+        return new Route(circuitBreaker, failsafeExecutorFactory.apply(circuitBreaker), meters);
+    }
+
+    /**
+     * remove the metrics of an evicted route.
+     * @param notification removal notification of the route
+     */
+    private void onRouteRemoval(RemovalNotification<String, Route> notification) {
+        Route route = notification.getValue();
+        if (meterRegistry != null && route != null) {
+            route.meters().forEach(meterRegistry::remove);
+        }
+    }
+
+    private record Route(CircuitBreaker<HttpExchange> circuitBreaker, FailsafeExecutor<HttpExchange> failsafeExecutor, List<Meter> meters) {
+
+        private boolean isClosed() {
+            return !circuitBreaker.isOpen() || circuitBreaker.getRemainingDelay().isZero();
+        }
+
+        private Instant getNextRetryInstant() {
+            if (!circuitBreaker.isOpen()) {
+                return null;
+            }
+            Duration remainingDelay = circuitBreaker.getRemainingDelay();
+            return Instant.now().plus(remainingDelay);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Deadline of a record, covering the rate limiter wait, the retries and the network time.
+ * When the deadline expires, the attempt in flight is cancelled, which cancels the native call (OkHttp Call or AHC ListenableFuture),
+ * and no other attempt is started.
+ */
+public class Deadline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Deadline.class);
+
+    //HttpRequest attribute overriding the deadline of the configuration
+    public static final String DEADLINE_IN_MS_ATTRIBUTE = "deadline.in.ms";
+
+    private final long deadlineInMs;
+    private boolean expired;
+    private CompletableFuture<?> attempt;
+
+    public Deadline(long deadlineInMs) {
+        Preconditions.checkArgument(deadlineInMs > 0, "deadlineInMs must be greater than 0");
+        this.deadlineInMs = deadlineInMs;
+    }
+
+    /**
+     * @param httpRequest request, which can override the deadline with the 'deadline.in.ms' attribute
+     * @param defaultDeadlineInMs deadline of the configuration
+     * @return the deadline in milliseconds of the request. 0 means no deadline.
+     */
+    public static long getDeadlineInMs(HttpRequest httpRequest, long defaultDeadlineInMs) {
+        Map<String, Object> attributes = httpRequest.getAttributes();
+        Object deadlineAttribute = attributes != null ? attributes.get(DEADLINE_IN_MS_ATTRIBUTE) : null;
+        if (deadlineAttribute == null) {
+            return defaultDeadlineInMs;
+        }
+        try {
+            return deadlineAttribute instanceof Number number ? number.longValue() : Long.parseLong(deadlineAttribute.toString().trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("'{}' attribute is not a number : '{}'. deadline of the configuration is used", DEADLINE_IN_MS_ATTRIBUTE, deadlineAttribute);
+            return defaultDeadlineInMs;
+        }
+    }
+
+    /**
+     * track the attempt in flight, to cancel it when the deadline expires.
+     * @param attempt attempt in flight
+     * @return the attempt, cancelled if the deadline is already expired.
+     */
+    public synchronized <T> CompletableFuture<T> track(CompletableFuture<T> attempt) {
+        this.attempt = attempt;
+        if (expired) {
+            attempt.cancel(true);
+        }
+        return attempt;
+    }
+
+    /**
+     * expire the deadline, and cancel the attempt in flight.
+     */
+    public synchronized void expire() {
+        expired = true;
+        if (attempt != null) {
+            attempt.cancel(true);
+        }
+    }
+
+    public synchronized boolean isExpired() {
+        return expired;
+    }
+
+    public long getDeadlineInMs() {
+        return deadlineInMs;
+    }
+}
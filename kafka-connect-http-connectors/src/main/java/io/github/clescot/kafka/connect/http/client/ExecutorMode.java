@@ -0,0 +1,18 @@
+package io.github.clescot.kafka.connect.http.client;
+
+/**
+ * kind of executor used to execute asynchronously HTTP requests, retries and their callbacks.
+ */
+public enum ExecutorMode {
+    /**
+     * a fixed thread pool sized with 'httpclient.async.fixed.thread.pool.size', if set.
+     * otherwise, no executor is configured, and the common ForkJoin pool (or the HTTP client own threads) are used.
+     */
+    FIXED,
+    /**
+     * a new virtual thread per task, when the Java runtime supports it (Java 21 and above).
+     * blocking steps (rate limiting waits, Retry-After delays, producer acknowledgements) do not hold a platform thread.
+     * on an older runtime, the FIXED mode is used.
+     */
+    VIRTUAL
+}
@@ -0,0 +1,83 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import io.github.clescot.kafka.connect.http.core.BodyType;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.*;
+
+/**
+ * check the files referenced as request bodies ({@link BodyType#FILE_REFERENCE}).
+ * a file reference is a local file read on behalf of the producer of the record : it is rejected unless file references
+ * are activated, and the file, once normalised and with its symbolic links resolved, is located under the base directory.
+ */
+public class FileReferenceGuard {
+
+    private final boolean activated;
+    private final Path baseDirectory;
+
+    public FileReferenceGuard(boolean activated, @Nullable String baseDirectory) {
+        this.activated = activated;
+        if (!activated) {
+            this.baseDirectory = null;
+            return;
+        }
+        Preconditions.checkArgument(baseDirectory != null && !baseDirectory.isBlank(), "'%s' is required when '%s' is true", HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE);
+        try {
+            this.baseDirectory = Path.of(baseDirectory).toRealPath();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("'" + HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY + "' cannot be resolved : '" + baseDirectory + "'", e);
+        }
+        Preconditions.checkArgument(Files.isDirectory(this.baseDirectory), "'%s' is not a directory : '%s'", HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, baseDirectory);
+    }
+
+    /**
+     * @param config settings
+     * @return the guard, rejecting all file references if they are not activated.
+     */
+    public static FileReferenceGuard build(Map<String, String> config) {
+        boolean activated = Boolean.parseBoolean(Optional.ofNullable(config.get(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE)).orElse(String.valueOf(DEFAULT_HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE)));
+        return new FileReferenceGuard(activated, config.get(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY));
+    }
+
+    /**
+     * @param httpRequest request to check
+     * @return the real path of the referenced file, or null if the request body is not a file reference.
+     * @throws IllegalArgumentException if file references are not activated, or if the file is not located under the base directory.
+     */
+    @Nullable
+    public Path check(HttpRequest httpRequest) {
+        if (httpRequest.getBodyType() != BodyType.FILE_REFERENCE) {
+            return null;
+        }
+        URI fileUri = httpRequest.getBodyFileUri();
+        Preconditions.checkArgument(activated, "file reference '%s' rejected : '%s' is not set to true", fileUri, HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE);
+        Path realPath;
+        try {
+            realPath = Path.of(fileUri).normalize().toRealPath();
+        } catch (IOException | IllegalArgumentException | FileSystemNotFoundException e) {
+            throw new IllegalArgumentException("file reference '" + fileUri + "' rejected : it cannot be resolved", e);
+        }
+        Preconditions.checkArgument(realPath.startsWith(baseDirectory) && Files.isRegularFile(realPath),
+                "file reference '%s' rejected : it is not a file located under '%s'", fileUri, baseDirectory);
+        return realPath;
+    }
+
+    public boolean isActivated() {
+        return activated;
+    }
+
+    @Nullable
+    public Path getBaseDirectory() {
+        return baseDirectory;
+    }
+}
@@ -17,6 +17,7 @@ import java.net.CookiePolicy;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -62,6 +63,18 @@ public interface HttpClient<NR, NS> extends RequestResponseClient<HttpRequest, N
 
     HttpClient<NR, NS> customizeForUser(String vuId);
 
+    /**
+     * release the resources (client, cookies...) bound to the user with {@link #customizeForUser(String)}.
+     * @param vuId virtual user id
+     */
+    void removeUser(String vuId);
+
+    /**
+     * cancel the calls in flight, and release the resources (connections, cache...) of the client.
+     * the client must not be used after this call.
+     */
+    void close();
+
     CookiePolicy getCookiePolicy();
 
     Function<HttpRequest, HttpRequest> getEnrichRequestFunction();
@@ -78,6 +91,11 @@ public interface HttpClient<NR, NS> extends RequestResponseClient<HttpRequest, N
 
     void setBodyLimit(Integer bodyLimit);
 
+    /**
+     * @return compressor of the request bodies, if request body compression is activated.
+     */
+    Optional<RequestBodyCompressor> getRequestBodyCompressor();
+
     TrustManagerFactory getTrustManagerFactory();
 
     void setTrustManagerFactory(TrustManagerFactory trustManagerFactory);
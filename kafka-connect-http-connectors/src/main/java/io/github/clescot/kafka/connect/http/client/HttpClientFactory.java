@@ -3,9 +3,11 @@ package io.github.clescot.kafka.connect.http.client;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.Configuration;
 import io.github.clescot.kafka.connect.MapUtils;
 import io.github.clescot.kafka.connect.http.client.proxy.ProxySelectorFactory;
 import io.github.clescot.kafka.connect.http.client.ssl.AlwaysTrustManagerFactory;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import jakarta.annotation.Nullable;
 import org.jetbrains.annotations.NotNull;
@@ -33,6 +35,8 @@ import java.util.regex.Pattern;
 
 import static io.github.clescot.kafka.connect.http.client.HttpClientConfigDefinition.*;
 import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.CONFIG_DEFAULT_DEFAULT_SUCCESS_RESPONSE_CODE_REGEX;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY;
 import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.SUCCESS_RESPONSE_CODE_REGEX;
 
 /**
@@ -92,6 +96,18 @@ public interface HttpClientFactory<C extends HttpClient<R, S>, R, S> {
         }
         httpClient.setAddSuccessStatusToHttpExchangeFunction(successResponseCodeRegex);
 
+        //rate limiter permits waiting time
+        if (httpClient.getRateLimiter().isPresent()) {
+            httpClient.setPermitWaitTimer(Timer.builder(HttpClient.RATE_LIMITER_PERMIT_WAIT_METER)
+                    .description("time waited for rate limiter permits")
+                    .tag(CONFIGURATION_ID, Optional.ofNullable(config.get(CONFIGURATION_ID)).orElse(Configuration.DEFAULT_CONFIGURATION_ID))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+
+        //bytes saved and time spent by the request body compression
+        httpClient.getRequestBodyCompressor().ifPresent(compressor ->
+                compressor.bindTo(meterRegistry, Optional.ofNullable(config.get(CONFIGURATION_ID)).orElse(Configuration.DEFAULT_CONFIGURATION_ID)));
 
         return httpClient;
     }
@@ -233,6 +249,11 @@ public interface HttpClientFactory<C extends HttpClient<R, S>, R, S> {
             Map<String, String> config = Maps.newHashMap(MapUtils.getMapWithPrefix(originals, "config." + configId + "."));
             HashMap<String, String> settings = Maps.newHashMap(config);
             settings.put("configuration.id", configId);
+            //file references are allowed at the connector level only, not per configuration
+            settings.remove(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE);
+            settings.remove(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY);
+            Optional.ofNullable(originals.get(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE)).ifPresent(activate -> settings.put(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, activate));
+            Optional.ofNullable(originals.get(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY)).ifPresent(baseDirectory -> settings.put(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, baseDirectory));
             Random random = getRandom(settings);
             C httpClient = httpClientFactory.buildHttpClient(settings, executorService, meterRegistry, random);
             httpClientConfigurations.put(configId,httpClient);
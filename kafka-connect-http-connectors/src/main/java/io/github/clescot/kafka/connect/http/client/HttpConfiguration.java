@@ -4,6 +4,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Maps;
 import dev.failsafe.CircuitBreaker;
+import dev.failsafe.CircuitBreakerBuilder;
 import dev.failsafe.Failsafe;
 import dev.failsafe.FailsafeExecutor;
 import dev.failsafe.RetryPolicy;
@@ -11,11 +12,14 @@ import io.github.clescot.kafka.connect.Configuration;
 import io.github.clescot.kafka.connect.RequestClient;
 import io.github.clescot.kafka.connect.RequestResponseClient;
 import io.github.clescot.kafka.connect.http.client.config.AddSuccessStatusToHttpExchangeFunction;
+import io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicate;
 import io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicateBuilder;
 import io.github.clescot.kafka.connect.http.core.HttpExchange;
 import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import io.github.clescot.kafka.connect.http.core.HttpResponse;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,10 +31,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -56,28 +64,84 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
 
     private C client;
     private final ExecutorService executorService;
+    //timers of the task owning the configuration
+    @Nullable
+    private final ScheduledExecutorService scheduledExecutorService;
     private final RetryPolicy<HttpExchange> retryPolicy;
     @NotNull
     private final Map<String, String> settings;
     private final Pattern retryResponseCodeRegex;
     private final String id;
-    private final Predicate<HttpRequest> predicate;
+    private final HttpRequestPredicate predicate;
 
     private final Pattern customStatusCodeForRetryAfterHeader;
     private final long maxSecondsToWait;
     private final long retryDelayThreshold;
-    private Instant nextRetryInstant;
-    private final FailsafeExecutor<HttpExchange> failsafeExecutor;
     private final long defaultRetryAfterDelayInSeconds;
+    private final long deadlineInMs;
+    @Nullable
+    private final MeterRegistry meterRegistry;
+    //circuit breakers, shared by the configurations customized for each virtual user
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    //limit of requests in flight, shared by the configurations customized for each virtual user
+    @Nullable
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    //quota announced by the server, shared by the configurations customized for each virtual user
+    @Nullable
+    private final RateLimitHeadersThrottler rateLimitHeadersThrottler;
+    //observed latencies and hedging budget, shared by the configurations customized for each virtual user
+    @Nullable
+    private final RequestHedger requestHedger;
+    //retries left to the configuration, shared by the configurations customized for each virtual user
+    @Nullable
+    private final RetryBudget retryBudget;
 
     public HttpConfiguration(String id,
                              C client,
                              ExecutorService executorService,
                              RetryPolicy<HttpExchange> retryPolicy,
                              Map<String, String> settings) {
+        this(id, client, executorService, retryPolicy, settings, null);
+    }
+
+    public HttpConfiguration(String id,
+                             C client,
+                             ExecutorService executorService,
+                             RetryPolicy<HttpExchange> retryPolicy,
+                             Map<String, String> settings,
+                             @Nullable MeterRegistry meterRegistry) {
+        this(id, client, executorService, retryPolicy, settings, meterRegistry, null);
+    }
+
+    /**
+     * @param scheduledExecutorService timers of the task (hedging delays, deadlines). If null, timers are executed by the common pool.
+     */
+    public HttpConfiguration(String id,
+                             C client,
+                             ExecutorService executorService,
+                             RetryPolicy<HttpExchange> retryPolicy,
+                             Map<String, String> settings,
+                             @Nullable MeterRegistry meterRegistry,
+                             @Nullable ScheduledExecutorService scheduledExecutorService) {
+        this(id, client, executorService, retryPolicy, settings, meterRegistry, scheduledExecutorService, null, null, null, null, null);
+    }
+
+    private HttpConfiguration(String id,
+                              C client,
+                              ExecutorService executorService,
+                              RetryPolicy<HttpExchange> retryPolicy,
+                              Map<String, String> settings,
+                              @Nullable MeterRegistry meterRegistry,
+                              @Nullable ScheduledExecutorService scheduledExecutorService,
+                              @Nullable CircuitBreakerRegistry circuitBreakerRegistry,
+                              @Nullable AdaptiveConcurrencyLimiter concurrencyLimiter,
+                              @Nullable RateLimitHeadersThrottler rateLimitHeadersThrottler,
+                              @Nullable RequestHedger requestHedger,
+                              @Nullable RetryBudget retryBudget) {
         this.id = id;
         this.client = client;
         this.executorService = executorService;
+        this.scheduledExecutorService = scheduledExecutorService;
         this.retryPolicy = retryPolicy;
         this.settings = settings;
         //retry response code regex
@@ -88,21 +152,82 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
         retryDelayThreshold = Long.parseLong(settings.getOrDefault(RETRY_DELAY_THRESHOLD_IN_SEC, DEFAULT_RETRY_DELAY_THRESHOLD_IN_SEC));
         customStatusCodeForRetryAfterHeader = Pattern.compile(settings.getOrDefault(CUSTOM_STATUS_CODE_FOR_RETRY_AFTER_HEADER, DEFAULT_CUSTOM_STATUS_CODE_FOR_RETRY_AFTER_HEADER));
         defaultRetryAfterDelayInSeconds = Long.parseLong(settings.getOrDefault(DEFAULT_RETRY_DELAY_THRESHOLD_IN_SEC, DEFAULT_DEFAULT_RETRY_DELAY_IN_SEC));
-        failsafeExecutor = buildFailsafeExecutor();
+        deadlineInMs = Long.parseLong(settings.getOrDefault(DEADLINE_IN_MS, String.valueOf(DEFAULT_DEADLINE_IN_MS)));
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakerRegistry = circuitBreakerRegistry != null ? circuitBreakerRegistry : buildCircuitBreakerRegistry();
+        this.concurrencyLimiter = concurrencyLimiter != null ? concurrencyLimiter : buildConcurrencyLimiter();
+        this.rateLimitHeadersThrottler = rateLimitHeadersThrottler != null ? rateLimitHeadersThrottler : buildRateLimitHeadersThrottler();
+        this.requestHedger = requestHedger != null ? requestHedger : buildRequestHedger();
+        this.retryBudget = retryBudget != null ? retryBudget : buildRetryBudget();
+    }
+
+    private RetryBudget buildRetryBudget() {
+        if (retryPolicy == null || !Boolean.parseBoolean(settings.getOrDefault(RETRY_BUDGET_ACTIVATE, String.valueOf(DEFAULT_RETRY_BUDGET_ACTIVATE)))) {
+            return null;
+        }
+        return new RetryBudget(
+                Integer.parseInt(settings.getOrDefault(RETRY_BUDGET_MAX_TOKENS, String.valueOf(DEFAULT_RETRY_BUDGET_MAX_TOKENS))),
+                Double.parseDouble(settings.getOrDefault(RETRY_BUDGET_DEPOSIT_RATIO, String.valueOf(DEFAULT_RETRY_BUDGET_DEPOSIT_RATIO))),
+                meterRegistry,
+                id
+        );
+    }
+
+    private RequestHedger buildRequestHedger() {
+        if (!Boolean.parseBoolean(settings.getOrDefault(HEDGING_ACTIVATE, String.valueOf(DEFAULT_HEDGING_ACTIVATE)))) {
+            return null;
+        }
+        return new RequestHedger(
+                Long.parseLong(settings.getOrDefault(HEDGING_DELAY_IN_MS, String.valueOf(DEFAULT_HEDGING_DELAY_IN_MS))),
+                Integer.parseInt(settings.getOrDefault(HEDGING_BUDGET_PERCENT, String.valueOf(DEFAULT_HEDGING_BUDGET_PERCENT))),
+                scheduledExecutorService
+        );
     }
 
-    private FailsafeExecutor<HttpExchange> buildFailsafeExecutor() {
+    private RateLimitHeadersThrottler buildRateLimitHeadersThrottler() {
+        if (!Boolean.parseBoolean(settings.getOrDefault(RATE_LIMIT_HEADERS_ACTIVATE, String.valueOf(DEFAULT_RATE_LIMIT_HEADERS_ACTIVATE)))) {
+            return null;
+        }
+        return new RateLimitHeadersThrottler(Long.parseLong(settings.getOrDefault(RATE_LIMIT_HEADERS_REMAINING_THRESHOLD, String.valueOf(DEFAULT_RATE_LIMIT_HEADERS_REMAINING_THRESHOLD))));
+    }
+
+    private AdaptiveConcurrencyLimiter buildConcurrencyLimiter() {
+        if (!Boolean.parseBoolean(settings.getOrDefault(CONCURRENCY_LIMITER_ACTIVATE, String.valueOf(DEFAULT_CONCURRENCY_LIMITER_ACTIVATE)))) {
+            return null;
+        }
+        AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                Integer.parseInt(settings.getOrDefault(CONCURRENCY_LIMITER_INITIAL_LIMIT, String.valueOf(DEFAULT_CONCURRENCY_LIMITER_INITIAL_LIMIT))),
+                Integer.parseInt(settings.getOrDefault(CONCURRENCY_LIMITER_MIN_LIMIT, String.valueOf(DEFAULT_CONCURRENCY_LIMITER_MIN_LIMIT))),
+                Integer.parseInt(settings.getOrDefault(CONCURRENCY_LIMITER_MAX_LIMIT, String.valueOf(DEFAULT_CONCURRENCY_LIMITER_MAX_LIMIT))),
+                Double.parseDouble(settings.getOrDefault(CONCURRENCY_LIMITER_BACKOFF_RATIO, String.valueOf(DEFAULT_CONCURRENCY_LIMITER_BACKOFF_RATIO))),
+                Long.parseLong(settings.getOrDefault(CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS, String.valueOf(DEFAULT_CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS)))
+        );
+        if (meterRegistry != null) {
+            adaptiveConcurrencyLimiter.bindTo(meterRegistry, id);
+        }
+        return adaptiveConcurrencyLimiter;
+    }
+
+    private CircuitBreakerRegistry buildCircuitBreakerRegistry() {
         Optional<RetryPolicy<HttpExchange>> retryPolicyForCall = Optional.ofNullable(getRetryPolicy());
         //a RetryPolicy is set
         if (retryPolicyForCall.isPresent()) {
             RetryPolicy<HttpExchange> myRetryPolicy = retryPolicyForCall.get();
-            CircuitBreaker<HttpExchange> circuitBreaker = buildCircuitBreaker();
-            //compose policies
-            FailsafeExecutor<HttpExchange> fsExecutor = Failsafe.with(myRetryPolicy, circuitBreaker);
-            if (this.executorService != null) {
-                fsExecutor = fsExecutor.with(this.executorService);
-            }
-            return fsExecutor;
+            return new CircuitBreakerRegistry(
+                    id,
+                    settings.getOrDefault(CIRCUIT_BREAKER_SCOPE, DEFAULT_CIRCUIT_BREAKER_SCOPE),
+                    Long.parseLong(settings.getOrDefault(CIRCUIT_BREAKER_MAX_ROUTES, String.valueOf(DEFAULT_CIRCUIT_BREAKER_MAX_ROUTES))),
+                    Long.parseLong(settings.getOrDefault(CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS, String.valueOf(DEFAULT_CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS))),
+                    this::buildCircuitBreaker,
+                    circuitBreaker -> {
+                        //compose policies
+                        FailsafeExecutor<HttpExchange> fsExecutor = Failsafe.with(myRetryPolicy, circuitBreaker);
+                        if (this.executorService != null) {
+                            fsExecutor = fsExecutor.with(this.executorService);
+                        }
+                        return fsExecutor;
+                    },
+                    meterRegistry);
         } else {
             //no RetryPolicy is set
             return null;
@@ -164,12 +289,22 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
     }
 
     /**
-     * indicates if the client is closed (i.e enabled) due to circuit breaker.
+     * indicates if the client is closed (i.e enabled) due to circuit breaker, for all the routes.
      *
      * @return true if the client is closed.
      */
     public boolean isClosed() {
-        return nextRetryInstant == null || nextRetryInstant.isBefore(Instant.now());
+        return circuitBreakerRegistry == null || circuitBreakerRegistry.isClosed();
+    }
+
+    /**
+     * indicates if the client is closed (i.e enabled) due to circuit breaker, for the route of the request.
+     *
+     * @param httpRequest request to execute
+     * @return true if the client is closed for this request.
+     */
+    public boolean isClosed(@NotNull HttpRequest httpRequest) {
+        return circuitBreakerRegistry == null || circuitBreakerRegistry.isClosed(httpRequest);
     }
 
     /**
@@ -196,10 +331,12 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
      *
      * @param httpRequest HttpRequest to call
      * @param attempts    current attempts before the call.
+     * @param deadline    deadline of the record, or null
      * @return CompletableFuture of the HttpExchange (describing the request and response).
      */
     private CompletableFuture<HttpExchange> callAndEnrich(HttpRequest httpRequest,
-                                                          AtomicInteger attempts) {
+                                                          AtomicInteger attempts,
+                                                          @Nullable Deadline deadline) {
         attempts.addAndGet(RequestClient.ONE_REQUEST);
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("before enrichment:{}", httpRequest);
@@ -208,10 +345,79 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("after enrichment:{}", enrichedHttpRequest);
         }
-        CompletableFuture<HttpExchange> completableFuture = this.client.call(enrichedHttpRequest, attempts);
-        return completableFuture
+        if (rateLimitHeadersThrottler == null) {
+            return hedgedCall(enrichedHttpRequest, attempts, deadline)
+                    .thenApply(this::enrichExchange);
+        }
+        //dispatch is slowed down before the quota announced by the server is exhausted
+        return rateLimitHeadersThrottler.throttle()
+                .thenCompose(dispatch -> hedgedCall(enrichedHttpRequest, attempts, deadline))
                 .thenApply(this::enrichExchange);
+    }
 
+    private CompletableFuture<HttpExchange> hedgedCall(HttpRequest enrichedHttpRequest,
+                                                       AtomicInteger attempts,
+                                                       @Nullable Deadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            //the deadline has expired while waiting for the throttler : the call is not executed
+            return CompletableFuture.failedFuture(new CancellationException("deadline of " + deadline.getDeadlineInMs() + " ms exceeded"));
+        }
+        CompletableFuture<HttpExchange> attempt;
+        if (requestHedger == null || !requestHedger.isHedgeable(enrichedHttpRequest)) {
+            attempt = callWithConcurrencyLimit(enrichedHttpRequest, attempts);
+        } else {
+            //a duplicate of an idempotent request is sent if the request is slow, and the first response wins.
+            //each call holds its own permit of the concurrency limiter.
+            attempt = requestHedger.hedge(() -> callWithConcurrencyLimit(enrichedHttpRequest, attempts));
+        }
+        return deadline != null ? deadline.track(attempt) : attempt;
+    }
+
+    private CompletableFuture<HttpExchange> callWithConcurrencyLimit(HttpRequest enrichedHttpRequest,
+                                                                     AtomicInteger attempts) {
+        if (concurrencyLimiter == null) {
+            return this.client.call(enrichedHttpRequest, attempts);
+        }
+        //each call holds a permit of the adaptive concurrency limiter, while it is in flight
+        CompletableFuture<HttpExchange> limitedCall = new CompletableFuture<>();
+        concurrencyLimiter.acquire()
+                .thenAccept(permit -> {
+                    if (limitedCall.isDone()) {
+                        //cancelled (deadline expired, or hedged call lost) while waiting for a permit : the call is not executed
+                        concurrencyLimiter.release(false);
+                        return;
+                    }
+                    Stopwatch stopwatch = Stopwatch.createStarted();
+                    CompletableFuture<HttpExchange> call = this.client.call(enrichedHttpRequest, attempts);
+                    //cancelling the limited call cancels the native call
+                    limitedCall.whenComplete((httpExchange, throwable) -> {
+                        if (limitedCall.isCancelled()) {
+                            call.cancel(true);
+                        }
+                    });
+                    call.whenComplete((httpExchange, throwable) -> {
+                        long latencyInMs = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+                        boolean overloaded;
+                        if (httpExchange == null) {
+                            //an error (timeout, connection refused...) is handled as an overload, but not a cancelled call (deadline expired)
+                            overloaded = !(throwable instanceof CancellationException);
+                        } else {
+                            overloaded = httpExchange.getResponse().getHeaders().containsKey(RequestResponseClient.THROWABLE_CLASS)
+                                    || concurrencyLimiter.isOverloaded(httpExchange.getResponse().getStatusCode(), MoreObjects.firstNonNull(httpExchange.getDurationInMillis(), latencyInMs));
+                        }
+                        //the call is completed before the permit is released, so that a losing hedged duplicate is cancelled before getting the permit
+                        if (throwable != null) {
+                            limitedCall.completeExceptionally(throwable);
+                        } else {
+                            limitedCall.complete(httpExchange);
+                        }
+                        concurrencyLimiter.release(overloaded);
+                        if (LOGGER.isTraceEnabled()) {
+                            LOGGER.trace("configuration '{}' : concurrency limit '{}' after '{}' ms", id, concurrencyLimiter.getLimit(), latencyInMs);
+                        }
+                    });
+                });
+        return limitedCall;
     }
 
     /**
@@ -222,17 +428,62 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
      */
     public CompletableFuture<HttpExchange> call(@NotNull HttpRequest httpRequest) {
         AtomicInteger attempts = new AtomicInteger();
+        long requestDeadlineInMs = Deadline.getDeadlineInMs(httpRequest, deadlineInMs);
+        if (requestDeadlineInMs <= 0) {
+            return call(httpRequest, attempts, null);
+        }
+        //the deadline covers the rate limiter wait, the retries and the network time
+        Deadline deadline = new Deadline(requestDeadlineInMs);
+        CompletableFuture<HttpExchange> exchange = call(httpRequest, attempts, deadline);
+        Runnable expiry = () -> {
+            if (!exchange.isDone()) {
+                deadline.expire();
+                exchange.cancel(true);
+            }
+        };
+        if (scheduledExecutorService == null) {
+            CompletableFuture.delayedExecutor(requestDeadlineInMs, TimeUnit.MILLISECONDS).execute(expiry);
+        } else {
+            try {
+                ScheduledFuture<?> expiryTimer = scheduledExecutorService.schedule(expiry, requestDeadlineInMs, TimeUnit.MILLISECONDS);
+                //the timer is removed from the scheduler queue as soon as the exchange completes
+                exchange.whenComplete((httpExchange, throwable) -> expiryTimer.cancel(false));
+            } catch (RejectedExecutionException e) {
+                //the task is stopping : the calls in flight are cancelled with the clients
+                LOGGER.debug("configuration '{}' : deadline not scheduled, the scheduler is shutdown", id);
+            }
+        }
+        return exchange.exceptionallyCompose(throwable -> {
+            if (!deadline.isExpired()) {
+                return CompletableFuture.failedFuture(throwable);
+            }
+            LOGGER.warn("configuration '{}' : deadline of '{}' ms exceeded after '{}' attempts", id, requestDeadlineInMs, attempts);
+            HttpExchange httpExchange = getClient().buildExchange(
+                    httpRequest,
+                    new HttpResponse(HttpClient.SERVER_ERROR_STATUS_CODE, "deadline of " + requestDeadlineInMs + " ms exceeded"),
+                    Stopwatch.createUnstarted(),
+                    OffsetDateTime.now(ZoneId.of(RequestResponseClient.UTC_ZONE_ID)),
+                    attempts,
+                    Maps.newHashMap(),
+                    Maps.newHashMap());
+            return CompletableFuture.completedFuture(httpExchange);
+        });
+    }
+
+    private CompletableFuture<HttpExchange> call(@NotNull HttpRequest httpRequest,
+                                                 AtomicInteger attempts,
+                                                 @Nullable Deadline deadline) {
         try {
             //a RetryPolicy is set
-            if (failsafeExecutor != null) {
-                return failsafeExecutor
+            if (circuitBreakerRegistry != null) {
+                return circuitBreakerRegistry.getFailsafeExecutor(httpRequest)
                         .getStageAsync(
-                                ctx -> callAndEnrich(httpRequest, attempts)
-                                        .thenApply(this::handleRetry)
+                                ctx -> callAndEnrich(httpRequest, attempts, deadline)
+                                        .thenApply(httpExchange -> handleRetry(httpExchange, isLastAttempt(ctx.getAttemptCount())))
                         );
             } else {
                 //no RetryPolicy is set
-                return callAndEnrich(httpRequest, attempts);
+                return callAndEnrich(httpRequest, attempts, deadline);
             }
         } catch (TooLongRetryDelayException tooLongRetryDelayException) {
             //Retry-After delay is too long
@@ -268,11 +519,28 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
     }
 
     private CircuitBreaker<HttpExchange> buildCircuitBreaker() {
-        return CircuitBreaker.<HttpExchange>builder()
-                //we break circuit when 1 TooLongRetryDelayException occurs
-                .withFailureThreshold(1)
-                //we reestablish the circuit after one successful call
-                .withSuccessThreshold(1)
+        CircuitBreakerBuilder<HttpExchange> circuitBreakerBuilder = CircuitBreaker.<HttpExchange>builder();
+        //by default, we break circuit when 1 TooLongRetryDelayException occurs
+        int failureThreshold = Integer.parseInt(settings.getOrDefault(CIRCUIT_BREAKER_FAILURE_THRESHOLD, String.valueOf(DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD)));
+        int failureThresholdingCapacity = Math.max(failureThreshold, Integer.parseInt(settings.getOrDefault(CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY, String.valueOf(DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY))));
+        long failureThresholdingPeriodInMs = Long.parseLong(settings.getOrDefault(CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS, String.valueOf(DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS)));
+        int failureRateThreshold = Integer.parseInt(settings.getOrDefault(CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD, String.valueOf(DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD)));
+        if (failureThresholdingPeriodInMs > 0 && failureRateThreshold > 0) {
+            //time-based sliding window, with a failure rate
+            circuitBreakerBuilder.withFailureRateThreshold(failureRateThreshold, failureThresholdingCapacity, Duration.ofMillis(failureThresholdingPeriodInMs));
+        } else if (failureThresholdingPeriodInMs > 0) {
+            //time-based sliding window
+            circuitBreakerBuilder.withFailureThreshold(failureThreshold, failureThresholdingCapacity, Duration.ofMillis(failureThresholdingPeriodInMs));
+        } else {
+            //count-based sliding window
+            circuitBreakerBuilder.withFailureThreshold(failureThreshold, failureThresholdingCapacity);
+        }
+        //by default, we reestablish the circuit after one successful call
+        int successThreshold = Integer.parseInt(settings.getOrDefault(CIRCUIT_BREAKER_SUCCESS_THRESHOLD, String.valueOf(DEFAULT_CIRCUIT_BREAKER_SUCCESS_THRESHOLD)));
+        //probes permitted in the half-open state
+        int halfOpenMaxProbes = Math.max(successThreshold, Integer.parseInt(settings.getOrDefault(CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES, String.valueOf(DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES))));
+        return circuitBreakerBuilder
+                .withSuccessThreshold(successThreshold, halfOpenMaxProbes)
                 .withDelayFn(context -> {
                     HttpExchange httpExchange = context.getLastResult();
                     HttpResponse response = httpExchange.getResponse();
@@ -285,18 +553,15 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
 
                     long secondsToWait = response.getRetryAfterSecondsToWait(MoreObjects.firstNonNull(retryAfterValue, DEFAULT_DEFAULT_RETRY_DELAY_IN_SEC));
                     LOGGER.debug("seconds to wait:{}", secondsToWait);
-                    this.nextRetryInstant = Instant.now().plusSeconds(secondsToWait);
-                    httpExchange.getRequest().setRetryAfterInstant(this.nextRetryInstant);
+                    Instant nextRetryInstant = Instant.now().plusSeconds(secondsToWait);
+                    httpExchange.getRequest().setRetryAfterInstant(nextRetryInstant);
                     LOGGER.info("Circuit breaker opened for '{}' seconds, until '{}'", secondsToWait, nextRetryInstant);
                     return Duration.of(min(secondsToWait, maxSecondsToWait), SECONDS);
                 })
                 .handle(TooLongRetryDelayException.class)
                 .handleResultIf(result -> circuitMustBeOpened(result) > 0L)
                 .onOpen(context -> LOGGER.error("Circuit breaker for too long retry delay is now OPEN. Calls will not be retried anymore."))
-                .onHalfOpen(context -> {
-                    LOGGER.info("Circuit breaker for too long retry delay is now HALF-OPEN. Next call will test the connection.");
-                    this.nextRetryInstant = null;
-                })
+                .onHalfOpen(context -> LOGGER.info("Circuit breaker for too long retry delay is now HALF-OPEN. Next call will test the connection."))
                 .onClose(context -> LOGGER.warn("Circuit breaker for too long retry delay is now CLOSED. Calls can be retried again."))
                 .build();
     }
@@ -309,17 +574,46 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
      * @param httpExchange HttpExchange to handle
      * @return HttpExchange if no retry is needed
      */
-    private HttpExchange handleRetry(HttpExchange httpExchange) throws TooLongRetryDelayException {
+    private HttpExchange handleRetry(HttpExchange httpExchange, boolean lastAttempt) throws TooLongRetryDelayException {
         //we don't retry successful HTTP Exchange
         boolean responseCodeImpliesRetry = retryNeeded(httpExchange);
         LOGGER.debug("httpExchange success :'{}'", httpExchange.isSuccess());
         LOGGER.debug("response code('{}') implies retry:'{}'", httpExchange.getResponse().getStatusCode(), responseCodeImpliesRetry);
         if (!httpExchange.isSuccess() && responseCodeImpliesRetry) {
-            throw new RetryException(httpExchange, "retry needed");
+            //the retry budget is only consumed when a retry follows
+            if (retryBudget != null && !lastAttempt && !retryBudget.tryWithdraw()) {
+                LOGGER.warn("configuration '{}' : retry budget exhausted, the exchange fails without retry", id);
+                return httpExchange;
+            }
+            throw new RetryException(httpExchange, "retry needed", getRetryAfterDelay(httpExchange));
+        }
+        if (retryBudget != null && httpExchange.isSuccess()) {
+            retryBudget.deposit();
         }
         return httpExchange;
     }
 
+    private boolean isLastAttempt(int attemptCount) {
+        int maxRetries = retryPolicy.getConfig().getMaxRetries();
+        return maxRetries >= 0 && attemptCount >= maxRetries;
+    }
+
+    /**
+     * @param httpExchange HttpExchange to retry
+     * @return the Retry-After delay to wait before the next attempt if it is below the retryDelayThreshold,
+     * or null if the delay of the retry policy applies.
+     */
+    private Duration getRetryAfterDelay(HttpExchange httpExchange) {
+        Map<String, List<String>> httpResponseHeaders = httpExchange.getResponse().getHeaders();
+        if (httpResponseHeaders.containsKey(RETRY_AFTER) || httpResponseHeaders.containsKey(X_RETRY_AFTER)) {
+            long secondsToWait = circuitMustBeOpened(httpExchange);
+            if (secondsToWait < retryDelayThreshold) {
+                return Duration.ofSeconds(secondsToWait);
+            }
+        }
+        return null;
+    }
+
     /**
      * Check if the response code implies a retry.
      *
@@ -336,13 +630,9 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
             if (httpResponseHeaders.containsKey(RETRY_AFTER) || httpResponseHeaders.containsKey(X_RETRY_AFTER)) {
                 long secondToWait = circuitMustBeOpened(httpExchange);
                 if (secondToWait < retryDelayThreshold) {
-                    try {
-                        LOGGER.info("Waiting '{}' seconds (below the retryDelayThreshold:'{}' seconds) before retrying the call", secondToWait, retryDelayThreshold);
-                        Thread.sleep(secondToWait * 1000);
-                        return true;
-                    } catch (InterruptedException e) {
-                        throw new HttpException(e);
-                    }
+                    //the retry policy schedules the next attempt after the delay, without blocking the current thread
+                    LOGGER.info("Retrying the call in '{}' seconds (below the retryDelayThreshold:'{}' seconds)", secondToWait, retryDelayThreshold);
+                    return true;
                 } else {
                     return false;
                 }
@@ -389,7 +679,7 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
         } else {
             //delay is not too long to wait
             //seconds to millis
-            LOGGER.info("Waiting '{}' seconds (below the retryDelayThreshold:'{}' seconds) before retrying the call", secondsToWait, retryDelayThreshold);
+            LOGGER.debug("Retry-After delay of '{}' seconds is below the retryDelayThreshold:'{}' seconds", secondsToWait, retryDelayThreshold);
             return secondsToWait;
         }
     }
@@ -406,6 +696,9 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
 
 
     protected HttpExchange enrichExchange(HttpExchange httpExchange) {
+        if (rateLimitHeadersThrottler != null) {
+            rateLimitHeadersThrottler.update(httpExchange.getResponse());
+        }
         AddSuccessStatusToHttpExchangeFunction addSuccessStatusToHttpExchangeFunction = client.getAddSuccessStatusToHttpExchangeFunction();
         return addSuccessStatusToHttpExchangeFunction != null ? addSuccessStatusToHttpExchangeFunction.apply(httpExchange) : httpExchange;
     }
@@ -415,13 +708,44 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
         return this.predicate.test(httpRequest);
     }
 
+    public HttpRequestPredicate getPredicate() {
+        return predicate;
+    }
+
     @Override
     public String getId() {
         return this.id;
     }
 
+    /**
+     * @return the latest instant when an open circuit breaker of the configuration can be half-opened, or null if none is open.
+     */
     public Instant getNextRetryInstant() {
-        return nextRetryInstant;
+        return circuitBreakerRegistry != null ? circuitBreakerRegistry.getNextRetryInstant() : null;
+    }
+
+    /**
+     * @param httpRequest request to execute
+     * @return the instant when the circuit breaker of the request route can be half-opened, or null if it is not open.
+     */
+    public Instant getNextRetryInstant(@NotNull HttpRequest httpRequest) {
+        return circuitBreakerRegistry != null ? circuitBreakerRegistry.getNextRetryInstant(httpRequest) : null;
+    }
+
+    /**
+     * @return the adaptive concurrency limiter of the configuration, or null if it is not activated.
+     */
+    @Nullable
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * @return the retry budget of the configuration, or null if it is not activated.
+     */
+    @Nullable
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
     }
 
     @Override
@@ -439,6 +763,6 @@ public class HttpConfiguration<C extends HttpClient<NR, NS>, NR, NS> implements
 
     @Override
     public Object clone() throws CloneNotSupportedException {
-        return new HttpConfiguration<>(this.id, this.client, this.executorService, this.retryPolicy, Maps.newHashMap(this.settings));
+        return new HttpConfiguration<>(this.id, this.client, this.executorService, this.retryPolicy, Maps.newHashMap(this.settings), this.meterRegistry, this.scheduledExecutorService, this.circuitBreakerRegistry, this.concurrencyLimiter, this.rateLimitHeadersThrottler, this.requestHedger, this.retryBudget);
     }
 }
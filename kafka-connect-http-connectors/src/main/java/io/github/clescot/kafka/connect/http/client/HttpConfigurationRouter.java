@@ -0,0 +1,178 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicate;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * HttpConfigurationRouter selects the first configuration matching an HttpRequest, with a structure built once per task :
+ * <ul>
+ *     <li>the literal prefix (scheme, host, path...) of each 'predicate.url.regex' is stored in a trie,
+ *     so that only configurations whose prefix matches the url are evaluated.
+ *     configurations without url regex, or with a regex without literal prefix, are always evaluated ;</li>
+ *     <li>url regex results are memoized per url, in a bounded cache ;</li>
+ *     <li>method, body type and header patterns are pre-compiled, and evaluated for each request.</li>
+ * </ul>
+ * The configuration order is kept : the first matching configuration is returned, or the default one if none matches.
+ * @param <F> configuration type
+ */
+public class HttpConfigurationRouter<F extends HttpConfiguration<?, ?, ?>> {
+
+    private static final String REGEX_META_CHARACTERS = ".[](){}*+?^$|";
+    private static final String REGEX_OPTIONAL_QUANTIFIERS = "*?{";
+    private final List<F> configurations;
+    private final List<HttpRequestPredicate> predicates;
+    private final F defaultConfiguration;
+    private final TrieNode root = new TrieNode();
+    private final Cache<String, int[]> urlMatchingCandidates;
+
+    /**
+     * @param configurations       ordered configurations
+     * @param defaultConfiguration configuration returned when no configuration matches
+     * @param urlCacheSize         maximum number of urls memoized. 0 disables the memoization.
+     */
+    public HttpConfigurationRouter(Collection<F> configurations, F defaultConfiguration, long urlCacheSize) {
+        Preconditions.checkNotNull(configurations, "configurations are required");
+        Preconditions.checkArgument(urlCacheSize >= 0, "urlCacheSize must be positive or zero");
+        this.configurations = Lists.newArrayList(configurations);
+        this.defaultConfiguration = defaultConfiguration;
+        this.predicates = Lists.newArrayListWithCapacity(this.configurations.size());
+        for (int i = 0; i < this.configurations.size(); i++) {
+            HttpRequestPredicate predicate = this.configurations.get(i).getPredicate();
+            predicates.add(predicate);
+            Pattern urlPattern = predicate.getUrlPattern();
+            String prefix = urlPattern != null ? literalPrefix(urlPattern.pattern()) : "";
+            root.insert(prefix, i);
+        }
+        this.urlMatchingCandidates = urlCacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(urlCacheSize).build() : null;
+    }
+
+    /**
+     * @param httpRequest request to route
+     * @return the first matching configuration, or the default configuration.
+     */
+    public F route(@NotNull HttpRequest httpRequest) {
+        String url = httpRequest.getUrl();
+        int[] candidates = getUrlMatchingCandidates(url);
+        for (int index : candidates) {
+            if (predicates.get(index).testWithoutUrl(httpRequest)) {
+                return configurations.get(index);
+            }
+        }
+        return defaultConfiguration;
+    }
+
+    private int[] getUrlMatchingCandidates(String url) {
+        if (urlMatchingCandidates == null) {
+            return computeUrlMatchingCandidates(url);
+        }
+        int[] candidates = urlMatchingCandidates.getIfPresent(url);
+        if (candidates == null) {
+            candidates = computeUrlMatchingCandidates(url);
+            urlMatchingCandidates.put(url, candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * @param url url of the request
+     * @return ordered indexes of the configurations whose url regex matches the url.
+     */
+    private int[] computeUrlMatchingCandidates(String url) {
+        List<Integer> prefixCandidates = root.collect(url);
+        return prefixCandidates.stream()
+                .sorted()
+                .filter(index -> predicates.get(index).testUrl(url))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * extract the literal prefix of a regex, i.e. the characters every matching string starts with.
+     * the extraction stops at the first regex construct (character class, group, quantifier, escape sequence...).
+     * a regex with an alternation has no literal prefix.
+     * @param regex regex to analyse
+     * @return the literal prefix, which may be empty.
+     */
+    static String literalPrefix(@Nullable String regex) {
+        if (regex == null || regex.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            char literal;
+            int next;
+            if (c == '\\') {
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    //escape sequence like \d, \Q, or back reference
+                    break;
+                }
+                literal = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (REGEX_META_CHARACTERS.indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if (next < regex.length()) {
+                char following = regex.charAt(next);
+                if (REGEX_OPTIONAL_QUANTIFIERS.indexOf(following) >= 0) {
+                    //the literal may be absent
+                    break;
+                }
+                if (following == '+') {
+                    //the literal is present at least once
+                    prefix.append(literal);
+                    break;
+                }
+            }
+            prefix.append(literal);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = Maps.newHashMap();
+        private final List<Integer> indexes = Lists.newArrayList();
+
+        private void insert(String prefix, int index) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), character -> new TrieNode());
+            }
+            node.indexes.add(index);
+        }
+
+        /**
+         * @param url url to walk through the trie
+         * @return indexes of the nodes on the path of the url, i.e. configurations whose prefix starts the url.
+         */
+        private List<Integer> collect(String url) {
+            List<Integer> result = Lists.newArrayList(indexes);
+            TrieNode node = this;
+            for (int i = 0; i < url.length(); i++) {
+                node = node.children.get(url.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                result.addAll(node.indexes);
+            }
+            return result;
+        }
+    }
+}
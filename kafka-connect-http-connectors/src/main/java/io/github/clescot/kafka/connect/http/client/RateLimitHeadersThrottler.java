@@ -0,0 +1,146 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import io.github.clescot.kafka.connect.http.core.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * RateLimitHeadersThrottler slows the dispatch of requests before the quota announced by the server is exhausted.
+ * It reads the quota from the responses headers : 'X-RateLimit-Remaining' and 'X-RateLimit-Reset',
+ * the IETF 'RateLimit-Remaining' and 'RateLimit-Reset' headers, or the IETF structured 'RateLimit' header ('remaining=..., reset=...').
+ * Above the remaining threshold, requests are not delayed. Under the threshold, remaining requests are spread until the reset,
+ * and once the quota is exhausted, requests wait for the reset.
+ */
+public class RateLimitHeadersThrottler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitHeadersThrottler.class);
+
+    public static final String X_RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    public static final String X_RATE_LIMIT_RESET = "X-RateLimit-Reset";
+    public static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+    public static final String RATE_LIMIT = "RateLimit";
+    private static final Pattern REMAINING_PARAMETER = Pattern.compile("(?:^|[,;\\s])r(?:emaining)?=(\\d+)");
+    private static final Pattern RESET_PARAMETER = Pattern.compile("(?:^|[,;\\s])(?:t|reset)=(\\d+)");
+    //reset values above this threshold are epoch seconds, not delays in seconds
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private final long remainingThreshold;
+    private long remaining = -1;
+    private Instant resetInstant;
+    private Instant nextDispatchInstant = Instant.EPOCH;
+
+    /**
+     * @param remainingThreshold number of remaining requests under which the dispatch is slowed down.
+     */
+    public RateLimitHeadersThrottler(long remainingThreshold) {
+        Preconditions.checkArgument(remainingThreshold >= 0, "remainingThreshold must not be negative");
+        this.remainingThreshold = remainingThreshold;
+    }
+
+    /**
+     * update the quota from the rate limit headers of the response, if any.
+     * @param httpResponse response
+     */
+    public void update(HttpResponse httpResponse) {
+        if (httpResponse == null) {
+            return;
+        }
+        Map<String, List<String>> headers = httpResponse.getHeaders();
+        String remainingValue = getHeader(headers, X_RATE_LIMIT_REMAINING);
+        String resetValue = getHeader(headers, X_RATE_LIMIT_RESET);
+        if (remainingValue == null) {
+            remainingValue = getHeader(headers, RATE_LIMIT_REMAINING);
+            resetValue = getHeader(headers, RATE_LIMIT_RESET);
+        }
+        if (remainingValue == null) {
+            String rateLimit = getHeader(headers, RATE_LIMIT);
+            if (rateLimit != null) {
+                remainingValue = getParameter(REMAINING_PARAMETER, rateLimit);
+                resetValue = getParameter(RESET_PARAMETER, rateLimit);
+            }
+        }
+        if (remainingValue == null || resetValue == null) {
+            return;
+        }
+        try {
+            update(Long.parseLong(remainingValue.trim()), toInstant(Long.parseLong(resetValue.trim())));
+        } catch (NumberFormatException e) {
+            LOGGER.debug("rate limit headers cannot be parsed : remaining:'{}', reset:'{}'", remainingValue, resetValue);
+        }
+    }
+
+    synchronized void update(long remaining, Instant resetInstant) {
+        this.remaining = remaining;
+        this.resetInstant = resetInstant;
+    }
+
+    /**
+     * reserve the dispatch of a request.
+     * @param now current instant
+     * @return the delay to wait before dispatching the request.
+     */
+    public synchronized Duration reserve(Instant now) {
+        if (resetInstant == null || !resetInstant.isAfter(now)) {
+            //no quota known, or the quota is reset
+            return Duration.ZERO;
+        }
+        if (remaining > remainingThreshold) {
+            //requests dispatched until the next response consume the quota too
+            remaining--;
+            return Duration.ZERO;
+        }
+        if (remaining <= 0) {
+            LOGGER.debug("rate limit quota exhausted : waiting until '{}'", resetInstant);
+            return Duration.between(now, resetInstant);
+        }
+        //remaining requests are spread until the reset
+        Duration interval = Duration.between(now, resetInstant).dividedBy(remaining);
+        Instant dispatchInstant = nextDispatchInstant.isAfter(now) ? nextDispatchInstant : now;
+        nextDispatchInstant = dispatchInstant.plus(interval);
+        remaining--;
+        return Duration.between(now, dispatchInstant);
+    }
+
+    /**
+     * @return a future completed when the request can be dispatched, without blocking the calling thread.
+     */
+    public CompletableFuture<Void> throttle() {
+        Duration delay = reserve(Instant.now());
+        if (delay.isZero()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS));
+    }
+
+    public synchronized long getRemaining() {
+        return remaining;
+    }
+
+    private static Instant toInstant(long reset) {
+        return reset >= EPOCH_SECONDS_THRESHOLD ? Instant.ofEpochSecond(reset) : Instant.now().plusSeconds(reset);
+    }
+
+    private static String getParameter(Pattern pattern, String value) {
+        Matcher matcher = pattern.matcher(value);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String getHeader(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+}
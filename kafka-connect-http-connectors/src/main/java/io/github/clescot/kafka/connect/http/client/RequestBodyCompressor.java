@@ -0,0 +1,197 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.google.common.base.Preconditions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.github.clescot.kafka.connect.http.client.RetryBudget.CONFIGURATION_ID_TAG;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.*;
+
+/**
+ * compress request bodies above a size threshold, with a JDK codec (gzip, deflate) or zstd (from zstd-jni).
+ * the HTTP client sends the compressed body with the matching 'Content-Encoding' header.
+ * bodies are either compressed in memory with {@link #compress(byte[])}, or compressed while they are written with {@link #wrap(OutputStream)}.
+ */
+public class RequestBodyCompressor {
+
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+    public static final String COMPRESSION_UNCOMPRESSED_BYTES_METER = "http.request.body.compression.uncompressed.bytes";
+    public static final String COMPRESSION_COMPRESSED_BYTES_METER = "http.request.body.compression.compressed.bytes";
+    public static final String COMPRESSION_RATIO_METER = "http.request.body.compression.ratio";
+    public static final String COMPRESSION_TIME_METER = "http.request.body.compression.time";
+
+    private final Algorithm algorithm;
+    private final long threshold;
+    private Counter uncompressedBytesCounter;
+    private Counter compressedBytesCounter;
+    private DistributionSummary compressionRatio;
+    private Timer compressionTimer;
+
+    public RequestBodyCompressor(Algorithm algorithm, long threshold) {
+        Preconditions.checkNotNull(algorithm, "'algorithm' is required");
+        Preconditions.checkArgument(threshold >= 0, "'threshold' must be positive or zero");
+        this.algorithm = algorithm;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param config settings of the configuration
+     * @return the compressor of the configuration, or empty if request body compression is not activated.
+     */
+    public static Optional<RequestBodyCompressor> build(Map<String, String> config) {
+        String type = Optional.ofNullable(config.get(HTTP_REQUEST_BODY_COMPRESSION_TYPE)).orElse(DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_TYPE);
+        if (HTTP_REQUEST_BODY_COMPRESSION_NONE.equalsIgnoreCase(type)) {
+            return Optional.empty();
+        }
+        long threshold = Long.parseLong(Optional.ofNullable(config.get(HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD)).orElse(String.valueOf(DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD)));
+        return Optional.of(new RequestBodyCompressor(Algorithm.valueOf(type.toUpperCase()), threshold));
+    }
+
+    /**
+     * @param contentLength length of the uncompressed body
+     * @param headers headers of the request
+     * @return true if the body is large enough, and not already encoded.
+     */
+    public boolean shouldCompress(long contentLength, Map<String, List<String>> headers) {
+        return contentLength >= threshold
+                && contentLength > 0
+                && (headers == null || headers.keySet().stream().noneMatch(CONTENT_ENCODING::equalsIgnoreCase));
+    }
+
+    /**
+     * @param content uncompressed body
+     * @return compressed body
+     */
+    public byte[] compress(byte[] content) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (OutputStream compressingStream = algorithm.wrap(outputStream)) {
+            compressingStream.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] compressed = outputStream.toByteArray();
+        record(content.length, compressed.length, System.nanoTime() - start);
+        return compressed;
+    }
+
+    /**
+     * @param outputStream stream receiving the compressed body
+     * @return a stream compressing what is written to it. closing it completes the compressed body, and closes the wrapped stream.
+     * @throws IOException if the compressed body header cannot be written
+     */
+    public OutputStream wrap(OutputStream outputStream) throws IOException {
+        return algorithm.wrap(outputStream);
+    }
+
+    /**
+     * record the compression of a body.
+     * @param uncompressedBytes size of the body before compression
+     * @param compressedBytes size of the body after compression
+     * @param durationInNanos time spent compressing the body
+     */
+    public void record(long uncompressedBytes, long compressedBytes, long durationInNanos) {
+        if (compressionTimer != null) {
+            compressionTimer.record(durationInNanos, TimeUnit.NANOSECONDS);
+        }
+        if (uncompressedBytesCounter != null && uncompressedBytes > 0) {
+            //counters are monotonic : sizes are recorded separately, as incompressible bodies may expand
+            uncompressedBytesCounter.increment(uncompressedBytes);
+            compressedBytesCounter.increment(compressedBytes);
+            compressionRatio.record((double) compressedBytes / uncompressedBytes);
+        }
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return value of the 'Content-Encoding' header of compressed bodies
+     */
+    public String getContentEncoding() {
+        return algorithm.getContentEncoding();
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * expose the sizes of the bodies before and after compression, their ratio, and the time spent compressing.
+     * @param meterRegistry registry
+     * @param configurationId id of the configuration
+     */
+    public void bindTo(MeterRegistry meterRegistry, String configurationId) {
+        uncompressedBytesCounter = Counter.builder(COMPRESSION_UNCOMPRESSED_BYTES_METER)
+                .description("size of the request bodies before compression")
+                .baseUnit("bytes")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .tag("algorithm", getContentEncoding())
+                .register(meterRegistry);
+        compressedBytesCounter = Counter.builder(COMPRESSION_COMPRESSED_BYTES_METER)
+                .description("size of the request bodies after compression")
+                .baseUnit("bytes")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .tag("algorithm", getContentEncoding())
+                .register(meterRegistry);
+        compressionRatio = DistributionSummary.builder(COMPRESSION_RATIO_METER)
+                .description("compressed size divided by the uncompressed size of the request bodies. greater than 1 when a body expands")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .tag("algorithm", getContentEncoding())
+                .register(meterRegistry);
+        compressionTimer = Timer.builder(COMPRESSION_TIME_METER)
+                .description("time spent compressing request bodies")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .tag("algorithm", getContentEncoding())
+                .register(meterRegistry);
+    }
+
+    public enum Algorithm {
+        GZIP("gzip") {
+            @Override
+            OutputStream wrap(OutputStream outputStream) throws IOException {
+                return new GZIPOutputStream(outputStream);
+            }
+        },
+        DEFLATE("deflate") {
+            @Override
+            OutputStream wrap(OutputStream outputStream) {
+                //zlib format, as expected by the 'deflate' content encoding
+                return new DeflaterOutputStream(outputStream);
+            }
+        },
+        ZSTD("zstd") {
+            @Override
+            OutputStream wrap(OutputStream outputStream) throws IOException {
+                return new ZstdOutputStream(outputStream);
+            }
+        };
+
+        private final String contentEncoding;
+
+        Algorithm(String contentEncoding) {
+            this.contentEncoding = contentEncoding;
+        }
+
+        abstract OutputStream wrap(OutputStream outputStream) throws IOException;
+
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import io.github.clescot.kafka.connect.RequestResponseClient;
+import io.github.clescot.kafka.connect.http.core.HttpExchange;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * RequestHedger sends a duplicate of an idempotent request (GET, HEAD, PUT) when the call has not completed after a delay :
+ * the first response wins, and the other call is cancelled.
+ * The delay is either fixed, or the 95th percentile of the observed latencies.
+ * The ratio of hedged requests is bounded by a budget, so that hedging cannot double the load.
+ */
+public class RequestHedger {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestHedger.class);
+
+    public static final Set<HttpRequest.Method> HEDGEABLE_METHODS = EnumSet.of(HttpRequest.Method.GET, HttpRequest.Method.HEAD, HttpRequest.Method.PUT);
+    //minimum number of latencies observed, before hedging with the 95th percentile
+    static final int MIN_SAMPLES = 20;
+    private static final int WINDOW_SIZE = 1024;
+    //the 95th percentile is computed again each time this number of latencies are observed
+    private static final int PERCENTILE_REFRESH_INTERVAL = 64;
+    //budget counters are halved when this number of requests is reached, to follow the recent load
+    private static final long BUDGET_WINDOW = 10_000;
+
+    private final long fixedDelayInMs;
+    private final double budgetRatio;
+    @Nullable
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final long[] latencies = new long[WINDOW_SIZE];
+    private int latenciesCount;
+    private int latenciesIndex;
+    private long p95InMs = -1;
+    private long requests;
+    private long hedges;
+
+    /**
+     * @param fixedDelayInMs delay before hedging. 0 means the 95th percentile of the observed latencies.
+     * @param budgetPercent  maximum percentage of requests hedged
+     */
+    public RequestHedger(long fixedDelayInMs, int budgetPercent) {
+        this(fixedDelayInMs, budgetPercent, null);
+    }
+
+    /**
+     * @param fixedDelayInMs           delay before hedging. 0 means the 95th percentile of the observed latencies.
+     * @param budgetPercent            maximum percentage of requests hedged
+     * @param scheduledExecutorService timers of the task, to send the duplicates. If null, duplicates are sent by the common pool.
+     */
+    public RequestHedger(long fixedDelayInMs, int budgetPercent, @Nullable ScheduledExecutorService scheduledExecutorService) {
+        Preconditions.checkArgument(fixedDelayInMs >= 0, "fixedDelayInMs must not be negative");
+        Preconditions.checkArgument(budgetPercent >= 0 && budgetPercent <= 100, "budgetPercent must be between 0 and 100");
+        this.fixedDelayInMs = fixedDelayInMs;
+        this.budgetRatio = budgetPercent / 100.0;
+        this.scheduledExecutorService = scheduledExecutorService;
+    }
+
+    public boolean isHedgeable(HttpRequest httpRequest) {
+        return HEDGEABLE_METHODS.contains(httpRequest.getMethod());
+    }
+
+    /**
+     * execute the call, and a duplicate if the call has not completed after the hedging delay, and the budget permits it.
+     * @param call the HTTP call
+     * @return a future of the first HttpExchange received, without error if possible.
+     */
+    public CompletableFuture<HttpExchange> hedge(Supplier<CompletableFuture<HttpExchange>> call) {
+        long delayInMs = registerRequest();
+        CompletableFuture<HttpExchange> primary = timed(call);
+        if (delayInMs < 0) {
+            return primary;
+        }
+        CompletableFuture<HttpExchange> result = new CompletableFuture<>();
+        List<CompletableFuture<HttpExchange>> calls = new CopyOnWriteArrayList<>();
+        calls.add(primary);
+        AtomicInteger pendingCalls = new AtomicInteger(1);
+        AtomicBoolean decided = new AtomicBoolean(false);
+        complete(result, primary, calls, pendingCalls, decided);
+        Runnable hedge = () -> {
+            if (decided.get() || result.isDone() || !tryAcquireBudget()) {
+                return;
+            }
+            LOGGER.debug("call not completed after '{}' ms : hedging", delayInMs);
+            pendingCalls.incrementAndGet();
+            CompletableFuture<HttpExchange> hedged = timed(call);
+            calls.add(hedged);
+            complete(result, hedged, calls, pendingCalls, decided);
+            if (decided.get() && !hedged.isDone()) {
+                hedged.cancel(true);
+            }
+        };
+        if (scheduledExecutorService == null) {
+            CompletableFuture.delayedExecutor(delayInMs, TimeUnit.MILLISECONDS).execute(hedge);
+        } else {
+            try {
+                scheduledExecutorService.schedule(hedge, delayInMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                //the task is stopping : the call is not hedged
+                LOGGER.debug("call not hedged : the scheduler is shutdown");
+            }
+        }
+        //cancelling the result cancels the calls in flight
+        result.whenComplete((httpExchange, throwable) -> {
+            if (result.isCancelled()) {
+                calls.forEach(future -> future.cancel(true));
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<HttpExchange> timed(Supplier<CompletableFuture<HttpExchange>> call) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        CompletableFuture<HttpExchange> future = call.get();
+        future.thenAccept(httpExchange -> {
+            if (!isError(httpExchange)) {
+                recordLatency(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            }
+        });
+        return future;
+    }
+
+    private void complete(CompletableFuture<HttpExchange> result,
+                          CompletableFuture<HttpExchange> future,
+                          List<CompletableFuture<HttpExchange>> calls,
+                          AtomicInteger pendingCalls,
+                          AtomicBoolean decided) {
+        future.whenComplete((httpExchange, throwable) -> {
+            int stillPending = pendingCalls.decrementAndGet();
+            //an error is not returned if the other call can still succeed
+            boolean failed = throwable != null || isError(httpExchange);
+            if ((failed && stillPending > 0) || !decided.compareAndSet(false, true)) {
+                return;
+            }
+            //the slowest call is cancelled, before the result is returned
+            calls.stream().filter(other -> other != future).forEach(other -> other.cancel(true));
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(httpExchange);
+            }
+        });
+    }
+
+    private static boolean isError(HttpExchange httpExchange) {
+        return httpExchange == null
+                || httpExchange.getResponse() == null
+                || httpExchange.getResponse().getHeaders().containsKey(RequestResponseClient.THROWABLE_CLASS);
+    }
+
+    /**
+     * @return the hedging delay in milliseconds, or -1 if the request cannot be hedged yet.
+     */
+    private synchronized long registerRequest() {
+        requests++;
+        if (requests > BUDGET_WINDOW) {
+            requests /= 2;
+            hedges /= 2;
+        }
+        return fixedDelayInMs > 0 ? fixedDelayInMs : p95InMs;
+    }
+
+    synchronized boolean tryAcquireBudget() {
+        if (hedges + 1 > requests * budgetRatio) {
+            return false;
+        }
+        hedges++;
+        return true;
+    }
+
+    synchronized void recordLatency(long latencyInMs) {
+        latencies[latenciesIndex] = latencyInMs;
+        latenciesIndex = (latenciesIndex + 1) % WINDOW_SIZE;
+        latenciesCount++;
+        if (latenciesCount >= MIN_SAMPLES && (p95InMs < 0 || latenciesCount % PERCENTILE_REFRESH_INTERVAL == 0)) {
+            long[] window = Arrays.copyOf(latencies, Math.min(latenciesCount, WINDOW_SIZE));
+            Arrays.sort(window);
+            p95InMs = window[(int) Math.ceil(window.length * 0.95) - 1];
+        }
+    }
+
+    /**
+     * @return the 95th percentile of the observed latencies, or -1 if not enough latencies are observed.
+     */
+    public synchronized long getP95InMs() {
+        return p95InMs;
+    }
+
+    public synchronized long getHedges() {
+        return hedges;
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.base.Preconditions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * RetryBudget caps the retries of a configuration, to prevent retry storms during an outage.
+ * It is a token bucket : each successful call deposits a ratio of a token, and each retry withdraws a token.
+ * When the bucket is empty, retries are skipped : the exchange fails fast, instead of multiplying the load on the server.
+ */
+public class RetryBudget {
+
+    public static final String RETRY_BUDGET_TOKENS_METER = "http.retry.budget.tokens";
+    public static final String RETRY_BUDGET_WITHDRAWN_METER = "http.retry.budget.withdrawn";
+    public static final String RETRY_BUDGET_EXHAUSTED_METER = "http.retry.budget.exhausted";
+    public static final String CONFIGURATION_ID_TAG = "configuration.id";
+
+    private final double maxTokens;
+    private final double depositRatio;
+    private double tokens;
+    //counters are set once, before the budget is shared with the I/O threads
+    @Nullable
+    private final Counter withdrawnCounter;
+    @Nullable
+    private final Counter exhaustedCounter;
+
+    /**
+     * @param maxTokens    maximum number of retries kept in the budget. the budget is full at startup.
+     * @param depositRatio ratio of a token deposited for each successful call, i.e the ratio of retries permitted per successful call.
+     */
+    public RetryBudget(int maxTokens, double depositRatio) {
+        this(maxTokens, depositRatio, null, null);
+    }
+
+    /**
+     * build a budget exposing the tokens left, the retries permitted and the retries skipped.
+     * @param maxTokens       maximum number of retries kept in the budget. the budget is full at startup.
+     * @param depositRatio    ratio of a token deposited for each successful call, i.e the ratio of retries permitted per successful call.
+     * @param meterRegistry   registry, or null to not expose metrics
+     * @param configurationId id of the configuration
+     */
+    public RetryBudget(int maxTokens, double depositRatio, @Nullable MeterRegistry meterRegistry, @Nullable String configurationId) {
+        Preconditions.checkArgument(maxTokens >= 1, "maxTokens must be at least 1");
+        Preconditions.checkArgument(depositRatio > 0, "depositRatio must be greater than 0");
+        this.maxTokens = maxTokens;
+        this.depositRatio = depositRatio;
+        this.tokens = maxTokens;
+        if (meterRegistry == null) {
+            this.withdrawnCounter = null;
+            this.exhaustedCounter = null;
+            return;
+        }
+        Preconditions.checkNotNull(configurationId, "configurationId must not be null");
+        Gauge.builder(RETRY_BUDGET_TOKENS_METER, this, RetryBudget::getTokens)
+                .description("retries left in the retry budget")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .register(meterRegistry);
+        this.withdrawnCounter = Counter.builder(RETRY_BUDGET_WITHDRAWN_METER)
+                .description("retries permitted by the retry budget")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder(RETRY_BUDGET_EXHAUSTED_METER)
+                .description("retries skipped because the retry budget is exhausted")
+                .tag(CONFIGURATION_ID_TAG, configurationId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * deposit a ratio of a token, after a successful call.
+     */
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + depositRatio);
+    }
+
+    /**
+     * withdraw a token before a retry.
+     * @return true if the retry is permitted, false if the budget is exhausted.
+     */
+    public boolean tryWithdraw() {
+        boolean withdrawn;
+        synchronized (this) {
+            withdrawn = tokens >= 1;
+            if (withdrawn) {
+                tokens--;
+            }
+        }
+        Counter counter = withdrawn ? withdrawnCounter : exhaustedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        return withdrawn;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
@@ -2,38 +2,60 @@ package io.github.clescot.kafka.connect.http.client;
 
 import io.github.clescot.kafka.connect.http.core.HttpExchange;
 
+import java.time.Duration;
+
 public class RetryException extends RuntimeException {
 
     private final HttpExchange httpExchange;
+    private final Duration retryAfterDelay;
 
     public RetryException() {
         httpExchange = null;
+        retryAfterDelay = null;
     }
     public RetryException(HttpExchange httpExchange, String message) {
+        this(httpExchange, message, null);
+    }
+
+    /**
+     * @param httpExchange exchange to retry
+     * @param message message
+     * @param retryAfterDelay delay sent by the server with a Retry-After header, which replaces the delay of the retry policy. can be null.
+     */
+    public RetryException(HttpExchange httpExchange, String message, Duration retryAfterDelay) {
         super(message);
         this.httpExchange = httpExchange;
+        this.retryAfterDelay = retryAfterDelay;
     }
     public RetryException(String message) {
         super(message);
         httpExchange = null;
+        retryAfterDelay = null;
     }
 
     public RetryException(String message, Throwable cause) {
         super(message, cause);
         httpExchange = null;
+        retryAfterDelay = null;
     }
 
     public RetryException(Throwable cause) {
         super(cause);
         httpExchange = null;
+        retryAfterDelay = null;
     }
 
     public RetryException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
         httpExchange = null;
+        retryAfterDelay = null;
     }
 
     public HttpExchange getHttpExchange() {
         return httpExchange;
     }
+
+    public Duration getRetryAfterDelay() {
+        return retryAfterDelay;
+    }
 }
@@ -4,7 +4,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.github.clescot.kafka.connect.http.client.AbstractHttpClient;
+import io.github.clescot.kafka.connect.http.client.Deadline;
 import io.github.clescot.kafka.connect.http.client.HttpClientFactory;
+import io.github.clescot.kafka.connect.http.client.RequestBodyCompressor;
+import io.github.clescot.kafka.connect.http.core.BodyType;
 import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import io.github.clescot.kafka.connect.http.core.HttpResponse;
 import io.netty.buffer.ByteBufAllocator;
@@ -23,19 +26,26 @@ import org.asynchttpclient.netty.channel.ConnectionSemaphoreFactory;
 import org.asynchttpclient.netty.channel.DefaultConnectionSemaphoreFactory;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.proxy.ProxyType;
+import org.asynchttpclient.request.body.generator.FileBodyGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static io.github.clescot.kafka.connect.http.client.HttpClientConfigDefinition.*;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.DEADLINE_IN_MS;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.DEFAULT_DEADLINE_IN_MS;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.ASYNC_CLIENT_CONFIG_ROOT;
 
 public class AHCHttpClient extends AbstractHttpClient<Request, Response> {
@@ -81,7 +91,8 @@ public class AHCHttpClient extends AbstractHttpClient<Request, Response> {
     private static final String BYTE_BUFFER_ALLOCATOR = ASYN_HTTP_CONFIG_PREFIX + "byte.buffer.allocator";
     private final AsyncHttpClient asyncHttpClient;
     private Map<String,Long> timings = Maps.newHashMap();
-    private final HttpClientAsyncCompletionHandler asyncCompletionHandler = new HttpClientAsyncCompletionHandler();
+    //responses with a body truncated to the body limit, until they are converted to HttpResponse
+    private final Set<Response> truncatedResponses = Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
 
     public AHCHttpClient(Map<String, String> config,Random random) {
         super(config,random);
@@ -101,10 +112,23 @@ public class AHCHttpClient extends AbstractHttpClient<Request, Response> {
         }else{
             LOGGER.debug("body stringData: null");
         }
+        //a handler per request, as it accumulates the response
+        HttpClientAsyncCompletionHandler asyncCompletionHandler = new HttpClientAsyncCompletionHandler(getBodyLimit(), getBodyTruncationPolicy(), truncatedResponses::add);
         ListenableFuture<Response> listenableFuture = asyncHttpClient.executeRequest(request, asyncCompletionHandler);
-        return listenableFuture.toCompletableFuture();
+        CompletableFuture<Response> cf = listenableFuture.toCompletableFuture();
+        cf.whenComplete((response, throwable) -> {
+            if (cf.isCancelled()) {
+                listenableFuture.cancel(true);
+            }
+        });
+        return cf;
+
 
+    }
 
+    private static void setCompressedBody(RequestBuilder requestBuilder, byte[] content, RequestBodyCompressor compressor) {
+        requestBuilder.setBody(compressor.compress(content));
+        requestBuilder.setHeader(RequestBodyCompressor.CONTENT_ENCODING, compressor.getContentEncoding());
     }
 
     @Override
@@ -129,8 +153,27 @@ public class AHCHttpClient extends AbstractHttpClient<Request, Response> {
         RequestBuilder requestBuilder = new RequestBuilder()
                 .setUrl(url)
                 .setHeaders(httpHeaders)
-                .setMethod(method.name())
-                .setBody(httpRequest.getBodyAsString());
+                .setMethod(method.name());
+        ByteBuffer bodyAsByteBuffer = httpRequest.getBodyAsByteBuffer();
+        Optional<RequestBodyCompressor> compressor = getRequestBodyCompressor();
+        if (BodyType.BYTE_ARRAY == httpRequest.getBodyType() && bodyAsByteBuffer != null) {
+            if (compressor.isPresent() && compressor.get().shouldCompress(bodyAsByteBuffer.remaining(), httpHeaders)) {
+                setCompressedBody(requestBuilder, httpRequest.getBodyAsByteArray(), compressor.get());
+            } else {
+                //raw bytes are streamed from a read-only view, without copy
+                requestBuilder.setBody(bodyAsByteBuffer);
+            }
+        } else if (BodyType.STRING == httpRequest.getBodyType()
+                && compressor.isPresent()
+                && compressor.get().shouldCompress(httpRequest.getBodyAsString().length(), httpHeaders)) {
+            setCompressedBody(requestBuilder, httpRequest.getBodyAsString().getBytes(StandardCharsets.UTF_8), compressor.get());
+        } else if (BodyType.FILE_REFERENCE == httpRequest.getBodyType()) {
+            //the file region is sent by netty as a zero-copy file region, and never loaded in memory
+            Path filePath = getFileReferenceGuard().check(httpRequest);
+            requestBuilder.setBody(new FileBodyGenerator(filePath.toFile(), httpRequest.getBodyFileRegionOffset(), httpRequest.getBodyFileRegionLength()));
+        } else {
+            requestBuilder.setBody(httpRequest.getBodyAsString());
+        }
 
         //extract proxy headers
         Map<String, String> proxyHeaders = Maps.newHashMap();
@@ -150,6 +193,12 @@ public class AHCHttpClient extends AbstractHttpClient<Request, Response> {
         if (httpHeaders.get(WS_REQUEST_TIMEOUT_IN_MS) != null) {
             requestTimeoutInMillis = Integer.parseInt(httpHeaders.get(WS_REQUEST_TIMEOUT_IN_MS).get(0));
             requestBuilder.setRequestTimeout(Duration.ofMillis(requestTimeoutInMillis));
+        } else {
+            //deadline, applied as the request timeout
+            long deadlineInMs = Deadline.getDeadlineInMs(httpRequest, Long.parseLong(getConfig().getOrDefault(DEADLINE_IN_MS, String.valueOf(DEFAULT_DEADLINE_IN_MS))));
+            if (deadlineInMs > 0) {
+                requestBuilder.setRequestTimeout(Duration.ofMillis(deadlineInMs));
+            }
         }
 
         int readTimeoutInMillis;
@@ -240,8 +289,11 @@ public class AHCHttpClient extends AbstractHttpClient<Request, Response> {
     }
     public HttpResponse buildResponse(Response response) {
         List<Map.Entry<String, String>> responseEntries = response.getHeaders() != null ? response.getHeaders().entries() : Lists.newArrayList();
-        HttpResponse httpResponse = new HttpResponse(response.getStatusCode(), response.getStatusText());
+        HttpResponse httpResponse = new HttpResponse(response.getStatusCode(), response.getStatusText(), getStatusMessageLimit(), getHeadersLimit(), getBodyLimit());
         httpResponse.setBodyAsString(response.getResponseBody());
+        if (truncatedResponses.remove(response)) {
+            httpResponse.markBodyAsTruncated();
+        }
         Map<String, List<String>> responseHeaders = responseEntries.stream()
                 .map(entry -> new AbstractMap.SimpleImmutableEntry<String, List<String>>(entry.getKey(), Lists.newArrayList(entry.getValue())))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,(l1,l2)->{
@@ -350,6 +402,18 @@ public class AHCHttpClient extends AbstractHttpClient<Request, Response> {
         return asyncHttpClient;
     }
 
+    /**
+     * close the AsyncHttpClient, which cancels the requests in flight and releases the netty event loop.
+     */
+    @Override
+    public void close() {
+        try {
+            asyncHttpClient.close();
+        } catch (IOException e) {
+            LOGGER.warn("error when closing the AsyncHttpClient :'{}'", e.getMessage());
+        }
+    }
+
     @Override
     protected Object clone() throws CloneNotSupportedException {
         return super.clone();
@@ -1,15 +1,39 @@
 package io.github.clescot.kafka.connect.http.client.ahc;
 
+import io.github.clescot.kafka.connect.http.client.BodyTruncationPolicy;
 import org.asynchttpclient.AsyncCompletionHandlerBase;
+import org.asynchttpclient.HttpResponseBodyPart;
 import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.function.Consumer;
+
+/**
+ * handler of a single request : body parts are accumulated up to the body limit only.
+ * beyond the limit, the connection is closed, or the rest of the body is discarded, according to the body truncation policy.
+ */
 public class HttpClientAsyncCompletionHandler extends AsyncCompletionHandlerBase {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientAsyncCompletionHandler.class);
 
+    private final Integer bodyLimit;
+    private final BodyTruncationPolicy bodyTruncationPolicy;
+    private final Consumer<Response> onTruncatedResponse;
+    private long receivedBytes;
+    private boolean truncated;
 
+    /**
+     * @param bodyLimit max length of the body kept in memory. null means no limit.
+     * @param bodyTruncationPolicy what to do with the rest of a body exceeding the limit
+     * @param onTruncatedResponse called with the response when its body is truncated
+     */
+    public HttpClientAsyncCompletionHandler(Integer bodyLimit, BodyTruncationPolicy bodyTruncationPolicy, Consumer<Response> onTruncatedResponse) {
+        this.bodyLimit = bodyLimit;
+        this.bodyTruncationPolicy = bodyTruncationPolicy;
+        this.onTruncatedResponse = onTruncatedResponse;
+    }
 
     @Override
     public void onThrowable(Throwable t) {
@@ -22,4 +46,33 @@ public class HttpClientAsyncCompletionHandler extends AsyncCompletionHandlerBase
         LOGGER.debug("status response code={}, text={}",status.getStatusCode(),status.getStatusText());
         return super.onStatusReceived(status);
     }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart content) throws Exception {
+        if (truncated) {
+            //DISCARD policy : the rest of the body is read, but not kept
+            return State.CONTINUE;
+        }
+        receivedBytes += content.length();
+        State state = super.onBodyPartReceived(content);
+        if (bodyLimit == null || receivedBytes <= bodyLimit) {
+            return state;
+        }
+        //the part crossing the limit is kept : the body is truncated to the limit when the HttpResponse is built
+        truncated = true;
+        LOGGER.warn("response body exceeds the body limit of '{}' bytes and is truncated (policy:'{}')", bodyLimit, bodyTruncationPolicy);
+        return BodyTruncationPolicy.CLOSE == bodyTruncationPolicy ? State.ABORT : State.CONTINUE;
+    }
+
+    @Override
+    public Response onCompleted(Response response) throws Exception {
+        if (truncated && response != null) {
+            onTruncatedResponse.accept(response);
+        }
+        return super.onCompleted(response);
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
 }
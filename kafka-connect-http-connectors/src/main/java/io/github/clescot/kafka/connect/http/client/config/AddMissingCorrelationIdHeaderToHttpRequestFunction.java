@@ -1,6 +1,5 @@
 package io.github.clescot.kafka.connect.http.client.config;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import org.apache.kafka.connect.errors.ConnectException;
@@ -9,8 +8,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
 import java.util.function.UnaryOperator;
 
 public class AddMissingCorrelationIdHeaderToHttpRequestFunction implements UnaryOperator<HttpRequest> {
@@ -28,15 +25,19 @@ public class AddMissingCorrelationIdHeaderToHttpRequestFunction implements Unary
             LOGGER.warn("httpRequest is null");
             throw new ConnectException("httpRequest is null");
         }
-        Map<String, List<String>> headers = Optional.ofNullable(httpRequest.getHeaders()).orElse(Maps.newHashMap());
+        if (!this.generateMissingCorrelationId) {
+            return httpRequest;
+        }
+        Map<String, List<String>> headers = httpRequest.getHeaders();
+        if (headers == null) {
+            headers = Maps.newHashMap();
+            httpRequest.setHeaders(headers);
+        }
 
         //we generate an 'X-Correlation-ID' header if not present
-        Optional<List<String>> correlationId = Optional.ofNullable(httpRequest.getHeaders().get(HEADER_X_CORRELATION_ID));
-        if (correlationId.isEmpty() && this.generateMissingCorrelationId) {
-            correlationId = Optional.of(Lists.newArrayList(UUID.randomUUID().toString()));
+        if (!headers.containsKey(HEADER_X_CORRELATION_ID)) {
+            headers.put(HEADER_X_CORRELATION_ID, List.of(RequestIdGenerator.nextId()));
         }
-        correlationId.ifPresent(corrId -> headers.put(HEADER_X_CORRELATION_ID, Lists.newArrayList(corrId)));
-
         return httpRequest;
     }
 
@@ -1,6 +1,5 @@
 package io.github.clescot.kafka.connect.http.client.config;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import org.apache.kafka.connect.errors.ConnectException;
@@ -9,8 +8,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
 import java.util.function.UnaryOperator;
 
 public class AddMissingRequestIdHeaderToHttpRequestFunction implements UnaryOperator<HttpRequest> {
@@ -28,16 +25,19 @@ public class AddMissingRequestIdHeaderToHttpRequestFunction implements UnaryOper
             LOGGER.warn("httpRequest is null");
             throw new ConnectException("httpRequest is null");
         }
-        Map<String, List<String>> headers = Optional.ofNullable(httpRequest.getHeaders()).orElse(Maps.newHashMap());
+        if (!this.generateMissingRequestId) {
+            return httpRequest;
+        }
+        Map<String, List<String>> headers = httpRequest.getHeaders();
+        if (headers == null) {
+            headers = Maps.newHashMap();
+            httpRequest.setHeaders(headers);
+        }
 
         //we generate an 'X-Request-ID' header if not present
-        Optional<List<String>> requestId = Optional.ofNullable(httpRequest.getHeaders().get(HEADER_X_REQUEST_ID));
-        if (requestId.isEmpty() && this.generateMissingRequestId) {
-            requestId = Optional.of(Lists.newArrayList(UUID.randomUUID().toString()));
+        if (!headers.containsKey(HEADER_X_REQUEST_ID)) {
+            headers.put(HEADER_X_REQUEST_ID, List.of(RequestIdGenerator.nextId()));
         }
-        requestId.ifPresent(reqId -> headers.put(HEADER_X_REQUEST_ID, Lists.newArrayList(reqId)));
-
-
         return httpRequest;
     }
 
@@ -1,6 +1,7 @@
 package io.github.clescot.kafka.connect.http.client.config;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import io.github.clescot.kafka.connect.http.core.HttpRequest;
 
 import java.util.List;
@@ -9,20 +10,25 @@ import java.util.function.UnaryOperator;
 
 public class AddStaticHeadersToHttpRequestFunction implements UnaryOperator<HttpRequest> {
 
+    //immutable : the same value lists are shared by all the requests, without copy
     private final Map<String, List<String>> staticHeaders;
 
     public AddStaticHeadersToHttpRequestFunction(Map<String, List<String>> staticHeaders) {
         Preconditions.checkNotNull(staticHeaders, "staticHeaders map is null");
-        this.staticHeaders = staticHeaders;
+        this.staticHeaders = staticHeaders.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, entry -> List.copyOf(entry.getValue())));
     }
 
     @Override
     public HttpRequest apply(HttpRequest httpRequest) {
         Preconditions.checkNotNull(httpRequest, "httpRequest is null");
-        this.staticHeaders.forEach((key, value) -> httpRequest.getHeaders().put(key, value));
+        httpRequest.getHeaders().putAll(this.staticHeaders);
         return httpRequest;
     }
 
+    /**
+     * @return immutable static headers.
+     */
     public Map<String, List<String>> getStaticHeaders() {
         return staticHeaders;
     }
@@ -1,7 +1,6 @@
 package io.github.clescot.kafka.connect.http.client.config;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,14 +13,15 @@ import java.util.function.UnaryOperator;
 public class AddUserAgentHeaderToHttpRequestFunction implements UnaryOperator<HttpRequest> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AddUserAgentHeaderToHttpRequestFunction.class);
     public static final String USER_AGENT = "User-Agent";
-    private final List<String> userAgents;
+    //header values built once per user agent, and shared by the requests
+    private final List<List<String>> userAgentHeaderValues;
     private final Random random;
 
     public AddUserAgentHeaderToHttpRequestFunction(List<String> userAgents, Random random) {
         Preconditions.checkNotNull(userAgents);
         Preconditions.checkNotNull(random);
         Preconditions.checkArgument(!userAgents.isEmpty(),"userAgents list is empty");
-        this.userAgents = userAgents;
+        this.userAgentHeaderValues = userAgents.stream().map(List::of).toList();
         this.random = random;
     }
 
@@ -29,14 +29,14 @@ public class AddUserAgentHeaderToHttpRequestFunction implements UnaryOperator<Ht
     public HttpRequest apply(HttpRequest httpRequest) {
         if (!httpRequest.getHeaders().containsKey(USER_AGENT)) {
             Map<String, List<String>> httpRequestHeaders = httpRequest.getHeaders();
-            String userAgent = getUserAgents();
-            LOGGER.debug("User-Agent:{}", userAgent);
-            httpRequestHeaders.put(USER_AGENT, Lists.newArrayList(userAgent));
+            List<String> userAgent = getUserAgent();
+            LOGGER.debug("User-Agent:{}", userAgent.get(0));
+            httpRequestHeaders.put(USER_AGENT, userAgent);
         }
         return httpRequest;
     }
 
-    private String getUserAgents() {
-        return userAgents.get(random.nextInt(userAgents.size()));
+    private List<String> getUserAgent() {
+        return userAgentHeaderValues.get(random.nextInt(userAgentHeaderValues.size()));
     }
 }
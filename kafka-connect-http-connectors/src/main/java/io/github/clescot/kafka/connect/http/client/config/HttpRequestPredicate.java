@@ -0,0 +1,112 @@
+package io.github.clescot.kafka.connect.http.client.config;
+
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Predicate matching an HttpRequest against pre-compiled regex patterns (url, method, body type, header key and value).
+ * A null pattern is not checked. The url part can be evaluated apart from the other parts,
+ * to let a router cache url matching results.
+ */
+public class HttpRequestPredicate implements Predicate<HttpRequest> {
+
+    private final Pattern urlPattern;
+    private final Pattern methodPattern;
+    private final Pattern bodyTypePattern;
+    private final Pattern headerKeyPattern;
+    private final Pattern headerValuePattern;
+
+    public HttpRequestPredicate(@Nullable Pattern urlPattern,
+                                @Nullable Pattern methodPattern,
+                                @Nullable Pattern bodyTypePattern,
+                                @Nullable Pattern headerKeyPattern,
+                                @Nullable Pattern headerValuePattern) {
+        this.urlPattern = urlPattern;
+        this.methodPattern = methodPattern;
+        this.bodyTypePattern = bodyTypePattern;
+        this.headerKeyPattern = headerKeyPattern;
+        this.headerValuePattern = headerValuePattern;
+    }
+
+    @Override
+    public boolean test(HttpRequest httpRequest) {
+        return testUrl(httpRequest.getUrl()) && testWithoutUrl(httpRequest);
+    }
+
+    public boolean testUrl(String url) {
+        return urlPattern == null || urlPattern.matcher(url).matches();
+    }
+
+    /**
+     * @param httpRequest request to test
+     * @return true if method, body type and headers match.
+     */
+    public boolean testWithoutUrl(HttpRequest httpRequest) {
+        if (methodPattern != null && !methodPattern.matcher(httpRequest.getMethod().name()).matches()) {
+            return false;
+        }
+        if (bodyTypePattern != null && !bodyTypePattern.matcher(httpRequest.getBodyType().name()).matches()) {
+            return false;
+        }
+        return headerKeyPattern == null || testHeaders(httpRequest.getHeaders());
+    }
+
+    private boolean testHeaders(Map<String, List<String>> headers) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            boolean headerKeyFound = headerKeyPattern.matcher(entry.getKey()).matches();
+            if (headerKeyFound
+                    && entry.getValue() != null
+                    && !entry.getValue().isEmpty()
+                    && headerValuePattern != null) {
+                if (headerValuePattern.matcher(entry.getValue().get(0)).matches()) {
+                    return true;
+                }
+            } else if (headerKeyFound) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public @Nullable Pattern getUrlPattern() {
+        return urlPattern;
+    }
+
+    private static String patternAsString(Pattern pattern) {
+        return pattern != null ? pattern.pattern() : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HttpRequestPredicate)) return false;
+        HttpRequestPredicate that = (HttpRequestPredicate) o;
+        return Objects.equals(patternAsString(urlPattern), patternAsString(that.urlPattern))
+                && Objects.equals(patternAsString(methodPattern), patternAsString(that.methodPattern))
+                && Objects.equals(patternAsString(bodyTypePattern), patternAsString(that.bodyTypePattern))
+                && Objects.equals(patternAsString(headerKeyPattern), patternAsString(that.headerKeyPattern))
+                && Objects.equals(patternAsString(headerValuePattern), patternAsString(that.headerValuePattern));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(patternAsString(urlPattern), patternAsString(methodPattern), patternAsString(bodyTypePattern), patternAsString(headerKeyPattern), patternAsString(headerValuePattern));
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequestPredicate{" +
+                "urlPattern=" + urlPattern +
+                ", methodPattern=" + methodPattern +
+                ", bodyTypePattern=" + bodyTypePattern +
+                ", headerKeyPattern=" + headerKeyPattern +
+                ", headerValuePattern=" + headerValuePattern +
+                '}';
+    }
+}
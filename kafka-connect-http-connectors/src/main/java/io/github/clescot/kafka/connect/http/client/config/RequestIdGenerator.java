@@ -0,0 +1,28 @@
+package io.github.clescot.kafka.connect.http.client.config;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * generate random version 4 UUIDs for the 'X-Request-ID' and 'X-Correlation-ID' headers.
+ * unlike {@link UUID#randomUUID()}, which shares a single SecureRandom between threads, each thread draws from its own
+ * {@link ThreadLocalRandom} : there is no contention between tasks, at the cost of ids not being cryptographically strong.
+ * these ids are only used to trace requests.
+ */
+public final class RequestIdGenerator {
+
+    private RequestIdGenerator() {
+    }
+
+    /**
+     * @return a random version 4 UUID, as a String.
+     */
+    public static String nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        //version 4
+        long mostSigBits = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        //IETF variant
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
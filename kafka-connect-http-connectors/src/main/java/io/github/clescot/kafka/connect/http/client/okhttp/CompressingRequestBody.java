@@ -0,0 +1,73 @@
+package io.github.clescot.kafka.connect.http.client.okhttp;
+
+import com.google.common.base.Preconditions;
+import io.github.clescot.kafka.connect.http.client.RequestBodyCompressor;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+import okio.Sink;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * request body compressed while it is written to the connection, without an intermediate copy of the uncompressed body.
+ * the compressed length is unknown : the body is sent with a chunked transfer encoding.
+ * the body is compressed again at each write, so it can be replayed on retries like the wrapped body.
+ */
+public class CompressingRequestBody extends RequestBody {
+
+    private final RequestBody delegate;
+    private final RequestBodyCompressor compressor;
+
+    public CompressingRequestBody(RequestBody delegate, RequestBodyCompressor compressor) {
+        Preconditions.checkNotNull(delegate, "'delegate' is required");
+        Preconditions.checkNotNull(compressor, "'compressor' is required");
+        this.delegate = delegate;
+        this.compressor = compressor;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return delegate.isOneShot();
+    }
+
+    @Override
+    public void writeTo(@NotNull BufferedSink sink) throws IOException {
+        long start = System.nanoTime();
+        CountingSink compressedSink = new CountingSink(sink);
+        try (BufferedSink compressingSink = Okio.buffer(Okio.sink(compressor.wrap(Okio.buffer(compressedSink).outputStream())))) {
+            delegate.writeTo(compressingSink);
+        }
+        compressor.record(delegate.contentLength(), compressedSink.count, System.nanoTime() - start);
+    }
+
+    private static class CountingSink extends ForwardingSink {
+        private long count;
+
+        CountingSink(Sink delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void write(@NotNull Buffer source, long byteCount) throws IOException {
+            super.write(source, byteCount);
+            count += byteCount;
+        }
+    }
+}
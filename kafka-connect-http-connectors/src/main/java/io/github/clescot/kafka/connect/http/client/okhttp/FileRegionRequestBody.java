@@ -0,0 +1,65 @@
+package io.github.clescot.kafka.connect.http.client.okhttp;
+
+import com.google.common.base.Preconditions;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * request body streamed from a region of a file, without loading it in memory.
+ * the region is transferred with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * which relies on memory-mapped chunks of the file instead of heap buffers.
+ * the file is opened again at each write, so the body can be replayed on retries.
+ */
+public class FileRegionRequestBody extends RequestBody {
+
+    private final File file;
+    private final long offset;
+    private final long length;
+    private final MediaType contentType;
+
+    public FileRegionRequestBody(File file, long offset, long length, @Nullable MediaType contentType) {
+        Preconditions.checkNotNull(file, "'file' is required");
+        Preconditions.checkArgument(offset >= 0, "'offset' must be positive or zero");
+        Preconditions.checkArgument(length >= 0, "'length' must be positive or zero");
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.contentType = contentType;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NotNull BufferedSink sink) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = fileChannel.transferTo(position, remaining, sink);
+                if (transferred <= 0) {
+                    throw new EOFException("file '" + file + "' ends before the body region (offset:" + offset + ", length:" + length + ")");
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+}
@@ -5,7 +5,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.github.clescot.kafka.connect.http.client.AbstractHttpClient;
+import io.github.clescot.kafka.connect.http.client.BodyTruncationPolicy;
+import io.github.clescot.kafka.connect.http.client.Deadline;
 import io.github.clescot.kafka.connect.http.client.HttpClient;
+import io.github.clescot.kafka.connect.http.client.RequestBodyCompressor;
 import io.github.clescot.kafka.connect.http.client.TimingData;
 import io.github.clescot.kafka.connect.http.core.BodyType;
 import io.github.clescot.kafka.connect.http.core.HttpPart;
@@ -15,6 +18,8 @@ import kotlin.Pair;
 import okhttp3.*;
 import okhttp3.internal.http.HttpMethod;
 import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -26,20 +31,31 @@ import java.io.IOException;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.CookieStore;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.Principal;
 import java.security.cert.Certificate;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static io.github.clescot.kafka.connect.http.core.MediaType.APPLICATION_OCTET_STREAM;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.DEADLINE_IN_MS;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.DEFAULT_DEADLINE_IN_MS;
 
 public class OkHttpClient extends AbstractHttpClient<Request, Response> {
 
 
     private final okhttp3.OkHttpClient client;
     private static final Logger LOGGER = LoggerFactory.getLogger(OkHttpClient.class);
-    private final Map<String, OkHttpClient> clientsPerVuId = Maps.newHashMap();
+    private final Map<String, OkHttpClient> clientsPerVuId = new ConcurrentHashMap<>();
+    //static headers of the configuration, validated once
+    private final Headers staticHeadersTemplate;
+    //static headers of the configuration, by case-insensitive name
+    private final Map<String, List<String>> staticHeadersByName;
 
 
     public OkHttpClient(Map<String, String> config,
@@ -48,6 +64,9 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
         super(config, random);
         Preconditions.checkNotNull(client, "okhttp3.OkHttpClient must not be null");
         this.client = client;
+        this.staticHeadersTemplate = getHeaders(getStaticRequestHeaders());
+        this.staticHeadersByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.staticHeadersByName.putAll(getStaticRequestHeaders());
     }
 
     @Override
@@ -62,7 +81,7 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
 
         //headers
         Map<String, List<String>> headers = httpRequest.getHeaders();
-        Headers okHeaders = getHeaders(headers);
+        Headers okHeaders = mergeWithStaticHeadersTemplate(headers);
         builder.headers(okHeaders);
         //Content-Type
         List<String> contentType = headers.get("Content-Type");
@@ -73,10 +92,21 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
         //method
         String method = httpRequest.getMethod().name();
         RequestBody requestBody = getRequestBody(httpRequest, method, firstContentType);
+        //compression, applied while the body is written to the connection
+        Optional<RequestBodyCompressor> compressor = getRequestBodyCompressor();
+        if (compressor.isPresent() && isCompressible(httpRequest, requestBody, compressor.get())) {
+            requestBody = new CompressingRequestBody(requestBody, compressor.get());
+            builder.header(RequestBodyCompressor.CONTENT_ENCODING, compressor.get().getContentEncoding());
+        }
         builder.method(method, requestBody);
 
         //timing data
         builder.tag(TimingData.class, new TimingData());
+        //deadline, applied as the timeout of the call
+        long deadlineInMs = Deadline.getDeadlineInMs(httpRequest, Long.parseLong(getConfig().getOrDefault(DEADLINE_IN_MS, String.valueOf(DEFAULT_DEADLINE_IN_MS))));
+        if (deadlineInMs > 0) {
+            builder.tag(Deadline.class, new Deadline(deadlineInMs));
+        }
         return builder.build();
     }
 
@@ -136,6 +166,12 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
                     requestBody = getMultiPartRequestBody(httpRequest, firstContentType);
                     break;
                 }
+                case FILE_REFERENCE: {
+                    //the file region is streamed, and never loaded in memory
+                    Path filePath = getFileReferenceGuard().check(httpRequest);
+                    requestBody = new FileRegionRequestBody(filePath.toFile(), httpRequest.getBodyFileRegionOffset(), httpRequest.getBodyFileRegionLength(), MediaType.parse(Optional.ofNullable(firstContentType).orElse(APPLICATION_OCTET_STREAM)));
+                    break;
+                }
 
                 case STRING:
                 default: {
@@ -217,6 +253,43 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
     }
 
 
+    /**
+     * build the native headers in a single pass over the request headers, from the template of the static headers :
+     * a request header equal to a static header (header names are compared case-insensitively) is already in the template,
+     * and only the other headers are validated and added.
+     * if a static header has been overridden or removed since the enrich request function, the template does not apply,
+     * and all the request headers are validated and added.
+     * @param headers headers of the request
+     * @return native headers
+     */
+    @NotNull
+    private Headers mergeWithStaticHeadersTemplate(Map<String, List<String>> headers) {
+        if (staticHeadersByName.isEmpty()) {
+            return getHeaders(headers);
+        }
+        Headers.Builder okHeadersBuilder = staticHeadersTemplate.newBuilder();
+        int staticHeadersInRequest = 0;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            List<String> values = header.getValue();
+            List<String> staticValues = staticHeadersByName.get(header.getKey());
+            if (staticValues != null) {
+                //same instance when set by the enrich request function, equal values when the headers have been copied since
+                if (staticValues != values && !staticValues.equals(values)) {
+                    return getHeaders(headers);
+                }
+                staticHeadersInRequest++;
+            } else {
+                for (String value : values) {
+                    okHeadersBuilder.add(header.getKey(), value);
+                }
+            }
+        }
+        if (staticHeadersInRequest != staticHeadersByName.size()) {
+            return getHeaders(headers);
+        }
+        return okHeadersBuilder.build();
+    }
+
     @NotNull
     private static Headers getHeaders(Map<String, List<String>> headers) {
         Headers.Builder okHeadersBuilder = new Headers.Builder();
@@ -228,13 +301,23 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
         return okHeadersBuilder.build();
     }
 
+    private static boolean isCompressible(HttpRequest httpRequest, @Nullable RequestBody requestBody, RequestBodyCompressor compressor) {
+        if (requestBody == null) {
+            return false;
+        }
+        try {
+            //a body with an unknown length (-1) is not compressed
+            return compressor.shouldCompress(requestBody.contentLength(), httpRequest.getHeaders());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     @NotNull
     private static RequestBody toRequestBody(byte[] bodyAsByteArray, String contentType) {
-        RequestBody requestBody;
-        String encoded = Base64.getEncoder().encodeToString(bodyAsByteArray);
+        //raw bytes are sent without copy.
         //use the contentType set in HttpRequest. if not set, use application/octet-stream
-        requestBody = RequestBody.create(encoded, MediaType.parse(Optional.ofNullable(contentType).orElse(APPLICATION_OCTET_STREAM)));
-        return requestBody;
+        return RequestBody.create(Optional.ofNullable(bodyAsByteArray).orElse(HttpPart.EMPTY_BYTE_ARRAY), MediaType.parse(Optional.ofNullable(contentType).orElse(APPLICATION_OCTET_STREAM)));
     }
 
 
@@ -278,10 +361,10 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
             }
             ResponseBody body = response.body();
             switch (httpResponse.getBodyType()) {
-                case BYTE_ARRAY -> httpResponse.setBodyAsByteArray(body.bytes());
+                case BYTE_ARRAY -> httpResponse.setBodyAsByteArray(readBody(body, httpResponse));
                 case FORM -> httpResponse.setBodyAsForm(fromNativeBodyToForm(body));
                 case MULTIPART -> httpResponse.setParts(fromResponseBodyToParts(body));
-                case STRING -> httpResponse.setBodyAsString(body.string());
+                case STRING -> httpResponse.setBodyAsString(readBodyAsString(body, httpResponse));
             }
 
 
@@ -335,6 +418,41 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
         return httpResponse;
     }
 
+    /**
+     * read the body from its source up to the body limit : a body exceeding the limit is never buffered entirely.
+     * the rest of the body is discarded, or the connection is closed, according to the body truncation policy.
+     * @param body response body, closed by this method
+     * @param httpResponse response flagged when the body is truncated
+     * @return content of the body, up to the body limit
+     * @throws IOException when the body cannot be read
+     */
+    private byte[] readBody(ResponseBody body, HttpResponse httpResponse) throws IOException {
+        Integer bodyLimit = getBodyLimit();
+        if (bodyLimit == null) {
+            return body.bytes();
+        }
+        try (body) {
+            BufferedSource source = body.source();
+            //one byte more than the limit is requested, to know if the body exceeds it
+            if (!source.request(bodyLimit + 1L)) {
+                return source.readByteArray();
+            }
+            byte[] content = source.readByteArray(bodyLimit);
+            httpResponse.markBodyAsTruncated();
+            LOGGER.warn("response body exceeds the body limit of '{}' bytes and is truncated (policy:'{}')", bodyLimit, getBodyTruncationPolicy());
+            if (BodyTruncationPolicy.DISCARD == getBodyTruncationPolicy()) {
+                source.readAll(Okio.blackhole());
+            }
+            return content;
+        }
+    }
+
+    private String readBodyAsString(ResponseBody body, HttpResponse httpResponse) throws IOException {
+        okhttp3.MediaType contentType = body.contentType();
+        Charset charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+        return new String(readBody(body, httpResponse), charset);
+    }
+
     private Map<String, HttpPart> fromResponseBodyToParts(ResponseBody body) {
 
         Map<String, HttpPart> parts = Maps.newHashMap();
@@ -375,7 +493,13 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
     @Override
     public CompletableFuture<Response> nativeCall(Request request) {
         CompletableFuture<Response> cf = new CompletableFuture<>();
-        client.newCall(request).enqueue(new Callback() {
+        Call nativeCall = client.newCall(request);
+        Deadline deadline = request.tag(Deadline.class);
+        if (deadline != null) {
+            //abandoned calls do not keep sockets and dispatcher slots busy after the deadline
+            nativeCall.timeout().timeout(deadline.getDeadlineInMs(), TimeUnit.MILLISECONDS);
+        }
+        nativeCall.enqueue(new Callback() {
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
                 LOGGER.error("okhttp native call error :{}", ExceptionUtils.getStackTrace(e));
@@ -384,7 +508,15 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
 
             @Override
             public void onResponse(@NotNull Call call, @NotNull Response response) {
-                cf.complete(response);
+                if (!cf.complete(response)) {
+                    //the future is already cancelled
+                    response.close();
+                }
+            }
+        });
+        cf.whenComplete((response, throwable) -> {
+            if (cf.isCancelled()) {
+                nativeCall.cancel();
             }
         });
         return cf;
@@ -437,13 +569,38 @@ public class OkHttpClient extends AbstractHttpClient<Request, Response> {
      */
     @Override
     public HttpClient<Request, Response> customizeForUser(String vuId) {
+        return clientsPerVuId.computeIfAbsent(vuId, id -> new OkHttpClient(getConfig(), customizeOkHttpClientForUser(id, client), random));
+    }
 
-        if(!clientsPerVuId.containsKey(vuId)){
-            OkHttpClient okHttpClient = new OkHttpClient(getConfig(), customizeOkHttpClientForUser(vuId, client), random);
-            clientsPerVuId.put(vuId,okHttpClient);
-            return okHttpClient;
-        }else{
-            return clientsPerVuId.get(vuId);
+    /**
+     * forget the client customized for the user, and clear its cookies.
+     * @param vuId
+     */
+    @Override
+    public void removeUser(String vuId) {
+        OkHttpClient okHttpClient = clientsPerVuId.remove(vuId);
+        if (okHttpClient != null && okHttpClient.getCookieJar() instanceof OkHttpCookieJar okHttpCookieJar) {
+            okHttpCookieJar.clear();
+        }
+    }
+
+    /**
+     * cancel the calls queued or in flight (the dispatcher is shared with the users clients),
+     * evict the idle connections, and close the cache.
+     * the executor service of the dispatcher is owned by the task, and is not shutdown here.
+     */
+    @Override
+    public void close() {
+        clientsPerVuId.clear();
+        client.dispatcher().cancelAll();
+        client.connectionPool().evictAll();
+        okhttp3.Cache cache = client.cache();
+        if (cache != null) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                LOGGER.warn("error when closing the okhttp cache :'{}'", e.getMessage());
+            }
         }
     }
 
@@ -25,6 +25,13 @@ public class OkHttpCookieJar implements CookieJar {
         this.cookieManager = cookieManager;
     }
 
+    /**
+     * remove all cookies stored.
+     */
+    public void clear() {
+        cookieManager.getCookieStore().removeAll();
+    }
+
     @Override
     public void saveFromResponse(HttpUrl url, List<Cookie> cookies) {
         try {
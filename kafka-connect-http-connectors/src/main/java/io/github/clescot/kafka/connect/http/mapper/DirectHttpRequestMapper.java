@@ -40,6 +40,11 @@ public class DirectHttpRequestMapper extends AbstractHttpRequestMapper {
         return (boolean) expression.evaluate(context);
     }
 
+    @Override
+    public String getMatchingExpression() {
+        return expression.getSourceText();
+    }
+
     @Override
     public HttpRequest map(ConnectRecord sinkRecord) {
         if (sinkRecord == null || sinkRecord.value() == null) {
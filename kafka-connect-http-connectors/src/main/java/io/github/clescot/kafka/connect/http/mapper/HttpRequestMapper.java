@@ -19,6 +19,14 @@ public interface HttpRequestMapper {
      */
     boolean matches(ConnectRecord sinkRecord);
 
+    /**
+     * source of the JEXL matching expression, used to index mappers by record invariants (topic, partition, schema name).
+     * @return the matching expression, or null if it cannot be analysed.
+     */
+    default String getMatchingExpression() {
+        return null;
+    }
+
     /**
      *  map this sinkRecord to an HttpRequest.
      * @param sinkRecord message to map
@@ -11,6 +11,7 @@ import org.apache.commons.jexl3.MapContext;
 import org.apache.kafka.connect.connector.ConnectRecord;
 import org.jetbrains.annotations.Nullable;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -63,6 +64,11 @@ public class JEXLHttpRequestMapper extends AbstractHttpRequestMapper {
         return (boolean) jexlMatchingExpression.evaluate(context);
     }
 
+    @Override
+    public String getMatchingExpression() {
+        return jexlMatchingExpression.getSourceText();
+    }
+
     @Override
     public HttpRequest map(ConnectRecord sinkRecord) {
         JexlContext context = new MapContext();
@@ -79,6 +85,11 @@ public class JEXLHttpRequestMapper extends AbstractHttpRequestMapper {
         String content = jexlBodyExpression.isPresent()?jexlBodyExpression.map(jexlExpression -> (String) jexlExpression.evaluate(context)).orElse(null):null;
         HttpRequest httpRequest = new HttpRequest(url,method);
         switch (bodyType){
+            case FILE_REFERENCE:{
+                //the body expression evaluates to the URI of the file, streamed by the HTTP client
+                httpRequest.setBodyAsFileReference(URI.create(content), 0, null);
+                break;
+            }
             case STRING:
             default:{
                 httpRequest.setBodyAsString(content);
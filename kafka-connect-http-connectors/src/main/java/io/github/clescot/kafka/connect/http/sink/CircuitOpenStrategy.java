@@ -0,0 +1,16 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+/**
+ * behaviour of the sink task when the circuit breaker of the configuration matching a request is open.
+ */
+public enum CircuitOpenStrategy {
+    /**
+     * publish each request to the dead letter queue topic of the producer.
+     */
+    DLQ,
+    /**
+     * rewind the partition of the record to its offset, and pause it until the circuit breaker may be closed.
+     * records are redelivered when the partition is resumed.
+     */
+    PAUSE
+}
@@ -3,7 +3,10 @@ package io.github.clescot.kafka.connect.http.sink;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import io.github.clescot.kafka.connect.ConfigUtils;
+import io.github.clescot.kafka.connect.http.client.BodyTruncationPolicy;
+import io.github.clescot.kafka.connect.http.client.ExecutorMode;
 import io.github.clescot.kafka.connect.http.client.HttpClientConfigDefinition;
+import io.github.clescot.kafka.connect.http.client.RequestBodyCompressor;
 import io.github.clescot.kafka.connect.http.mapper.MapperMode;
 import org.apache.kafka.common.config.ConfigDef;
 
@@ -131,6 +134,26 @@ public class HttpConfigDefinition {
     public static final String CONFIG_DEFAULT_RETRY_JITTER_IN_MS_DOC = "if set with other default retry parameters, permit to define a default retry policy, which can be overriden in the httpRequest object. " +
             "Define max entropy to add, to prevent many retry policies instances with the same parameters, to flood servers at the same time";
 
+    //deadline
+    public static final String DEADLINE_IN_MS = "deadline.in.ms";
+    public static final String CONFIG_DEFAULT_DEADLINE_IN_MS_DOC = "if greater than 0, deadline of each record, covering the rate limiter wait, the retries and the network time. when it expires, the call in flight is cancelled, and the exchange fails. it can be overridden with the 'deadline.in.ms' attribute of the HttpRequest.";
+    public static final long DEFAULT_DEADLINE_IN_MS = 0L;
+
+    //retry budget
+    public static final String RETRY_BUDGET_PREFIX = "retry.budget.";
+
+    public static final String RETRY_BUDGET_ACTIVATE = RETRY_BUDGET_PREFIX + "activate";
+    public static final String CONFIG_DEFAULT_RETRY_BUDGET_ACTIVATE_DOC = "if true, the retries of the configuration are capped by a retry budget : each successful call deposits a ratio of a retry, and each retry consumes one. when the budget is exhausted, the exchange fails without retry, to prevent retry storms.";
+    public static final boolean DEFAULT_RETRY_BUDGET_ACTIVATE = false;
+
+    public static final String RETRY_BUDGET_MAX_TOKENS = RETRY_BUDGET_PREFIX + "max.tokens";
+    public static final String CONFIG_DEFAULT_RETRY_BUDGET_MAX_TOKENS_DOC = "maximum number of retries kept in the retry budget. the budget is full at startup.";
+    public static final int DEFAULT_RETRY_BUDGET_MAX_TOKENS = 100;
+
+    public static final String RETRY_BUDGET_DEPOSIT_RATIO = RETRY_BUDGET_PREFIX + "deposit.ratio";
+    public static final String CONFIG_DEFAULT_RETRY_BUDGET_DEPOSIT_RATIO_DOC = "ratio of a retry deposited in the retry budget for each successful call, i.e the ratio of retries permitted per successful call.";
+    public static final double DEFAULT_RETRY_BUDGET_DEPOSIT_RATIO = 0.1d;
+
     //retry after settings
     public static final String RETRY_AFTER_MAX_DURATION_IN_SEC = RETRY_POLICY_PREFIX + "retry.after.max.duration.in.sec";
     public static final String CONFIG_DEFAULT_RETRY_AFTER_MAX_DURATION_IN_SEC = DEFAULT_CONFIGURATION_PREFIX + RETRY_AFTER_MAX_DURATION_IN_SEC;
@@ -152,6 +175,98 @@ public class HttpConfigDefinition {
     public static final String CONFIG_DEFAULT_CUSTOM_STATUS_CODE_FOR_RETRY_AFTER_HEADER_DOC = "maximum delay threshold in second to consider retry-after header value. above this threshold, circuit breaker will be opened. under this threshold, a local wait will be done.";
     public static final String DEFAULT_CUSTOM_STATUS_CODE_FOR_RETRY_AFTER_HEADER = "503|429|301";
 
+    //circuit breaker
+    public static final String CIRCUIT_BREAKER_PREFIX = "circuit.breaker.";
+
+    public static final String CIRCUIT_BREAKER_SCOPE = CIRCUIT_BREAKER_PREFIX + "scope";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_SCOPE_DOC = "'configuration' (default) : one circuit breaker for all the requests of the configuration. 'host' : one circuit breaker per host, so that a failing host does not disable the other hosts of the configuration.";
+    public static final String DEFAULT_CIRCUIT_BREAKER_SCOPE = "configuration";
+
+    public static final String CIRCUIT_BREAKER_FAILURE_THRESHOLD = CIRCUIT_BREAKER_PREFIX + "failure.threshold";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD_DOC = "number of failures (responses with a Retry-After delay above the threshold) which open the circuit breaker, among the last '" + CIRCUIT_BREAKER_PREFIX + "failure.thresholding.capacity' executions.";
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 1;
+
+    public static final String CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY = CIRCUIT_BREAKER_PREFIX + "failure.thresholding.capacity";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY_DOC = "size of the count-based sliding window of executions. with a thresholding period, minimum number of executions in the period before the circuit breaker can open.";
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY = 1;
+
+    public static final String CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS = CIRCUIT_BREAKER_PREFIX + "failure.thresholding.period.in.ms";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS_DOC = "if greater than 0, failures are counted in a time-based sliding window of this duration, instead of a count-based one.";
+    public static final long DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS = 0L;
+
+    public static final String CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = CIRCUIT_BREAKER_PREFIX + "failure.rate.threshold";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_DOC = "with a thresholding period, percentage of failures in the period which opens the circuit breaker (instead of the failure threshold). 0 disables it.";
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = 0;
+
+    public static final String CIRCUIT_BREAKER_SUCCESS_THRESHOLD = CIRCUIT_BREAKER_PREFIX + "success.threshold";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_SUCCESS_THRESHOLD_DOC = "number of successful probes in the half-open state, which close the circuit breaker.";
+    public static final int DEFAULT_CIRCUIT_BREAKER_SUCCESS_THRESHOLD = 1;
+
+    public static final String CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES = CIRCUIT_BREAKER_PREFIX + "half.open.max.probes";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES_DOC = "maximum number of requests permitted in the half-open state, to probe the server.";
+    public static final int DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES = 1;
+
+    public static final String CIRCUIT_BREAKER_MAX_ROUTES = CIRCUIT_BREAKER_PREFIX + "max.routes";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_MAX_ROUTES_DOC = "with the 'host' scope, maximum number of origins (scheme, host and port) with a circuit breaker. the least recently used circuit breakers are evicted above it, with their metrics.";
+    public static final long DEFAULT_CIRCUIT_BREAKER_MAX_ROUTES = 1000L;
+
+    public static final String CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS = CIRCUIT_BREAKER_PREFIX + "route.expire.after.access.in.ms";
+    public static final String CONFIG_DEFAULT_CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS_DOC = "with the 'host' scope, the circuit breaker of an origin not called during this delay is evicted, with its metrics.";
+    public static final long DEFAULT_CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS = 3_600_000L;
+
+    //adaptive concurrency limiter
+    public static final String CONCURRENCY_LIMITER_PREFIX = "concurrency.limiter.";
+
+    public static final String CONCURRENCY_LIMITER_ACTIVATE = CONCURRENCY_LIMITER_PREFIX + "activate";
+    public static final String CONFIG_DEFAULT_CONCURRENCY_LIMITER_ACTIVATE_DOC = "if true, the number of requests in flight for the configuration is limited by an AIMD (additive increase, multiplicative decrease) limit, adjusted at runtime from the responses.";
+    public static final boolean DEFAULT_CONCURRENCY_LIMITER_ACTIVATE = false;
+
+    public static final String CONCURRENCY_LIMITER_INITIAL_LIMIT = CONCURRENCY_LIMITER_PREFIX + "initial.limit";
+    public static final String CONFIG_DEFAULT_CONCURRENCY_LIMITER_INITIAL_LIMIT_DOC = "initial number of requests in flight permitted.";
+    public static final int DEFAULT_CONCURRENCY_LIMITER_INITIAL_LIMIT = 20;
+
+    public static final String CONCURRENCY_LIMITER_MIN_LIMIT = CONCURRENCY_LIMITER_PREFIX + "min.limit";
+    public static final String CONFIG_DEFAULT_CONCURRENCY_LIMITER_MIN_LIMIT_DOC = "lowest limit of requests in flight.";
+    public static final int DEFAULT_CONCURRENCY_LIMITER_MIN_LIMIT = 1;
+
+    public static final String CONCURRENCY_LIMITER_MAX_LIMIT = CONCURRENCY_LIMITER_PREFIX + "max.limit";
+    public static final String CONFIG_DEFAULT_CONCURRENCY_LIMITER_MAX_LIMIT_DOC = "highest limit of requests in flight.";
+    public static final int DEFAULT_CONCURRENCY_LIMITER_MAX_LIMIT = 200;
+
+    public static final String CONCURRENCY_LIMITER_BACKOFF_RATIO = CONCURRENCY_LIMITER_PREFIX + "backoff.ratio";
+    public static final String CONFIG_DEFAULT_CONCURRENCY_LIMITER_BACKOFF_RATIO_DOC = "ratio applied to the limit when the server is overloaded (429 or 503 response, error, or latency above the threshold).";
+    public static final double DEFAULT_CONCURRENCY_LIMITER_BACKOFF_RATIO = 0.9;
+
+    public static final String CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS = CONCURRENCY_LIMITER_PREFIX + "latency.threshold.in.ms";
+    public static final String CONFIG_DEFAULT_CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS_DOC = "if greater than 0, a response slower than this threshold decreases the limit, as a throttled response.";
+    public static final long DEFAULT_CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS = 0L;
+
+    //rate limit headers
+    public static final String RATE_LIMIT_HEADERS_PREFIX = "rate.limit.headers.";
+
+    public static final String RATE_LIMIT_HEADERS_ACTIVATE = RATE_LIMIT_HEADERS_PREFIX + "activate";
+    public static final String CONFIG_DEFAULT_RATE_LIMIT_HEADERS_ACTIVATE_DOC = "if true, the quota announced by the server in the 'X-RateLimit-Remaining'/'X-RateLimit-Reset' or IETF 'RateLimit' response headers slows down the dispatch of requests, before the quota is exhausted. it works alongside the rate limiter.";
+    public static final boolean DEFAULT_RATE_LIMIT_HEADERS_ACTIVATE = false;
+
+    public static final String RATE_LIMIT_HEADERS_REMAINING_THRESHOLD = RATE_LIMIT_HEADERS_PREFIX + "remaining.threshold";
+    public static final String CONFIG_DEFAULT_RATE_LIMIT_HEADERS_REMAINING_THRESHOLD_DOC = "number of remaining requests in the quota, under which the remaining requests are spread until the quota reset.";
+    public static final long DEFAULT_RATE_LIMIT_HEADERS_REMAINING_THRESHOLD = 10L;
+
+    //hedged requests
+    public static final String HEDGING_PREFIX = "hedging.";
+
+    public static final String HEDGING_ACTIVATE = HEDGING_PREFIX + "activate";
+    public static final String CONFIG_DEFAULT_HEDGING_ACTIVATE_DOC = "if true, a duplicate of an idempotent request (GET, HEAD, PUT) is sent when the request has not completed after the hedging delay. the first response wins, and the other request is cancelled.";
+    public static final boolean DEFAULT_HEDGING_ACTIVATE = false;
+
+    public static final String HEDGING_DELAY_IN_MS = HEDGING_PREFIX + "delay.in.ms";
+    public static final String CONFIG_DEFAULT_HEDGING_DELAY_IN_MS_DOC = "delay before sending a duplicate request. 0 means the 95th percentile of the observed latencies.";
+    public static final long DEFAULT_HEDGING_DELAY_IN_MS = 0L;
+
+    public static final String HEDGING_BUDGET_PERCENT = HEDGING_PREFIX + "budget.percent";
+    public static final String CONFIG_DEFAULT_HEDGING_BUDGET_PERCENT_DOC = "maximum percentage of requests which can be duplicated.";
+    public static final int DEFAULT_HEDGING_BUDGET_PERCENT = 10;
+
     //rate limiter
     public static final String DEFAULT_RATE_LIMITER_ONE_PERMIT_PER_CALL = "one";
     public static final String RATE_LIMITER_REQUEST_LENGTH_PER_CALL = "request_length";
@@ -175,7 +290,7 @@ public class HttpConfigDefinition {
     //rate limiter scope
     public static final String RATE_LIMITER_SCOPE = DEFAULT_RATE_LIMITER_PREFIX + "scope";
     public static final String CONFIG_DEFAULT_RATE_LIMITER_SCOPE = DEFAULT_CONFIGURATION_PREFIX + RATE_LIMITER_SCOPE;
-    public static final String CONFIG_DEFAULT_RATE_LIMITER_SCOPE_DOC = "scope of the '" + CONFIG_DEFAULT_RATE_LIMITER_SCOPE + "' parameter. can be either 'instance' (i.e a rate limiter per configuration in the connector instance),  or 'static' (a rate limiter per configuration id shared with all connectors instances in the same Java Virtual Machine.";
+    public static final String CONFIG_DEFAULT_RATE_LIMITER_SCOPE_DOC = "scope of the '" + CONFIG_DEFAULT_RATE_LIMITER_SCOPE + "' parameter. can be either 'instance' (i.e a rate limiter per configuration in the connector instance),  'static' (a rate limiter per configuration id shared with all connectors instances in the same Java Virtual Machine), or 'cluster' (the rate limit is split across all the tasks of the connector).";
 
     public static final long DEFAULT_RATE_LIMITER_PERIOD_IN_MS_VALUE = 1000L;
     public static final long DEFAULT_RATE_LIMITER_MAX_EXECUTIONS_VALUE = 1L;
@@ -206,6 +321,25 @@ public class HttpConfigDefinition {
     public static final String CONFIG_DEFAULT_USER_AGENT_CUSTOM_VALUES = DEFAULT_CONFIGURATION_PREFIX + USER_AGENT_CUSTOM_VALUES;
     public static final String CONFIG_DEFAULT_USER_AGENT_CUSTOM_VALUES_DOC = "custom values for the user-agent header. if multiple values are provided (with `|` separator), code will pick randomly the value to use.";
 
+    //HttpRequest
+    public static final String HTTP_REQUEST = "http.request.";
+    //body compression
+    public static final String HTTP_REQUEST_BODY_COMPRESSION_TYPE = HTTP_REQUEST + "body.compression.type";
+    public static final String CONFIG_DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_TYPE = DEFAULT_CONFIGURATION_PREFIX + HTTP_REQUEST_BODY_COMPRESSION_TYPE;
+    public static final String CONFIG_DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_TYPE_DOC = "compression of the HTTP Request body, sent with the matching 'Content-Encoding' header : 'none' (default), 'gzip', 'deflate' or 'zstd'. with the okhttp client, bodies with a known length are compressed while they are sent ; with the AHC client, only string and byte array bodies are compressed. a body is compressed only if no 'Content-Encoding' header is already set.";
+    public static final String HTTP_REQUEST_BODY_COMPRESSION_NONE = "none";
+    public static final String DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_TYPE = HTTP_REQUEST_BODY_COMPRESSION_NONE;
+    public static final String HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD = HTTP_REQUEST + "body.compression.threshold";
+    public static final String CONFIG_DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD = DEFAULT_CONFIGURATION_PREFIX + HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD;
+    public static final String CONFIG_DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD_DOC = "minimum length in bytes of the HTTP Request body to compress it. smaller bodies are sent uncompressed. 1024 is the default threshold.";
+    public static final long DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD = 1024L;
+    //file referenced bodies are a local file read on behalf of the record producer : they are refused unless activated
+    public static final String HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE = HTTP_REQUEST + "body.file.reference.activate";
+    public static final String HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE_DOC = "if true, HTTP Requests can reference their body with a 'file' URI (FILE_REFERENCE body type). false by default : requests with a file reference are rejected when they are mapped.";
+    public static final boolean DEFAULT_HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE = false;
+    public static final String HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY = HTTP_REQUEST + "body.file.reference.base.directory";
+    public static final String HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY_DOC = "directory containing the files which can be referenced as HTTP Request bodies. required when file references are activated. referenced files are resolved (normalised, symbolic links followed), and rejected if they are not located under this directory.";
+
     //HttpResponse
     public static final String HTTP_RESPONSE = "http.response.";
     //message status limit
@@ -220,6 +354,10 @@ public class HttpConfigDefinition {
     public static final String HTTP_RESPONSE_BODY_LIMIT = HTTP_RESPONSE + "body.limit";
     public static final String CONFIG_DEFAULT_HTTP_RESPONSE_BODY_LIMIT = DEFAULT_CONFIGURATION_PREFIX + HTTP_RESPONSE_BODY_LIMIT;
     public static final String CONFIG_DEFAULT_HTTP_RESPONSE_BODY_LIMIT_DOC = "define the max length of the HTTP Response message body. 100_000 is the default limit";
+    //body truncation policy
+    public static final String HTTP_RESPONSE_BODY_TRUNCATION_POLICY = HTTP_RESPONSE + "body.truncation.policy";
+    public static final String CONFIG_DEFAULT_HTTP_RESPONSE_BODY_TRUNCATION_POLICY = DEFAULT_CONFIGURATION_PREFIX + HTTP_RESPONSE_BODY_TRUNCATION_POLICY;
+    public static final String CONFIG_DEFAULT_HTTP_RESPONSE_BODY_TRUNCATION_POLICY_DOC = "what to do with the rest of a response body exceeding the body limit : 'CLOSE' (default) stops reading and closes the connection, 'DISCARD' reads and discards it to reuse the connection. only the bytes up to the limit are kept in memory.";
 
     //enrich httpExchange
     public static final String ENRICH_EXCHANGE = "enrich.exchange.";
@@ -252,6 +390,21 @@ public class HttpConfigDefinition {
 
     public static final String HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE = HTTP_CLIENT_PREFIX + "async.fixed.thread.pool.size";
     public static final String HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE_DOC = "custom fixed thread pool size used to execute asynchronously http requests.";
+    public static final String HTTP_CLIENT_ASYNC_EXECUTOR_MODE = HTTP_CLIENT_PREFIX + "async.executor.mode";
+    public static final String HTTP_CLIENT_ASYNC_EXECUTOR_MODE_DOC = "executor used to execute asynchronously http requests : 'FIXED' (default) uses a fixed thread pool if '" + HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE + "' is set, " +
+            "'VIRTUAL' uses a virtual thread per request (requires a Java 21+ runtime, otherwise falls back to 'FIXED').";
+
+    public static final String CONFIGURATION_ROUTER_URL_CACHE_SIZE = "configuration.router.url.cache.size";
+    public static final String CONFIGURATION_ROUTER_URL_CACHE_SIZE_DOC = "max number of urls for which the configurations matching the 'predicate.url.regex' are memoized. 0 disables the memoization.";
+    public static final int DEFAULT_CONFIGURATION_ROUTER_URL_CACHE_SIZE = 10_000;
+
+    public static final String USER_CONFIGURATIONS_CACHE_MAX_SIZE = "user.configurations.cache.max.size";
+    public static final String USER_CONFIGURATIONS_CACHE_MAX_SIZE_DOC = "max number of configurations customized per virtual user (one per virtual user and configuration). the least recently used are evicted, and their cookies released.";
+    public static final long DEFAULT_USER_CONFIGURATIONS_CACHE_MAX_SIZE = 10_000L;
+
+    public static final String USER_CONFIGURATIONS_CACHE_EXPIRE_AFTER_ACCESS_IN_MS = "user.configurations.cache.expire.after.access.in.ms";
+    public static final String USER_CONFIGURATIONS_CACHE_EXPIRE_AFTER_ACCESS_IN_MS_DOC = "duration in milliseconds after which a configuration customized for a virtual user, and not used, is evicted. 0 disables the expiration.";
+    public static final long DEFAULT_USER_CONFIGURATIONS_CACHE_EXPIRE_AFTER_ACCESS_IN_MS = 3_600_000L;
 
 
     public static final String FALSE = "false";
@@ -289,6 +442,15 @@ public class HttpConfigDefinition {
                 .define(USER_AGENT_CUSTOM_VALUES, ConfigDef.Type.STRING, null, ConfigDef.Importance.LOW, CONFIG_DEFAULT_USER_AGENT_CUSTOM_VALUES_DOC)
                 //async settings
                 .define(HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE, ConfigDef.Type.INT, null, ConfigDef.Importance.MEDIUM, HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE_DOC)
+                .define(HTTP_CLIENT_ASYNC_EXECUTOR_MODE, ConfigDef.Type.STRING, ExecutorMode.FIXED.name(), ConfigDef.ValidString.in(ExecutorMode.FIXED.name(), ExecutorMode.VIRTUAL.name()), ConfigDef.Importance.MEDIUM, HTTP_CLIENT_ASYNC_EXECUTOR_MODE_DOC)
+                //configuration routing
+                .define(CONFIGURATION_ROUTER_URL_CACHE_SIZE, ConfigDef.Type.INT, DEFAULT_CONFIGURATION_ROUTER_URL_CACHE_SIZE, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, CONFIGURATION_ROUTER_URL_CACHE_SIZE_DOC)
+                //file referenced request bodies
+                .define(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, ConfigDef.Type.BOOLEAN, DEFAULT_HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, ConfigDef.Importance.LOW, HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE_DOC)
+                .define(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, ConfigDef.Type.STRING, null, ConfigDef.Importance.LOW, HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY_DOC)
+                //per virtual user configurations
+                .define(USER_CONFIGURATIONS_CACHE_MAX_SIZE, ConfigDef.Type.LONG, DEFAULT_USER_CONFIGURATIONS_CACHE_MAX_SIZE, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, USER_CONFIGURATIONS_CACHE_MAX_SIZE_DOC)
+                .define(USER_CONFIGURATIONS_CACHE_EXPIRE_AFTER_ACCESS_IN_MS, ConfigDef.Type.LONG, DEFAULT_USER_CONFIGURATIONS_CACHE_EXPIRE_AFTER_ACCESS_IN_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, USER_CONFIGURATIONS_CACHE_EXPIRE_AFTER_ACCESS_IN_MS_DOC)
 
                 //custom message splitters
                 .define(MESSAGE_SPLITTER_IDS, ConfigDef.Type.LIST, Lists.newArrayList(), ConfigDef.Importance.LOW, MESSAGE_SPLITTER_IDS_DOC)
@@ -341,6 +503,30 @@ public class HttpConfigDefinition {
                 .define(prefix + RETRY_DELAY_THRESHOLD_IN_SEC,ConfigDef.Type.STRING, DEFAULT_RETRY_DELAY_THRESHOLD_IN_SEC ,ConfigDef.Importance.LOW, CONFIG_DEFAULT_RETRY_DELAY_THRESHOLD_IN_SEC_DOC)
                 .define(prefix + DEFAULT_RETRY_DELAY_IN_SEC,ConfigDef.Type.STRING, DEFAULT_DEFAULT_RETRY_DELAY_IN_SEC ,ConfigDef.Importance.LOW, CONFIG_DEFAULT_DEFAULT_RETRY_DELAY_IN_SEC_DOC)
                 .define(prefix + CUSTOM_STATUS_CODE_FOR_RETRY_AFTER_HEADER,ConfigDef.Type.STRING, DEFAULT_CUSTOM_STATUS_CODE_FOR_RETRY_AFTER_HEADER ,ConfigDef.Importance.LOW, CONFIG_DEFAULT_RETRY_DELAY_THRESHOLD_IN_SEC_DOC)
+                //circuit breaker settings
+                .define(prefix + CIRCUIT_BREAKER_SCOPE, ConfigDef.Type.STRING, DEFAULT_CIRCUIT_BREAKER_SCOPE, ConfigDef.ValidString.in("configuration", "host"), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_SCOPE_DOC)
+                .define(prefix + CIRCUIT_BREAKER_FAILURE_THRESHOLD, ConfigDef.Type.INT, DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD_DOC)
+                .define(prefix + CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY, ConfigDef.Type.INT, DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_CAPACITY_DOC)
+                .define(prefix + CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS, ConfigDef.Type.LONG, DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLDING_PERIOD_IN_MS_DOC)
+                .define(prefix + CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD, ConfigDef.Type.INT, DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD, ConfigDef.Range.between(0, 100), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_DOC)
+                .define(prefix + CIRCUIT_BREAKER_SUCCESS_THRESHOLD, ConfigDef.Type.INT, DEFAULT_CIRCUIT_BREAKER_SUCCESS_THRESHOLD, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_SUCCESS_THRESHOLD_DOC)
+                .define(prefix + CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES, ConfigDef.Type.INT, DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_MAX_PROBES_DOC)
+                .define(prefix + CIRCUIT_BREAKER_MAX_ROUTES, ConfigDef.Type.LONG, DEFAULT_CIRCUIT_BREAKER_MAX_ROUTES, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_MAX_ROUTES_DOC)
+                .define(prefix + CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS, ConfigDef.Type.LONG, DEFAULT_CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CIRCUIT_BREAKER_ROUTE_EXPIRE_AFTER_ACCESS_IN_MS_DOC)
+                //adaptive concurrency limiter
+                .define(prefix + CONCURRENCY_LIMITER_ACTIVATE, ConfigDef.Type.BOOLEAN, DEFAULT_CONCURRENCY_LIMITER_ACTIVATE, ConfigDef.Importance.LOW, CONFIG_DEFAULT_CONCURRENCY_LIMITER_ACTIVATE_DOC)
+                .define(prefix + CONCURRENCY_LIMITER_INITIAL_LIMIT, ConfigDef.Type.INT, DEFAULT_CONCURRENCY_LIMITER_INITIAL_LIMIT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CONCURRENCY_LIMITER_INITIAL_LIMIT_DOC)
+                .define(prefix + CONCURRENCY_LIMITER_MIN_LIMIT, ConfigDef.Type.INT, DEFAULT_CONCURRENCY_LIMITER_MIN_LIMIT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CONCURRENCY_LIMITER_MIN_LIMIT_DOC)
+                .define(prefix + CONCURRENCY_LIMITER_MAX_LIMIT, ConfigDef.Type.INT, DEFAULT_CONCURRENCY_LIMITER_MAX_LIMIT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CONCURRENCY_LIMITER_MAX_LIMIT_DOC)
+                .define(prefix + CONCURRENCY_LIMITER_BACKOFF_RATIO, ConfigDef.Type.DOUBLE, DEFAULT_CONCURRENCY_LIMITER_BACKOFF_RATIO, ConfigDef.Range.between(0.1, 0.99), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CONCURRENCY_LIMITER_BACKOFF_RATIO_DOC)
+                .define(prefix + CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS, ConfigDef.Type.LONG, DEFAULT_CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, CONFIG_DEFAULT_CONCURRENCY_LIMITER_LATENCY_THRESHOLD_IN_MS_DOC)
+                //rate limit headers
+                .define(prefix + RATE_LIMIT_HEADERS_ACTIVATE, ConfigDef.Type.BOOLEAN, DEFAULT_RATE_LIMIT_HEADERS_ACTIVATE, ConfigDef.Importance.LOW, CONFIG_DEFAULT_RATE_LIMIT_HEADERS_ACTIVATE_DOC)
+                .define(prefix + RATE_LIMIT_HEADERS_REMAINING_THRESHOLD, ConfigDef.Type.LONG, DEFAULT_RATE_LIMIT_HEADERS_REMAINING_THRESHOLD, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, CONFIG_DEFAULT_RATE_LIMIT_HEADERS_REMAINING_THRESHOLD_DOC)
+                //hedged requests
+                .define(prefix + HEDGING_ACTIVATE, ConfigDef.Type.BOOLEAN, DEFAULT_HEDGING_ACTIVATE, ConfigDef.Importance.LOW, CONFIG_DEFAULT_HEDGING_ACTIVATE_DOC)
+                .define(prefix + HEDGING_DELAY_IN_MS, ConfigDef.Type.LONG, DEFAULT_HEDGING_DELAY_IN_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, CONFIG_DEFAULT_HEDGING_DELAY_IN_MS_DOC)
+                .define(prefix + HEDGING_BUDGET_PERCENT, ConfigDef.Type.INT, DEFAULT_HEDGING_BUDGET_PERCENT, ConfigDef.Range.between(0, 100), ConfigDef.Importance.LOW, CONFIG_DEFAULT_HEDGING_BUDGET_PERCENT_DOC)
                 //retry settings
                 .define(prefix + SUCCESS_RESPONSE_CODE_REGEX, ConfigDef.Type.STRING, CONFIG_DEFAULT_DEFAULT_SUCCESS_RESPONSE_CODE_REGEX, ConfigDef.Importance.LOW, CONFIG_DEFAULT_SUCCESS_RESPONSE_CODE_REGEX_DOC)
                 .define(prefix + RETRY_RESPONSE_CODE_REGEX, ConfigDef.Type.STRING, DEFAULT_DEFAULT_RETRY_RESPONSE_CODE_REGEX, ConfigDef.Importance.LOW, DEFAULT_RETRY_RESPONSE_CODE_REGEX_DOC)
@@ -349,6 +535,10 @@ public class HttpConfigDefinition {
                 .define(prefix + RETRY_MAX_DELAY_IN_MS, ConfigDef.Type.LONG, DEFAULT_RETRY_MAX_DELAY_IN_MS_VALUE, ConfigDef.Importance.MEDIUM, CONFIG_DEFAULT_RETRY_MAX_DELAY_IN_MS_DOC)
                 .define(prefix + RETRY_DELAY_FACTOR, ConfigDef.Type.DOUBLE, DEFAULT_RETRY_DELAY_FACTOR_VALUE, ConfigDef.Importance.MEDIUM, CONFIG_DEFAULT_RETRY_DELAY_FACTOR_DOC)
                 .define(prefix + RETRY_JITTER_IN_MS, ConfigDef.Type.LONG, DEFAULT_RETRY_JITTER_IN_MS_VALUE, ConfigDef.Importance.MEDIUM, CONFIG_DEFAULT_RETRY_JITTER_IN_MS_DOC)
+                .define(prefix + DEADLINE_IN_MS, ConfigDef.Type.LONG, DEFAULT_DEADLINE_IN_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, CONFIG_DEFAULT_DEADLINE_IN_MS_DOC)
+                .define(prefix + RETRY_BUDGET_ACTIVATE, ConfigDef.Type.BOOLEAN, DEFAULT_RETRY_BUDGET_ACTIVATE, ConfigDef.Importance.LOW, CONFIG_DEFAULT_RETRY_BUDGET_ACTIVATE_DOC)
+                .define(prefix + RETRY_BUDGET_MAX_TOKENS, ConfigDef.Type.INT, DEFAULT_RETRY_BUDGET_MAX_TOKENS, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CONFIG_DEFAULT_RETRY_BUDGET_MAX_TOKENS_DOC)
+                .define(prefix + RETRY_BUDGET_DEPOSIT_RATIO, ConfigDef.Type.DOUBLE, DEFAULT_RETRY_BUDGET_DEPOSIT_RATIO, ConfigDef.Range.atLeast(0.001), ConfigDef.Importance.LOW, CONFIG_DEFAULT_RETRY_BUDGET_DEPOSIT_RATIO_DOC)
                 //rate limiting settings
                 .define(prefix + RATE_LIMITER_PERIOD_IN_MS, ConfigDef.Type.LONG, HttpConfigDefinition.DEFAULT_RATE_LIMITER_PERIOD_IN_MS_VALUE, ConfigDef.Importance.MEDIUM, CONFIG_DEFAULT_RATE_LIMITER_PERIOD_IN_MS_DOC)
                 .define(prefix + RATE_LIMITER_MAX_EXECUTIONS, ConfigDef.Type.LONG, HttpConfigDefinition.DEFAULT_RATE_LIMITER_MAX_EXECUTIONS_VALUE, ConfigDef.Importance.MEDIUM, CONFIG_DEFAULT_RATE_LIMITER_MAX_EXECUTIONS_DOC)
@@ -364,7 +554,10 @@ public class HttpConfigDefinition {
                 //http response
                 .define(prefix + HTTP_RESPONSE_MESSAGE_STATUS_LIMIT, ConfigDef.Type.INT, 1024, ConfigDef.Importance.LOW, CONFIG_DEFAULT_HTTP_RESPONSE_MESSAGE_STATUS_LIMIT_DOC)
                 .define(prefix + HTTP_RESPONSE_HEADERS_LIMIT, ConfigDef.Type.INT, 10_000, ConfigDef.Importance.LOW, CONFIG_DEFAULT_HTTP_RESPONSE_HEADERS_LIMIT_DOC)
-                .define(prefix + HTTP_RESPONSE_BODY_LIMIT, ConfigDef.Type.INT, 100_000, ConfigDef.Importance.LOW, CONFIG_DEFAULT_HTTP_RESPONSE_BODY_LIMIT_DOC);
+                .define(prefix + HTTP_RESPONSE_BODY_LIMIT, ConfigDef.Type.INT, 100_000, ConfigDef.Importance.LOW, CONFIG_DEFAULT_HTTP_RESPONSE_BODY_LIMIT_DOC)
+                .define(prefix + HTTP_REQUEST_BODY_COMPRESSION_TYPE, ConfigDef.Type.STRING, DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_TYPE, ConfigDef.CaseInsensitiveValidString.in(HTTP_REQUEST_BODY_COMPRESSION_NONE, RequestBodyCompressor.Algorithm.GZIP.getContentEncoding(), RequestBodyCompressor.Algorithm.DEFLATE.getContentEncoding(), RequestBodyCompressor.Algorithm.ZSTD.getContentEncoding()), ConfigDef.Importance.LOW, CONFIG_DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_TYPE_DOC)
+                .define(prefix + HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD, ConfigDef.Type.LONG, DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, CONFIG_DEFAULT_HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD_DOC)
+                .define(prefix + HTTP_RESPONSE_BODY_TRUNCATION_POLICY, ConfigDef.Type.STRING, BodyTruncationPolicy.CLOSE.name(), ConfigDef.ValidString.in(BodyTruncationPolicy.CLOSE.name(), BodyTruncationPolicy.DISCARD.name()), ConfigDef.Importance.LOW, CONFIG_DEFAULT_HTTP_RESPONSE_BODY_TRUNCATION_POLICY_DOC);
         String staticHeaderNames = settings.get(prefix + STATIC_REQUEST_HEADER_NAMES);
         if (staticHeaderNames != null && !staticHeaderNames.isBlank()) {
             List<String> staticHeaders = Arrays.asList(staticHeaderNames.split(","));
@@ -4,6 +4,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.http.client.ExecutorMode;
 import io.github.clescot.kafka.connect.http.core.BodyType;
 import io.github.clescot.kafka.connect.http.core.queue.ConfigConstants;
 import io.github.clescot.kafka.connect.http.core.queue.QueueFactory;
@@ -88,6 +89,7 @@ public class HttpConnectorConfig extends AbstractConfig {
     private final int pollDelayRegistrationOfQueueConsumerInMs;
     private final int pollIntervalRegistrationOfQueueConsumerInMs;
     private final Integer customFixedThreadpoolSize;
+    private final ExecutorMode executorMode;
     private final List<String> configurationIds;
     private final List<String> httpRequestMapperIds;
     private final List<String> messageSplitterIds;
@@ -98,6 +100,12 @@ public class HttpConnectorConfig extends AbstractConfig {
     private final String defaultBodyExpression;
     private final String defaultHeadersExpression;
     private final Boolean producerJsonIndentOutput;
+    private final boolean putAsync;
+    private final int orderingLanes;
+    private final long maxInFlightRequests;
+    private final long maxInFlightBytes;
+    private final CircuitOpenStrategy circuitOpenStrategy;
+    private final long drainTimeoutInMs;
 
 
     public HttpConnectorConfig(Map<String, String> originals) {
@@ -182,6 +190,7 @@ public class HttpConnectorConfig extends AbstractConfig {
         this.defaultSuccessResponseCodeRegex = getString(CONFIG_DEFAULT_SUCCESS_RESPONSE_CODE_REGEX);
         this.defaultRetryResponseCodeRegex = getString(CONFIG_DEFAULT_RETRY_RESPONSE_CODE_REGEX);
         this.customFixedThreadpoolSize = getInt(HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE);
+        this.executorMode = ExecutorMode.valueOf(getString(HTTP_CLIENT_ASYNC_EXECUTOR_MODE));
         List<String> configIds = Lists.newArrayList(getList(CONFIGURATION_IDS));
         if(configIds.isEmpty()||!configIds.contains(DEFAULT_CONFIGURATION_ID)){
             configIds.add(DEFAULT_CONFIGURATION_ID);
@@ -195,9 +204,39 @@ public class HttpConnectorConfig extends AbstractConfig {
         this.defaultHeadersExpression = getString(DEFAULT_REQUEST_MAPPER_PREFIX + REQUEST_MAPPER_DEFAULT_HEADERS_EXPRESSION);
         this.httpRequestMapperIds = Optional.ofNullable(getList(HTTP_REQUEST_MAPPER_IDS)).orElse(Lists.newArrayList());
         this.messageSplitterIds = Optional.ofNullable(getList(MESSAGE_SPLITTER_IDS)).orElse(Lists.newArrayList());
+        this.putAsync = getBoolean(SINK_PUT_ASYNC);
+        this.orderingLanes = getInt(SINK_ORDERING_LANES);
+        this.maxInFlightRequests = getLong(SINK_MAX_IN_FLIGHT_REQUESTS);
+        this.maxInFlightBytes = getLong(SINK_MAX_IN_FLIGHT_BYTES);
+        this.circuitOpenStrategy = CircuitOpenStrategy.valueOf(getString(SINK_CIRCUIT_OPEN_STRATEGY));
+        this.drainTimeoutInMs = getLong(SINK_DRAIN_TIMEOUT_IN_MS);
     }
 
 
+    public boolean isPutAsync() {
+        return putAsync;
+    }
+
+    public int getOrderingLanes() {
+        return orderingLanes;
+    }
+
+    public long getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    public CircuitOpenStrategy getCircuitOpenStrategy() {
+        return circuitOpenStrategy;
+    }
+
+    public long getDrainTimeoutInMs() {
+        return drainTimeoutInMs;
+    }
+
     public String getDefaultBodyExpression() {
         return defaultBodyExpression;
     }
@@ -328,6 +367,10 @@ public class HttpConnectorConfig extends AbstractConfig {
         return customFixedThreadpoolSize;
     }
 
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
     public List<String> getConfigurationIds() {
         return configurationIds;
     }
@@ -527,6 +570,7 @@ public class HttpConnectorConfig extends AbstractConfig {
                 ", pollDelayRegistrationOfQueueConsumerInMs=" + pollDelayRegistrationOfQueueConsumerInMs +
                 ", pollIntervalRegistrationOfQueueConsumerInMs=" + pollIntervalRegistrationOfQueueConsumerInMs +
                 ", customFixedThreadpoolSize=" + customFixedThreadpoolSize +
+                ", executorMode=" + executorMode +
                 ", configurationIds=" + configurationIds +
                 ", httpRequestMapperIds=" + httpRequestMapperIds +
                 ", httpRequestSplitterIds=" + messageSplitterIds +
@@ -536,6 +580,12 @@ public class HttpConnectorConfig extends AbstractConfig {
                 ", defaultBodyTypeExpression='" + defaultBodyTypeExpression + '\'' +
                 ", defaultBodyExpression='" + defaultBodyExpression + '\'' +
                 ", defaultHeadersExpression='" + defaultHeadersExpression + '\'' +
+                ", putAsync=" + putAsync +
+                ", orderingLanes=" + orderingLanes +
+                ", maxInFlightRequests=" + maxInFlightRequests +
+                ", maxInFlightBytes=" + maxInFlightBytes +
+                ", circuitOpenStrategy=" + circuitOpenStrategy +
+                ", drainTimeoutInMs=" + drainTimeoutInMs +
                 '}';
     }
 
@@ -569,6 +619,12 @@ public class HttpConnectorConfig extends AbstractConfig {
                 && maxWaitTimeRegistrationOfQueueConsumerInMs == that.maxWaitTimeRegistrationOfQueueConsumerInMs
                 && pollDelayRegistrationOfQueueConsumerInMs == that.pollDelayRegistrationOfQueueConsumerInMs
                 && pollIntervalRegistrationOfQueueConsumerInMs == that.pollIntervalRegistrationOfQueueConsumerInMs
+                && putAsync == that.putAsync
+                && orderingLanes == that.orderingLanes
+                && maxInFlightRequests == that.maxInFlightRequests
+                && maxInFlightBytes == that.maxInFlightBytes
+                && circuitOpenStrategy == that.circuitOpenStrategy
+                && drainTimeoutInMs == that.drainTimeoutInMs
                 && Objects.equals(producerFormat, that.producerFormat)
                 && Objects.equals(producerBootstrapServers, that.producerBootstrapServers)
                 && Objects.equals(producerSuccessTopic, that.producerSuccessTopic)
@@ -599,6 +655,7 @@ public class HttpConnectorConfig extends AbstractConfig {
                 && Objects.equals(defaultRateLimiterPeriodInMs, that.defaultRateLimiterPeriodInMs)
                 && Objects.equals(staticRequestHeaders, that.staticRequestHeaders)
                 && Objects.equals(customFixedThreadpoolSize, that.customFixedThreadpoolSize)
+                && executorMode == that.executorMode
                 && Objects.equals(configurationIds, that.configurationIds);
     }
 
@@ -658,6 +715,13 @@ public class HttpConnectorConfig extends AbstractConfig {
         , pollDelayRegistrationOfQueueConsumerInMs
         , pollIntervalRegistrationOfQueueConsumerInMs
         , customFixedThreadpoolSize
-        , configurationIds);
+        , executorMode
+        , configurationIds
+        , putAsync
+        , orderingLanes
+        , maxInFlightRequests
+        , maxInFlightBytes
+        , circuitOpenStrategy
+        , drainTimeoutInMs);
     }
 }
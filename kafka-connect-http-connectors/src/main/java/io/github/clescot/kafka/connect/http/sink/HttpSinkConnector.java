@@ -12,10 +12,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static io.github.clescot.kafka.connect.Configuration.DEFAULT_CONFIGURATION_ID;
+import static io.github.clescot.kafka.connect.RequestClient.CLUSTER_SCOPE;
 import static io.github.clescot.kafka.connect.http.client.HttpClientConfigDefinition.*;
 import static io.github.clescot.kafka.connect.http.core.VersionUtils.VERSION;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.*;
 
 
 public class HttpSinkConnector extends SinkConnector {
@@ -59,7 +62,35 @@ public class HttpSinkConnector extends SinkConnector {
             //each task will have one or more partitions to handle.
             configs.add(this.httpConnectorConfig.originalsStrings());
         }
-        return configs;
+        //the split is computed with the number of task configurations really returned, i.e the number of tasks started by the worker.
+        return configs.stream()
+                .map(config -> splitClusterRateLimits(config, this.httpConnectorConfig.getConfigurationIds(), configs.size()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * give each task its share of the rate limits with a 'cluster' scope : the period of these rate limiters
+     * is multiplied by the task count, so that all the tasks together do not exceed the configured rate.
+     * When max executions are not set, the default value is set explicitly, to build the rate limiter of each task.
+     * The split is static : a task without any assigned partition does not use its share.
+     * @param settings connector settings
+     * @param configurationIds ids of the configurations
+     * @param taskCount number of tasks started
+     * @return settings of a task
+     */
+    static Map<String, String> splitClusterRateLimits(Map<String, String> settings, List<String> configurationIds, int taskCount) {
+        Map<String, String> taskSettings = Maps.newHashMap(settings);
+        for (String configurationId : configurationIds) {
+            String prefix = "config." + configurationId + ".";
+            if (CLUSTER_SCOPE.equalsIgnoreCase(settings.get(prefix + RATE_LIMITER_SCOPE))) {
+                String maxExecutions = settings.getOrDefault(prefix + RATE_LIMITER_MAX_EXECUTIONS, String.valueOf(DEFAULT_RATE_LIMITER_MAX_EXECUTIONS_VALUE));
+                long periodInMs = Long.parseLong(settings.getOrDefault(prefix + RATE_LIMITER_PERIOD_IN_MS, String.valueOf(DEFAULT_RATE_LIMITER_PERIOD_IN_MS_VALUE)));
+                taskSettings.put(prefix + RATE_LIMITER_MAX_EXECUTIONS, maxExecutions);
+                taskSettings.put(prefix + RATE_LIMITER_PERIOD_IN_MS, String.valueOf(periodInMs * taskCount));
+                LOGGER.info("configuration '{}' : rate limit of '{}' executions per '{}' ms split across '{}' tasks", configurationId, maxExecutions, periodInMs, taskCount);
+            }
+        }
+        return taskSettings;
     }
 
     @Override
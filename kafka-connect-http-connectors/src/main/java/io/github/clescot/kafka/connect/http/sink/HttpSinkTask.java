@@ -5,8 +5,10 @@ import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.github.clescot.kafka.connect.http.HttpTask;
+import io.github.clescot.kafka.connect.http.MatcherIndex;
 import io.github.clescot.kafka.connect.http.MessageSplitter;
 import io.github.clescot.kafka.connect.http.MessageSplitterFactory;
+import io.github.clescot.kafka.connect.http.client.FileReferenceGuard;
 import io.github.clescot.kafka.connect.http.client.HttpClient;
 import io.github.clescot.kafka.connect.http.client.HttpClientFactory;
 import io.github.clescot.kafka.connect.http.client.HttpConfiguration;
@@ -24,11 +26,14 @@ import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlFeatures;
 import org.apache.commons.jexl3.introspection.JexlPermissions;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.sink.SinkTask;
@@ -37,23 +42,28 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Stream;
 
 import static io.github.clescot.kafka.connect.http.HttpTask.DATE_TIME_FORMATTER;
 import static io.github.clescot.kafka.connect.http.core.Request.VU_ID;
 import static io.github.clescot.kafka.connect.http.core.VersionUtils.VERSION;
 import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_REQUEST_MAPPER_IDS;
 import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.MESSAGE_SPLITTER_IDS;
+import static io.github.clescot.kafka.connect.http.sink.SinkConfigDefinition.DEFAULT_SINK_DRAIN_TIMEOUT_IN_MS;
 
 /**
  * HttpSinkTask is a Kafka Connect SinkTask that processes SinkRecords,
@@ -87,7 +97,18 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
     private List<MessageSplitter<SinkRecord>> messageSplitters;
     private HttpRequestMapper defaultHttpRequestMapper;
     private List<HttpRequestMapper> httpRequestMappers;
+    private MatcherIndex<HttpRequestMapper, SinkRecord> httpRequestMapperIndex;
+    private MatcherIndex<MessageSplitter<SinkRecord>, SinkRecord> messageSplitterIndex;
+    private FileReferenceGuard fileReferenceGuard;
     private final String vuId;
+    private final OffsetTracker offsetTracker = new OffsetTracker();
+    private final Set<CompletableFuture<Void>> inFlightBatches = ConcurrentHashMap.newKeySet();
+    private final Queue<Future<Void>> errantRecordReports = new ConcurrentLinkedQueue<>();
+    private KeyOrderedLanes keyOrderedLanes;
+    private InFlightBudget inFlightBudget;
+    private CircuitOpenStrategy circuitOpenStrategy;
+    private final OpenCircuitPauses openCircuitPauses = new OpenCircuitPauses();
+    private volatile boolean stopping;
     @SuppressWarnings("java:S5993")
     public HttpSinkTask(HttpClientFactory<C, R, S> httpClientFactory, KafkaProducer<String, Object> producer) {
         this.httpClientFactory = httpClientFactory;
@@ -160,18 +181,114 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
         MessageSplitterFactory<SinkRecord> messageSplitterFactory = new MessageSplitterFactory<>(FROM_STRING_PART_TO_SINK_RECORD_FUNCTION);
 
         this.messageSplitters = messageSplitterFactory.buildMessageSplitters(httpConnectorConfig.originalsStrings(), jexlEngine, httpConnectorConfig.getList(MESSAGE_SPLITTER_IDS));
+
+        //matching expressions are analysed once, to select mappers and splitters without evaluating each JEXL expression
+        this.httpRequestMapperIndex = new MatcherIndex<>(httpRequestMappers, HttpRequestMapper::getMatchingExpression, HttpRequestMapper::matches);
+        this.fileReferenceGuard = FileReferenceGuard.build(httpConnectorConfig.originalsStrings());
+        this.messageSplitterIndex = new MatcherIndex<>(messageSplitters, MessageSplitter::getMatchingExpression, MessageSplitter::matches);
         httpTask = new HttpTask<>(httpConnectorConfig, httpClientFactory);
 
+        //ordering lanes
+        int orderingLanes = httpConnectorConfig.getOrderingLanes();
+        if (orderingLanes > 0) {
+            LOGGER.debug("requests with the same key are ordered with '{}' lanes", orderingLanes);
+            this.keyOrderedLanes = new KeyOrderedLanes(orderingLanes);
+        }
+        //in flight budget
+        this.inFlightBudget = new InFlightBudget(httpConnectorConfig.getMaxInFlightRequests(), httpConnectorConfig.getMaxInFlightBytes());
+        //circuit open strategy
+        this.circuitOpenStrategy = httpConnectorConfig.getCircuitOpenStrategy();
+        LOGGER.debug("circuit open strategy: {}", circuitOpenStrategy);
     }
 
 
     @Override
     @SuppressWarnings("java:S3864")
     public void put(Collection<SinkRecord> records) {
-        List<HttpExchange> httpExchanges = putAndGetExchanges(records);
-        if (httpExchanges == null) return;
-        LOGGER.debug("HttpExchanges created :'{}'", httpExchanges.size());
+        if (stopping) {
+            //records are not committed, and will be redelivered
+            LOGGER.warn("task is stopping : '{}' records are not processed", records.size());
+            return;
+        }
+        openCircuitPauses.confirm(records);
+        if (inFlightBudget != null) {
+            inFlightBudget.confirm(records);
+        }
+        if (httpConnectorConfig != null && httpConnectorConfig.isPutAsync()) {
+            putAsync(records);
+        } else {
+            List<HttpExchange> httpExchanges = putAndGetExchanges(records);
+            if (httpExchanges != null) {
+                LOGGER.debug("HttpExchanges created :'{}'", httpExchanges.size());
+            }
+        }
+        applyPauses();
+    }
+
+    /**
+     * rewind and pause partitions with records skipped or deferred, and resume partitions when possible.
+     * a partition rewound for both reasons is rewound to the lowest offset.
+     * must be called from the task thread, as the consumer is not thread safe.
+     */
+    private void applyPauses() {
+        Map<TopicPartition, Long> offsetsToRewind = Maps.newHashMap();
+        applyCircuitPauses(offsetsToRewind);
+        applyBackpressure(offsetsToRewind);
+        if (!offsetsToRewind.isEmpty()) {
+            context.offset(offsetsToRewind);
+        }
+    }
+
+    /**
+     * rewind and pause partitions with records skipped because their circuit breaker is open,
+     * and resume them when their circuit breaker should be half-open.
+     * @param offsetsToRewind offsets to rewind partitions to, completed by this method
+     */
+    private void applyCircuitPauses(Map<TopicPartition, Long> offsetsToRewind) {
+        Map<TopicPartition, Long> partitionsToPause = openCircuitPauses.partitionsToPause();
+        if (!partitionsToPause.isEmpty()) {
+            LOGGER.info("circuit breaker open: rewinding and pausing partitions '{}'", partitionsToPause);
+            partitionsToPause.forEach((topicPartition, offset) -> offsetsToRewind.merge(topicPartition, offset, Math::min));
+            context.pause(partitionsToPause.keySet().toArray(TopicPartition[]::new));
+        }
+        Set<TopicPartition> partitionsToResume = openCircuitPauses.partitionsToResume(Instant.now());
+        if (inFlightBudget != null) {
+            //partitions paused by the in flight budget are resumed by the budget
+            partitionsToResume.removeAll(inFlightBudget.getPausedPartitions());
+        }
+        if (!partitionsToResume.isEmpty()) {
+            LOGGER.info("circuit breaker half-open: resuming partitions '{}'", partitionsToResume);
+            context.resume(partitionsToResume.toArray(TopicPartition[]::new));
+        }
+    }
 
+    /**
+     * rewind and pause the partitions with deferred records, pause the busiest partitions when the in flight budget is exhausted,
+     * and resume them when enough capacity is freed.
+     * @param offsetsToRewind offsets to rewind partitions to, completed by this method
+     */
+    private void applyBackpressure(Map<TopicPartition, Long> offsetsToRewind) {
+        if (inFlightBudget == null || !inFlightBudget.isEnabled()) {
+            return;
+        }
+        Map<TopicPartition, Long> partitionsToRewind = inFlightBudget.partitionsToRewind();
+        if (!partitionsToRewind.isEmpty()) {
+            LOGGER.info("in flight budget exhausted (requests:'{}', bytes:'{}'): rewinding and pausing partitions '{}'", inFlightBudget.getInFlightRequests(), inFlightBudget.getInFlightBytes(), partitionsToRewind);
+            partitionsToRewind.forEach((topicPartition, offset) -> offsetsToRewind.merge(topicPartition, offset, Math::min));
+            context.pause(partitionsToRewind.keySet().toArray(TopicPartition[]::new));
+        }
+        Set<TopicPartition> partitionsToPause = inFlightBudget.partitionsToPause();
+        if (!partitionsToPause.isEmpty()) {
+            LOGGER.info("in flight budget exhausted (requests:'{}', bytes:'{}'): pausing partitions '{}'", inFlightBudget.getInFlightRequests(), inFlightBudget.getInFlightBytes(), partitionsToPause);
+            context.pause(partitionsToPause.toArray(TopicPartition[]::new));
+        }
+        Set<TopicPartition> partitionsToResume = inFlightBudget.partitionsToResume();
+        //partitions paused by an open circuit breaker are resumed when it should be half-open
+        partitionsToResume.removeAll(openCircuitPauses.getPausedPartitions());
+        if (!partitionsToResume.isEmpty()) {
+            LOGGER.info("in flight budget available (requests:'{}', bytes:'{}'): resuming partitions '{}'", inFlightBudget.getInFlightRequests(), inFlightBudget.getInFlightBytes(), partitionsToResume);
+            context.resume(partitionsToResume.toArray(TopicPartition[]::new));
+        }
     }
 
     public @Nullable List<HttpExchange> putAndGetExchanges(Collection<SinkRecord> records) {
@@ -184,11 +301,135 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
         List<Pair<SinkRecord, HttpRequest>> preparedRequests = prepareRequests(records);
         //List<SinkRecord>-> SinkRecord
         List<CompletableFuture<HttpExchange>> completableFutures = preparedRequests.stream()
-                .map(this::callAndPublish)
+                .map(this::dispatch)
                 .toList();
         return completableFutures.stream().map(CompletableFuture::join).toList();
     }
 
+    /**
+     * submit HTTP exchanges without waiting for them.
+     * offsets of the batch are committable (via {@link #preCommit(Map)}) only when all its exchanges are done.
+     * @param records records to process
+     * @return a future completed when all the HTTP exchanges of the batch are done.
+     */
+    public CompletableFuture<Void> putAsync(Collection<SinkRecord> records) {
+        Preconditions.checkNotNull(records, "records collection to be processed is null");
+        if (records.isEmpty()) {
+            LOGGER.debug("no records");
+            return CompletableFuture.completedFuture(null);
+        }
+        Preconditions.checkNotNull(httpTask, "httpTask is null. 'start' method must be called once before put");
+        List<Pair<SinkRecord, HttpRequest>> preparedRequests = prepareRequests(records);
+        Map<TopicPartition, Long> batchOffsets = offsetTracker.register(records);
+        CompletableFuture<?>[] completableFutures = preparedRequests.stream()
+                .map(this::dispatch)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture<Void> batch = CompletableFuture.allOf(completableFutures);
+        inFlightBatches.add(batch);
+        batch.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                LOGGER.error("error during HTTP exchanges of an asynchronous batch:{}", throwable.getMessage());
+            }
+            offsetTracker.complete(batchOffsets);
+            inFlightBatches.remove(batch);
+        });
+        LOGGER.debug("HttpExchanges submitted :'{}'", completableFutures.length);
+        return batch;
+    }
+
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> preCommit(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        applyPauses();
+        if (httpConnectorConfig == null || !httpConnectorConfig.isPutAsync()) {
+            //the rewind of paused partitions may not be applied yet by the consumer
+            Map<TopicPartition, OffsetAndMetadata> offsets = openCircuitPauses.cap(super.preCommit(currentOffsets));
+            return inFlightBudget != null ? inFlightBudget.cap(offsets) : offsets;
+        }
+        Map<TopicPartition, OffsetAndMetadata> committableOffsets = offsetTracker.getCommittableOffsets(currentOffsets.keySet());
+        //errant records of completed batches are reported before their completion : they are all awaited here
+        awaitErrantRecordReports();
+        LOGGER.debug("offsets to commit:'{}', in flight batches:'{}'", committableOffsets, offsetTracker.getInFlightCount());
+        return committableOffsets;
+    }
+
+    @Override
+    public void flush(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        //in asynchronous mode, wait for the in flight HTTP exchanges before flushing
+        if (!inFlightBatches.isEmpty()) {
+            LOGGER.debug("waiting for '{}' in flight batches", inFlightBatches.size());
+            CompletableFuture.allOf(inFlightBatches.toArray(CompletableFuture[]::new)).exceptionally(throwable -> null).join();
+        }
+        awaitErrantRecordReports();
+    }
+
+    /**
+     * wait until errant records reported since the last call are recorded in Kafka, before committing offsets.
+     * reports are not awaited on the HTTP completion threads, to not block them when errors burst.
+     */
+    private void awaitErrantRecordReports() {
+        int reports = 0;
+        Future<Void> future;
+        while ((future = errantRecordReports.poll()) != null) {
+            try {
+                future.get();
+                reports++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.error(e.getMessage());
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.error("errant record report failed:{}", e.getMessage());
+            }
+        }
+        if (reports > 0) {
+            LOGGER.debug("'{}' errant records reported", reports);
+        }
+    }
+
+    /**
+     * wait for the in flight batches, up to the drain timeout.
+     * @param drainTimeoutInMs maximum time to wait
+     * @return true if no batch is in flight anymore.
+     */
+    private boolean drainInFlightBatches(long drainTimeoutInMs) {
+        if (inFlightBatches.isEmpty()) {
+            return true;
+        }
+        LOGGER.info("draining '{}' in flight batches, up to '{}' ms", inFlightBatches.size(), drainTimeoutInMs);
+        try {
+            CompletableFuture.allOf(inFlightBatches.toArray(CompletableFuture[]::new))
+                    .exceptionally(throwable -> null)
+                    .get(drainTimeoutInMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            LOGGER.warn("drain timeout of '{}' ms elapsed : '{}' batches are still in flight, their records will be redelivered", drainTimeoutInMs, inFlightBatches.size());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error(e.getMessage());
+            return false;
+        } catch (ExecutionException e) {
+            //errors are swallowed by 'exceptionally'
+            return true;
+        }
+    }
+
+    /**
+     * drain the in flight batches before releasing the partitions (rebalance or stop),
+     * to not run HTTP exchanges concurrently with the new owner of the partitions.
+     * @param partitions partitions closed
+     */
+    @Override
+    public void close(Collection<TopicPartition> partitions) {
+        drainInFlightBatches(httpConnectorConfig != null ? httpConnectorConfig.getDrainTimeoutInMs() : DEFAULT_SINK_DRAIN_TIMEOUT_IN_MS);
+        awaitErrantRecordReports();
+        offsetTracker.remove(partitions);
+        openCircuitPauses.remove(partitions);
+        if (inFlightBudget != null) {
+            inFlightBudget.remove(partitions);
+        }
+    }
+
 
     private static JexlEngine buildJexlEngine() {
         // Restricted permissions to a safe set but with URI allowed
@@ -201,9 +442,65 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
         return new JexlBuilder().features(features).permissions(permissions).create();
     }
 
+    /**
+     * send the request immediately, or after the previous request with the same record key if ordering lanes are configured.
+     * when the request does not fit in the in flight budget, it is not sent : it is deferred with the next records of its partition,
+     * which is rewound and paused, so that the task thread never waits for the budget.
+     * @param pair record and its HttpRequest
+     * @return future of the HttpExchange, completed without HttpExchange if the request is deferred.
+     */
+    private CompletableFuture<HttpExchange> dispatch(Pair<SinkRecord, HttpRequest> pair) {
+        if (inFlightBudget == null || !inFlightBudget.isEnabled()) {
+            return send(pair);
+        }
+        SinkRecord sinkRecord = pair.getLeft();
+        TopicPartition topicPartition = new TopicPartition(sinkRecord.topic(), sinkRecord.kafkaPartition());
+        long bytes = pair.getRight().getLength();
+        if (inFlightBudget.isDeferred(topicPartition, sinkRecord.kafkaOffset())
+                || !inFlightBudget.tryAcquire(topicPartition, bytes)) {
+            return defer(topicPartition, sinkRecord.kafkaOffset());
+        }
+        CompletableFuture<HttpExchange> future;
+        try {
+            future = send(pair);
+        } catch (RuntimeException e) {
+            inFlightBudget.release(topicPartition, bytes);
+            throw e;
+        }
+        return future.whenComplete((httpExchange, throwable) -> inFlightBudget.release(topicPartition, bytes));
+    }
+
+    /**
+     * defer a record which does not fit in the in flight budget : it will be redelivered when the partition is resumed.
+     * @return a future completed without HttpExchange.
+     */
+    private CompletableFuture<HttpExchange> defer(TopicPartition topicPartition, long offset) {
+        inFlightBudget.defer(topicPartition, offset);
+        if (httpConnectorConfig.isPutAsync()) {
+            //the offset is not committed until the record is redelivered
+            offsetTracker.rewind(topicPartition, offset);
+        }
+        LOGGER.debug("record '{}' of partition '{}' deferred, as the in flight budget is exhausted", offset, topicPartition);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<HttpExchange> send(Pair<SinkRecord, HttpRequest> pair) {
+        if (keyOrderedLanes == null) {
+            return callAndPublish(pair);
+        }
+        return keyOrderedLanes.submit(pair.getLeft().key(), () -> callAndPublish(pair));
+    }
+
     public CompletableFuture<HttpExchange> callAndPublish(Pair<SinkRecord, HttpRequest> pair) {
 
         HttpRequest httpRequest = pair.getRight();
+        if (CircuitOpenStrategy.PAUSE.equals(circuitOpenStrategy)) {
+            SinkRecord sinkRecord = pair.getLeft();
+            TopicPartition topicPartition = new TopicPartition(sinkRecord.topic(), sinkRecord.kafkaPartition());
+            if (!httpTask.isClosed(httpRequest) || openCircuitPauses.isSkipped(topicPartition, sinkRecord.kafkaOffset())) {
+                return skip(topicPartition, sinkRecord.kafkaOffset(), httpRequest);
+            }
+        }
         if(httpTask.isClosed(httpRequest)) {
             return httpTask.call(httpRequest)
                     .thenApply(publish())
@@ -211,19 +508,15 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
                         LOGGER.error(throwable.getMessage());
                         if (errantRecordReporter != null) {
                             // Send errant record to error reporter
-                            Future<Void> future = errantRecordReporter.report(pair.getLeft(), throwable);
-                            // Optionally wait until the failure's been recorded in Kafka
-                            try {
-                                future.get();
-                            } catch (InterruptedException | ExecutionException ex) {
-                                Thread.currentThread().interrupt();
-                                LOGGER.error(ex.getMessage());
-                            }
+                            // the report is awaited in preCommit/flush, before offsets are committed
+                            errantRecordReports.add(errantRecordReporter.report(pair.getLeft(), throwable));
                         }
                         return null;
                     });
         }else {
-            String openedUntil = DATE_TIME_FORMATTER.format(httpTask.getNextRetryInstant(httpRequest));
+            Instant nextRetryInstant = httpTask.getNextRetryInstant(httpRequest);
+            //the circuit breaker may have been half-opened in the meantime
+            String openedUntil = DATE_TIME_FORMATTER.format(nextRetryInstant != null ? nextRetryInstant : Instant.now());
             publishToDeadLetterQueue(this.httpConnectorConfig.getProducerDlqTopic(),httpRequest,openedUntil);
             AtomicInteger attempts = new AtomicInteger();
             HttpExchange httpExchange = httpTask.getConfiguration(httpRequest).getClient().buildExchange(
@@ -238,6 +531,21 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
         }
     }
 
+    /**
+     * skip a record whose configuration has an open circuit breaker : it will be redelivered when the partition is resumed.
+     * @return a future completed without HttpExchange.
+     */
+    private CompletableFuture<HttpExchange> skip(TopicPartition topicPartition, long offset, HttpRequest httpRequest) {
+        Instant nextRetryInstant = httpTask.getNextRetryInstant(httpRequest);
+        openCircuitPauses.skip(topicPartition, offset, nextRetryInstant != null ? nextRetryInstant : Instant.now());
+        if (httpConnectorConfig.isPutAsync()) {
+            //the offset is not committed until the record is redelivered
+            offsetTracker.rewind(topicPartition, offset);
+        }
+        LOGGER.debug("record '{}' of partition '{}' skipped, as its configuration circuit breaker is open", offset, topicPartition);
+        return CompletableFuture.completedFuture(null);
+    }
+
     private void publishToDeadLetterQueue(String dlqTopic, HttpRequest httpRequest, String openedUntil) {
         LOGGER.error("HttpRequest sent to dead letter queue because the task is opened (i.e disabled) until '{}': '{}'",openedUntil, httpRequest);
         List<Header> headers = Lists.newArrayList(new RecordHeader("openedUntil", openedUntil.getBytes()));
@@ -245,55 +553,52 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
         this.producer.send(myRecord);
     }
 
-    private List<SinkRecord> splitMessage(SinkRecord sinkRecord) {
-        Optional<MessageSplitter<SinkRecord>> splitterFound = messageSplitters.stream()
-                .filter(messageSplitter -> messageSplitter.matches(sinkRecord)).findFirst();
-        //splitter
-        List<SinkRecord> results;
-        if (splitterFound.isPresent()) {
-            results = splitterFound.get().split(sinkRecord);
-        } else {
-            results = List.of(sinkRecord);
+    private @NotNull Pair<SinkRecord, HttpRequest> toHttpRequest(SinkRecord sinkRecord) {
+        HttpRequestMapper httpRequestMapper = httpRequestMapperIndex.findFirst(sinkRecord);
+        if (httpRequestMapper == null) {
+            httpRequestMapper = defaultHttpRequestMapper;
         }
-        return results;
-    }
-
-
-
-    private @NotNull Pair<SinkRecord, HttpRequest> toHttpRequests(SinkRecord sinkRecord) {
-        HttpRequestMapper httpRequestMapper = httpRequestMappers.stream()
-                .filter(mapper -> mapper.matches(sinkRecord))
-                .findFirst()
-                .orElse(defaultHttpRequestMapper);
 
         //build HttpRequest
         HttpRequest httpRequest = httpRequestMapper.map(sinkRecord);
-
+        //a file referenced body is rejected before being queued, unless it is allowed
+        try {
+            fileReferenceGuard.check(httpRequest);
+        } catch (IllegalArgumentException e) {
+            throw new ConnectException(e.getMessage(), e);
+        }
+        //add VU_ID attribute to the request
+        //each task has its own VU_ID
+        httpRequest.addAttribute(VU_ID, this.vuId);
         return Pair.of(sinkRecord, httpRequest);
     }
 
-    @SuppressWarnings("java:S3864")
+    /**
+     * split SinkRecord messages, and convert them to HttpRequest, in a single pass over the batch.
+     * @param records records to convert
+     * @return pairs of record and HttpRequest, eventually grouped.
+     */
     public List<Pair<SinkRecord, HttpRequest>> prepareRequests(Collection<SinkRecord> records) {
-        //we submit futures to the pool
-        Stream<SinkRecord> stream = records.stream();
-        //split SinkRecord messages, and convert them to HttpRequest
-        List<Pair<SinkRecord, HttpRequest>> requests = stream
-                .filter(sinkRecord -> sinkRecord.value() != null)
-                .peek(this::debugConnectRecord)
-                .map(this::splitMessage)
-                .flatMap(List::stream)
-                .map(this::toHttpRequests)
-                //add VU_ID attribute to the request
-                //each task has its own VU_ID
-                .map(pair-> {
-                    //add VU_ID attribute to the request
-                    pair.getRight().addAttribute(VU_ID, this.vuId);
-                    return Pair.of(pair.getLeft(), pair.getRight());
-                })
-                .toList();
-
+        List<Pair<SinkRecord, HttpRequest>> requests = new ArrayList<>(records.size());
+        boolean debugEnabled = LOGGER.isDebugEnabled();
+        boolean noMessageSplitter = messageSplitters.isEmpty();
+        for (SinkRecord sinkRecord : records) {
+            if (sinkRecord.value() == null) {
+                continue;
+            }
+            if (debugEnabled) {
+                debugConnectRecord(sinkRecord);
+            }
+            MessageSplitter<SinkRecord> messageSplitter = noMessageSplitter ? null : messageSplitterIndex.findFirst(sinkRecord);
+            if (messageSplitter == null) {
+                requests.add(toHttpRequest(sinkRecord));
+            } else {
+                for (SinkRecord part : messageSplitter.split(sinkRecord)) {
+                    requests.add(toHttpRequest(part));
+                }
+            }
+        }
         return httpTask.groupRequests(requests);
-
     }
 
     private void debugConnectRecord(ConnectRecord<SinkRecord> sinkRecord) {
@@ -377,12 +682,26 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
     }
 
 
+    /**
+     * drain the in flight batches, cancel the remaining HTTP exchanges, and release the clients, executor, meter registry and producer.
+     * all these phases share a single deadline, set to the drain timeout from the start of this method.
+     */
     @Override
     public void stop() {
+        stopping = true;
         if (httpTask == null) {
             LOGGER.error("httpTask hasn't been created with the 'start' method");
+            return;
         }
-
+        long drainTimeoutInMs = httpConnectorConfig.getDrainTimeoutInMs();
+        long deadlineInNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutInMs);
+        drainInFlightBatches(drainTimeoutInMs);
+        awaitErrantRecordReports();
+        httpTask.stop(deadlineInNanos);
+        if (PublishMode.PRODUCER.equals(publishMode)) {
+            producer.close(Duration.ofNanos(Math.max(0, deadlineInNanos - System.nanoTime())));
+        }
+        LOGGER.info("HttpSinkTask stopped");
     }
 
 
@@ -400,6 +719,14 @@ public abstract class HttpSinkTask<C extends HttpClient<R, S>, R, S> extends Sin
         return httpTask;
     }
 
+    protected InFlightBudget getInFlightBudget() {
+        return inFlightBudget;
+    }
+
+    protected OffsetTracker getOffsetTracker() {
+        return offsetTracker;
+    }
+
 
     protected HttpRequestMapper getDefaultHttpRequestMapper() {
         return this.defaultHttpRequestMapper;
@@ -0,0 +1,226 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * InFlightBudget counts the HTTP requests (and their bytes) sent by a task but not yet completed, per TopicPartition.
+ * A request is sent only if it fits in the maximum number of in flight requests and bytes.
+ * Otherwise, the request is deferred, with the next records of its partition : the partition is rewound to the first deferred offset
+ * and paused, like the busiest partitions when the budget is exhausted.
+ * Paused partitions are designated to be resumed when the in flight load goes back under half of the limits.
+ * Until the deferred records are redelivered, offsets to commit do not exceed the first deferred offset.
+ * A limit set to 0 is not enforced.
+ */
+public class InFlightBudget {
+
+    //ratio of the limits under which paused partitions are resumed, to avoid pausing/resuming on every batch
+    private static final double RESUME_RATIO = 0.5d;
+    private final long maxRequests;
+    private final long maxBytes;
+    private final Map<TopicPartition, long[]> inFlightPerPartition = Maps.newHashMap();
+    private final Set<TopicPartition> pausedPartitions = Sets.newHashSet();
+    //for each partition with deferred records not yet paused, first deferred offset
+    private final Map<TopicPartition, Long> deferredOffsets = Maps.newHashMap();
+    //for each rewound partition, offset from which records are redelivered, until a redelivered record is received
+    private final Map<TopicPartition, Long> cappedOffsets = Maps.newHashMap();
+    private long inFlightRequests;
+    private long inFlightBytes;
+
+    public InFlightBudget(long maxRequests, long maxBytes) {
+        this.maxRequests = maxRequests;
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return maxRequests > 0 || maxBytes > 0;
+    }
+
+    /**
+     * acquire the budget for a request, if it fits in the limits.
+     * a request bigger than the bytes limit is admitted when nothing is in flight, to not defer it forever.
+     * @param topicPartition partition of the record
+     * @param bytes size of the request
+     * @return true if the budget is acquired, false if the request must be deferred.
+     */
+    public synchronized boolean tryAcquire(TopicPartition topicPartition, long bytes) {
+        boolean fits = (maxRequests <= 0 || inFlightRequests + 1 <= maxRequests)
+                && (maxBytes <= 0 || inFlightBytes + bytes <= maxBytes || inFlightRequests == 0);
+        if (fits) {
+            acquire(topicPartition, bytes);
+        }
+        return fits;
+    }
+
+    public synchronized void acquire(TopicPartition topicPartition, long bytes) {
+        long[] counters = inFlightPerPartition.computeIfAbsent(topicPartition, tp -> new long[2]);
+        counters[0]++;
+        counters[1] += bytes;
+        inFlightRequests++;
+        inFlightBytes += bytes;
+    }
+
+    public synchronized void release(TopicPartition topicPartition, long bytes) {
+        long[] counters = inFlightPerPartition.get(topicPartition);
+        if (counters != null) {
+            counters[0]--;
+            counters[1] -= bytes;
+            if (counters[0] <= 0) {
+                inFlightPerPartition.remove(topicPartition);
+            }
+        }
+        inFlightRequests--;
+        inFlightBytes -= bytes;
+    }
+
+    /**
+     * mark a record as deferred, as its request does not fit in the budget.
+     * @param topicPartition partition of the record
+     * @param offset offset of the record
+     */
+    public synchronized void defer(TopicPartition topicPartition, long offset) {
+        deferredOffsets.merge(topicPartition, offset, Math::min);
+    }
+
+    /**
+     * @param topicPartition partition of the record
+     * @param offset offset of the record
+     * @return true if a previous record of the partition has been deferred : the record must be deferred too, to be redelivered in order.
+     */
+    public synchronized boolean isDeferred(TopicPartition topicPartition, long offset) {
+        Long deferredOffset = deferredOffsets.get(topicPartition);
+        return deferredOffset != null && deferredOffset <= offset;
+    }
+
+    public synchronized boolean isExhausted() {
+        return (maxRequests > 0 && inFlightRequests >= maxRequests)
+                || (maxBytes > 0 && inFlightBytes >= maxBytes);
+    }
+
+    private boolean isUnderResumeThreshold() {
+        return (maxRequests <= 0 || inFlightRequests < maxRequests * RESUME_RATIO)
+                && (maxBytes <= 0 || inFlightBytes < maxBytes * RESUME_RATIO);
+    }
+
+    /**
+     * when the budget is exhausted, designate the busiest partitions not already paused,
+     * i.e. partitions with an in flight load greater or equal to the average in flight load per partition.
+     * @return partitions to pause. they are considered paused when this method returns.
+     */
+    public synchronized Set<TopicPartition> partitionsToPause() {
+        Set<TopicPartition> toPause = Sets.newHashSet();
+        if (!isExhausted() || inFlightPerPartition.isEmpty()) {
+            return toPause;
+        }
+        int index = maxRequests > 0 && inFlightRequests >= maxRequests ? 0 : 1;
+        long total = index == 0 ? inFlightRequests : inFlightBytes;
+        double average = (double) total / inFlightPerPartition.size();
+        inFlightPerPartition.entrySet().stream()
+                .filter(entry -> !pausedPartitions.contains(entry.getKey()))
+                .filter(entry -> entry.getValue()[index] >= average)
+                .sorted(Comparator.comparingLong((Map.Entry<TopicPartition, long[]> entry) -> entry.getValue()[index]).reversed())
+                .forEach(entry -> toPause.add(entry.getKey()));
+        pausedPartitions.addAll(toPause);
+        return toPause;
+    }
+
+    /**
+     * @return offsets to rewind the partitions with deferred records to. these partitions are considered paused when this method returns.
+     */
+    public synchronized Map<TopicPartition, Long> partitionsToRewind() {
+        Map<TopicPartition, Long> toRewind = Maps.newHashMap(deferredOffsets);
+        for (Map.Entry<TopicPartition, Long> entry : deferredOffsets.entrySet()) {
+            cappedOffsets.merge(entry.getKey(), entry.getValue(), Math::min);
+        }
+        pausedPartitions.addAll(deferredOffsets.keySet());
+        deferredOffsets.clear();
+        return toRewind;
+    }
+
+    /**
+     * @return paused partitions to resume, if the in flight load is low enough. they are considered resumed when this method returns.
+     */
+    public synchronized Set<TopicPartition> partitionsToResume() {
+        Set<TopicPartition> toResume = Sets.newHashSet();
+        if (!pausedPartitions.isEmpty() && isUnderResumeThreshold()) {
+            toResume.addAll(pausedPartitions);
+            pausedPartitions.clear();
+        }
+        return toResume;
+    }
+
+    /**
+     * redelivered records lift the cap of their partition.
+     * @param records records received by the task
+     */
+    public synchronized void confirm(Collection<SinkRecord> records) {
+        if (cappedOffsets.isEmpty()) {
+            return;
+        }
+        for (SinkRecord sinkRecord : records) {
+            TopicPartition topicPartition = new TopicPartition(sinkRecord.topic(), sinkRecord.kafkaPartition());
+            Long cappedOffset = cappedOffsets.get(topicPartition);
+            if (cappedOffset != null && sinkRecord.kafkaOffset() <= cappedOffset && !pausedPartitions.contains(topicPartition)) {
+                cappedOffsets.remove(topicPartition);
+            }
+        }
+    }
+
+    /**
+     * @param offsets offsets to commit
+     * @return offsets to commit, not exceeding the first deferred offset of each partition not yet redelivered.
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> cap(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (cappedOffsets.isEmpty() && deferredOffsets.isEmpty()) {
+            return offsets;
+        }
+        Map<TopicPartition, OffsetAndMetadata> result = Maps.newHashMap(offsets);
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            long offset = entry.getValue().offset();
+            Long cappedOffset = cappedOffsets.get(entry.getKey());
+            if (cappedOffset != null) {
+                offset = Math.min(offset, cappedOffset);
+            }
+            Long deferredOffset = deferredOffsets.get(entry.getKey());
+            if (deferredOffset != null) {
+                offset = Math.min(offset, deferredOffset);
+            }
+            if (offset != entry.getValue().offset()) {
+                result.put(entry.getKey(), new OffsetAndMetadata(offset));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * forget revoked partitions.
+     * @param partitions partitions revoked from the task
+     */
+    public synchronized void remove(Iterable<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            pausedPartitions.remove(partition);
+            deferredOffsets.remove(partition);
+            cappedOffsets.remove(partition);
+        }
+    }
+
+    public synchronized long getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    public synchronized Set<TopicPartition> getPausedPartitions() {
+        return Sets.newHashSet(pausedPartitions);
+    }
+}
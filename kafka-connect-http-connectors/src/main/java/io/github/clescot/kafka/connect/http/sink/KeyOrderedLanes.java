@@ -0,0 +1,62 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * KeyOrderedLanes dispatches asynchronous tasks on a fixed number of lanes, selected by hashing a key.
+ * Tasks submitted on the same lane are chained : a task starts only when the previous one on its lane is done
+ * (successfully or not). Tasks on different lanes run concurrently.
+ * Tasks with a null key are not ordered, and are started immediately.
+ */
+public class KeyOrderedLanes {
+
+    private final CompletableFuture<?>[] tails;
+
+    public KeyOrderedLanes(int laneCount) {
+        Preconditions.checkArgument(laneCount > 0, "laneCount must be strictly positive");
+        this.tails = new CompletableFuture<?>[laneCount];
+        Arrays.fill(tails, CompletableFuture.completedFuture(null));
+    }
+
+    public int getLaneCount() {
+        return tails.length;
+    }
+
+    /**
+     * @param key key used to select the lane
+     * @return lane index, or -1 if the key is null (no ordering).
+     */
+    public int laneOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int hash;
+        if (key instanceof byte[] bytes) {
+            hash = Arrays.hashCode(bytes);
+        } else {
+            hash = key.hashCode();
+        }
+        return Math.floorMod(hash, tails.length);
+    }
+
+    /**
+     * @param key  key used to select the lane
+     * @param task task to start when the previous task of the lane is done
+     * @return future of the task
+     */
+    public synchronized <T> CompletableFuture<T> submit(Object key, Supplier<CompletableFuture<T>> task) {
+        int lane = laneOf(key);
+        if (lane == -1) {
+            return task.get();
+        }
+        CompletableFuture<T> future = tails[lane]
+                .handle((result, throwable) -> null)
+                .thenCompose(ignored -> task.get());
+        tails[lane] = future;
+        return future;
+    }
+}
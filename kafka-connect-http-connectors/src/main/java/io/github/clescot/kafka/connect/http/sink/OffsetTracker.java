@@ -0,0 +1,130 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import com.google.common.collect.Maps;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * OffsetTracker keeps, for each TopicPartition, the offsets of the records whose HTTP calls are still in flight.
+ * A batch of records is registered when it is received by the task, and completed when all its HTTP exchanges are done.
+ * Only the highest contiguous completed offset of each partition is exposed as committable :
+ * a slow batch prevents later (already completed) batches of the same partition from being committed.
+ * When a partition is rewound (records are redelivered from an offset), its committable offset does not exceed
+ * the rewound offset, until the first redelivered batch is completed.
+ */
+public class OffsetTracker {
+
+    //for each partition, highest offset of registered batches, and the number of these batches not yet completed
+    private final Map<TopicPartition, NavigableMap<Long, Integer>> inFlightOffsets = Maps.newHashMap();
+    //for each partition, next offset to consume (i.e highest contiguous completed offset + 1)
+    private final Map<TopicPartition, Long> committableOffsets = Maps.newHashMap();
+    //for each rewound partition, offset from which records are redelivered
+    private final Map<TopicPartition, Long> rewoundOffsets = Maps.newHashMap();
+    //for each rewound partition, highest offset of the first redelivered batch
+    private final Map<TopicPartition, Long> redeliveredOffsets = Maps.newHashMap();
+
+    /**
+     * register a batch of records as in flight.
+     * @param records records received by the task
+     * @return the highest offset of the batch per partition, to pass to {@link #complete(Map)} when the batch is done.
+     */
+    public synchronized Map<TopicPartition, Long> register(Collection<SinkRecord> records) {
+        Map<TopicPartition, Long> batchOffsets = Maps.newHashMap();
+        Map<TopicPartition, Long> lowestOffsets = Maps.newHashMap();
+        for (SinkRecord sinkRecord : records) {
+            TopicPartition topicPartition = new TopicPartition(sinkRecord.topic(), sinkRecord.kafkaPartition());
+            batchOffsets.merge(topicPartition, sinkRecord.kafkaOffset(), Math::max);
+            lowestOffsets.merge(topicPartition, sinkRecord.kafkaOffset(), Math::min);
+        }
+        for (Map.Entry<TopicPartition, Long> entry : batchOffsets.entrySet()) {
+            TopicPartition topicPartition = entry.getKey();
+            inFlightOffsets.computeIfAbsent(topicPartition, tp -> new TreeMap<>()).merge(entry.getValue(), 1, Integer::sum);
+            Long rewoundOffset = rewoundOffsets.get(topicPartition);
+            if (rewoundOffset != null
+                    && !redeliveredOffsets.containsKey(topicPartition)
+                    && lowestOffsets.get(topicPartition) <= rewoundOffset) {
+                redeliveredOffsets.put(topicPartition, entry.getValue());
+            }
+        }
+        return batchOffsets;
+    }
+
+    /**
+     * mark a batch as completed, and advance the committable offset of each partition as far as possible.
+     * @param batchOffsets highest offsets of the batch, as returned by {@link #register(Collection)}
+     */
+    public synchronized void complete(Map<TopicPartition, Long> batchOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : batchOffsets.entrySet()) {
+            TopicPartition topicPartition = entry.getKey();
+            NavigableMap<Long, Integer> offsets = inFlightOffsets.get(topicPartition);
+            //partition may have been revoked in the meantime
+            if (offsets == null || !offsets.containsKey(entry.getValue())) {
+                continue;
+            }
+            offsets.merge(entry.getValue(), -1, Integer::sum);
+            while (!offsets.isEmpty() && offsets.firstEntry().getValue() == 0) {
+                Long completedOffset = offsets.pollFirstEntry().getKey();
+                committableOffsets.put(topicPartition, completedOffset + 1);
+                if (completedOffset.equals(redeliveredOffsets.get(topicPartition))) {
+                    //redelivered records up to this offset are done
+                    rewoundOffsets.remove(topicPartition);
+                    redeliveredOffsets.remove(topicPartition);
+                }
+            }
+        }
+    }
+
+    /**
+     * records of the partition will be redelivered from the offset : the committable offset of the partition
+     * will not exceed this offset, until the first redelivered batch is completed.
+     * @param topicPartition rewound partition
+     * @param offset offset from which records are redelivered
+     */
+    public synchronized void rewind(TopicPartition topicPartition, long offset) {
+        rewoundOffsets.merge(topicPartition, offset, Math::min);
+        //a batch registered before this rewind does not hold redelivered records
+        redeliveredOffsets.remove(topicPartition);
+    }
+
+    /**
+     * @param assignedPartitions partitions currently assigned to the task
+     * @return offsets safe to commit, for the assigned partitions which have completed at least one batch
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> getCommittableOffsets(Collection<TopicPartition> assignedPartitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = Maps.newHashMap();
+        for (TopicPartition topicPartition : assignedPartitions) {
+            Long offset = committableOffsets.get(topicPartition);
+            if (offset != null) {
+                Long rewoundOffset = rewoundOffsets.get(topicPartition);
+                offsets.put(topicPartition, new OffsetAndMetadata(rewoundOffset != null ? Math.min(offset, rewoundOffset) : offset));
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * @return number of batches registered but not yet committable, all partitions included.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlightOffsets.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * forget revoked partitions.
+     * @param partitions partitions revoked from the task
+     */
+    public synchronized void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            inFlightOffsets.remove(partition);
+            committableOffsets.remove(partition);
+            rewoundOffsets.remove(partition);
+            redeliveredOffsets.remove(partition);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * OpenCircuitPauses keeps, for each TopicPartition, the records skipped because the circuit breaker of their configuration is open.
+ * Skipped records are not sent to the dead letter queue : the partition is rewound to the first skipped offset and paused,
+ * and resumed when the circuit breaker is expected to be half-open.
+ * Until the skipped records are redelivered, offsets to commit do not exceed the first skipped offset.
+ */
+public class OpenCircuitPauses {
+
+    //skipped partitions, not yet paused
+    private final Map<TopicPartition, Skip> pendingSkips = Maps.newHashMap();
+    //paused partitions
+    private final Map<TopicPartition, Skip> pausedSkips = Maps.newHashMap();
+    //for each resumed partition, offset from which records are redelivered, until a redelivered record is received
+    private final Map<TopicPartition, Long> cappedOffsets = Maps.newHashMap();
+
+    /**
+     * mark a record as skipped.
+     * @param topicPartition partition of the record
+     * @param offset offset of the record
+     * @param until instant when the circuit breaker should be half-open
+     */
+    public synchronized void skip(TopicPartition topicPartition, long offset, Instant until) {
+        pendingSkips.merge(topicPartition, new Skip(offset, until), Skip::merge);
+    }
+
+    /**
+     * @param topicPartition partition of the record
+     * @param offset offset of the record
+     * @return true if a previous record of the partition has been skipped : the record must be skipped too, to be redelivered in order.
+     */
+    public synchronized boolean isSkipped(TopicPartition topicPartition, long offset) {
+        Skip pendingSkip = pendingSkips.get(topicPartition);
+        Skip pausedSkip = pausedSkips.get(topicPartition);
+        return (pendingSkip != null && pendingSkip.offset <= offset)
+                || (pausedSkip != null && pausedSkip.offset <= offset);
+    }
+
+    /**
+     * @return offsets to rewind the skipped partitions to. these partitions are considered paused when this method returns.
+     */
+    public synchronized Map<TopicPartition, Long> partitionsToPause() {
+        Map<TopicPartition, Long> toPause = Maps.newHashMap();
+        for (Map.Entry<TopicPartition, Skip> entry : pendingSkips.entrySet()) {
+            Skip skip = pausedSkips.merge(entry.getKey(), entry.getValue(), Skip::merge);
+            toPause.put(entry.getKey(), skip.offset);
+            cappedOffsets.merge(entry.getKey(), skip.offset, Math::min);
+        }
+        pendingSkips.clear();
+        return toPause;
+    }
+
+    /**
+     * @param now current instant
+     * @return paused partitions whose circuit breaker should be half-open. they are considered resumed when this method returns.
+     */
+    public synchronized Set<TopicPartition> partitionsToResume(Instant now) {
+        Set<TopicPartition> toResume = Sets.newHashSet();
+        Iterator<Map.Entry<TopicPartition, Skip>> iterator = pausedSkips.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<TopicPartition, Skip> entry = iterator.next();
+            if (!entry.getValue().until.isAfter(now)) {
+                toResume.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        return toResume;
+    }
+
+    /**
+     * redelivered records lift the cap of their partition.
+     * @param records records received by the task
+     */
+    public synchronized void confirm(Collection<SinkRecord> records) {
+        if (cappedOffsets.isEmpty()) {
+            return;
+        }
+        for (SinkRecord sinkRecord : records) {
+            TopicPartition topicPartition = new TopicPartition(sinkRecord.topic(), sinkRecord.kafkaPartition());
+            Long cappedOffset = cappedOffsets.get(topicPartition);
+            if (cappedOffset != null && sinkRecord.kafkaOffset() <= cappedOffset && !pausedSkips.containsKey(topicPartition)) {
+                cappedOffsets.remove(topicPartition);
+            }
+        }
+    }
+
+    /**
+     * @param offsets offsets to commit
+     * @return offsets to commit, not exceeding the first skipped offset of each partition not yet redelivered.
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> cap(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (cappedOffsets.isEmpty() && pendingSkips.isEmpty()) {
+            return offsets;
+        }
+        Map<TopicPartition, OffsetAndMetadata> result = Maps.newHashMap(offsets);
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            long offset = entry.getValue().offset();
+            Long cappedOffset = cappedOffsets.get(entry.getKey());
+            if (cappedOffset != null) {
+                offset = Math.min(offset, cappedOffset);
+            }
+            Skip pendingSkip = pendingSkips.get(entry.getKey());
+            if (pendingSkip != null) {
+                offset = Math.min(offset, pendingSkip.offset);
+            }
+            if (offset != entry.getValue().offset()) {
+                result.put(entry.getKey(), new OffsetAndMetadata(offset));
+            }
+        }
+        return result;
+    }
+
+    public synchronized Set<TopicPartition> getPausedPartitions() {
+        return Sets.newHashSet(pausedSkips.keySet());
+    }
+
+    /**
+     * forget revoked partitions.
+     * @param partitions partitions revoked from the task
+     */
+    public synchronized void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            pendingSkips.remove(partition);
+            pausedSkips.remove(partition);
+            cappedOffsets.remove(partition);
+        }
+    }
+
+    private record Skip(long offset, Instant until) {
+        private Skip merge(Skip other) {
+            return new Skip(Math.min(offset, other.offset), until.isAfter(other.until) ? until : other.until);
+        }
+    }
+}
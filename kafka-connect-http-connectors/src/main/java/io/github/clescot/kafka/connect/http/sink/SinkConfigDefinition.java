@@ -67,6 +67,29 @@ public class SinkConfigDefinition {
     public static final String PUBLISH_MODE = "publish.mode";
     public static final String PUBLISH_MODE_DOC = "can be either 'IN_MEMORY_QUEUE', 'NONE', or 'PRODUCER'. When set to 'NONE', ignore HTTP responses, i.e does not publish responses in the in memory queue ; no Source Connector is needed when set to 'none'. When set to 'IN_MEMORY_QUEUE', a Source Connector is needed to consume published Http exchanges in this in memory queue. when set to 'PRODUCER' a low level producer will be used to publish response to another topic. when set to 'DLQ', the errantReporter used to publish bad message in a Dead letter queue will be used.";
 
+    //put mode
+    public static final String SINK_PUT_ASYNC = "sink.put.async";
+    public static final String SINK_PUT_ASYNC_DOC = "'true' to not wait for HTTP exchanges in the 'put' method : records are only submitted, and offsets are committed in 'preCommit' up to the highest contiguous completed offset of each partition. 'false' (the default value) to wait for every HTTP exchange of a batch in the 'put' method.";
+
+    //ordering
+    public static final String SINK_ORDERING_LANES = "sink.ordering.lanes";
+    public static final String SINK_ORDERING_LANES_DOC = "number of lanes used to keep the order of HTTP requests built from records with the same key. the record key is hashed onto a lane : requests on the same lane are sent one after another, and lanes are processed concurrently. records without key are not ordered. '0' (the default value) disables ordering : all requests are sent concurrently.";
+
+    //in flight budget
+    public static final String SINK_MAX_IN_FLIGHT_REQUESTS = "sink.max.in.flight.requests";
+    public static final String SINK_MAX_IN_FLIGHT_REQUESTS_DOC = "maximum number of HTTP requests sent by the task and not yet completed. a request exceeding this limit is not sent : its partition is rewound to its offset and paused, in synchronous and asynchronous modes. the busiest partitions are also paused when the limit is reached. paused partitions are resumed when the number of in flight requests is under half of this limit. '0' (the default value) means no limit.";
+    public static final String SINK_MAX_IN_FLIGHT_BYTES = "sink.max.in.flight.bytes";
+    public static final String SINK_MAX_IN_FLIGHT_BYTES_DOC = "maximum size in bytes (headers and body) of HTTP requests sent by the task and not yet completed. a request exceeding this limit is not sent (unless nothing is in flight) : its partition is rewound to its offset and paused, in synchronous and asynchronous modes. the busiest partitions are also paused when the limit is reached. paused partitions are resumed when the in flight size is under half of this limit. '0' (the default value) means no limit.";
+
+    //open circuit breaker
+    public static final String SINK_CIRCUIT_OPEN_STRATEGY = "sink.circuit.open.strategy";
+    public static final String SINK_CIRCUIT_OPEN_STRATEGY_DOC = "behaviour when the circuit breaker of the configuration matching a request is open. 'DLQ' (the default value) publishes each request to the dead letter queue topic. 'PAUSE' rewinds the partition of the record to its offset, and pauses it until the next retry instant of the circuit breaker : records are redelivered when the partition is resumed.";
+
+    //drain
+    public static final String SINK_DRAIN_TIMEOUT_IN_MS = "sink.drain.timeout.in.ms";
+    public static final String SINK_DRAIN_TIMEOUT_IN_MS_DOC = "maximum time to wait for the in flight HTTP exchanges and their publications, when partitions are closed (rebalance) or the task is stopped. on stop, this delay covers the whole shutdown (drain, executor termination and producer close). exchanges still in flight after this delay are cancelled, and their records are redelivered. default value is 30000 ms.";
+    public static final long DEFAULT_SINK_DRAIN_TIMEOUT_IN_MS = 30000L;
+
     private static final long DEFAULT_WAIT_TIME_REGISTRATION_QUEUE_CONSUMER_IN_MS = 60000L;
     public static final String WAIT_TIME_REGISTRATION_QUEUE_CONSUMER_IN_MS = "wait.time.registration.queue.consumer.in.ms";
     public static final String WAIT_TIME_REGISTRATION_QUEUE_CONSUMER_IN_MS_DOC = "wait time defined with the '" + WAIT_TIME_REGISTRATION_QUEUE_CONSUMER_IN_MS + "' parameter, for a queue consumer (Source Connector) registration. " +
@@ -120,7 +143,18 @@ public class SinkConfigDefinition {
                 .define(ConfigConstants.QUEUE_NAME, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM, ConfigConstants.QUEUE_NAME_DOC)
                 .define(WAIT_TIME_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Type.LONG, DEFAULT_WAIT_TIME_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Importance.LOW, WAIT_TIME_REGISTRATION_QUEUE_CONSUMER_IN_MS_DOC)
                 .define(POLL_DELAY_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Type.INT, DEFAULT_POLL_DELAY_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Importance.LOW, POLL_DELAY_REGISTRATION_QUEUE_CONSUMER_IN_MS_DOC)
-                .define(POLL_INTERVAL_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Type.INT, DEFAULT_POLL_INTERVAL_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Importance.LOW, POLL_INTERVAL_REGISTRATION_QUEUE_CONSUMER_IN_MS_DOC);
+                .define(POLL_INTERVAL_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Type.INT, DEFAULT_POLL_INTERVAL_REGISTRATION_QUEUE_CONSUMER_IN_MS, ConfigDef.Importance.LOW, POLL_INTERVAL_REGISTRATION_QUEUE_CONSUMER_IN_MS_DOC)
+                //put mode
+                .define(SINK_PUT_ASYNC, ConfigDef.Type.BOOLEAN, Boolean.FALSE, ConfigDef.Importance.MEDIUM, SINK_PUT_ASYNC_DOC)
+                //ordering
+                .define(SINK_ORDERING_LANES, ConfigDef.Type.INT, 0, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, SINK_ORDERING_LANES_DOC)
+                //in flight budget
+                .define(SINK_MAX_IN_FLIGHT_REQUESTS, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, SINK_MAX_IN_FLIGHT_REQUESTS_DOC)
+                .define(SINK_MAX_IN_FLIGHT_BYTES, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, SINK_MAX_IN_FLIGHT_BYTES_DOC)
+                //open circuit breaker
+                .define(SINK_CIRCUIT_OPEN_STRATEGY, ConfigDef.Type.STRING, CircuitOpenStrategy.DLQ.name(), ConfigDef.ValidString.in(CircuitOpenStrategy.DLQ.name(), CircuitOpenStrategy.PAUSE.name()), ConfigDef.Importance.MEDIUM, SINK_CIRCUIT_OPEN_STRATEGY_DOC)
+                //drain
+                .define(SINK_DRAIN_TIMEOUT_IN_MS, ConfigDef.Type.LONG, DEFAULT_SINK_DRAIN_TIMEOUT_IN_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, SINK_DRAIN_TIMEOUT_IN_MS_DOC);
 
     }
 }
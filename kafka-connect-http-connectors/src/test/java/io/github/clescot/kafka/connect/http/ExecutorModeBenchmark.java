@@ -0,0 +1,72 @@
+package io.github.clescot.kafka.connect.http;
+
+import io.github.clescot.kafka.connect.http.client.ExecutorMode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compare the executor modes, with tasks blocked like HTTP requests waiting for a rate limiter permit,
+ * a Retry-After delay or a producer acknowledgement.
+ * the VIRTUAL mode falls back to the FIXED mode on a runtime without virtual threads (before Java 21) :
+ * run it with the main method on a Java 21+ runtime to compare both modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorModeBenchmark {
+
+    private static final int FIXED_THREAD_POOL_SIZE = 64;
+    private static final long BLOCKING_TIME_IN_MS = 5;
+
+    @Param({"FIXED", "VIRTUAL"})
+    private ExecutorMode executorMode;
+
+    @Param({"100", "2000"})
+    private int concurrentRequests;
+
+    private ExecutorService executorService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executorService = HttpTask.buildExecutorService(executorMode, FIXED_THREAD_POOL_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public void blockingRequests() {
+        CompletableFuture<?>[] futures = new CompletableFuture[concurrentRequests];
+        for (int i = 0; i < concurrentRequests; i++) {
+            futures[i] = CompletableFuture.runAsync(ExecutorModeBenchmark::block, executorService);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private static void block() {
+        try {
+            Thread.sleep(BLOCKING_TIME_IN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExecutorModeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
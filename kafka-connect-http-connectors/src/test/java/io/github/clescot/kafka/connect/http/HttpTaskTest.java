@@ -10,6 +10,7 @@ import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.google.common.collect.Lists;
 import de.sstoehr.harreader.model.Har;
 import io.github.clescot.kafka.connect.Configuration;
+import io.github.clescot.kafka.connect.http.client.ExecutorMode;
 import io.github.clescot.kafka.connect.http.client.HttpConfiguration;
 import io.github.clescot.kafka.connect.http.client.okhttp.OkHttpClient;
 import io.github.clescot.kafka.connect.http.client.okhttp.OkHttpClientFactory;
@@ -18,9 +19,11 @@ import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import io.github.clescot.kafka.connect.http.core.Request;
 import io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition;
 import io.github.clescot.kafka.connect.http.sink.HttpConnectorConfig;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import okhttp3.Cookie;
 import okhttp3.HttpUrl;
 import org.apache.kafka.connect.sink.SinkRecord;
+import org.awaitility.Awaitility;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Nested;
@@ -34,9 +37,15 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static io.github.clescot.kafka.connect.http.SocketUtils.awaitUntilPortIsOpen;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.USER_CONFIGURATIONS_CACHE_MAX_SIZE;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @RunWith(Enclosed.class)
@@ -216,7 +225,166 @@ public class HttpTaskTest {
             assertThat(configuration).isEqualTo(configuration2);
         }
 
+        @Test
+        void test_user_configurations_are_bounded() {
+            //given
+            WireMockRuntimeInfo wmRuntimeInfo = wmHttp.getRuntimeInfo();
+
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(USER_CONFIGURATIONS_CACHE_MAX_SIZE, "1");
+            HttpConfigDefinition httpConfigDefinition = new HttpConfigDefinition(settings);
+            HttpConnectorConfig httpConnectorConfig = new HttpConnectorConfig(httpConfigDefinition.config(), settings);
+            HttpTask httpTask = new HttpTask(httpConnectorConfig, new OkHttpClientFactory());
+
+            HttpRequest httpRequest = getDummyHttpRequest("http://"+IP+":" + wmRuntimeInfo.getHttpPort() + "/path2","1");
+            Configuration configuration = httpTask.selectConfiguration(httpRequest);
+            assertThat(httpTask.selectConfiguration(httpRequest)).isSameAs(configuration);
+
+            HttpRequest httpRequest2 = getDummyHttpRequest("http://"+IP+":" + wmRuntimeInfo.getHttpPort() + "/path2","2");
+            httpTask.selectConfiguration(httpRequest2);
+
+            //the configuration of the first user is evicted
+            assertThat(httpTask.getUserConfigurations()).hasSize(1);
+            assertThat(httpTask.selectConfiguration(httpRequest)).isNotSameAs(configuration);
+        }
+
+    }
+
+    @Nested
+    class SharedMeterRegistry {
+
+        @Test
+        void test_meter_registry_is_closed_by_the_last_task() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            HttpConfigDefinition httpConfigDefinition = new HttpConfigDefinition(settings);
+            HttpConnectorConfig httpConnectorConfig = new HttpConnectorConfig(httpConfigDefinition.config(), settings);
+            HttpTask firstTask = new HttpTask(httpConnectorConfig, new OkHttpClientFactory());
+            HttpTask secondTask = new HttpTask(httpConnectorConfig, new OkHttpClientFactory());
+            CompositeMeterRegistry meterRegistry = HttpTask.getMeterRegistry();
+
+            //when
+            firstTask.stop();
+
+            //then
+            //the registry is still used by the second task
+            assertThat(HttpTask.getMeterRegistry()).isSameAs(meterRegistry);
+            assertThat(meterRegistry.isClosed()).isFalse();
+
+            //when
+            secondTask.stop();
+
+            //then
+            assertThat(meterRegistry.isClosed()).isTrue();
+            assertThat(HttpTask.getMeterRegistry()).isNull();
+        }
+
+        @Test
+        void test_user_configurations_cache_is_monitored_per_task() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            HttpConfigDefinition httpConfigDefinition = new HttpConfigDefinition(settings);
+            HttpConnectorConfig httpConnectorConfig = new HttpConnectorConfig(httpConfigDefinition.config(), settings);
+            HttpTask firstTask = new HttpTask(httpConnectorConfig, new OkHttpClientFactory());
+            HttpTask secondTask = new HttpTask(httpConnectorConfig, new OkHttpClientFactory());
+            CompositeMeterRegistry meterRegistry = HttpTask.getMeterRegistry();
+
+            //then
+            assertThat(firstTask.getTaskId()).isNotEqualTo(secondTask.getTaskId());
+            assertThat(meterRegistry.find("cache.size").tag("cache", HttpTask.USER_CONFIGURATIONS_CACHE_NAME).gauges()).hasSize(2);
+            assertThat(meterRegistry.find("cache.size").tag(HttpTask.TASK_ID_TAG, secondTask.getTaskId()).gauge()).isNotNull();
+
+            //when
+            firstTask.stop();
+
+            //then
+            assertThat(meterRegistry.find("cache.size").tag(HttpTask.TASK_ID_TAG, firstTask.getTaskId()).gauge()).isNull();
+            assertThat(meterRegistry.find("cache.size").tag(HttpTask.TASK_ID_TAG, secondTask.getTaskId()).gauge()).isNotNull();
+            secondTask.stop();
+        }
     }
+
+    @Nested
+    class Stop {
+
+        @Test
+        void test_executor_is_interrupted_when_the_deadline_has_expired() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(HTTP_CLIENT_ASYNC_FIXED_THREAD_POOL_SIZE, "1");
+            HttpConfigDefinition httpConfigDefinition = new HttpConfigDefinition(settings);
+            HttpConnectorConfig httpConnectorConfig = new HttpConnectorConfig(httpConfigDefinition.config(), settings);
+            HttpTask httpTask = new HttpTask(httpConnectorConfig, new OkHttpClientFactory());
+            ExecutorService executorService = httpTask.getExecutorService();
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<Void> longTask = CompletableFuture.runAsync(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, executorService);
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> started.getCount() == 0);
+
+            //when the deadline has already been spent by the caller
+            long start = System.nanoTime();
+            httpTask.stop(System.nanoTime());
+
+            //then the executor is not awaited again
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+            assertThat(executorService.isShutdown()).isTrue();
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(longTask::isDone);
+        }
+
+        @Test
+        void test_scheduler_is_stopped_with_the_task() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            HttpConfigDefinition httpConfigDefinition = new HttpConfigDefinition(settings);
+            HttpConnectorConfig httpConnectorConfig = new HttpConnectorConfig(httpConfigDefinition.config(), settings);
+            HttpTask httpTask = new HttpTask(httpConnectorConfig, new OkHttpClientFactory());
+            assertThat(httpTask.getScheduledExecutorService().isShutdown()).isFalse();
+
+            //when
+            httpTask.stop();
+
+            //then
+            assertThat(httpTask.getScheduledExecutorService().isShutdown()).isTrue();
+        }
+    }
+
+    @Nested
+    class BuildExecutorService {
+
+        @Test
+        void test_fixed_mode_without_thread_pool_size() {
+            assertThat(HttpTask.buildExecutorService(ExecutorMode.FIXED, null)).isNull();
+        }
+
+        @Test
+        void test_fixed_mode_with_thread_pool_size() throws ExecutionException, InterruptedException {
+            ExecutorService executorService = HttpTask.buildExecutorService(ExecutorMode.FIXED, 2);
+            try {
+                assertThat(CompletableFuture.supplyAsync(() -> OK, executorService).get()).isEqualTo(OK);
+            } finally {
+                executorService.shutdown();
+            }
+        }
+
+        @Test
+        void test_virtual_mode() throws ExecutionException, InterruptedException {
+            ExecutorService executorService = HttpTask.buildExecutorService(ExecutorMode.VIRTUAL, 2);
+            //a Java 17 runtime falls back to the fixed thread pool
+            assertThat(executorService).isNotNull();
+            try {
+                assertThat(CompletableFuture.supplyAsync(() -> OK, executorService).get()).isEqualTo(OK);
+            } finally {
+                executorService.shutdown();
+            }
+        }
+    }
+
     static HttpRequest getDummyHttpRequest(String url,String vuId) {
         HttpRequest httpRequest = new HttpRequest(url, HttpRequest.Method.POST);
         Map<String, List<String>> headers = com.google.common.collect.Maps.newHashMap();
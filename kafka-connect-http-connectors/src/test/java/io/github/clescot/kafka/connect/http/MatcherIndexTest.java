@@ -0,0 +1,118 @@
+package io.github.clescot.kafka.connect.http;
+
+import com.google.common.collect.Lists;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import io.github.clescot.kafka.connect.http.mapper.DirectHttpRequestMapper;
+import io.github.clescot.kafka.connect.http.mapper.HttpRequestMapper;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlFeatures;
+import org.apache.commons.jexl3.introspection.JexlPermissions;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatcherIndexTest {
+
+    private static JexlEngine buildJexlEngine() {
+        JexlPermissions permissions = new JexlPermissions.ClassPermissions(SinkRecord.class, ConnectRecord.class, HttpRequest.class);
+        JexlFeatures features = new JexlFeatures()
+                .loops(false)
+                .sideEffectGlobal(false)
+                .sideEffect(false);
+        return new JexlBuilder().features(features).permissions(permissions).create();
+    }
+
+    private static SinkRecord sinkRecord(String topic, int partition, Schema valueSchema) {
+        return new SinkRecord(topic, partition, Schema.STRING_SCHEMA, "key", valueSchema, "value", 0);
+    }
+
+    @Nested
+    class Analyse {
+        @Test
+        void test_always_matches() {
+            assertThat(MatcherIndex.analyse("true")).isEqualTo(new MatcherIndex.StaticPredicate(null, null, null));
+        }
+
+        @Test
+        void test_topic_equality() {
+            assertThat(MatcherIndex.analyse("sinkRecord.topic()=='myTopic'")).isEqualTo(new MatcherIndex.StaticPredicate("myTopic", null, null));
+            assertThat(MatcherIndex.analyse(" \"myTopic\" == sinkRecord.topic() ")).isEqualTo(new MatcherIndex.StaticPredicate("myTopic", null, null));
+            assertThat(MatcherIndex.analyse("(sinkRecord.topic() eq 'myTopic')")).isEqualTo(new MatcherIndex.StaticPredicate("myTopic", null, null));
+        }
+
+        @Test
+        void test_conjunction() {
+            assertThat(MatcherIndex.analyse("sinkRecord.topic()=='myTopic' && sinkRecord.kafkaPartition()==2 && sinkRecord.valueSchema().name()=='mySchema'"))
+                    .isEqualTo(new MatcherIndex.StaticPredicate("myTopic", 2, "mySchema"));
+        }
+
+        @Test
+        void test_unsupported_expressions() {
+            assertThat(MatcherIndex.analyse(null)).isNull();
+            assertThat(MatcherIndex.analyse("sinkRecord.topic()=='myTopic' || sinkRecord.topic()=='otherTopic'")).isNull();
+            assertThat(MatcherIndex.analyse("sinkRecord.topic()=='myTopic' && sinkRecord.topic()=='otherTopic'")).isNull();
+            assertThat(MatcherIndex.analyse("sinkRecord.topic()!='myTopic'")).isNull();
+            assertThat(MatcherIndex.analyse("sinkRecord.key()=='myKey'")).isNull();
+            assertThat(MatcherIndex.analyse("sinkRecord.topic()=='my&&Topic'")).isNull();
+        }
+    }
+
+    @Nested
+    class FindFirst {
+        private final JexlEngine jexlEngine = buildJexlEngine();
+
+        @Test
+        void test_empty_index() {
+            MatcherIndex<HttpRequestMapper, SinkRecord> matcherIndex = new MatcherIndex<>(Lists.newArrayList(), HttpRequestMapper::getMatchingExpression, HttpRequestMapper::matches);
+            assertThat(matcherIndex.findFirst(sinkRecord("myTopic", 0, Schema.STRING_SCHEMA))).isNull();
+        }
+
+        @Test
+        void test_first_matching_mapper_in_order() {
+            HttpRequestMapper mapper1 = new DirectHttpRequestMapper("mapper1", jexlEngine, "sinkRecord.topic()=='topic1'");
+            HttpRequestMapper mapper2 = new DirectHttpRequestMapper("mapper2", jexlEngine, "sinkRecord.kafkaPartition()==1");
+            HttpRequestMapper mapper3 = new DirectHttpRequestMapper("mapper3", jexlEngine, "sinkRecord.topic()=='topic2'");
+            HttpRequestMapper mapper4 = new DirectHttpRequestMapper("mapper4", jexlEngine, "sinkRecord.key()=='key'");
+            List<HttpRequestMapper> mappers = Lists.newArrayList(mapper1, mapper2, mapper3, mapper4);
+            MatcherIndex<HttpRequestMapper, SinkRecord> matcherIndex = new MatcherIndex<>(mappers, HttpRequestMapper::getMatchingExpression, HttpRequestMapper::matches);
+
+            assertThat(matcherIndex.findFirst(sinkRecord("topic1", 1, Schema.STRING_SCHEMA))).isEqualTo(mapper1);
+            assertThat(matcherIndex.findFirst(sinkRecord("topic2", 1, Schema.STRING_SCHEMA))).isEqualTo(mapper2);
+            assertThat(matcherIndex.findFirst(sinkRecord("topic2", 0, Schema.STRING_SCHEMA))).isEqualTo(mapper3);
+            //fallback to JEXL
+            assertThat(matcherIndex.findFirst(sinkRecord("topic3", 0, Schema.STRING_SCHEMA))).isEqualTo(mapper4);
+        }
+
+        @Test
+        void test_schema_name() {
+            HttpRequestMapper mapper1 = new DirectHttpRequestMapper("mapper1", jexlEngine, "sinkRecord.valueSchema().name()=='mySchema'");
+            MatcherIndex<HttpRequestMapper, SinkRecord> matcherIndex = new MatcherIndex<>(List.of(mapper1), HttpRequestMapper::getMatchingExpression, HttpRequestMapper::matches);
+            Schema namedSchema = SchemaBuilder.string().name("mySchema").build();
+            assertThat(matcherIndex.findFirst(sinkRecord("topic1", 0, namedSchema))).isEqualTo(mapper1);
+            assertThat(matcherIndex.findFirst(sinkRecord("topic1", 0, Schema.STRING_SCHEMA))).isNull();
+            assertThat(matcherIndex.findFirst(sinkRecord("topic1", 0, null))).isNull();
+        }
+
+        @Test
+        void test_jexl_is_not_evaluated_for_indexed_expressions() {
+            AtomicInteger fallbackCalls = new AtomicInteger();
+            HttpRequestMapper mapper1 = new DirectHttpRequestMapper("mapper1", jexlEngine, "sinkRecord.topic()=='topic1'");
+            MatcherIndex<HttpRequestMapper, SinkRecord> matcherIndex = new MatcherIndex<>(List.of(mapper1), HttpRequestMapper::getMatchingExpression, (mapper, sinkRecord) -> {
+                fallbackCalls.incrementAndGet();
+                return mapper.matches(sinkRecord);
+            });
+            assertThat(matcherIndex.findFirst(sinkRecord("topic1", 0, Schema.STRING_SCHEMA))).isEqualTo(mapper1);
+            assertThat(matcherIndex.findFirst(sinkRecord("topic2", 0, Schema.STRING_SCHEMA))).isNull();
+            assertThat(fallbackCalls.get()).isZero();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static io.github.clescot.kafka.connect.http.client.AdaptiveConcurrencyLimiter.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Nested
+    class Constructor {
+        @Test
+        void test_min_limit_greater_than_max_limit() {
+            assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 20, 10, 0.9, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_initial_limit_is_bounded() {
+            assertThat(new AdaptiveConcurrencyLimiter(500, 1, 100, 0.9, 0).getLimit()).isEqualTo(100);
+        }
+    }
+
+    @Nested
+    class Acquire {
+        @Test
+        void test_requests_above_the_limit_wait_for_a_release() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, 0);
+            assertThat(limiter.acquire()).isDone();
+            assertThat(limiter.acquire()).isDone();
+            CompletableFuture<Void> waiting = limiter.acquire();
+            assertThat(waiting).isNotDone();
+            assertThat(limiter.getWaiting()).isEqualTo(1);
+            limiter.release(false);
+            assertThat(waiting).isDone();
+            assertThat(limiter.getInFlight()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    class Release {
+        @Test
+        void test_limit_is_decreased_on_throttled_responses() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 10, 0.5, 0);
+            limiter.acquire();
+            limiter.release(TOO_MANY_REQUESTS_STATUS_CODE, 10);
+            assertThat(limiter.getLimit()).isEqualTo(5);
+            limiter.acquire();
+            limiter.release(SERVICE_UNAVAILABLE_STATUS_CODE, 10);
+            limiter.acquire();
+            limiter.release(SERVICE_UNAVAILABLE_STATUS_CODE, 10);
+            assertThat(limiter.getLimit()).isEqualTo(2);
+        }
+
+        @Test
+        void test_limit_is_decreased_on_slow_responses() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 0.5, 1000);
+            limiter.acquire();
+            limiter.release(200, 500);
+            limiter.acquire();
+            limiter.release(200, 1500);
+            assertThat(limiter.getLimit()).isEqualTo(5);
+        }
+
+        @Test
+        void test_limit_is_increased_when_used() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, 0);
+            for (int i = 0; i < 10; i++) {
+                limiter.acquire();
+                limiter.acquire();
+                limiter.release(200, 10);
+                limiter.release(200, 10);
+            }
+            assertThat(limiter.getLimit()).isGreaterThan(2);
+        }
+
+        @Test
+        void test_limit_is_not_increased_without_load() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, 0);
+            for (int i = 0; i < 100; i++) {
+                limiter.acquire();
+                limiter.release(200, 10);
+            }
+            assertThat(limiter.getLimit()).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    class Metrics {
+        @Test
+        void test_limit_gauge() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, 0);
+            limiter.bindTo(meterRegistry, "test");
+            limiter.acquire();
+            assertThat(meterRegistry.get(CONCURRENCY_LIMIT_METER).tag(CONFIGURATION_ID_TAG, "test").gauge().value()).isEqualTo(10);
+            assertThat(meterRegistry.get(CONCURRENCY_IN_FLIGHT_METER).gauge().value()).isEqualTo(1);
+            limiter.release(TOO_MANY_REQUESTS_STATUS_CODE, 10);
+            assertThat(meterRegistry.get(CONCURRENCY_LIMIT_METER).gauge().value()).isEqualTo(5);
+        }
+    }
+}
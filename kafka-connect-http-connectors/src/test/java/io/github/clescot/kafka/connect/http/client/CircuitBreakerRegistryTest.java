@@ -0,0 +1,179 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.collect.Lists;
+import dev.failsafe.CircuitBreaker;
+import dev.failsafe.Failsafe;
+import io.github.clescot.kafka.connect.http.core.HttpExchange;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static io.github.clescot.kafka.connect.http.client.CircuitBreakerRegistry.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerRegistryTest {
+
+    private static final HttpRequest STUFF_REQUEST = new HttpRequest("http://stuff.com/api/1");
+    private static final HttpRequest OTHER_STUFF_REQUEST = new HttpRequest("http://stuff.com/api/2");
+    private static final HttpRequest OTHER_HOST_REQUEST = new HttpRequest("http://other.com/api/1");
+
+    private final List<CircuitBreaker<HttpExchange>> circuitBreakers = Lists.newArrayList();
+
+    private CircuitBreakerRegistry registry(String scope, SimpleMeterRegistry meterRegistry) {
+        return registry(scope, 1000, 3_600_000, meterRegistry);
+    }
+
+    private CircuitBreakerRegistry registry(String scope, long maxRoutes, long routeExpireAfterAccessInMs, SimpleMeterRegistry meterRegistry) {
+        return new CircuitBreakerRegistry(
+                "test",
+                scope,
+                maxRoutes,
+                routeExpireAfterAccessInMs,
+                () -> {
+                    CircuitBreaker<HttpExchange> circuitBreaker = CircuitBreaker.<HttpExchange>builder()
+                            .withDelay(Duration.ofMinutes(1))
+                            .build();
+                    circuitBreakers.add(circuitBreaker);
+                    return circuitBreaker;
+                },
+                circuitBreaker -> Failsafe.with(circuitBreaker),
+                meterRegistry);
+    }
+
+    @Nested
+    class Scope {
+
+        @Test
+        void test_unknown_scope() {
+            assertThatThrownBy(() -> registry("stuff", null)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_configuration_scope_shares_one_circuit_breaker() {
+            CircuitBreakerRegistry registry = registry(CONFIGURATION_SCOPE, null);
+            registry.getFailsafeExecutor(STUFF_REQUEST);
+            registry.getFailsafeExecutor(OTHER_HOST_REQUEST);
+            assertThat(circuitBreakers).hasSize(1);
+            circuitBreakers.get(0).open();
+            assertThat(registry.isClosed(STUFF_REQUEST)).isFalse();
+            assertThat(registry.isClosed(OTHER_HOST_REQUEST)).isFalse();
+        }
+
+        @Test
+        void test_host_scope_isolates_hosts() {
+            CircuitBreakerRegistry registry = registry(HOST_SCOPE, null);
+            registry.getFailsafeExecutor(STUFF_REQUEST);
+            registry.getFailsafeExecutor(OTHER_STUFF_REQUEST);
+            registry.getFailsafeExecutor(OTHER_HOST_REQUEST);
+            assertThat(circuitBreakers).hasSize(2);
+            circuitBreakers.get(0).open();
+            assertThat(registry.isClosed(STUFF_REQUEST)).isFalse();
+            assertThat(registry.isClosed(OTHER_STUFF_REQUEST)).isFalse();
+            assertThat(registry.isClosed(OTHER_HOST_REQUEST)).isTrue();
+            assertThat(registry.isClosed()).isFalse();
+        }
+
+        @Test
+        void test_host_scope_isolates_ports_and_schemes() {
+            CircuitBreakerRegistry registry = registry(HOST_SCOPE, null);
+            registry.getFailsafeExecutor(new HttpRequest("http://stuff.com:8080/api/1"));
+            registry.getFailsafeExecutor(new HttpRequest("https://stuff.com/api/1"));
+            registry.getFailsafeExecutor(STUFF_REQUEST);
+            assertThat(circuitBreakers).hasSize(3);
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "http://stuff.com/api/1 => http://stuff.com:80",
+                "HTTP://Stuff.com:80/api/2 => http://stuff.com:80",
+                "https://stuff.com/api => https://stuff.com:443",
+                "https://stuff.com:8443/api?param=1 => https://stuff.com:8443",
+                "stuff => stuff"
+        }, delimiterString = "=>")
+        void test_origin(String url, String expectedOrigin) {
+            assertThat(CircuitBreakerRegistry.origin(url)).isEqualTo(expectedOrigin);
+        }
+    }
+
+    @Nested
+    class State {
+
+        @Test
+        void test_unknown_route_is_closed() {
+            CircuitBreakerRegistry registry = registry(HOST_SCOPE, null);
+            assertThat(registry.isClosed(STUFF_REQUEST)).isTrue();
+            assertThat(registry.isClosed()).isTrue();
+            assertThat(registry.getNextRetryInstant(STUFF_REQUEST)).isNull();
+            assertThat(registry.getNextRetryInstant()).isNull();
+        }
+
+        @Test
+        void test_next_retry_instant_of_an_open_circuit_breaker() {
+            CircuitBreakerRegistry registry = registry(HOST_SCOPE, null);
+            registry.getFailsafeExecutor(STUFF_REQUEST);
+            circuitBreakers.get(0).open();
+            assertThat(registry.getNextRetryInstant(STUFF_REQUEST)).isAfter(Instant.now().plusSeconds(50));
+            assertThat(registry.getNextRetryInstant()).isAfter(Instant.now().plusSeconds(50));
+            assertThat(registry.getNextRetryInstant(OTHER_HOST_REQUEST)).isNull();
+        }
+    }
+
+    @Nested
+    class Metrics {
+
+        @Test
+        void test_gauges_are_registered_per_route() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            CircuitBreakerRegistry registry = registry(HOST_SCOPE, meterRegistry);
+            registry.getFailsafeExecutor(STUFF_REQUEST);
+            registry.getFailsafeExecutor(OTHER_HOST_REQUEST);
+            circuitBreakers.get(0).open();
+            assertThat(meterRegistry.get(CIRCUIT_BREAKER_STATE_METER).tag(ROUTE_TAG, "http://stuff.com:80").gauge().value()).isEqualTo(1);
+            assertThat(meterRegistry.get(CIRCUIT_BREAKER_STATE_METER).tag(ROUTE_TAG, "http://other.com:80").gauge().value()).isZero();
+            assertThat(meterRegistry.get(CIRCUIT_BREAKER_FAILURE_RATE_METER).gauges()).hasSize(2);
+        }
+    }
+
+    @Nested
+    class Eviction {
+
+        @Test
+        void test_least_recently_used_route_is_evicted_with_its_gauges() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            CircuitBreakerRegistry registry = registry(HOST_SCOPE, 1, 3_600_000, meterRegistry);
+            registry.getFailsafeExecutor(STUFF_REQUEST);
+            registry.getFailsafeExecutor(OTHER_HOST_REQUEST);
+            assertThat(registry.getRoutesCount()).isEqualTo(1);
+            assertThat(meterRegistry.find(CIRCUIT_BREAKER_STATE_METER).tag(ROUTE_TAG, "http://stuff.com:80").gauge()).isNull();
+            assertThat(meterRegistry.find(CIRCUIT_BREAKER_FAILURE_RATE_METER).tag(ROUTE_TAG, "http://stuff.com:80").gauge()).isNull();
+            assertThat(meterRegistry.find(CIRCUIT_BREAKER_STATE_METER).tag(ROUTE_TAG, "http://other.com:80").gauge()).isNotNull();
+        }
+
+        @Test
+        void test_idle_route_expires() throws InterruptedException {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            CircuitBreakerRegistry registry = registry(HOST_SCOPE, 1000, 50, meterRegistry);
+            registry.getFailsafeExecutor(STUFF_REQUEST);
+            Thread.sleep(200);
+            //expired routes are evicted during the next accesses
+            registry.getFailsafeExecutor(OTHER_HOST_REQUEST);
+            assertThat(registry.getRoutesCount()).isEqualTo(1);
+            assertThat(meterRegistry.find(CIRCUIT_BREAKER_STATE_METER).gauges()).hasSize(1);
+            //an evicted route starts again with a new closed circuit breaker
+            assertThat(registry.isClosed(STUFF_REQUEST)).isTrue();
+        }
+
+        @Test
+        void test_invalid_max_routes() {
+            assertThatThrownBy(() -> registry(HOST_SCOPE, 0, 3_600_000, null)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
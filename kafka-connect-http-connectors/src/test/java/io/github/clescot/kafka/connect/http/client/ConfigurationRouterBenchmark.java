@@ -0,0 +1,109 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicate;
+import io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicateBuilder;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicateBuilder.METHOD_REGEX;
+import static io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicateBuilder.URL_REGEX;
+
+/**
+ * compare the selection of a configuration among many ones, with a sequential evaluation of each predicate,
+ * and with the {@link HttpConfigurationRouter}.
+ * run it with the main method : the GC profiler reports 'gc.alloc.rate.norm', i.e. bytes allocated per selection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class ConfigurationRouterBenchmark {
+
+    @Param({"50", "200"})
+    private int configurationsCount;
+
+    private List<HttpConfiguration<?, ?, ?>> configurations;
+    //predicates are read once, to not measure mock invocations
+    private List<HttpRequestPredicate> predicates;
+    private HttpConfiguration<?, ?, ?> defaultConfiguration;
+    private HttpConfigurationRouter<HttpConfiguration<?, ?, ?>> router;
+    private List<HttpRequest> requests;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configurations = Lists.newArrayListWithCapacity(configurationsCount);
+        for (int i = 0; i < configurationsCount; i++) {
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(URL_REGEX, "https://api" + i + "\\.stuff\\.com/v[0-9]+/.*");
+            settings.put(METHOD_REGEX, "POST|PUT");
+            configurations.add(configuration(settings));
+        }
+        predicates = Lists.newArrayList();
+        for (HttpConfiguration<?, ?, ?> configuration : configurations) {
+            predicates.add(configuration.getPredicate());
+        }
+        defaultConfiguration = configuration(Maps.newHashMap());
+        router = new HttpConfigurationRouter<>(configurations, defaultConfiguration, 10_000);
+        requests = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            //requests spread over all configurations, and some without matching configuration
+            int host = (i * 7) % (configurationsCount + 10);
+            requests.add(new HttpRequest("https://api" + host + ".stuff.com/v1/resources/" + i, HttpRequest.Method.POST));
+        }
+    }
+
+    private static HttpConfiguration<?, ?, ?> configuration(Map<String, String> settings) {
+        HttpRequestPredicate predicate = HttpRequestPredicateBuilder.build().buildPredicate(settings);
+        HttpConfiguration<?, ?, ?> configuration = Mockito.mock(HttpConfiguration.class);
+        Mockito.when(configuration.getPredicate()).thenReturn(predicate);
+        return configuration;
+    }
+
+    private HttpRequest nextRequest() {
+        index = (index + 1) % requests.size();
+        return requests.get(index);
+    }
+
+    @Benchmark
+    public void sequential(Blackhole blackhole) {
+        HttpRequest httpRequest = nextRequest();
+        HttpConfiguration<?, ?, ?> found = defaultConfiguration;
+        for (int i = 0; i < predicates.size(); i++) {
+            if (predicates.get(i).test(httpRequest)) {
+                found = configurations.get(i);
+                break;
+            }
+        }
+        blackhole.consume(found);
+    }
+
+    @Benchmark
+    public void router(Blackhole blackhole) {
+        blackhole.consume(router.route(nextRequest()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConfigurationRouterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static io.github.clescot.kafka.connect.http.client.Deadline.DEADLINE_IN_MS_ATTRIBUTE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineTest {
+
+    @Nested
+    class GetDeadlineInMs {
+        @Test
+        void test_without_attribute() {
+            HttpRequest httpRequest = new HttpRequest("http://www.dummy.com");
+            assertThat(Deadline.getDeadlineInMs(httpRequest, 1000)).isEqualTo(1000);
+        }
+
+        @Test
+        void test_with_attribute() {
+            HttpRequest httpRequest = new HttpRequest("http://www.dummy.com");
+            httpRequest.addAttribute(DEADLINE_IN_MS_ATTRIBUTE, "200");
+            assertThat(Deadline.getDeadlineInMs(httpRequest, 1000)).isEqualTo(200);
+        }
+
+        @Test
+        void test_with_invalid_attribute() {
+            HttpRequest httpRequest = new HttpRequest("http://www.dummy.com");
+            httpRequest.addAttribute(DEADLINE_IN_MS_ATTRIBUTE, "soon");
+            assertThat(Deadline.getDeadlineInMs(httpRequest, 1000)).isEqualTo(1000);
+        }
+    }
+
+    @Nested
+    class Expire {
+        @Test
+        void test_attempt_in_flight_is_cancelled() {
+            Deadline deadline = new Deadline(100);
+            CompletableFuture<String> attempt = deadline.track(new CompletableFuture<>());
+            deadline.expire();
+            assertThat(deadline.isExpired()).isTrue();
+            assertThat(attempt).isCancelled();
+        }
+
+        @Test
+        void test_attempt_started_after_expiration_is_cancelled() {
+            Deadline deadline = new Deadline(100);
+            deadline.expire();
+            assertThat(deadline.track(new CompletableFuture<>())).isCancelled();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileReferenceGuardTest {
+
+    @TempDir
+    Path tempDirectory;
+    private Path baseDirectory;
+    private Path outsideFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        baseDirectory = Files.createDirectory(tempDirectory.resolve("bodies"));
+        outsideFile = Files.writeString(tempDirectory.resolve("secret.txt"), "secret");
+    }
+
+    private static HttpRequest fileReferenceRequest(Path file) {
+        HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.POST);
+        httpRequest.setBodyAsFileReference(file.toUri(), 0, null);
+        return httpRequest;
+    }
+
+    @Nested
+    class Build {
+        @Test
+        void test_not_activated_by_default() {
+            FileReferenceGuard guard = FileReferenceGuard.build(Map.of());
+            assertThat(guard.isActivated()).isFalse();
+        }
+
+        @Test
+        void test_activated_without_base_directory() {
+            Map<String, String> config = Map.of(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, "true");
+            assertThatThrownBy(() -> FileReferenceGuard.build(config)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_activated_with_a_missing_base_directory() {
+            Map<String, String> config = Map.of(
+                    HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, "true",
+                    HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, tempDirectory.resolve("missing").toString());
+            assertThatThrownBy(() -> FileReferenceGuard.build(config)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    class Check {
+        private FileReferenceGuard guard;
+
+        @BeforeEach
+        void setUp() {
+            guard = FileReferenceGuard.build(Map.of(
+                    HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, "true",
+                    HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, baseDirectory.toString()));
+        }
+
+        @Test
+        void test_body_not_referencing_a_file() {
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.POST);
+            httpRequest.setBodyAsString("stuff");
+            assertThat(guard.check(httpRequest)).isNull();
+        }
+
+        @Test
+        void test_file_under_the_base_directory() throws IOException {
+            Path file = Files.writeString(baseDirectory.resolve("body.txt"), "stuff");
+            assertThat(guard.check(fileReferenceRequest(file))).isEqualTo(file.toRealPath());
+        }
+
+        @Test
+        void test_not_activated() throws IOException {
+            Path file = Files.writeString(baseDirectory.resolve("body.txt"), "stuff");
+            FileReferenceGuard notActivated = FileReferenceGuard.build(Map.of(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, baseDirectory.toString()));
+            HttpRequest httpRequest = fileReferenceRequest(file);
+            assertThatThrownBy(() -> notActivated.check(httpRequest)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_file_outside_the_base_directory() {
+            HttpRequest httpRequest = fileReferenceRequest(outsideFile);
+            assertThatThrownBy(() -> guard.check(httpRequest)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_path_traversal_outside_the_base_directory() {
+            HttpRequest httpRequest = fileReferenceRequest(baseDirectory.resolve("..").resolve("secret.txt"));
+            assertThatThrownBy(() -> guard.check(httpRequest)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_symbolic_link_to_a_file_outside_the_base_directory() throws IOException {
+            Path link = Files.createSymbolicLink(baseDirectory.resolve("link.txt"), outsideFile);
+            HttpRequest httpRequest = fileReferenceRequest(link);
+            assertThatThrownBy(() -> guard.check(httpRequest)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_missing_file() {
+            HttpRequest httpRequest = fileReferenceRequest(baseDirectory.resolve("missing.txt"));
+            assertThatThrownBy(() -> guard.check(httpRequest)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicateBuilder;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.github.clescot.kafka.connect.http.client.config.HttpRequestPredicateBuilder.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("unchecked")
+class HttpConfigurationRouterTest {
+
+    private static HttpConfiguration<?, ?, ?> configuration(String id, Map<String, String> predicateSettings) {
+        HttpConfiguration<?, ?, ?> configuration = Mockito.mock(HttpConfiguration.class);
+        Mockito.when(configuration.getId()).thenReturn(id);
+        Mockito.when(configuration.getPredicate()).thenReturn(HttpRequestPredicateBuilder.build().buildPredicate(predicateSettings));
+        return configuration;
+    }
+
+    private static HttpConfiguration<?, ?, ?> configurationWithUrlRegex(String id, String urlRegex) {
+        Map<String, String> settings = Maps.newHashMap();
+        settings.put(URL_REGEX, urlRegex);
+        return configuration(id, settings);
+    }
+
+    @Nested
+    class LiteralPrefix {
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "http://www.stuff.com/api/.* => http://www",
+                "^http://www\\.stuff\\.com/api/.* => http://www.stuff.com/api/",
+                "https://host.com/path => https://host",
+                "https?://host.com => http",
+                "http://hosts+/ => http://hosts",
+                "\\d+/path => ''",
+                ".*stuff.* => ''",
+                "http://a.com|http://b.com => ''",
+                "[a-z]+://host => ''",
+                "http://ho(st)?.com => http://ho"
+        }, delimiterString = "=>")
+        void test_literal_prefix(String regex, String expectedPrefix) {
+            assertThat(HttpConfigurationRouter.literalPrefix(regex)).isEqualTo(expectedPrefix);
+        }
+
+        @Test
+        void test_null_regex() {
+            assertThat(HttpConfigurationRouter.literalPrefix(null)).isEmpty();
+        }
+    }
+
+    @Nested
+    class Route {
+
+        @Test
+        void test_default_configuration_when_none_matches() {
+            HttpConfiguration<?, ?, ?> defaultConfiguration = configurationWithUrlRegex("default", "http://default.com/.*");
+            HttpConfiguration<?, ?, ?> config1 = configurationWithUrlRegex("config1", "http://stuff.com/api/.*");
+            HttpConfigurationRouter<HttpConfiguration<?, ?, ?>> router = new HttpConfigurationRouter<>(List.of(config1), defaultConfiguration, 100);
+            assertThat(router.route(new HttpRequest("http://other.com/api/1"))).isEqualTo(defaultConfiguration);
+        }
+
+        @Test
+        void test_first_matching_configuration_in_order() {
+            HttpConfiguration<?, ?, ?> defaultConfiguration = configuration("default", Maps.newHashMap());
+            HttpConfiguration<?, ?, ?> config1 = configurationWithUrlRegex("config1", "http://stuff.com/api/v2/.*");
+            HttpConfiguration<?, ?, ?> config2 = configurationWithUrlRegex("config2", "http://stuff.com/api/.*");
+            HttpConfiguration<?, ?, ?> config3 = configurationWithUrlRegex("config3", ".*");
+            List<HttpConfiguration<?, ?, ?>> configurations = Lists.newArrayList(config1, config2, config3, defaultConfiguration);
+            HttpConfigurationRouter<HttpConfiguration<?, ?, ?>> router = new HttpConfigurationRouter<>(configurations, defaultConfiguration, 100);
+
+            assertThat(router.route(new HttpRequest("http://stuff.com/api/v2/1"))).isEqualTo(config1);
+            assertThat(router.route(new HttpRequest("http://stuff.com/api/v1/1"))).isEqualTo(config2);
+            assertThat(router.route(new HttpRequest("http://other.com/api/v1/1"))).isEqualTo(config3);
+        }
+
+        @Test
+        void test_wildcard_configuration_before_prefixed_ones_is_kept_first() {
+            HttpConfiguration<?, ?, ?> defaultConfiguration = configuration("default", Maps.newHashMap());
+            HttpConfiguration<?, ?, ?> config1 = configurationWithUrlRegex("config1", ".*/v2/.*");
+            HttpConfiguration<?, ?, ?> config2 = configurationWithUrlRegex("config2", "http://stuff.com/api/.*");
+            HttpConfigurationRouter<HttpConfiguration<?, ?, ?>> router = new HttpConfigurationRouter<>(List.of(config1, config2), defaultConfiguration, 100);
+
+            assertThat(router.route(new HttpRequest("http://stuff.com/api/v2/1"))).isEqualTo(config1);
+            assertThat(router.route(new HttpRequest("http://stuff.com/api/v1/1"))).isEqualTo(config2);
+        }
+
+        @Test
+        void test_method_and_header_patterns_are_checked_for_each_request() {
+            HttpConfiguration<?, ?, ?> defaultConfiguration = configuration("default", Maps.newHashMap());
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(URL_REGEX, "http://stuff.com/.*");
+            settings.put(METHOD_REGEX, "POST");
+            settings.put(HEADER_KEY_REGEX, "X-Tenant");
+            settings.put(HEADER_VALUE_REGEX, "tenant1");
+            HttpConfiguration<?, ?, ?> config1 = configuration("config1", settings);
+            //url cache is disabled
+            HttpConfigurationRouter<HttpConfiguration<?, ?, ?>> router = new HttpConfigurationRouter<>(List.of(config1), defaultConfiguration, 0);
+
+            Map<String, List<String>> headers = Maps.newHashMap();
+            headers.put("X-Tenant", Lists.newArrayList("tenant1"));
+            assertThat(router.route(new HttpRequest("http://stuff.com/1", HttpRequest.Method.POST, headers))).isEqualTo(config1);
+            assertThat(router.route(new HttpRequest("http://stuff.com/1", HttpRequest.Method.GET, headers))).isEqualTo(defaultConfiguration);
+            Map<String, List<String>> otherHeaders = Maps.newHashMap();
+            otherHeaders.put("X-Tenant", Lists.newArrayList("tenant2"));
+            assertThat(router.route(new HttpRequest("http://stuff.com/1", HttpRequest.Method.POST, otherHeaders))).isEqualTo(defaultConfiguration);
+        }
+
+        @Test
+        void test_same_result_with_url_cache() {
+            HttpConfiguration<?, ?, ?> defaultConfiguration = configuration("default", Maps.newHashMap());
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(URL_REGEX, "http://stuff.com/.*");
+            settings.put(METHOD_REGEX, "POST");
+            HttpConfiguration<?, ?, ?> config1 = configuration("config1", settings);
+            HttpConfigurationRouter<HttpConfiguration<?, ?, ?>> router = new HttpConfigurationRouter<>(List.of(config1), defaultConfiguration, 1);
+
+            assertThat(router.route(new HttpRequest("http://stuff.com/1", HttpRequest.Method.POST))).isEqualTo(config1);
+            //url is cached, but the method is still evaluated
+            assertThat(router.route(new HttpRequest("http://stuff.com/1", HttpRequest.Method.GET))).isEqualTo(defaultConfiguration);
+            assertThat(router.route(new HttpRequest("http://stuff.com/2", HttpRequest.Method.POST))).isEqualTo(config1);
+            assertThat(router.route(new HttpRequest("http://stuff.com/1", HttpRequest.Method.POST))).isEqualTo(config1);
+        }
+    }
+}
@@ -42,9 +42,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
@@ -372,6 +374,205 @@ class HttpConfigurationTest {
             assertThat(httpExchange.isSuccess()).isTrue();
         }
 
+        @Test
+        void test_retries_are_skipped_when_the_retry_budget_is_exhausted() throws ExecutionException, InterruptedException {
+
+            //given
+            WireMockRuntimeInfo wmRuntimeInfo = wmHttp.getRuntimeInfo();
+            WireMock wireMock = wmRuntimeInfo.getWireMock();
+            wireMock
+                    .register(WireMock.post("/ping")
+                            .willReturn(WireMock.aResponse()
+                                    .withStatus(500)
+                                    .withStatusMessage("Internal Server Error")
+                            )
+                    );
+            //when
+            HttpRequest httpRequest = getDummyHttpRequest(wmHttp.url("/ping"));
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put("retry.policy.retries","2");
+            settings.put("retry.policy.response.code.regex",DEFAULT_DEFAULT_RETRY_RESPONSE_CODE_REGEX);
+            settings.put(RETRY_BUDGET_ACTIVATE,"true");
+            settings.put(RETRY_BUDGET_MAX_TOKENS,"1");
+            HttpConnectorConfig httpConnectorConfig = new HttpConnectorConfig(settings);
+            HttpTask<SinkRecord,OkHttpClient,okhttp3.Request,okhttp3.Response> httpTask = new HttpTask<>(httpConnectorConfig,new OkHttpClientFactory());
+
+            RetryPolicy<HttpExchange> retryPolicy = httpTask.buildRetryPolicy(httpConnectorConfig.originalsStrings());
+            String dummy = "dummy";
+            HttpConfiguration<OkHttpClient,okhttp3.Request,okhttp3.Response> httpConfiguration = new HttpConfiguration<>(dummy,okHttpClient,executorService, retryPolicy,settings);
+            HttpExchange firstHttpExchange = httpConfiguration.call(httpRequest).get();
+            HttpExchange secondHttpExchange = httpConfiguration.call(httpRequest).get();
+
+            //then
+            //the only retry of the budget is consumed by the first call
+            assertThat(firstHttpExchange.getAttempts().get()).isEqualTo(2);
+            assertThat(firstHttpExchange.isSuccess()).isFalse();
+            //the second call fails fast
+            assertThat(secondHttpExchange.getAttempts().get()).isEqualTo(1);
+            assertThat(secondHttpExchange.isSuccess()).isFalse();
+        }
+
+        @Test
+        void test_retry_budget_is_shared_with_the_configurations_customized_for_users() {
+
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put("retry.policy.retries","2");
+            settings.put(RETRY_BUDGET_ACTIVATE,"true");
+            HttpConnectorConfig httpConnectorConfig = new HttpConnectorConfig(settings);
+            HttpTask<SinkRecord,OkHttpClient,okhttp3.Request,okhttp3.Response> httpTask = new HttpTask<>(httpConnectorConfig,new OkHttpClientFactory());
+            RetryPolicy<HttpExchange> retryPolicy = httpTask.buildRetryPolicy(httpConnectorConfig.originalsStrings());
+            HttpConfiguration<OkHttpClient,okhttp3.Request,okhttp3.Response> httpConfiguration = new HttpConfiguration<>("dummy",okHttpClient,executorService, retryPolicy,settings);
+            assertThat(httpConfiguration.getRetryBudget()).isNotNull();
+
+            //when
+            HttpConfiguration<OkHttpClient,okhttp3.Request,okhttp3.Response> userConfiguration = httpTask.getConfigurationForUser("user1", httpConfiguration);
+
+            //then
+            //retries of all the users are capped by the same budget
+            assertThat(userConfiguration).isNotSameAs(httpConfiguration);
+            assertThat(userConfiguration.getClient()).isNotSameAs(httpConfiguration.getClient());
+            assertThat(userConfiguration.getRetryBudget()).isSameAs(httpConfiguration.getRetryBudget());
+        }
+
+        @Test
+        void test_slow_request_is_cancelled_when_the_deadline_expires() throws ExecutionException, InterruptedException {
+
+            //given
+            WireMockRuntimeInfo wmRuntimeInfo = wmHttp.getRuntimeInfo();
+            WireMock wireMock = wmRuntimeInfo.getWireMock();
+            wireMock
+                    .register(WireMock.post("/ping")
+                            .willReturn(WireMock.aResponse()
+                                    .withStatus(200)
+                                    .withStatusMessage("OK")
+                                    .withFixedDelay(5000)
+                            )
+                    );
+            //when
+            HttpRequest httpRequest = getDummyHttpRequest(wmHttp.url("/ping"));
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(DEADLINE_IN_MS,"10000");
+            HttpConfiguration<OkHttpClient,Request, Response> httpConfiguration = new HttpConfiguration<>("dummy",okHttpClient,executorService,null, settings);
+            //the attribute overrides the deadline of the configuration
+            httpRequest.addAttribute(Deadline.DEADLINE_IN_MS_ATTRIBUTE, "200");
+            long start = System.currentTimeMillis();
+            HttpExchange httpExchange = httpConfiguration.call(httpRequest).get();
+
+            //then
+            //the call is cancelled (or timed out by the OkHttp call timeout), without waiting for the response
+            assertThat(System.currentTimeMillis() - start).isLessThan(4000);
+            assertThat(httpExchange.isSuccess()).isFalse();
+        }
+
+        @Test
+        void test_deadline_timer_is_removed_when_the_exchange_completes() throws ExecutionException, InterruptedException {
+
+            //given
+            WireMockRuntimeInfo wmRuntimeInfo = wmHttp.getRuntimeInfo();
+            WireMock wireMock = wmRuntimeInfo.getWireMock();
+            wireMock
+                    .register(WireMock.post("/ping")
+                            .willReturn(WireMock.aResponse()
+                                    .withStatus(200)
+                                    .withStatusMessage("OK")
+                            )
+                    );
+            HttpRequest httpRequest = getDummyHttpRequest(wmHttp.url("/ping"));
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(DEADLINE_IN_MS,"60000");
+            ScheduledThreadPoolExecutor scheduledExecutorService = new ScheduledThreadPoolExecutor(1);
+            scheduledExecutorService.setRemoveOnCancelPolicy(true);
+            try {
+                HttpConfiguration<OkHttpClient,Request, Response> httpConfiguration = new HttpConfiguration<>("dummy",okHttpClient,executorService,null, settings, null, scheduledExecutorService);
+
+                //when
+                HttpExchange httpExchange = httpConfiguration.call(httpRequest).get();
+
+                //then
+                assertThat(httpExchange.isSuccess()).isTrue();
+                //the timer of the deadline is not kept by the scheduler of the task
+                Awaitility.await().atMost(Duration.ofSeconds(2)).until(() -> scheduledExecutorService.getQueue().isEmpty());
+            } finally {
+                scheduledExecutorService.shutdownNow();
+            }
+        }
+
+        @Test
+        void test_concurrency_limiter_permit_is_released_when_the_deadline_expires() throws ExecutionException, InterruptedException {
+
+            //given
+            WireMockRuntimeInfo wmRuntimeInfo = wmHttp.getRuntimeInfo();
+            WireMock wireMock = wmRuntimeInfo.getWireMock();
+            wireMock
+                    .register(WireMock.post("/ping")
+                            .willReturn(WireMock.aResponse()
+                                    .withStatus(200)
+                                    .withStatusMessage("OK")
+                                    .withFixedDelay(5000)
+                            )
+                    );
+            HttpRequest httpRequest = getDummyHttpRequest(wmHttp.url("/ping"));
+            httpRequest.addAttribute(Deadline.DEADLINE_IN_MS_ATTRIBUTE, "200");
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(CONCURRENCY_LIMITER_ACTIVATE,"true");
+            settings.put(CONCURRENCY_LIMITER_INITIAL_LIMIT,"1");
+            settings.put(CONCURRENCY_LIMITER_MIN_LIMIT,"1");
+            HttpConfiguration<OkHttpClient,Request, Response> httpConfiguration = new HttpConfiguration<>("dummy",okHttpClient,executorService,null, settings);
+            AdaptiveConcurrencyLimiter concurrencyLimiter = httpConfiguration.getConcurrencyLimiter();
+            assertThat(concurrencyLimiter).isNotNull();
+
+            //when
+            HttpExchange firstHttpExchange = httpConfiguration.call(httpRequest).get();
+            //the second call needs the only permit of the limiter
+            HttpExchange secondHttpExchange = httpConfiguration.call(httpRequest).get();
+
+            //then
+            assertThat(firstHttpExchange.isSuccess()).isFalse();
+            assertThat(secondHttpExchange.isSuccess()).isFalse();
+            Awaitility.await().atMost(Duration.ofSeconds(2)).until(() -> concurrencyLimiter.getInFlight() == 0);
+            assertThat(concurrencyLimiter.getWaiting()).isZero();
+        }
+
+        @Test
+        void test_hedged_duplicate_waits_for_its_own_concurrency_permit() throws ExecutionException, InterruptedException {
+
+            //given
+            WireMockRuntimeInfo wmRuntimeInfo = wmHttp.getRuntimeInfo();
+            WireMock wireMock = wmRuntimeInfo.getWireMock();
+            wireMock
+                    .register(WireMock.get("/ping")
+                            .willReturn(WireMock.aResponse()
+                                    .withStatus(200)
+                                    .withStatusMessage("OK")
+                                    .withFixedDelay(1000)
+                            )
+                    );
+            HttpRequest httpRequest = new HttpRequest(wmHttp.url("/ping"), HttpRequest.Method.GET);
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(CONCURRENCY_LIMITER_ACTIVATE,"true");
+            settings.put(CONCURRENCY_LIMITER_INITIAL_LIMIT,"1");
+            settings.put(CONCURRENCY_LIMITER_MIN_LIMIT,"1");
+            settings.put(HEDGING_ACTIVATE,"true");
+            settings.put(HEDGING_DELAY_IN_MS,"100");
+            settings.put(HEDGING_BUDGET_PERCENT,"100");
+            HttpConfiguration<OkHttpClient,Request, Response> httpConfiguration = new HttpConfiguration<>("dummy",okHttpClient,executorService,null, settings);
+            AdaptiveConcurrencyLimiter concurrencyLimiter = httpConfiguration.getConcurrencyLimiter();
+            assertThat(concurrencyLimiter).isNotNull();
+
+            //when
+            CompletableFuture<HttpExchange> exchange = httpConfiguration.call(httpRequest);
+
+            //then
+            //the duplicate does not exceed the limit : it waits for the permit held by the first call
+            Awaitility.await().atMost(Duration.ofSeconds(2)).until(() -> concurrencyLimiter.getWaiting() == 1);
+            assertThat(concurrencyLimiter.getInFlight()).isEqualTo(1);
+            assertThat(exchange.get().isSuccess()).isTrue();
+            //the duplicate lost the race : its permit is released without being used
+            Awaitility.await().atMost(Duration.ofSeconds(2)).until(() -> concurrencyLimiter.getInFlight() == 0);
+            assertThat(concurrencyLimiter.getWaiting()).isZero();
+        }
+
     }
 
     @NotNull
@@ -540,6 +741,24 @@ class HttpConfigurationTest {
             boolean retryNeeded = httpConfiguration.retryNeeded(httpExchange);
             assertThat(retryNeeded).isTrue();
         }
+
+        @Test
+        void test_retry_needed_with_retry_after_under_retry_threshold_does_not_wait() {
+            Map<String, String> settings = Maps.newHashMap();
+            String configId = "dummy";
+            HttpRequest httpRequest = getDummyHttpRequest();
+            HttpResponse httpResponse = new HttpResponse(429, "Too Many Requests");
+            Map<String, List<String>> responseHeaders = Maps.newHashMap();
+            responseHeaders.put("Retry-After", Lists.newArrayList("5"));
+            httpResponse.setHeaders(responseHeaders);
+            HttpExchange httpExchange = new HttpExchange(httpRequest,httpResponse,100L,OffsetDateTime.now(ZoneId.of("UTC")),new AtomicInteger(1),false);
+            HttpConfiguration<OkHttpClient, okhttp3.Request, okhttp3.Response> httpConfiguration = new HttpConfiguration<>(configId,okHttpClient, executorService, null,settings);
+            long start = System.nanoTime();
+            boolean retryNeeded = httpConfiguration.retryNeeded(httpExchange);
+            //the delay is scheduled by the retry policy, and not waited by the current thread
+            assertThat(retryNeeded).isTrue();
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        }
     }
 
     @Nested
@@ -0,0 +1,98 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.http.core.HttpResponse;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitHeadersThrottlerTest {
+
+    private static HttpResponse response(Map<String, String> headers) {
+        HttpResponse httpResponse = new HttpResponse(200, "OK");
+        Map<String, List<String>> responseHeaders = Maps.newHashMap();
+        headers.forEach((key, value) -> responseHeaders.put(key, Lists.newArrayList(value)));
+        httpResponse.setHeaders(responseHeaders);
+        return httpResponse;
+    }
+
+    @Nested
+    class Update {
+        @Test
+        void test_x_rate_limit_headers() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            throttler.update(response(Map.of("X-RateLimit-Remaining", "42", "X-RateLimit-Reset", "60")));
+            assertThat(throttler.getRemaining()).isEqualTo(42);
+        }
+
+        @Test
+        void test_x_rate_limit_headers_with_epoch_reset_and_lower_case() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            String reset = String.valueOf(Instant.now().plusSeconds(60).getEpochSecond());
+            throttler.update(response(Map.of("x-ratelimit-remaining", "0", "x-ratelimit-reset", reset)));
+            assertThat(throttler.getRemaining()).isZero();
+            assertThat(throttler.reserve(Instant.now())).isBetween(Duration.ofSeconds(55), Duration.ofSeconds(61));
+        }
+
+        @Test
+        void test_ietf_rate_limit_headers() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            throttler.update(response(Map.of("RateLimit-Remaining", "7", "RateLimit-Reset", "30")));
+            assertThat(throttler.getRemaining()).isEqualTo(7);
+        }
+
+        @Test
+        void test_ietf_structured_rate_limit_header() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            throttler.update(response(Map.of("RateLimit", "limit=100, remaining=50, reset=5")));
+            assertThat(throttler.getRemaining()).isEqualTo(50);
+        }
+
+        @Test
+        void test_without_rate_limit_headers() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            throttler.update(response(Map.of("Content-Type", "application/json")));
+            assertThat(throttler.getRemaining()).isEqualTo(-1);
+            assertThat(throttler.reserve(Instant.now())).isZero();
+        }
+    }
+
+    @Nested
+    class Reserve {
+        @Test
+        void test_no_delay_above_the_threshold() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            Instant now = Instant.now();
+            throttler.update(100, now.plusSeconds(60));
+            assertThat(throttler.reserve(now)).isZero();
+            assertThat(throttler.getRemaining()).isEqualTo(99);
+        }
+
+        @Test
+        void test_remaining_requests_are_spread_until_the_reset_under_the_threshold() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            Instant now = Instant.now();
+            throttler.update(4, now.plusSeconds(8));
+            assertThat(throttler.reserve(now)).isZero();
+            assertThat(throttler.reserve(now)).isEqualTo(Duration.ofSeconds(2));
+            assertThat(throttler.getRemaining()).isEqualTo(2);
+        }
+
+        @Test
+        void test_exhausted_quota_waits_for_the_reset() {
+            RateLimitHeadersThrottler throttler = new RateLimitHeadersThrottler(10);
+            Instant now = Instant.now();
+            throttler.update(0, now.plusSeconds(5));
+            assertThat(throttler.reserve(now)).isEqualTo(Duration.ofSeconds(5));
+            //the quota is reset
+            assertThat(throttler.reserve(now.plusSeconds(5))).isZero();
+        }
+    }
+}
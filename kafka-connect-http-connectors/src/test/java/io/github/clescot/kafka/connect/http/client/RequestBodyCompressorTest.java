@@ -0,0 +1,138 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static io.github.clescot.kafka.connect.http.client.RequestBodyCompressor.COMPRESSION_COMPRESSED_BYTES_METER;
+import static io.github.clescot.kafka.connect.http.client.RequestBodyCompressor.COMPRESSION_RATIO_METER;
+import static io.github.clescot.kafka.connect.http.client.RequestBodyCompressor.COMPRESSION_UNCOMPRESSED_BYTES_METER;
+import static io.github.clescot.kafka.connect.http.client.RequestBodyCompressor.COMPRESSION_TIME_METER;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_REQUEST_BODY_COMPRESSION_TYPE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestBodyCompressorTest {
+
+    private static final byte[] CONTENT = "{\"stuff\":\"dummy\"},".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Nested
+    class Build {
+        @Test
+        void test_without_settings() {
+            assertThat(RequestBodyCompressor.build(Map.of())).isEmpty();
+        }
+
+        @Test
+        void test_with_none() {
+            assertThat(RequestBodyCompressor.build(Map.of(HTTP_REQUEST_BODY_COMPRESSION_TYPE, "none"))).isEmpty();
+        }
+
+        @Test
+        void test_with_zstd() {
+            RequestBodyCompressor compressor = RequestBodyCompressor.build(Map.of(HTTP_REQUEST_BODY_COMPRESSION_TYPE, "zstd")).orElseThrow();
+            assertThat(compressor.getAlgorithm()).isEqualTo(RequestBodyCompressor.Algorithm.ZSTD);
+        }
+
+        @Test
+        void test_with_gzip_and_threshold() {
+            RequestBodyCompressor compressor = RequestBodyCompressor.build(Map.of(
+                    HTTP_REQUEST_BODY_COMPRESSION_TYPE, "gzip",
+                    HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD, "10")).orElseThrow();
+            assertThat(compressor.getAlgorithm()).isEqualTo(RequestBodyCompressor.Algorithm.GZIP);
+            assertThat(compressor.getContentEncoding()).isEqualTo("gzip");
+            assertThat(compressor.getThreshold()).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    class ShouldCompress {
+        private final RequestBodyCompressor compressor = new RequestBodyCompressor(RequestBodyCompressor.Algorithm.GZIP, 100);
+
+        @Test
+        void test_body_below_the_threshold() {
+            assertThat(compressor.shouldCompress(99, Map.of())).isFalse();
+        }
+
+        @Test
+        void test_body_above_the_threshold() {
+            assertThat(compressor.shouldCompress(100, Map.of())).isTrue();
+        }
+
+        @Test
+        void test_body_already_encoded() {
+            assertThat(compressor.shouldCompress(1000, Map.of("content-encoding", Lists.newArrayList("br")))).isFalse();
+        }
+    }
+
+    @Nested
+    class Compress {
+        @Test
+        void test_gzip() throws IOException {
+            RequestBodyCompressor compressor = new RequestBodyCompressor(RequestBodyCompressor.Algorithm.GZIP, 0);
+            byte[] compressed = compressor.compress(CONTENT);
+            assertThat(compressed.length).isLessThan(CONTENT.length);
+            try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                assertThat(inputStream.readAllBytes()).isEqualTo(CONTENT);
+            }
+        }
+
+        @Test
+        void test_deflate() throws IOException {
+            RequestBodyCompressor compressor = new RequestBodyCompressor(RequestBodyCompressor.Algorithm.DEFLATE, 0);
+            byte[] compressed = compressor.compress(CONTENT);
+            try (InputStream inputStream = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+                assertThat(inputStream.readAllBytes()).isEqualTo(CONTENT);
+            }
+        }
+
+        @Test
+        void test_zstd() throws IOException {
+            RequestBodyCompressor compressor = new RequestBodyCompressor(RequestBodyCompressor.Algorithm.ZSTD, 0);
+            assertThat(compressor.getContentEncoding()).isEqualTo("zstd");
+            byte[] compressed = compressor.compress(CONTENT);
+            assertThat(compressed.length).isLessThan(CONTENT.length);
+            try (InputStream inputStream = new ZstdInputStream(new ByteArrayInputStream(compressed))) {
+                assertThat(inputStream.readAllBytes()).isEqualTo(CONTENT);
+            }
+        }
+
+        @Test
+        void test_metrics() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            RequestBodyCompressor compressor = new RequestBodyCompressor(RequestBodyCompressor.Algorithm.GZIP, 0);
+            compressor.bindTo(meterRegistry, "default");
+            byte[] compressed = compressor.compress(CONTENT);
+            assertThat(meterRegistry.get(COMPRESSION_UNCOMPRESSED_BYTES_METER).counter().count()).isEqualTo(CONTENT.length);
+            assertThat(meterRegistry.get(COMPRESSION_COMPRESSED_BYTES_METER).counter().count()).isEqualTo(compressed.length);
+            assertThat(meterRegistry.get(COMPRESSION_RATIO_METER).summary().max()).isEqualTo((double) compressed.length / CONTENT.length);
+            assertThat(meterRegistry.get(COMPRESSION_TIME_METER).timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        void test_metrics_with_an_incompressible_body() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            RequestBodyCompressor compressor = new RequestBodyCompressor(RequestBodyCompressor.Algorithm.GZIP, 0);
+            compressor.bindTo(meterRegistry, "default");
+            byte[] content = new byte[16];
+            new Random(42).nextBytes(content);
+            byte[] compressed = compressor.compress(content);
+            //the gzip header and trailer make the body larger
+            assertThat(compressed.length).isGreaterThan(content.length);
+            assertThat(meterRegistry.get(COMPRESSION_UNCOMPRESSED_BYTES_METER).counter().count()).isEqualTo(content.length);
+            assertThat(meterRegistry.get(COMPRESSION_COMPRESSED_BYTES_METER).counter().count()).isEqualTo(compressed.length);
+            assertThat(meterRegistry.get(COMPRESSION_RATIO_METER).summary().max()).isGreaterThan(1);
+        }
+    }
+}
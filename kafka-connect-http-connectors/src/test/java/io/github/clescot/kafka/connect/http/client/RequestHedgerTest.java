@@ -0,0 +1,162 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import io.github.clescot.kafka.connect.http.core.HttpExchange;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import io.github.clescot.kafka.connect.http.core.HttpResponse;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestHedgerTest {
+
+    private static HttpExchange exchange(int statusCode) {
+        HttpRequest httpRequest = new HttpRequest("http://www.dummy.com", HttpRequest.Method.GET);
+        HttpResponse httpResponse = new HttpResponse(statusCode, "OK");
+        return new HttpExchange(httpRequest, httpResponse, 10, OffsetDateTime.now(ZoneId.of("UTC")), new AtomicInteger(1), true);
+    }
+
+    @Nested
+    class Constructor {
+        @Test
+        void test_budget_above_100_percent() {
+            assertThatThrownBy(() -> new RequestHedger(10, 101)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_idempotent_methods_are_hedgeable() {
+            RequestHedger hedger = new RequestHedger(10, 10);
+            assertThat(hedger.isHedgeable(new HttpRequest("http://www.dummy.com", HttpRequest.Method.GET))).isTrue();
+            assertThat(hedger.isHedgeable(new HttpRequest("http://www.dummy.com", HttpRequest.Method.PUT))).isTrue();
+            assertThat(hedger.isHedgeable(new HttpRequest("http://www.dummy.com", HttpRequest.Method.POST))).isFalse();
+        }
+    }
+
+    @Nested
+    class Hedge {
+        @Test
+        void test_first_response_wins_and_the_slow_call_is_cancelled() {
+            RequestHedger hedger = new RequestHedger(50, 100);
+            List<CompletableFuture<HttpExchange>> calls = new CopyOnWriteArrayList<>();
+            HttpExchange fastExchange = exchange(200);
+            CompletableFuture<HttpExchange> result = hedger.hedge(() -> {
+                CompletableFuture<HttpExchange> call = calls.isEmpty()
+                        //the first call never completes
+                        ? new CompletableFuture<>()
+                        : CompletableFuture.completedFuture(fastExchange);
+                calls.add(call);
+                return call;
+            });
+            assertThat(result.orTimeout(5, TimeUnit.SECONDS).join()).isSameAs(fastExchange);
+            assertThat(calls).hasSize(2);
+            assertThat(calls.get(0)).isCancelled();
+            assertThat(hedger.getHedges()).isEqualTo(1);
+        }
+
+        @Test
+        void test_fast_call_is_not_hedged() {
+            RequestHedger hedger = new RequestHedger(1000, 100);
+            AtomicInteger calls = new AtomicInteger();
+            HttpExchange httpExchange = exchange(200);
+            CompletableFuture<HttpExchange> result = hedger.hedge(() -> {
+                calls.incrementAndGet();
+                return CompletableFuture.completedFuture(httpExchange);
+            });
+            assertThat(result.join()).isSameAs(httpExchange);
+            assertThat(calls.get()).isEqualTo(1);
+            assertThat(hedger.getHedges()).isZero();
+        }
+
+        @Test
+        void test_duplicate_is_sent_by_the_scheduler_of_the_task() {
+            ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "task-scheduler"));
+            try {
+                RequestHedger hedger = new RequestHedger(50, 100, scheduledExecutorService);
+                List<String> threads = new CopyOnWriteArrayList<>();
+                HttpExchange fastExchange = exchange(200);
+                CompletableFuture<HttpExchange> result = hedger.hedge(() -> {
+                    threads.add(Thread.currentThread().getName());
+                    return threads.size() == 1 ? new CompletableFuture<>() : CompletableFuture.completedFuture(fastExchange);
+                });
+                assertThat(result.orTimeout(5, TimeUnit.SECONDS).join()).isSameAs(fastExchange);
+                assertThat(threads).hasSize(2);
+                assertThat(threads.get(1)).isEqualTo("task-scheduler");
+            } finally {
+                scheduledExecutorService.shutdownNow();
+            }
+        }
+
+        @Test
+        void test_cancelled_call_is_not_hedged() throws InterruptedException {
+            RequestHedger hedger = new RequestHedger(50, 100);
+            AtomicInteger calls = new AtomicInteger();
+            CompletableFuture<HttpExchange> result = hedger.hedge(() -> {
+                calls.incrementAndGet();
+                return new CompletableFuture<>();
+            });
+            result.cancel(true);
+            Thread.sleep(200);
+            assertThat(calls.get()).isEqualTo(1);
+            assertThat(hedger.getHedges()).isZero();
+        }
+
+        @Test
+        void test_no_hedging_without_enough_latencies_observed() {
+            RequestHedger hedger = new RequestHedger(0, 100);
+            CompletableFuture<HttpExchange> pending = new CompletableFuture<>();
+            assertThat(hedger.hedge(() -> pending)).isSameAs(pending);
+        }
+    }
+
+    @Nested
+    class Budget {
+        @Test
+        void test_hedges_are_bounded_by_the_budget() {
+            RequestHedger hedger = new RequestHedger(10, 10);
+            for (int i = 0; i < 100; i++) {
+                hedger.hedge(() -> CompletableFuture.completedFuture(exchange(200)));
+            }
+            int granted = 0;
+            for (int i = 0; i < 20; i++) {
+                if (hedger.tryAcquireBudget()) {
+                    granted++;
+                }
+            }
+            assertThat(granted).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    class Percentile {
+        @Test
+        void test_p95_of_observed_latencies() {
+            RequestHedger hedger = new RequestHedger(0, 10);
+            for (int i = 1; i < RequestHedger.MIN_SAMPLES; i++) {
+                hedger.recordLatency(i);
+            }
+            assertThat(hedger.getP95InMs()).isEqualTo(-1);
+            hedger.recordLatency(RequestHedger.MIN_SAMPLES);
+            assertThat(hedger.getP95InMs()).isEqualTo(19);
+            for (int i = RequestHedger.MIN_SAMPLES + 1; i <= 100; i++) {
+                hedger.recordLatency(i);
+            }
+            //the percentile is computed once enough latencies are observed, and refreshed every 64 latencies
+            assertThat(hedger.getP95InMs()).isEqualTo(61);
+            for (int i = 101; i <= 128; i++) {
+                hedger.recordLatency(i);
+            }
+            assertThat(hedger.getP95InMs()).isEqualTo(122);
+        }
+    }
+}
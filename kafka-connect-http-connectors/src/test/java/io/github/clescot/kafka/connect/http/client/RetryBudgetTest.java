@@ -0,0 +1,70 @@
+package io.github.clescot.kafka.connect.http.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static io.github.clescot.kafka.connect.http.client.RetryBudget.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryBudgetTest {
+
+    @Nested
+    class Constructor {
+        @Test
+        void test_without_tokens() {
+            assertThatThrownBy(() -> new RetryBudget(0, 0.1)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void test_budget_is_full_at_startup() {
+            assertThat(new RetryBudget(10, 0.1).getTokens()).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    class Withdraw {
+        @Test
+        void test_retries_are_denied_when_the_budget_is_exhausted() {
+            RetryBudget retryBudget = new RetryBudget(2, 0.1);
+            assertThat(retryBudget.tryWithdraw()).isTrue();
+            assertThat(retryBudget.tryWithdraw()).isTrue();
+            assertThat(retryBudget.tryWithdraw()).isFalse();
+        }
+
+        @Test
+        void test_successful_calls_refill_the_budget() {
+            RetryBudget retryBudget = new RetryBudget(1, 0.5);
+            assertThat(retryBudget.tryWithdraw()).isTrue();
+            retryBudget.deposit();
+            assertThat(retryBudget.tryWithdraw()).isFalse();
+            retryBudget.deposit();
+            retryBudget.deposit();
+            assertThat(retryBudget.tryWithdraw()).isTrue();
+        }
+
+        @Test
+        void test_budget_is_capped() {
+            RetryBudget retryBudget = new RetryBudget(1, 0.5);
+            for (int i = 0; i < 10; i++) {
+                retryBudget.deposit();
+            }
+            assertThat(retryBudget.getTokens()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    class Metrics {
+        @Test
+        void test_budget_consumption_is_exported() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            RetryBudget retryBudget = new RetryBudget(1, 0.1, meterRegistry, "test");
+            retryBudget.tryWithdraw();
+            retryBudget.tryWithdraw();
+            assertThat(meterRegistry.get(RETRY_BUDGET_TOKENS_METER).tag(CONFIGURATION_ID_TAG, "test").gauge().value()).isZero();
+            assertThat(meterRegistry.get(RETRY_BUDGET_WITHDRAWN_METER).counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get(RETRY_BUDGET_EXHAUSTED_METER).counter().count()).isEqualTo(1);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package io.github.clescot.kafka.connect.http.client.ahc;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.http.client.BodyTruncationPolicy;
 import io.github.clescot.kafka.connect.http.client.DummyX509Certificate;
 import io.github.clescot.kafka.connect.http.client.HttpClientFactory;
 import io.github.clescot.kafka.connect.http.core.HttpExchange;
@@ -10,13 +11,16 @@ import io.github.clescot.kafka.connect.http.core.HttpRequest;
 import io.github.clescot.kafka.connect.http.core.HttpResponse;
 import io.github.clescot.kafka.connect.http.sink.HttpSinkTaskTest;
 import org.assertj.core.api.Assertions;
+import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.HttpResponseBodyPart;
 import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.Response;
 import org.asynchttpclient.uri.Uri;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
@@ -39,6 +43,7 @@ import static io.github.clescot.kafka.connect.http.client.HttpClientConfigDefini
 import static io.github.clescot.kafka.connect.http.client.HttpClientFactory.CONFIGURATION_ID;
 import static io.github.clescot.kafka.connect.http.client.config.AddMissingCorrelationIdHeaderToHttpRequestFunction.HEADER_X_CORRELATION_ID;
 import static io.github.clescot.kafka.connect.http.client.config.AddMissingRequestIdHeaderToHttpRequestFunction.HEADER_X_REQUEST_ID;
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.HTTP_RESPONSE_BODY_LIMIT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
@@ -56,6 +61,58 @@ class AHCHttpClientTest {
     }
 
 
+    @Test
+    void test_body_exceeding_the_limit_closes_the_connection() throws Exception {
+        HttpClientAsyncCompletionHandler handler = new HttpClientAsyncCompletionHandler(10, BodyTruncationPolicy.CLOSE, response -> {});
+        assertThat(handler.onBodyPartReceived(getBodyPart(8))).isEqualTo(AsyncHandler.State.CONTINUE);
+        assertThat(handler.onBodyPartReceived(getBodyPart(8))).isEqualTo(AsyncHandler.State.ABORT);
+        assertThat(handler.isTruncated()).isTrue();
+    }
+
+    @Test
+    void test_body_exceeding_the_limit_is_discarded() throws Exception {
+        HttpClientAsyncCompletionHandler handler = new HttpClientAsyncCompletionHandler(10, BodyTruncationPolicy.DISCARD, response -> {});
+        assertThat(handler.onBodyPartReceived(getBodyPart(8))).isEqualTo(AsyncHandler.State.CONTINUE);
+        assertThat(handler.onBodyPartReceived(getBodyPart(8))).isEqualTo(AsyncHandler.State.CONTINUE);
+        assertThat(handler.onBodyPartReceived(getBodyPart(8))).isEqualTo(AsyncHandler.State.CONTINUE);
+        assertThat(handler.isTruncated()).isTrue();
+    }
+
+    @Test
+    void test_truncated_response_is_flagged() throws Exception {
+        //given
+        HashMap<String, String> config = Maps.newHashMap();
+        config.put(CONFIGURATION_ID, "default");
+        config.put(HTTP_RESPONSE_BODY_LIMIT, "10");
+        ListenableFuture<Object> listenableFuture = Mockito.mock(ListenableFuture.class);
+        when(listenableFuture.toCompletableFuture()).thenReturn(new CompletableFuture<>());
+        when(asyncHttpClient.executeRequest(ArgumentMatchers.any(Request.class), ArgumentMatchers.any())).thenReturn(listenableFuture);
+        AHCHttpClient client = new AHCHttpClient(asyncHttpClient, config, new Random());
+        client.nativeCall(client.buildNativeRequest(new HttpRequest("http://dummy.com/")));
+        ArgumentCaptor<AsyncHandler> captor = ArgumentCaptor.forClass(AsyncHandler.class);
+        Mockito.verify(asyncHttpClient).executeRequest(ArgumentMatchers.any(Request.class), captor.capture());
+        HttpClientAsyncCompletionHandler handler = (HttpClientAsyncCompletionHandler) captor.getValue();
+        Response response = Mockito.mock(Response.class);
+        when(response.getStatusCode()).thenReturn(200);
+        when(response.getStatusText()).thenReturn("OK");
+        when(response.getResponseBody()).thenReturn("0123456789abcdef");
+
+        //when
+        handler.onBodyPartReceived(getBodyPart(16));
+        handler.onCompleted(response);
+        HttpResponse httpResponse = client.buildResponse(response);
+
+        //then
+        assertThat(httpResponse.getBodyAsString()).isEqualTo("0123456789");
+        assertThat(httpResponse.isBodyTruncated()).isTrue();
+    }
+
+    private HttpResponseBodyPart getBodyPart(int length) {
+        HttpResponseBodyPart bodyPart = Mockito.mock(HttpResponseBodyPart.class);
+        when(bodyPart.length()).thenReturn(length);
+        return bodyPart;
+    }
+
     @Test
     void build_HttpExchange_test_all_null() {
         Map<String, Object> config = Maps.newHashMap();
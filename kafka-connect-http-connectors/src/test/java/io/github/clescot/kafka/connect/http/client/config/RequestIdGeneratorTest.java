@@ -0,0 +1,30 @@
+package io.github.clescot.kafka.connect.http.client.config;
+
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestIdGeneratorTest {
+
+    @Test
+    void test_id_is_a_random_uuid() {
+        //when
+        UUID uuid = UUID.fromString(RequestIdGenerator.nextId());
+        //then
+        assertThat(uuid.version()).isEqualTo(4);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void test_ids_are_unique() {
+        Set<String> ids = Sets.newHashSet();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(RequestIdGenerator.nextId());
+        }
+        assertThat(ids).hasSize(10_000);
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.clescot.kafka.connect.http.client.okhttp;
 
+import com.github.luben.zstd.ZstdInputStream;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.core.Options;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
@@ -20,7 +21,9 @@ import io.github.clescot.kafka.connect.http.core.MediaType;
 import io.github.clescot.kafka.connect.http.core.queue.QueueFactory;
 import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.jmx.JmxMeterRegistry;
 import okhttp3.*;
 import okhttp3.Request;
@@ -42,6 +45,7 @@ import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -49,16 +53,19 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.containing;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static io.github.clescot.kafka.connect.RequestClient.RATE_LIMITER_PERMIT_WAIT_METER;
 import static io.github.clescot.kafka.connect.RequestClient.SHARED_RATE_LIMITERS;
 import static io.github.clescot.kafka.connect.http.client.AbstractHttpClient.ACCEPT_NONE;
 import static io.github.clescot.kafka.connect.http.client.HttpClient.THROWABLE_CLASS;
@@ -179,9 +186,277 @@ class OkHttpClientTest {
             final Buffer buffer = new Buffer();
             Assertions.assertNotNull(body);
             body.writeTo(buffer);
-            String actual = buffer.readUtf8();
-            byte[] decoded = Base64.getDecoder().decode(actual);
-            assertThat(decoded).isEqualTo(httpRequest.getBodyAsByteArray());
+            //raw bytes are sent, not their base64 encoding
+            assertThat(body.contentLength()).isEqualTo(httpRequest.getBodyAsByteArray().length);
+            assertThat(buffer.readByteArray()).isEqualTo(httpRequest.getBodyAsByteArray());
+        }
+
+        @Test
+        void test_build_request_with_static_headers() {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(STATIC_REQUEST_HEADER_NAMES, "X-Static,X-Other-Static");
+            config.put(STATIC_REQUEST_HEADER_PREFIX + "X-Static", "static1");
+            config.put(STATIC_REQUEST_HEADER_PREFIX + "X-Other-Static", "static2");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.GET);
+            httpRequest.getHeaders().put("X-Dynamic", Lists.newArrayList("dynamic"));
+            HttpRequest enrichedHttpRequest = client.getEnrichRequestFunction().apply(httpRequest);
+
+            //when
+            Request request = client.buildNativeRequest(enrichedHttpRequest);
+
+            //then
+            assertThat(request.headers("X-Static")).containsExactly("static1");
+            assertThat(request.headers("X-Other-Static")).containsExactly("static2");
+            assertThat(request.headers("X-Dynamic")).containsExactly("dynamic");
+        }
+
+        @Test
+        void test_build_request_with_static_header_overridden_after_enrichment() {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(STATIC_REQUEST_HEADER_NAMES, "X-Static");
+            config.put(STATIC_REQUEST_HEADER_PREFIX + "X-Static", "static1");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            HttpRequest enrichedHttpRequest = client.getEnrichRequestFunction().apply(new HttpRequest("http://dummy.com/", HttpRequest.Method.GET));
+            enrichedHttpRequest.getHeaders().put("X-Static", Lists.newArrayList("overridden"));
+
+            //when
+            Request request = client.buildNativeRequest(enrichedHttpRequest);
+
+            //then
+            assertThat(request.headers("X-Static")).containsExactly("overridden");
+        }
+
+        @Test
+        void test_build_request_with_static_headers_copied_after_enrichment() {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(STATIC_REQUEST_HEADER_NAMES, "X-Static");
+            config.put(STATIC_REQUEST_HEADER_PREFIX + "X-Static", "static1");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            HttpRequest enrichedHttpRequest = client.getEnrichRequestFunction().apply(new HttpRequest("http://dummy.com/", HttpRequest.Method.GET));
+            //defensive copy of the header values
+            Map<String, List<String>> copiedHeaders = Maps.newHashMap();
+            enrichedHttpRequest.getHeaders().forEach((key, values) -> copiedHeaders.put(key, Lists.newArrayList(values)));
+            enrichedHttpRequest.setHeaders(copiedHeaders);
+
+            //when
+            Request request = client.buildNativeRequest(enrichedHttpRequest);
+
+            //then
+            assertThat(request.headers("X-Static")).containsExactly("static1");
+        }
+
+        @Test
+        void test_build_request_with_static_header_overridden_with_another_case() {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(STATIC_REQUEST_HEADER_NAMES, "X-Static");
+            config.put(STATIC_REQUEST_HEADER_PREFIX + "X-Static", "static1");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            HttpRequest enrichedHttpRequest = client.getEnrichRequestFunction().apply(new HttpRequest("http://dummy.com/", HttpRequest.Method.GET));
+            enrichedHttpRequest.getHeaders().remove("X-Static");
+            enrichedHttpRequest.getHeaders().put("x-static", Lists.newArrayList("overridden"));
+
+            //when
+            Request request = client.buildNativeRequest(enrichedHttpRequest);
+
+            //then
+            assertThat(request.headers("X-Static")).containsExactly("overridden");
+        }
+
+        @Test
+        void test_build_request_with_static_header_removed_after_enrichment() {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(STATIC_REQUEST_HEADER_NAMES, "X-Static,X-Other-Static");
+            config.put(STATIC_REQUEST_HEADER_PREFIX + "X-Static", "static1");
+            config.put(STATIC_REQUEST_HEADER_PREFIX + "X-Other-Static", "static2");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            HttpRequest enrichedHttpRequest = client.getEnrichRequestFunction().apply(new HttpRequest("http://dummy.com/", HttpRequest.Method.GET));
+            enrichedHttpRequest.getHeaders().remove("X-Other-Static");
+
+            //when
+            Request request = client.buildNativeRequest(enrichedHttpRequest);
+
+            //then
+            assertThat(request.headers("X-Static")).containsExactly("static1");
+            assertThat(request.headers("X-Other-Static")).isEmpty();
+        }
+
+        @Test
+        void test_build_POST_request_with_compressed_body_as_string() throws IOException {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(HTTP_REQUEST_BODY_COMPRESSION_TYPE, "gzip");
+            config.put(HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD, "10");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.POST);
+            String content = "{\"stuff\":\"dummy\"},".repeat(20);
+            httpRequest.setBodyAsString(content);
+
+            //given
+            Request request = client.buildNativeRequest(httpRequest);
+
+            //then
+            assertThat(request.header("Content-Encoding")).isEqualTo("gzip");
+            RequestBody body = request.body();
+            Assertions.assertNotNull(body);
+            //the body is compressed while it is written : its length is unknown
+            assertThat(body).isInstanceOf(CompressingRequestBody.class);
+            assertThat(body.contentLength()).isEqualTo(-1);
+            //the body can be written again, on retries
+            for (int i = 0; i < 2; i++) {
+                final Buffer buffer = new Buffer();
+                body.writeTo(buffer);
+                assertThat(buffer.size()).isLessThan(content.length());
+                try (InputStream inputStream = new GZIPInputStream(buffer.inputStream())) {
+                    assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+                }
+            }
+        }
+
+        @Test
+        void test_build_POST_request_with_compressed_multipart_body() throws IOException {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(HTTP_REQUEST_BODY_COMPRESSION_TYPE, "zstd");
+            config.put(HTTP_REQUEST_BODY_COMPRESSION_THRESHOLD, "10");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            String content = "{\"stuff\":\"dummy\"},".repeat(20);
+            Map<String, HttpPart> parts = Maps.newHashMap();
+            parts.put("part1", new HttpPart(content));
+            Map<String, List<String>> headers = Maps.newHashMap();
+            headers.put("Content-Type", Lists.newArrayList("multipart/form-data; boundary=+++"));
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.POST, headers, BodyType.MULTIPART, parts);
+
+            //when
+            Request request = client.buildNativeRequest(httpRequest);
+
+            //then
+            assertThat(request.header("Content-Encoding")).isEqualTo("zstd");
+            RequestBody body = request.body();
+            Assertions.assertNotNull(body);
+            final Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            try (InputStream inputStream = new ZstdInputStream(buffer.inputStream())) {
+                assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).contains(content);
+            }
+        }
+
+        @Test
+        void test_build_POST_request_with_body_below_the_compression_threshold() {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(HTTP_REQUEST_BODY_COMPRESSION_TYPE, "gzip");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.POST);
+            httpRequest.setBodyAsString("stuff");
+
+            //given
+            Request request = client.buildNativeRequest(httpRequest);
+
+            //then
+            assertThat(request.header("Content-Encoding")).isNull();
+        }
+
+        @Test
+        void test_build_PUT_request_with_body_as_file_reference() throws IOException {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            Path directory = Files.createTempDirectory("bodies");
+            directory.toFile().deleteOnExit();
+            config.put(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, "true");
+            config.put(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, directory.toString());
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            Path file = Files.createTempFile(directory, "body", ".txt");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, "header-stuff-footer");
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.PUT);
+            httpRequest.setBodyAsFileReference(file.toUri(), 7, 5L);
+
+            //given
+            Request request = client.buildNativeRequest(httpRequest);
+
+            //then
+            RequestBody body = request.body();
+            Assertions.assertNotNull(body);
+            assertThat(body).isInstanceOf(FileRegionRequestBody.class);
+            assertThat(body.contentLength()).isEqualTo(5);
+            assertThat(body.contentType()).hasToString(MediaType.APPLICATION_OCTET_STREAM);
+            //the body can be written again, on retries
+            for (int i = 0; i < 2; i++) {
+                final Buffer buffer = new Buffer();
+                body.writeTo(buffer);
+                assertThat(buffer.readUtf8()).isEqualTo("stuff");
+            }
+        }
+
+        @Test
+        void test_build_POST_request_with_body_as_file_reference_up_to_the_end_of_the_file() throws IOException {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            Path directory = Files.createTempDirectory("bodies");
+            directory.toFile().deleteOnExit();
+            config.put(HTTP_REQUEST_BODY_FILE_REFERENCE_ACTIVATE, "true");
+            config.put(HTTP_REQUEST_BODY_FILE_REFERENCE_BASE_DIRECTORY, directory.toString());
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            Path file = Files.createTempFile(directory, "body", ".txt");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, "header-stuff");
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.POST);
+            httpRequest.setBodyAsFileReference(file.toUri(), 7, null);
+
+            //given
+            Request request = client.buildNativeRequest(httpRequest);
+
+            //then
+            RequestBody body = request.body();
+            Assertions.assertNotNull(body);
+            assertThat(body.contentLength()).isEqualTo(5);
+            final Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            assertThat(buffer.readUtf8()).isEqualTo("stuff");
+        }
+
+        @Test
+        void test_build_request_with_body_as_file_reference_not_activated() throws IOException {
+
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            Path file = Files.createTempFile("body", ".txt");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, "secret");
+            HttpRequest httpRequest = new HttpRequest("http://dummy.com/", HttpRequest.Method.POST);
+            httpRequest.setBodyAsFileReference(file.toUri(), 0, null);
+
+            //when
+            //then
+            Assertions.assertThrows(IllegalArgumentException.class, () -> client.buildNativeRequest(httpRequest));
         }
 
         @Test
@@ -309,9 +584,9 @@ class OkHttpClientTest {
 
             String part2AsString = myParts.get(1);
             Map<String, String> headers2 = getHeaders(part2AsString);
-            assertThat(headers2.get("Content-Type")).contains("application/octet-stream; charset=utf-8");
+            assertThat(headers2.get("Content-Type")).contains("application/octet-stream");
             String part2Content = getPartContent(part2AsString);
-            assertThat(new String(Base64.getDecoder().decode(part2Content))).isEqualTo(content2);
+            assertThat(part2Content).isEqualTo(content2);
 
             String part3AsString = myParts.get(2);
             Map<String, String> headers3 = getHeaders(part3AsString);
@@ -466,6 +741,79 @@ class OkHttpClientTest {
 
         }
 
+        @Test
+        void test_build_response_with_body_exceeding_the_limit_closes_the_connection() {
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(HTTP_RESPONSE_BODY_LIMIT, "10");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            String responseContent = "0123456789abcdefghijklmnopqrstuvwxyz";
+            Buffer buffer = new Buffer();
+            buffer.writeUtf8(responseContent);
+
+            //when
+            HttpResponse httpResponse = client.buildResponse(getResponse(client, buffer, responseContent.length()));
+
+            //then
+            assertThat(httpResponse.getBodyAsString()).isEqualTo("0123456789");
+            assertThat(httpResponse.isBodyTruncated()).isTrue();
+            //the rest of the body is not read
+            assertThat(buffer.size()).isEqualTo(responseContent.length() - 11L);
+        }
+
+        @Test
+        void test_build_response_with_body_exceeding_the_limit_discards_the_rest_of_the_body() {
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(HTTP_RESPONSE_BODY_LIMIT, "10");
+            config.put(HTTP_RESPONSE_BODY_TRUNCATION_POLICY, "DISCARD");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            String responseContent = "0123456789abcdefghijklmnopqrstuvwxyz";
+            Buffer buffer = new Buffer();
+            buffer.writeUtf8(responseContent);
+
+            //when
+            HttpResponse httpResponse = client.buildResponse(getResponse(client, buffer, responseContent.length()));
+
+            //then
+            assertThat(httpResponse.getBodyAsString()).isEqualTo("0123456789");
+            assertThat(httpResponse.isBodyTruncated()).isTrue();
+            assertThat(buffer.size()).isZero();
+        }
+
+        @Test
+        void test_build_response_with_body_within_the_limit_is_not_truncated() {
+            //given
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put(HTTP_RESPONSE_BODY_LIMIT, "10");
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            String responseContent = "0123456789";
+            Buffer buffer = new Buffer();
+            buffer.writeUtf8(responseContent);
+
+            //when
+            HttpResponse httpResponse = client.buildResponse(getResponse(client, buffer, responseContent.length()));
+
+            //then
+            assertThat(httpResponse.getBodyAsString()).isEqualTo(responseContent);
+            assertThat(httpResponse.isBodyTruncated()).isFalse();
+        }
+
+        private Response getResponse(OkHttpClient client, Buffer buffer, long contentLength) {
+            Request request = client.buildNativeRequest(new HttpRequest("http://dummy.com/", HttpRequest.Method.GET));
+            return new Response.Builder()
+                    .headers(new Headers.Builder().add(CONTENT_TYPE, MediaType.APPLICATION_JSON).build())
+                    .request(request)
+                    .code(200)
+                    .message("OK")
+                    .body(new RealResponseBody(MediaType.APPLICATION_JSON, contentLength, buffer))
+                    .protocol(Protocol.HTTP_1_1)
+                    .build();
+        }
+
         @Test
         void test_build_form_response() {
 
@@ -1139,6 +1487,53 @@ class OkHttpClientTest {
             }
         }
 
+        @Test
+        @DisplayName("test rate limited calls do not block the calling thread, and waiting times are recorded")
+        void test_rate_limited_calls_do_not_block() throws ExecutionException, InterruptedException {
+
+
+            //given
+            WireMockRuntimeInfo wmRuntimeInfo = wmHttp.getRuntimeInfo();
+            WireMock wireMock = wmRuntimeInfo.getWireMock();
+            String bodyResponse = "{\"result\":\"pong\"}";
+            wireMock.register(WireMock.post("/ping")
+                    .willReturn(WireMock.aResponse()
+                            .withBody(bodyResponse)
+                            .withStatus(200)
+                            .withStatusMessage("OK")
+                    )
+            );
+
+
+            //build http client
+            HashMap<String, String> config = Maps.newHashMap();
+            config.put(CONFIGURATION_ID, "default");
+            config.put("rate.limiter.max.executions", "1");
+            SimpleMeterRegistry simpleMeterRegistry = new SimpleMeterRegistry();
+            HashSet<MeterRegistry> registries = Sets.newHashSet();
+            registries.add(simpleMeterRegistry);
+            CompositeMeterRegistry meterRegistry = new CompositeMeterRegistry(Clock.SYSTEM, registries);
+            OkHttpClient client = factory.buildHttpClient(config, null, meterRegistry, new Random());
+
+            HttpRequest httpRequest = getHttpRequest(wmRuntimeInfo);
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            List<CompletableFuture<HttpExchange>> futures = Lists.newArrayList();
+            //call web service
+            for (int i = 0; i < 3; i++) {
+                futures.add(client.call(httpRequest, new AtomicInteger(1)));
+            }
+            //permits are reserved, not awaited
+            assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isLessThan(500);
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            for (CompletableFuture<HttpExchange> future : futures) {
+                assertThat(future.get().getResponse().getStatusCode()).isEqualTo(200);
+            }
+            assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isGreaterThan(1500);
+            Timer permitWaitTimer = simpleMeterRegistry.get(RATE_LIMITER_PERMIT_WAIT_METER).timer();
+            assertThat(permitWaitTimer.count()).isEqualTo(3);
+            assertThat(permitWaitTimer.max(TimeUnit.MILLISECONDS)).isGreaterThan(1500);
+        }
+
         @NotNull
         private HttpRequest getHttpRequest(WireMockRuntimeInfo wmRuntimeInfo) {
             String baseUrl = "http://" + getIP() + ":" + wmRuntimeInfo.getHttpPort();
@@ -2540,6 +2935,23 @@ class OkHttpClientTest {
             assertThat(client1).isNotSameAs(client2);
         }
 
+        @Test
+        void test_remove_user() {
+            Map<String, String> config = Maps.newHashMap();
+            OkHttpClient client = factory.build(config, null, new Random(), null, null, getCompositeMeterRegistry());
+            OkHttpClient client1 = (OkHttpClient) client.customizeForUser("1");
+            HttpUrl url = HttpUrl.get("http://www.stuff.com/path");
+            Cookie cookie = Cookie.parse(url, "cat=tabby; Max-Age=86400");
+            client1.getCookieJar().saveFromResponse(url, Lists.newArrayList(cookie));
+            assertThat(client1.getCookieJar().loadForRequest(url)).hasSize(1);
+
+            client.removeUser("1");
+
+            //cookies are released
+            assertThat(client1.getCookieJar().loadForRequest(url)).isEmpty();
+            assertThat(client.customizeForUser("1")).isNotSameAs(client1);
+        }
+
         @Test
         void test_for_two_different_users_with_cookie_policy_set_to_none() {
             Map<String, String> config = Maps.newHashMap();
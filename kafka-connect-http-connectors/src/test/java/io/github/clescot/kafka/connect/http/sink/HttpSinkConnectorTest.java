@@ -106,6 +106,47 @@ public class HttpSinkConnectorTest {
             assertThat(maps.get(0)).isEqualTo(settings);
             assertThat(maps.get(1)).isEqualTo(settings);
         }
+
+        @Test
+        void test_cluster_rate_limit_is_split_across_tasks() {
+            HttpSinkConnector httpSinkConnector = new HttpSinkConnector();
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put("config.default.rate.limiter.max.executions","10");
+            settings.put("config.default.rate.limiter.period.in.ms","2000");
+            settings.put("config.default.rate.limiter.scope","cluster");
+            httpSinkConnector.start(settings);
+            List<Map<String, String>> maps = httpSinkConnector.taskConfigs(4);
+            assertThat(maps).hasSize(4);
+            for (Map<String, String> map : maps) {
+                assertThat(map).containsEntry("config.default.rate.limiter.max.executions","10");
+                assertThat(map).containsEntry("config.default.rate.limiter.period.in.ms","8000");
+            }
+        }
+
+        @Test
+        void test_cluster_rate_limit_with_default_max_executions_is_split_across_tasks() {
+            HttpSinkConnector httpSinkConnector = new HttpSinkConnector();
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put("config.default.rate.limiter.scope","cluster");
+            httpSinkConnector.start(settings);
+            List<Map<String, String>> maps = httpSinkConnector.taskConfigs(3);
+            assertThat(maps).hasSize(3);
+            for (Map<String, String> map : maps) {
+                assertThat(map).containsEntry("config.default.rate.limiter.max.executions","1");
+                assertThat(map).containsEntry("config.default.rate.limiter.period.in.ms","3000");
+            }
+        }
+
+        @Test
+        void test_instance_rate_limit_is_not_split_across_tasks() {
+            HttpSinkConnector httpSinkConnector = new HttpSinkConnector();
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put("config.default.rate.limiter.max.executions","10");
+            settings.put("config.default.rate.limiter.scope","instance");
+            httpSinkConnector.start(settings);
+            List<Map<String, String>> maps = httpSinkConnector.taskConfigs(4);
+            assertThat(maps).hasSize(4).allMatch(settings::equals);
+        }
     }
 
     @Nested
@@ -30,12 +30,14 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import io.micrometer.jmx.JmxMeterRegistry;
 import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RoundRobinPartitioner;
 import org.apache.kafka.common.Cluster;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.record.TimestampType;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.connect.data.Schema;
@@ -43,6 +45,7 @@ import org.apache.kafka.connect.header.Header;
 import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.awaitility.Awaitility;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -342,6 +345,73 @@ public class HttpSinkTaskTest {
             Assertions.assertDoesNotThrow(() -> okHttpSinkTask.stop());
         }
 
+        @Test
+        void test_stop_drains_in_flight_batches() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(SINK_PUT_ASYNC, "true");
+            settings.put(SINK_DRAIN_TIMEOUT_IN_MS, "5000");
+            ahcSinkTask.start(settings);
+            CompletableFuture<HttpExchange> pendingExchange = new CompletableFuture<>();
+            mockClient(pendingExchange);
+
+            //when
+            CompletableFuture<Void> batch = ahcSinkTask.putAsync(List.of(getDummySinkRecord()));
+            CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS).execute(() -> pendingExchange.complete(getHttpExchange()));
+            ahcSinkTask.stop();
+
+            //then
+            assertThat(batch).isCompleted();
+        }
+
+        @Test
+        void test_stop_does_not_wait_beyond_the_drain_timeout() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(SINK_PUT_ASYNC, "true");
+            settings.put(SINK_DRAIN_TIMEOUT_IN_MS, "200");
+            ahcSinkTask.start(settings);
+            mockClient(new CompletableFuture<>());
+
+            //when
+            CompletableFuture<Void> batch = ahcSinkTask.putAsync(List.of(getDummySinkRecord()));
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            ahcSinkTask.stop();
+
+            //then
+            assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isLessThan(5000);
+            assertThat(batch).isNotDone();
+        }
+
+        @Test
+        void test_put_is_ignored_when_stopping() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(SINK_PUT_ASYNC, "true");
+            ahcSinkTask.start(settings);
+            AHCHttpClient httpClient = mockClient(new CompletableFuture<>());
+            ahcSinkTask.stop();
+
+            //when
+            ahcSinkTask.put(List.of(getDummySinkRecord()));
+
+            //then
+            verify(httpClient, never()).call(any(HttpRequest.class), any(AtomicInteger.class));
+        }
+
+        private AHCHttpClient mockClient(CompletableFuture<HttpExchange> exchange) {
+            AHCHttpClient httpClient = Mockito.mock(AHCHttpClient.class);
+            when(httpClient.call(any(HttpRequest.class), any(AtomicInteger.class))).thenReturn(exchange);
+            when(httpClient.getEnrichRequestFunction()).thenReturn(request -> request);
+            when(httpClient.customizeForUser(anyString())).thenReturn(httpClient);
+            ahcSinkTask.getDefaultConfiguration().setClient(httpClient);
+            return httpClient;
+        }
+
+        private SinkRecord getDummySinkRecord() {
+            return new SinkRecord("myTopic", 0, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, getDummyHttpRequestAsString(), 10, System.currentTimeMillis(), TimestampType.CREATE_TIME, Lists.newArrayList());
+        }
+
     }
 
     @Nested
@@ -586,6 +656,198 @@ public class HttpSinkTaskTest {
 
     }
 
+    @Nested
+    class PutAsync {
+
+        @Test
+        void test_put_does_not_wait_for_http_exchanges() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(SINK_PUT_ASYNC, "true");
+            ahcSinkTask.start(settings);
+
+            //mock httpClient
+            AHCHttpClient httpClient = Mockito.mock(AHCHttpClient.class);
+            CompletableFuture<HttpExchange> pendingExchange = new CompletableFuture<>();
+            when(httpClient.call(any(HttpRequest.class), any(AtomicInteger.class))).thenReturn(pendingExchange);
+            when(httpClient.getEnrichRequestFunction()).thenReturn(request -> request);
+            when(httpClient.customizeForUser(anyString())).thenReturn(httpClient);
+            ahcSinkTask.getDefaultConfiguration().setClient(httpClient);
+
+            //init sinkRecord
+            List<SinkRecord> records = Lists.newArrayList();
+            List<Header> headers = Lists.newArrayList();
+            SinkRecord sinkRecord = new SinkRecord("myTopic", 0, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, getDummyHttpRequestAsString(), 10, System.currentTimeMillis(), TimestampType.CREATE_TIME, headers);
+            records.add(sinkRecord);
+            TopicPartition topicPartition = new TopicPartition("myTopic", 0);
+            Map<TopicPartition, OffsetAndMetadata> currentOffsets = Map.of(topicPartition, new OffsetAndMetadata(11));
+
+            //when
+            ahcSinkTask.put(records);
+
+            //then
+            verify(httpClient, times(1)).call(any(HttpRequest.class), any(AtomicInteger.class));
+            assertThat(ahcSinkTask.preCommit(currentOffsets)).isEmpty();
+
+            pendingExchange.complete(getHttpExchange());
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> !ahcSinkTask.preCommit(currentOffsets).isEmpty());
+            assertThat(ahcSinkTask.preCommit(currentOffsets)).containsEntry(topicPartition, new OffsetAndMetadata(11));
+        }
+
+        @Test
+        void test_errant_records_are_reported_without_blocking_and_awaited_in_pre_commit() {
+            //given
+            CompletableFuture<Void> pendingReport = new CompletableFuture<>();
+            when(sinkTaskContext.errantRecordReporter()).thenReturn(errantRecordReporter);
+            when(errantRecordReporter.report(any(SinkRecord.class), any(Throwable.class))).thenReturn(pendingReport);
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(SINK_PUT_ASYNC, "true");
+            ahcSinkTask.start(settings);
+
+            //mock httpClient
+            AHCHttpClient httpClient = Mockito.mock(AHCHttpClient.class);
+            when(httpClient.call(any(HttpRequest.class), any(AtomicInteger.class))).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("server down")));
+            when(httpClient.getEnrichRequestFunction()).thenReturn(request -> request);
+            when(httpClient.customizeForUser(anyString())).thenReturn(httpClient);
+            ahcSinkTask.getDefaultConfiguration().setClient(httpClient);
+
+            //init sinkRecord
+            List<SinkRecord> records = Lists.newArrayList();
+            List<Header> headers = Lists.newArrayList();
+            SinkRecord sinkRecord = new SinkRecord("myTopic", 0, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, getDummyHttpRequestAsString(), 10, System.currentTimeMillis(), TimestampType.CREATE_TIME, headers);
+            records.add(sinkRecord);
+            TopicPartition topicPartition = new TopicPartition("myTopic", 0);
+            Map<TopicPartition, OffsetAndMetadata> currentOffsets = Map.of(topicPartition, new OffsetAndMetadata(11));
+
+            //when
+            CompletableFuture<Void> batch = ahcSinkTask.putAsync(records);
+
+            //then the batch completes, even if the report is not yet recorded
+            batch.join();
+            verify(errantRecordReporter, times(1)).report(any(SinkRecord.class), any(Throwable.class));
+            CompletableFuture<Map<TopicPartition, OffsetAndMetadata>> preCommit = CompletableFuture.supplyAsync(() -> ahcSinkTask.preCommit(currentOffsets));
+            Awaitility.await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !preCommit.isDone());
+            pendingReport.complete(null);
+            assertThat(preCommit.join()).containsEntry(topicPartition, new OffsetAndMetadata(11));
+        }
+
+        @Test
+        void test_pre_commit_in_synchronous_mode_returns_current_offsets() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            ahcSinkTask.start(settings);
+            Map<TopicPartition, OffsetAndMetadata> currentOffsets = Map.of(new TopicPartition("myTopic", 0), new OffsetAndMetadata(11));
+
+            //when
+            Map<TopicPartition, OffsetAndMetadata> offsets = ahcSinkTask.preCommit(currentOffsets);
+
+            //then
+            assertThat(offsets).isEqualTo(currentOffsets);
+        }
+    }
+
+    @Nested
+    class PutWithInFlightBudget {
+
+        @Test
+        void test_requests_over_the_limit_are_deferred_in_synchronous_mode() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(SINK_MAX_IN_FLIGHT_REQUESTS, "1");
+            ahcSinkTask.start(settings);
+
+            //mock httpClient
+            AHCHttpClient httpClient = Mockito.mock(AHCHttpClient.class);
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            when(httpClient.call(any(HttpRequest.class), any(AtomicInteger.class))).thenAnswer(invocation -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                CompletableFuture<HttpExchange> pendingExchange = new CompletableFuture<>();
+                CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> {
+                    inFlight.decrementAndGet();
+                    pendingExchange.complete(getHttpExchange());
+                });
+                return pendingExchange;
+            });
+            when(httpClient.getEnrichRequestFunction()).thenReturn(request -> request);
+            when(httpClient.customizeForUser(anyString())).thenReturn(httpClient);
+            ahcSinkTask.getDefaultConfiguration().setClient(httpClient);
+
+            //init sinkRecords
+            List<SinkRecord> records = Lists.newArrayList();
+            List<Header> headers = Lists.newArrayList();
+            for (int i = 0; i < 3; i++) {
+                records.add(new SinkRecord("myTopic", 0, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, getDummyHttpRequestAsString(), 10L + i, System.currentTimeMillis(), TimestampType.CREATE_TIME, headers));
+            }
+            TopicPartition topicPartition = new TopicPartition("myTopic", 0);
+
+            //when
+            ahcSinkTask.put(records);
+
+            //then
+            //only the first request is sent : the next records are deferred, without waiting for the budget
+            verify(httpClient, times(1)).call(any(HttpRequest.class), any(AtomicInteger.class));
+            assertThat(maxInFlight.get()).isEqualTo(1);
+            assertThat(ahcSinkTask.getInFlightBudget().getInFlightRequests()).isZero();
+            verify(sinkTaskContext).offset(Map.of(topicPartition, 11L));
+            verify(sinkTaskContext).pause(topicPartition);
+            //nothing is in flight anymore : the partition is resumed
+            verify(sinkTaskContext).resume(topicPartition);
+            //deferred records are not committed until they are redelivered
+            assertThat(ahcSinkTask.preCommit(Map.of(topicPartition, new OffsetAndMetadata(13)))).containsEntry(topicPartition, new OffsetAndMetadata(11));
+
+            //when the deferred records are redelivered
+            ahcSinkTask.put(records.subList(1, 3));
+
+            //then
+            verify(httpClient, times(2)).call(any(HttpRequest.class), any(AtomicInteger.class));
+            assertThat(maxInFlight.get()).isEqualTo(1);
+            verify(sinkTaskContext).offset(Map.of(topicPartition, 12L));
+        }
+
+        @Test
+        void test_requests_over_the_limit_are_deferred_in_asynchronous_mode() {
+            //given
+            Map<String, String> settings = Maps.newHashMap();
+            settings.put(SINK_PUT_ASYNC, "true");
+            settings.put(SINK_MAX_IN_FLIGHT_REQUESTS, "1");
+            ahcSinkTask.start(settings);
+
+            //mock httpClient
+            AHCHttpClient httpClient = Mockito.mock(AHCHttpClient.class);
+            CompletableFuture<HttpExchange> pendingExchange = new CompletableFuture<>();
+            when(httpClient.call(any(HttpRequest.class), any(AtomicInteger.class))).thenReturn(pendingExchange);
+            when(httpClient.getEnrichRequestFunction()).thenReturn(request -> request);
+            when(httpClient.customizeForUser(anyString())).thenReturn(httpClient);
+            ahcSinkTask.getDefaultConfiguration().setClient(httpClient);
+
+            //init sinkRecords
+            List<Header> headers = Lists.newArrayList();
+            SinkRecord firstRecord = new SinkRecord("myTopic", 0, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, getDummyHttpRequestAsString(), 10, System.currentTimeMillis(), TimestampType.CREATE_TIME, headers);
+            SinkRecord secondRecord = new SinkRecord("myTopic", 0, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, getDummyHttpRequestAsString(), 11, System.currentTimeMillis(), TimestampType.CREATE_TIME, headers);
+            TopicPartition topicPartition = new TopicPartition("myTopic", 0);
+            Map<TopicPartition, OffsetAndMetadata> currentOffsets = Map.of(topicPartition, new OffsetAndMetadata(12));
+
+            //when the budget is exhausted by the first batch
+            ahcSinkTask.put(List.of(firstRecord));
+            ahcSinkTask.put(List.of(secondRecord));
+
+            //then the second record is not sent, and its partition is rewound and paused
+            verify(httpClient, times(1)).call(any(HttpRequest.class), any(AtomicInteger.class));
+            verify(sinkTaskContext).offset(Map.of(topicPartition, 11L));
+            verify(sinkTaskContext, atLeastOnce()).pause(topicPartition);
+            verify(sinkTaskContext, never()).resume(topicPartition);
+
+            //when the first exchange completes
+            pendingExchange.complete(getHttpExchange());
+
+            //then the partition is resumed, and only the first record is committed
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> !ahcSinkTask.preCommit(currentOffsets).isEmpty());
+            assertThat(ahcSinkTask.preCommit(currentOffsets)).containsEntry(topicPartition, new OffsetAndMetadata(11));
+            verify(sinkTaskContext).resume(topicPartition);
+        }
+    }
+
     @Nested
     class PutWithHttpRequestMapper {
         @Test
@@ -0,0 +1,170 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightBudgetTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("myTopic", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("myTopic", 1);
+
+    @Nested
+    class IsExhausted {
+        @Test
+        void test_no_limit() {
+            InFlightBudget inFlightBudget = new InFlightBudget(0, 0);
+            inFlightBudget.acquire(PARTITION_0, 1000);
+            assertThat(inFlightBudget.isEnabled()).isFalse();
+            assertThat(inFlightBudget.isExhausted()).isFalse();
+        }
+
+        @Test
+        void test_requests_limit() {
+            InFlightBudget inFlightBudget = new InFlightBudget(2, 0);
+            inFlightBudget.acquire(PARTITION_0, 10);
+            assertThat(inFlightBudget.isExhausted()).isFalse();
+            inFlightBudget.acquire(PARTITION_0, 10);
+            assertThat(inFlightBudget.isExhausted()).isTrue();
+            inFlightBudget.release(PARTITION_0, 10);
+            assertThat(inFlightBudget.isExhausted()).isFalse();
+        }
+
+        @Test
+        void test_bytes_limit() {
+            InFlightBudget inFlightBudget = new InFlightBudget(0, 100);
+            inFlightBudget.acquire(PARTITION_0, 60);
+            assertThat(inFlightBudget.isExhausted()).isFalse();
+            inFlightBudget.acquire(PARTITION_1, 60);
+            assertThat(inFlightBudget.isExhausted()).isTrue();
+            assertThat(inFlightBudget.getInFlightBytes()).isEqualTo(120);
+        }
+    }
+
+    @Nested
+    class TryAcquire {
+        @Test
+        void test_request_fitting_in_the_limits() {
+            InFlightBudget inFlightBudget = new InFlightBudget(2, 100);
+            assertThat(inFlightBudget.tryAcquire(PARTITION_0, 50)).isTrue();
+            assertThat(inFlightBudget.tryAcquire(PARTITION_1, 50)).isTrue();
+            assertThat(inFlightBudget.getInFlightRequests()).isEqualTo(2);
+            assertThat(inFlightBudget.getInFlightBytes()).isEqualTo(100);
+        }
+
+        @Test
+        void test_request_exceeding_the_requests_limit() {
+            InFlightBudget inFlightBudget = new InFlightBudget(1, 0);
+            assertThat(inFlightBudget.tryAcquire(PARTITION_0, 10)).isTrue();
+            assertThat(inFlightBudget.tryAcquire(PARTITION_0, 10)).isFalse();
+            assertThat(inFlightBudget.getInFlightRequests()).isEqualTo(1);
+        }
+
+        @Test
+        void test_request_exceeding_the_bytes_limit() {
+            InFlightBudget inFlightBudget = new InFlightBudget(0, 100);
+            assertThat(inFlightBudget.tryAcquire(PARTITION_0, 60)).isTrue();
+            assertThat(inFlightBudget.tryAcquire(PARTITION_1, 60)).isFalse();
+            assertThat(inFlightBudget.getInFlightBytes()).isEqualTo(60);
+        }
+
+        @Test
+        void test_request_bigger_than_the_bytes_limit_when_nothing_is_in_flight() {
+            InFlightBudget inFlightBudget = new InFlightBudget(0, 100);
+            assertThat(inFlightBudget.tryAcquire(PARTITION_0, 150)).isTrue();
+            assertThat(inFlightBudget.tryAcquire(PARTITION_0, 1)).isFalse();
+        }
+    }
+
+    @Nested
+    class DeferAndRewind {
+        @Test
+        void test_next_records_of_a_deferred_partition_are_deferred() {
+            InFlightBudget inFlightBudget = new InFlightBudget(1, 0);
+            inFlightBudget.defer(PARTITION_0, 10);
+            assertThat(inFlightBudget.isDeferred(PARTITION_0, 9)).isFalse();
+            assertThat(inFlightBudget.isDeferred(PARTITION_0, 11)).isTrue();
+            assertThat(inFlightBudget.isDeferred(PARTITION_1, 11)).isFalse();
+        }
+
+        @Test
+        void test_deferred_partition_is_rewound_to_the_first_deferred_offset_and_paused() {
+            InFlightBudget inFlightBudget = new InFlightBudget(1, 0);
+            inFlightBudget.defer(PARTITION_0, 12);
+            inFlightBudget.defer(PARTITION_0, 10);
+            assertThat(inFlightBudget.partitionsToRewind()).containsExactly(Map.entry(PARTITION_0, 10L));
+            assertThat(inFlightBudget.partitionsToRewind()).isEmpty();
+            assertThat(inFlightBudget.getPausedPartitions()).containsExactly(PARTITION_0);
+            assertThat(inFlightBudget.isDeferred(PARTITION_0, 11)).isFalse();
+        }
+
+        @Test
+        void test_offsets_are_capped_until_the_deferred_records_are_redelivered() {
+            InFlightBudget inFlightBudget = new InFlightBudget(1, 0);
+            Map<TopicPartition, OffsetAndMetadata> offsets = Map.of(PARTITION_0, new OffsetAndMetadata(20), PARTITION_1, new OffsetAndMetadata(5));
+            inFlightBudget.defer(PARTITION_0, 10);
+            assertThat(inFlightBudget.cap(offsets)).containsEntry(PARTITION_0, new OffsetAndMetadata(10)).containsEntry(PARTITION_1, new OffsetAndMetadata(5));
+            inFlightBudget.partitionsToRewind();
+            assertThat(inFlightBudget.cap(offsets)).containsEntry(PARTITION_0, new OffsetAndMetadata(10));
+            assertThat(inFlightBudget.partitionsToResume()).containsExactly(PARTITION_0);
+            inFlightBudget.confirm(List.of(new SinkRecord(PARTITION_0.topic(), PARTITION_0.partition(), null, null, null, "stuff", 10)));
+            assertThat(inFlightBudget.cap(offsets)).isEqualTo(offsets);
+        }
+    }
+
+    @Nested
+    class PauseAndResume {
+        @Test
+        void test_busiest_partition_is_paused() {
+            InFlightBudget inFlightBudget = new InFlightBudget(4, 0);
+            inFlightBudget.acquire(PARTITION_0, 10);
+            inFlightBudget.acquire(PARTITION_0, 10);
+            inFlightBudget.acquire(PARTITION_0, 10);
+            inFlightBudget.acquire(PARTITION_1, 10);
+            assertThat(inFlightBudget.partitionsToPause()).containsExactly(PARTITION_0);
+            //already paused
+            assertThat(inFlightBudget.partitionsToPause()).isEmpty();
+            assertThat(inFlightBudget.getPausedPartitions()).containsExactly(PARTITION_0);
+        }
+
+        @Test
+        void test_no_pause_when_budget_is_available() {
+            InFlightBudget inFlightBudget = new InFlightBudget(4, 0);
+            inFlightBudget.acquire(PARTITION_0, 10);
+            assertThat(inFlightBudget.partitionsToPause()).isEmpty();
+        }
+
+        @Test
+        void test_resume_under_half_of_the_limit() {
+            InFlightBudget inFlightBudget = new InFlightBudget(4, 0);
+            for (int i = 0; i < 4; i++) {
+                inFlightBudget.acquire(PARTITION_0, 10);
+            }
+            assertThat(inFlightBudget.partitionsToPause()).containsExactly(PARTITION_0);
+            inFlightBudget.release(PARTITION_0, 10);
+            inFlightBudget.release(PARTITION_0, 10);
+            //2 in flight requests, not under half of the limit
+            assertThat(inFlightBudget.partitionsToResume()).isEmpty();
+            inFlightBudget.release(PARTITION_0, 10);
+            assertThat(inFlightBudget.partitionsToResume()).containsExactly(PARTITION_0);
+            assertThat(inFlightBudget.getPausedPartitions()).isEmpty();
+        }
+
+        @Test
+        void test_revoked_partition_is_not_resumed() {
+            InFlightBudget inFlightBudget = new InFlightBudget(1, 0);
+            inFlightBudget.acquire(PARTITION_0, 10);
+            assertThat(inFlightBudget.partitionsToPause()).containsExactly(PARTITION_0);
+            inFlightBudget.remove(List.of(PARTITION_0));
+            inFlightBudget.release(PARTITION_0, 10);
+            assertThat(inFlightBudget.partitionsToResume()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedLanesTest {
+
+    @Nested
+    class Constructor {
+        @Test
+        void test_zero_lane() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new KeyOrderedLanes(0));
+        }
+    }
+
+    @Nested
+    class LaneOf {
+        @Test
+        void test_null_key_is_not_ordered() {
+            KeyOrderedLanes keyOrderedLanes = new KeyOrderedLanes(4);
+            assertThat(keyOrderedLanes.laneOf(null)).isEqualTo(-1);
+        }
+
+        @Test
+        void test_same_key_same_lane() {
+            KeyOrderedLanes keyOrderedLanes = new KeyOrderedLanes(4);
+            assertThat(keyOrderedLanes.laneOf("key1")).isEqualTo(keyOrderedLanes.laneOf("key1"));
+            assertThat(keyOrderedLanes.laneOf(new byte[]{1, 2, 3})).isEqualTo(keyOrderedLanes.laneOf(new byte[]{1, 2, 3}));
+            assertThat(keyOrderedLanes.laneOf("key1")).isBetween(0, 3);
+        }
+    }
+
+    @Nested
+    class Submit {
+        @Test
+        void test_same_key_tasks_are_chained() {
+            KeyOrderedLanes keyOrderedLanes = new KeyOrderedLanes(4);
+            List<String> calls = Collections.synchronizedList(Lists.newArrayList());
+            CompletableFuture<String> first = new CompletableFuture<>();
+            CompletableFuture<String> firstResult = keyOrderedLanes.submit("key1", () -> {
+                calls.add("first");
+                return first;
+            });
+            CompletableFuture<String> secondResult = keyOrderedLanes.submit("key1", () -> {
+                calls.add("second");
+                return CompletableFuture.completedFuture("second");
+            });
+            assertThat(calls).containsExactly("first");
+            assertThat(secondResult).isNotDone();
+
+            first.completeExceptionally(new IllegalStateException("failure"));
+
+            assertThat(firstResult).isCompletedExceptionally();
+            assertThat(secondResult.join()).isEqualTo("second");
+            assertThat(calls).containsExactly("first", "second");
+        }
+
+        @Test
+        void test_different_lanes_run_concurrently() {
+            KeyOrderedLanes keyOrderedLanes = new KeyOrderedLanes(2);
+            //find two keys on different lanes
+            String key1 = "key1";
+            String key2 = "key2";
+            int i = 3;
+            while (keyOrderedLanes.laneOf(key2) == keyOrderedLanes.laneOf(key1)) {
+                key2 = "key" + i++;
+            }
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            keyOrderedLanes.submit(key1, () -> pending);
+            CompletableFuture<String> other = keyOrderedLanes.submit(key2, () -> CompletableFuture.completedFuture("other"));
+            assertThat(other).isCompletedWithValue("other");
+        }
+
+        @Test
+        void test_null_key_starts_immediately() {
+            KeyOrderedLanes keyOrderedLanes = new KeyOrderedLanes(1);
+            keyOrderedLanes.submit("key1", CompletableFuture::new);
+            CompletableFuture<String> withoutKey = keyOrderedLanes.submit(null, () -> CompletableFuture.completedFuture("done"));
+            assertThat(withoutKey).isCompletedWithValue("done");
+        }
+    }
+}
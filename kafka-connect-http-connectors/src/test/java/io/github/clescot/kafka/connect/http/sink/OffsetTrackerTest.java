@@ -0,0 +1,126 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import com.google.common.collect.Lists;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetTrackerTest {
+
+    private static final String TOPIC = "myTopic";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+    private SinkRecord sinkRecord(int partition, long offset) {
+        return new SinkRecord(TOPIC, partition, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, "value", offset);
+    }
+
+    @Nested
+    class Register {
+        @Test
+        void test_register_returns_highest_offset_per_partition() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            Map<TopicPartition, Long> batchOffsets = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 3), sinkRecord(0, 5), sinkRecord(1, 2)));
+            assertThat(batchOffsets).containsEntry(PARTITION_0, 5L).containsEntry(PARTITION_1, 2L);
+            assertThat(offsetTracker.getInFlightCount()).isEqualTo(2);
+        }
+
+        @Test
+        void test_no_committable_offset_without_completion() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            offsetTracker.register(Lists.newArrayList(sinkRecord(0, 3)));
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).isEmpty();
+        }
+    }
+
+    @Nested
+    class Complete {
+        @Test
+        void test_complete_in_order() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            Map<TopicPartition, Long> batch1 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 1), sinkRecord(0, 2)));
+            Map<TopicPartition, Long> batch2 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 3)));
+            offsetTracker.complete(batch1);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(3));
+            offsetTracker.complete(batch2);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(4));
+            assertThat(offsetTracker.getInFlightCount()).isZero();
+        }
+
+        @Test
+        void test_complete_out_of_order_waits_for_the_slowest_batch() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            Map<TopicPartition, Long> batch1 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 1)));
+            Map<TopicPartition, Long> batch2 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 2)));
+            Map<TopicPartition, Long> batch3 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 3)));
+            offsetTracker.complete(batch2);
+            offsetTracker.complete(batch3);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).isEmpty();
+            offsetTracker.complete(batch1);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(4));
+        }
+
+        @Test
+        void test_partitions_are_independent() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            Map<TopicPartition, Long> batch1 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 1)));
+            Map<TopicPartition, Long> batch2 = offsetTracker.register(Lists.newArrayList(sinkRecord(1, 10)));
+            offsetTracker.complete(batch2);
+            Map<TopicPartition, OffsetAndMetadata> committableOffsets = offsetTracker.getCommittableOffsets(List.of(PARTITION_0, PARTITION_1));
+            assertThat(committableOffsets).doesNotContainKey(PARTITION_0).containsEntry(PARTITION_1, new OffsetAndMetadata(11));
+            offsetTracker.complete(batch1);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(2));
+        }
+
+        @Test
+        void test_complete_after_partition_revocation() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            Map<TopicPartition, Long> batch1 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 1)));
+            offsetTracker.remove(List.of(PARTITION_0));
+            offsetTracker.complete(batch1);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).isEmpty();
+            assertThat(offsetTracker.getInFlightCount()).isZero();
+        }
+    }
+
+    @Nested
+    class Rewind {
+        @Test
+        void test_committable_offset_does_not_exceed_rewound_offset_until_redelivery() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            Map<TopicPartition, Long> batch1 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 1), sinkRecord(0, 2), sinkRecord(0, 3)));
+            //record 2 is not sent
+            offsetTracker.rewind(PARTITION_0, 2);
+            offsetTracker.complete(batch1);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(2));
+
+            //records redelivered from offset 2
+            Map<TopicPartition, Long> batch2 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 2), sinkRecord(0, 3)));
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(2));
+            offsetTracker.complete(batch2);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(4));
+        }
+
+        @Test
+        void test_batch_registered_before_rewind_and_completed_after_redelivery_is_not_mixed_up() {
+            OffsetTracker offsetTracker = new OffsetTracker();
+            Map<TopicPartition, Long> batch1 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 1), sinkRecord(0, 2)));
+            offsetTracker.rewind(PARTITION_0, 2);
+            //redelivered batch with the same highest offset
+            Map<TopicPartition, Long> batch2 = offsetTracker.register(Lists.newArrayList(sinkRecord(0, 2)));
+            offsetTracker.complete(batch2);
+            //batch1 is still in flight
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).isEmpty();
+            offsetTracker.complete(batch1);
+            assertThat(offsetTracker.getCommittableOffsets(List.of(PARTITION_0))).containsEntry(PARTITION_0, new OffsetAndMetadata(3));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenCircuitPausesTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("myTopic", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("myTopic", 1);
+
+    private static SinkRecord sinkRecord(int partition, long offset) {
+        return new SinkRecord("myTopic", partition, Schema.STRING_SCHEMA, "key", Schema.STRING_SCHEMA, "value", offset);
+    }
+
+    @Nested
+    class Skip {
+        @Test
+        void test_records_after_a_skipped_record_are_skipped() {
+            OpenCircuitPauses openCircuitPauses = new OpenCircuitPauses();
+            openCircuitPauses.skip(PARTITION_0, 5, Instant.now());
+            assertThat(openCircuitPauses.isSkipped(PARTITION_0, 4)).isFalse();
+            assertThat(openCircuitPauses.isSkipped(PARTITION_0, 5)).isTrue();
+            assertThat(openCircuitPauses.isSkipped(PARTITION_0, 6)).isTrue();
+            assertThat(openCircuitPauses.isSkipped(PARTITION_1, 6)).isFalse();
+        }
+
+        @Test
+        void test_partition_is_paused_at_the_first_skipped_offset() {
+            OpenCircuitPauses openCircuitPauses = new OpenCircuitPauses();
+            openCircuitPauses.skip(PARTITION_0, 7, Instant.now());
+            openCircuitPauses.skip(PARTITION_0, 5, Instant.now());
+            assertThat(openCircuitPauses.partitionsToPause()).isEqualTo(Map.of(PARTITION_0, 5L));
+            assertThat(openCircuitPauses.getPausedPartitions()).containsExactly(PARTITION_0);
+            //already paused
+            assertThat(openCircuitPauses.partitionsToPause()).isEmpty();
+        }
+    }
+
+    @Nested
+    class Resume {
+        @Test
+        void test_partition_is_resumed_when_the_circuit_breaker_should_be_half_open() {
+            OpenCircuitPauses openCircuitPauses = new OpenCircuitPauses();
+            Instant until = Instant.now().plusSeconds(10);
+            openCircuitPauses.skip(PARTITION_0, 5, until);
+            openCircuitPauses.partitionsToPause();
+            assertThat(openCircuitPauses.partitionsToResume(until.minusSeconds(1))).isEmpty();
+            assertThat(openCircuitPauses.partitionsToResume(until)).containsExactly(PARTITION_0);
+            assertThat(openCircuitPauses.getPausedPartitions()).isEmpty();
+            //redelivered records are not skipped
+            assertThat(openCircuitPauses.isSkipped(PARTITION_0, 5)).isFalse();
+        }
+    }
+
+    @Nested
+    class Cap {
+        @Test
+        void test_offsets_do_not_exceed_the_first_skipped_offset_until_redelivery() {
+            OpenCircuitPauses openCircuitPauses = new OpenCircuitPauses();
+            Instant until = Instant.now();
+            openCircuitPauses.skip(PARTITION_0, 5, until);
+            Map<TopicPartition, OffsetAndMetadata> offsets = Map.of(PARTITION_0, new OffsetAndMetadata(10), PARTITION_1, new OffsetAndMetadata(10));
+            assertThat(openCircuitPauses.cap(offsets)).isEqualTo(Map.of(PARTITION_0, new OffsetAndMetadata(5), PARTITION_1, new OffsetAndMetadata(10)));
+
+            openCircuitPauses.partitionsToPause();
+            //records received before the rewind is applied
+            openCircuitPauses.confirm(List.of(sinkRecord(0, 5)));
+            assertThat(openCircuitPauses.cap(offsets)).containsEntry(PARTITION_0, new OffsetAndMetadata(5));
+
+            openCircuitPauses.partitionsToResume(until);
+            openCircuitPauses.confirm(List.of(sinkRecord(0, 11)));
+            assertThat(openCircuitPauses.cap(offsets)).containsEntry(PARTITION_0, new OffsetAndMetadata(5));
+            //redelivered record
+            openCircuitPauses.confirm(List.of(sinkRecord(0, 5)));
+            assertThat(openCircuitPauses.cap(offsets)).isEqualTo(offsets);
+        }
+
+        @Test
+        void test_revoked_partitions_are_forgotten() {
+            OpenCircuitPauses openCircuitPauses = new OpenCircuitPauses();
+            openCircuitPauses.skip(PARTITION_0, 5, Instant.now());
+            openCircuitPauses.partitionsToPause();
+            openCircuitPauses.remove(List.of(PARTITION_0));
+            assertThat(openCircuitPauses.getPausedPartitions()).isEmpty();
+            Map<TopicPartition, OffsetAndMetadata> offsets = Map.of(PARTITION_0, new OffsetAndMetadata(10));
+            assertThat(openCircuitPauses.cap(offsets)).isEqualTo(offsets);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.clescot.kafka.connect.http.sink;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.github.clescot.kafka.connect.http.HttpTask;
+import io.github.clescot.kafka.connect.http.core.HttpRequest;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.clescot.kafka.connect.http.sink.HttpConfigDefinition.MESSAGE_SPLITTER_IDS;
+
+/**
+ * measure the cost (time and allocations per batch) of {@link HttpSinkTask#prepareRequests(java.util.Collection)}.
+ * run it with the main method : the GC profiler reports 'gc.alloc.rate.norm', i.e. bytes allocated per batch,
+ * and the results are written as JSON in the file passed as first argument (default 'target/prepare-requests-benchmark.json').
+ * no reference figures are recorded : compare runs on the same machine, before and after a change.
+ * {@link HttpSinkTask#prepareRequests(java.util.Collection)} has the same signature before the single pass preparation :
+ * to measure the previous implementation, copy this class and the JMH test dependencies into a checkout of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrepareRequestsBenchmark {
+
+    private static final String HTTP_REQUEST_AS_STRING = "{\n" +
+            "  \"url\": \"http://www.stuff.com\",\n" +
+            "  \"headers\": {},\n" +
+            "  \"method\": \"POST\",\n" +
+            "  \"bodyAsString\": \"stuff\",\n" +
+            "  \"bodyType\": \"STRING\"\n" +
+            "}";
+
+    @Param({"500"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean withMessageSplitter;
+
+    private OkHttpSinkTask okHttpSinkTask;
+    private List<SinkRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        okHttpSinkTask = new OkHttpSinkTask(new MockProducer<>(true, null, new StringSerializer(), null));
+        okHttpSinkTask.initialize(Mockito.mock(SinkTaskContext.class));
+        Map<String, String> settings = Maps.newHashMap();
+        if (withMessageSplitter) {
+            //never matching splitter, to measure the matching cost
+            settings.put(MESSAGE_SPLITTER_IDS, "test");
+            settings.put("message.splitter.test.matcher", "sinkRecord.topic()=='otherTopic'");
+            settings.put("message.splitter.test.pattern", "\\n");
+        }
+        okHttpSinkTask.start(settings);
+        records = Lists.newArrayListWithCapacity(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            records.add(new SinkRecord("myTopic", 0, Schema.STRING_SCHEMA, "key" + i, Schema.STRING_SCHEMA, HTTP_REQUEST_AS_STRING, i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        okHttpSinkTask.stop();
+        HttpTask.removeCompositeMeterRegistry();
+    }
+
+    @Benchmark
+    public void prepareRequests(Blackhole blackhole) {
+        List<Pair<SinkRecord, HttpRequest>> requests = okHttpSinkTask.prepareRequests(records);
+        blackhole.consume(requests);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PrepareRequestsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : "target/prepare-requests-benchmark.json")
+                .build();
+        new Runner(options).run();
+    }
+}
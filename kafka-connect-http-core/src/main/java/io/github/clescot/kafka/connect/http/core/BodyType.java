@@ -4,7 +4,9 @@ public enum BodyType {
     STRING,
     BYTE_ARRAY,
     FORM,
-    MULTIPART;
+    MULTIPART,
+    //body streamed from a region of a local file, referenced by its URI : the content is never loaded in memory
+    FILE_REFERENCE;
 
     @Override
     public String toString() {
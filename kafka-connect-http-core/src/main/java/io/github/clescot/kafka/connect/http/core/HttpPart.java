@@ -35,7 +35,8 @@ public class HttpPart implements Cloneable, Serializable {
     private HttpPart.BodyType bodyType;
     private Map<String, List<String>> headers = Maps.newHashMap();
     private String contentAsString;
-    private String contentAsByteArray="";
+    //raw bytes : base64 encoding is only applied at the JSON and Struct boundaries
+    private byte[] contentAsByteArray;
     //Map.Entry<parameterName,Map.Entry<parameterValue,Optional<File>>
     private Map.Entry<String, File> contentAsFormEntry;
     public static final int VERSION = 2;
@@ -69,7 +70,7 @@ public class HttpPart implements Cloneable, Serializable {
     public HttpPart(Map<String, List<String>> headers, byte[] contentAsByteArray) {
         this.bodyType = HttpPart.BodyType.BYTE_ARRAY;
         this.headers = headers!=null?headers:Maps.newHashMap();
-        this.contentAsByteArray = Base64.getMimeEncoder().encodeToString(contentAsByteArray);
+        this.contentAsByteArray = contentAsByteArray;
     }
 
     //content as byte array without headers
@@ -118,7 +119,10 @@ public class HttpPart implements Cloneable, Serializable {
     public HttpPart(Struct struct) {
         this.headers = struct.getMap(HEADERS)!=null?struct.getMap(HEADERS): Maps.newHashMap();
         this.bodyType = HttpPart.BodyType.valueOf(struct.getString(BODY_TYPE));
-        this.contentAsByteArray = struct.getString(BODY_AS_BYTE_ARRAY);
+        String encodedContentAsByteArray = struct.getString(BODY_AS_BYTE_ARRAY);
+        if (encodedContentAsByteArray != null && !encodedContentAsByteArray.isEmpty()) {
+            this.contentAsByteArray = Base64.getMimeDecoder().decode(encodedContentAsByteArray);
+        }
         this.contentAsString = struct.getString(BODY_AS_STRING);
         //this.contentAsFormEntry = struct.getMap(BODY_AS_FORM_DATA);
     }
@@ -136,9 +140,13 @@ public class HttpPart implements Cloneable, Serializable {
         return fileUri;
     }
 
+    /**
+     * the content is not copied : it must not be modified after this call.
+     * @param contentAsByteArray raw bytes of the part
+     */
     public void setContentAsByteArray(byte[] contentAsByteArray) {
         if (contentAsByteArray != null) {
-            this.contentAsByteArray = Base64.getEncoder().encodeToString(contentAsByteArray);
+            this.contentAsByteArray = contentAsByteArray;
         }
     }
 
@@ -154,14 +162,21 @@ public class HttpPart implements Cloneable, Serializable {
         return contentAsFormEntry;
     }
 
+    /**
+     * @return raw bytes of the part, not copied : they must not be modified.
+     */
     @JsonInclude(Include.NON_EMPTY)
     public byte[] getContentAsByteArray() {
         if (contentAsByteArray != null) {
-            return Base64.getMimeDecoder().decode(contentAsByteArray);
+            return contentAsByteArray;
         }
         return EMPTY_BYTE_ARRAY;
     }
 
+    private static String encode(byte[] content) {
+        return content != null ? Base64.getEncoder().encodeToString(content) : "";
+    }
+
     public Map<String, List<String>> getHeaders() {
         return headers;
     }
@@ -195,7 +210,7 @@ public class HttpPart implements Cloneable, Serializable {
         return bodyType == httpPart.bodyType
                 && Objects.equals(headers, httpPart.headers)
                 && Objects.equals(contentAsString, httpPart.contentAsString)
-                && Objects.deepEquals(contentAsByteArray, httpPart.contentAsByteArray)
+                && Arrays.equals(getContentAsByteArray(), httpPart.getContentAsByteArray())
                 && Objects.equals(contentAsFormEntry, httpPart.contentAsFormEntry)
                 && Objects.equals(fileUri, httpPart.fileUri)
                 ;
@@ -203,7 +218,7 @@ public class HttpPart implements Cloneable, Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(bodyType, headers,contentAsString, contentAsByteArray, contentAsFormEntry,fileUri);
+        return Objects.hash(bodyType, headers,contentAsString, Arrays.hashCode(getContentAsByteArray()), contentAsFormEntry,fileUri);
     }
 
     @Override
@@ -212,7 +227,7 @@ public class HttpPart implements Cloneable, Serializable {
                 "bodyType:\"" + bodyType +
                 "\", headers:" + headers +
                 ", \"contentAsString\":" + contentAsString + '\"' +
-                ", \"contentAsByteArray\":\"" + contentAsByteArray + "\"" +
+                ", \"contentAsByteArray\":\"" + encode(contentAsByteArray) + "\"" +
                 ", \"contentAsForm\":\"" + contentAsFormEntry + "\"" +
                 ", \"fileUri\":\"" + fileUri + "\"" +
                 '}';
@@ -224,7 +239,7 @@ public class HttpPart implements Cloneable, Serializable {
         struct.put(BODY_TYPE, getBodyType().name());
         struct.put(BODY_AS_STRING, contentAsString);
         struct.put(BODY_AS_FORM_DATA, contentAsFormEntry);
-        struct.put(BODY_AS_BYTE_ARRAY, contentAsByteArray);
+        struct.put(BODY_AS_BYTE_ARRAY, encode(contentAsByteArray));
         struct.put(FILE_URI, fileUri);
         return struct;
     }
@@ -261,7 +276,7 @@ public class HttpPart implements Cloneable, Serializable {
             case STRING:
                 return contentAsString != null ? contentAsString.length() : 0;
             case BYTE_ARRAY:
-                return contentAsByteArray != null ? getContentAsByteArray().length : 0;
+                return contentAsByteArray != null ? contentAsByteArray.length : 0;
             case FORM_DATA,FORM_DATA_AS_REFERENCE:
                 return contentAsFormEntry != null && contentAsFormEntry.getValue() != null ? contentAsFormEntry.getValue().length() : 0;
             default:
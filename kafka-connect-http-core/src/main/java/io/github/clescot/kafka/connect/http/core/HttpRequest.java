@@ -18,11 +18,13 @@ import org.apache.kafka.connect.data.Struct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.Serial;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -45,6 +47,9 @@ public class HttpRequest implements Request, Cloneable, Serializable {
     public static final String BODY_AS_STRING_FIELD = "bodyAsString";
     public static final String BODY_AS_BYTE_ARRAY_FIELD = "bodyAsByteArray";
     public static final String BODY_AS_FORM_FIELD = "bodyAsForm";
+    public static final String BODY_FILE_URI_FIELD = "bodyFileUri";
+    public static final String BODY_FILE_OFFSET_FIELD = "bodyFileOffset";
+    public static final String BODY_FILE_LENGTH_FIELD = "bodyFileLength";
     public static final String PARTS_FIELD = "parts";
     public static final String ATTRIBUTES_FIELD = "attributes";
 
@@ -67,8 +72,16 @@ public class HttpRequest implements Request, Cloneable, Serializable {
     @JsonProperty
     private String bodyAsString = "";
     @JsonProperty
-    //byte array is base64 encoded as as String, as JSON is a text format not binary
-    private String bodyAsByteArray = "";
+    //raw bytes : base64 encoding is only applied at the JSON and Struct boundaries, as they are text formats
+    private byte[] bodyAsByteArray;
+    //body as a reference to a region of a local file, streamed by the HTTP client
+    @JsonProperty
+    private URI bodyFileUri;
+    @JsonProperty
+    private Long bodyFileOffset;
+    //null means up to the end of the file
+    @JsonProperty
+    private Long bodyFileLength;
     private Instant retryAfterInstant;
     @JsonProperty
     private Map<String, HttpPart> parts = Maps.newHashMap();
@@ -86,6 +99,9 @@ public class HttpRequest implements Request, Cloneable, Serializable {
             .field(BODY_AS_BYTE_ARRAY_FIELD, Schema.OPTIONAL_STRING_SCHEMA)
             .field(BODY_AS_FORM_FIELD, SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.STRING_SCHEMA).optional().schema())
             .field(BODY_AS_STRING_FIELD, Schema.OPTIONAL_STRING_SCHEMA)
+            .field(BODY_FILE_URI_FIELD, Schema.OPTIONAL_STRING_SCHEMA)
+            .field(BODY_FILE_OFFSET_FIELD, Schema.OPTIONAL_INT64_SCHEMA)
+            .field(BODY_FILE_LENGTH_FIELD, Schema.OPTIONAL_INT64_SCHEMA)
             .field(PARTS_FIELD, SchemaBuilder.map(Schema.STRING_SCHEMA, HttpPart.SCHEMA).optional().schema())
             .field(ATTRIBUTES_FIELD, SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.STRING_SCHEMA).optional().schema())
             .schema();
@@ -154,9 +170,21 @@ public class HttpRequest implements Request, Cloneable, Serializable {
 
         this.bodyType = BodyType.valueOf(Optional.ofNullable(requestAsstruct.getString(BODY_TYPE_FIELD)).orElse(BodyType.STRING.name()));
 
-        this.bodyAsByteArray = requestAsstruct.getString(BODY_AS_BYTE_ARRAY_FIELD);
+        String encodedBodyAsByteArray = requestAsstruct.getString(BODY_AS_BYTE_ARRAY_FIELD);
+        if (encodedBodyAsByteArray != null && !encodedBodyAsByteArray.isEmpty()) {
+            this.bodyAsByteArray = Base64.getDecoder().decode(encodedBodyAsByteArray);
+        }
         this.bodyAsString = requestAsstruct.getString(BODY_AS_STRING_FIELD);
         this.bodyAsForm = requestAsstruct.getMap(BODY_AS_FORM_FIELD);
+        //structs built with a previous schema have no file reference fields
+        if (requestAsstruct.schema().field(BODY_FILE_URI_FIELD) != null) {
+            String fileUri = requestAsstruct.getString(BODY_FILE_URI_FIELD);
+            if (fileUri != null && !fileUri.isEmpty()) {
+                this.bodyFileUri = URI.create(fileUri);
+                this.bodyFileOffset = requestAsstruct.getInt64(BODY_FILE_OFFSET_FIELD);
+                this.bodyFileLength = requestAsstruct.getInt64(BODY_FILE_LENGTH_FIELD);
+            }
+        }
 
         Map<String, Struct> structs = requestAsstruct.getMap(PARTS_FIELD);
         if (structs != null) {
@@ -316,16 +344,19 @@ public class HttpRequest implements Request, Cloneable, Serializable {
                 && Objects.equals(headers, that.headers)
                 && method.equals(that.method)
                 && bodyType == that.bodyType
-                && Objects.equals(bodyAsByteArray, that.bodyAsByteArray)
+                && Arrays.equals(getBodyAsByteArray(), that.getBodyAsByteArray())
                 && Objects.equals(bodyAsForm, that.bodyAsForm)
                 && Objects.equals(bodyAsString, that.bodyAsString)
+                && Objects.equals(bodyFileUri, that.bodyFileUri)
+                && Objects.equals(bodyFileOffset, that.bodyFileOffset)
+                && Objects.equals(bodyFileLength, that.bodyFileLength)
                 && Objects.deepEquals(parts, that.parts)
                 ;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(url, attributes, headers, method, parts, bodyAsByteArray, bodyAsForm, bodyAsString, bodyType);
+        return Objects.hash(url, attributes, headers, method, parts, Arrays.hashCode(getBodyAsByteArray()), bodyAsForm, bodyAsString, bodyFileUri, bodyFileOffset, bodyFileLength, bodyType);
     }
 
     @Override
@@ -335,9 +366,12 @@ public class HttpRequest implements Request, Cloneable, Serializable {
                 "  url='" + url + '\'' +
                 ", headers=" + headers +
                 ", method=" + method +
-                ", bodyAsByteArray='" + bodyAsByteArray + '\'' +
+                ", bodyAsByteArray='" + encode(bodyAsByteArray) + '\'' +
                 ", bodyAsForm=" + bodyAsForm +
                 ", bodyAsString='" + bodyAsString + '\'' +
+                ", bodyFileUri=" + bodyFileUri +
+                ", bodyFileOffset=" + bodyFileOffset +
+                ", bodyFileLength=" + bodyFileLength +
                 ", parts=" + parts +
                 ", bodyType=" + bodyType +
                 '}';
@@ -350,9 +384,12 @@ public class HttpRequest implements Request, Cloneable, Serializable {
                 .put(HEADERS_FIELD, this.getHeaders())
                 .put(METHOD_FIELD, this.getMethod().name())
                 .put(BODY_TYPE_FIELD, this.getBodyType().name())
-                .put(BODY_AS_BYTE_ARRAY_FIELD, this.bodyAsByteArray)
+                .put(BODY_AS_BYTE_ARRAY_FIELD, encode(this.bodyAsByteArray))
                 .put(BODY_AS_FORM_FIELD, this.getBodyAsForm())
                 .put(BODY_AS_STRING_FIELD, this.getBodyAsString())
+                .put(BODY_FILE_URI_FIELD, this.bodyFileUri != null ? this.bodyFileUri.toString() : null)
+                .put(BODY_FILE_OFFSET_FIELD, this.bodyFileOffset)
+                .put(BODY_FILE_LENGTH_FIELD, this.bodyFileLength)
                 .put(PARTS_FIELD,
                         this.getParts().entrySet().stream()
                                 .collect(
@@ -368,9 +405,13 @@ public class HttpRequest implements Request, Cloneable, Serializable {
         this.bodyType = BodyType.STRING;
     }
 
+    /**
+     * the content is not copied : it must not be modified after this call.
+     * @param content raw bytes of the body
+     */
     public void setBodyAsByteArray(byte[] content) {
         if (content != null && content.length > 0) {
-            bodyAsByteArray = Base64.getEncoder().encodeToString(content);
+            bodyAsByteArray = content;
             bodyType = BodyType.BYTE_ARRAY;
 
             //if no Content-Type is set, we set the default application/octet-stream
@@ -380,6 +421,64 @@ public class HttpRequest implements Request, Cloneable, Serializable {
         }
     }
 
+    /**
+     * the body is a region of a local file, streamed by the HTTP client without being loaded in memory.
+     * @param fileUri 'file' URI of the body content
+     * @param offset position of the first byte of the body in the file
+     * @param length length of the body. null means up to the end of the file
+     */
+    public void setBodyAsFileReference(URI fileUri, long offset, Long length) {
+        Preconditions.checkNotNull(fileUri, "'fileUri' is required");
+        Preconditions.checkArgument("file".equalsIgnoreCase(fileUri.getScheme()), "'fileUri' must be a 'file' URI : '%s'", fileUri);
+        Preconditions.checkArgument(offset >= 0, "'offset' must be positive or zero");
+        Preconditions.checkArgument(length == null || length >= 0, "'length' must be positive or zero");
+        this.bodyFileUri = fileUri;
+        this.bodyFileOffset = offset;
+        this.bodyFileLength = length;
+        this.bodyType = BodyType.FILE_REFERENCE;
+        //if no Content-Type is set, we set the default application/octet-stream
+        if (headers != null && doesNotContainHeader(MediaType.KEY)) {
+            headers.put(MediaType.KEY, Lists.newArrayList(MediaType.APPLICATION_OCTET_STREAM));
+        }
+    }
+
+    public URI getBodyFileUri() {
+        return bodyFileUri;
+    }
+
+    /**
+     * @return position of the first byte of the body in the file. null if the body is not a file reference.
+     */
+    public Long getBodyFileOffset() {
+        return bodyFileOffset;
+    }
+
+    public Long getBodyFileLength() {
+        return bodyFileLength;
+    }
+
+    /**
+     * @return position of the first byte of the file region of the body : the offset if set, or 0.
+     */
+    @JsonIgnore
+    public long getBodyFileRegionOffset() {
+        return Optional.ofNullable(bodyFileOffset).orElse(0L);
+    }
+
+    /**
+     * @return length of the file region of the body : the length if set, or the remaining bytes of the file after the offset.
+     */
+    @JsonIgnore
+    public long getBodyFileRegionLength() {
+        if (bodyFileUri == null) {
+            return 0;
+        }
+        if (bodyFileLength != null) {
+            return bodyFileLength;
+        }
+        return Math.max(0, new File(bodyFileUri).length() - getBodyFileRegionOffset());
+    }
+
     private boolean doesNotContainHeader(String key) {
         return headers.keySet().stream().filter(k -> k.equalsIgnoreCase(key)).findAny().isEmpty();
     }
@@ -389,7 +488,7 @@ public class HttpRequest implements Request, Cloneable, Serializable {
         if (BodyType.STRING == bodyType) {
             return bodyAsString != null ? bodyAsString.length() : 0;
         } else if (BodyType.BYTE_ARRAY == bodyType) {
-            return bodyAsByteArray != null ? getBodyAsByteArray().length : 0;
+            return bodyAsByteArray != null ? bodyAsByteArray.length : 0;
         } else if (BodyType.FORM == bodyType) {
             return bodyAsForm != null ?
                     bodyAsForm
@@ -400,18 +499,36 @@ public class HttpRequest implements Request, Cloneable, Serializable {
                             .reduce(Integer::sum).orElse(0) : 0;
         } else if (BodyType.MULTIPART == bodyType) {
             return parts.values().stream().mapToLong(HttpPart::getBodyContentLength).sum();
+        } else if (BodyType.FILE_REFERENCE == bodyType) {
+            return getBodyFileRegionLength();
         }
         return 0;
     }
 
+    /**
+     * @return raw bytes of the body, not copied : they must not be modified. null if there is no body as byte array.
+     */
     @JsonIgnore
     public byte[] getBodyAsByteArray() {
-        if (bodyAsByteArray != null && !bodyAsByteArray.isEmpty()) {
-            return Base64.getDecoder().decode(bodyAsByteArray);
+        if (bodyAsByteArray != null && bodyAsByteArray.length > 0) {
+            return bodyAsByteArray;
         }
         return null;
     }
 
+    /**
+     * @return read-only view of the body as byte array, without copy. null if there is no body as byte array.
+     */
+    @JsonIgnore
+    public ByteBuffer getBodyAsByteBuffer() {
+        byte[] content = getBodyAsByteArray();
+        return content != null ? ByteBuffer.wrap(content).asReadOnlyBuffer() : null;
+    }
+
+    private static String encode(byte[] content) {
+        return content != null ? Base64.getEncoder().encodeToString(content) : "";
+    }
+
 
     public void setBodyAsForm(Map<String, String> form) {
         this.bodyAsForm = form;
@@ -527,7 +644,12 @@ public class HttpRequest implements Request, Cloneable, Serializable {
         } else if (BodyType.BYTE_ARRAY == bodyType) {
             harRequestBuilder.postData(HarPostData.builder()
                     .mimeType(this.getContentType())
-                    .text(this.bodyAsByteArray)
+                    .text(encode(this.bodyAsByteArray))
+                    .build());
+        } else if (BodyType.FILE_REFERENCE == bodyType) {
+            //the content of the file is not embedded in the HAR
+            harRequestBuilder.postData(HarPostData.builder()
+                    .mimeType(this.getContentType())
                     .build());
         } else if (BodyType.FORM == bodyType) {
             if (this.getBodyAsForm() != null && !this.getBodyAsForm().isEmpty()) {
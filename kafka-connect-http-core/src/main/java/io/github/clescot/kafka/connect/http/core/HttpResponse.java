@@ -44,6 +44,8 @@ public class HttpResponse implements Response, Cloneable, Serializable {
     public static final String BODY_AS_FORM_FIELD = "bodyAsForm";
     public static final String PARTS_FIELD = "parts";
     public static final String ATTRIBUTES_FIELD = "attributes";
+    //attribute set when the body has been truncated to the body limit while reading it
+    public static final String BODY_TRUNCATED_ATTRIBUTE = "body.truncated";
     //cf https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Retry-After
     //regex to match 503 (Internal Server Error), 429(Too Many Requests), 301(Moved Permanently) HTTP response status code
     public static final String RFC_7231_PATTERN = "EEE, dd MMM yyyy HH:mm:ss O";
@@ -455,6 +457,21 @@ public class HttpResponse implements Response, Cloneable, Serializable {
         return attributes;
     }
 
+    /**
+     * flag the body as truncated to the body limit.
+     */
+    public void markBodyAsTruncated() {
+        if (attributes == null) {
+            attributes = Maps.newHashMap();
+        }
+        attributes.put(BODY_TRUNCATED_ATTRIBUTE, Boolean.TRUE.toString());
+    }
+
+    @JsonIgnore
+    public boolean isBodyTruncated() {
+        return attributes != null && Boolean.parseBoolean(String.valueOf(attributes.get(BODY_TRUNCATED_ATTRIBUTE)));
+    }
+
     public static HttpResponse fromHarResponse(HarResponse response){
         HttpResponse httpResponse = new HttpResponse(response.status(), response.statusText());
         httpResponse.setProtocol(response.httpVersion());
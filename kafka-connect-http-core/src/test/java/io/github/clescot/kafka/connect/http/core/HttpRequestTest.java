@@ -30,9 +30,12 @@ import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 import static io.github.clescot.kafka.connect.http.core.HttpRequest.BODY_AS_BYTE_ARRAY_FIELD;
@@ -329,6 +332,33 @@ class HttpRequestTest {
             assertThat(parsedHttpRequest).isEqualTo(expectedHttpRequest);
         }
 
+        @Test
+        void test_deserialization_with_file_reference() throws JsonProcessingException {
+            ObjectMapper objectMapper = new ObjectMapper();
+            objectMapper.registerModule(new JavaTimeModule());
+            HttpRequest expectedHttpRequest = new HttpRequest(
+                    "http://www.stuff.com",
+                    HttpRequest.Method.POST
+            );
+            expectedHttpRequest.setBodyAsFileReference(URI.create("file:///tmp/stuff.bin"), 1024, 2048L);
+
+            String httpRequestAsString = """
+                    {
+                      "url": "http://www.stuff.com",
+                      "headers":{"Content-Type":["application/octet-stream"]},
+                      "method": "POST",
+                      "bodyFileUri": "file:///tmp/stuff.bin",
+                      "bodyFileOffset": 1024,
+                      "bodyFileLength": 2048,
+                      "bodyType": "FILE_REFERENCE"
+                    }
+                    """;
+
+            HttpRequest parsedHttpRequest = objectMapper.readValue(httpRequestAsString, HttpRequest.class);
+            assertThat(parsedHttpRequest).isEqualTo(expectedHttpRequest);
+            assertThat(parsedHttpRequest.getBodyContentLength()).isEqualTo(2048);
+        }
+
         @Test
         void test_deserialization_with_byte_array_and_attributes() throws JsonProcessingException {
             ObjectMapper objectMapper = new ObjectMapper();
@@ -743,6 +773,49 @@ class HttpRequestTest {
             assertThat(httpRequest.getBodyAsByteArray()).isEqualTo(DUMMY_BODY_AS_STRING.getBytes(StandardCharsets.UTF_8));
         }
 
+        @Test
+        void test_body_as_byte_array_is_raw_and_base64_encoded_only_in_struct() {
+            //given
+            byte[] content = DUMMY_BODY_AS_STRING.getBytes(StandardCharsets.UTF_8);
+            HttpRequest httpRequest = new HttpRequest("http://stuff.com", HttpRequest.Method.POST);
+
+            //when
+            httpRequest.setBodyAsByteArray(content);
+
+            //then
+            assertThat(httpRequest.getBodyAsByteArray()).isSameAs(content);
+            assertThat(httpRequest.getBodyContentLength()).isEqualTo(content.length);
+            assertThat(httpRequest.getBodyAsByteBuffer().isReadOnly()).isTrue();
+            assertThat(httpRequest.getBodyAsByteBuffer().remaining()).isEqualTo(content.length);
+            Struct struct = httpRequest.toStruct();
+            assertThat(struct.getString(BODY_AS_BYTE_ARRAY_FIELD)).isEqualTo(Base64.getEncoder().encodeToString(content));
+            assertThat(new HttpRequest(struct)).isEqualTo(httpRequest);
+        }
+
+        @Test
+        void test_with_struct_and_file_reference() {
+            //given
+            HttpRequest httpRequest = new HttpRequest("http://stuff.com", HttpRequest.Method.PUT);
+            httpRequest.setBodyAsFileReference(URI.create("file:///tmp/stuff.bin"), 10, null);
+
+            //when
+            Struct struct = httpRequest.toStruct();
+
+            //then
+            assertThat(struct.getString(HttpRequest.BODY_FILE_URI_FIELD)).isEqualTo("file:///tmp/stuff.bin");
+            HttpRequest httpRequestFromStruct = new HttpRequest(struct);
+            assertThat(httpRequestFromStruct).isEqualTo(httpRequest);
+            assertThat(httpRequestFromStruct.getBodyType()).isEqualTo(BodyType.FILE_REFERENCE);
+            assertThat(httpRequestFromStruct.getBodyFileRegionOffset()).isEqualTo(10);
+        }
+
+        @Test
+        void test_with_non_file_uri_as_file_reference() {
+            HttpRequest httpRequest = new HttpRequest("http://stuff.com", HttpRequest.Method.PUT);
+            URI uri = URI.create("http://stuff.com/stuff.bin");
+            Assertions.assertThrows(IllegalArgumentException.class, () -> httpRequest.setBodyAsFileReference(uri, 0, null));
+        }
+
         @Test
         void test_with_struct_and_parts_nominal_case() {
             //given
@@ -1205,6 +1278,23 @@ class HttpRequestTest {
             long headersLength = httpRequest.getHeadersLength();
             assertThat(length).isEqualTo(headersLength+DUMMY_BODY_AS_STRING.getBytes(StandardCharsets.UTF_8).length);
         }
+
+        @Test
+        void test_get_length_with_body_as_file_reference_up_to_the_end_of_the_file() throws IOException {
+            //given
+            Path file = Files.createTempFile("body", ".txt");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, "header-" + DUMMY_BODY_AS_STRING);
+            HttpRequest httpRequest = new HttpRequest(
+                    "http://www.stuff.com",
+                    HttpRequest.Method.POST
+            );
+            httpRequest.setBodyAsFileReference(file.toUri(), "header-".length(), null);
+            //when
+            long length = httpRequest.getBodyContentLength();
+            //then
+            assertThat(length).isEqualTo(DUMMY_BODY_AS_STRING.length());
+        }
     }
     @Nested
     class TestGetBoundary{